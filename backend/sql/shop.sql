@@ -15,7 +15,8 @@ CREATE TABLE IF NOT EXISTS `products` (
   KEY `idx_name` (`name`),
   KEY `idx_visible` (`visible`),
   KEY `idx_price` (`price`),
-  KEY `idx_created_at` (`created_at`)
+  KEY `idx_created_at` (`created_at`),
+  KEY `idx_updated_at` (`updated_at`, `id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=22 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Products table';
 
 CREATE TABLE IF NOT EXISTS `cart_items` (
@@ -46,6 +47,52 @@ CREATE TABLE IF NOT EXISTS `carts` (
   UNIQUE KEY `uk_user_id` (`user_id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=18 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Carts table';
 
+CREATE TABLE IF NOT EXISTS `stock_reservations` (
+  `cart_id` bigint(20) NOT NULL COMMENT 'Cart ID',
+  `product_id` bigint(20) NOT NULL COMMENT 'Product ID',
+  `quantity` int(11) NOT NULL COMMENT 'Units held',
+  `expires_at` datetime(3) NOT NULL COMMENT 'Hold expiry time',
+  PRIMARY KEY (`cart_id`,`product_id`),
+  KEY `idx_expires_at` (`expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Stock reservations table (shop.inventory.mode=reservation)';
+
+CREATE TABLE IF NOT EXISTS `stock_journal_checkpoints` (
+  `journal` varchar(64) NOT NULL COMMENT 'Journal name',
+  `applied_segment` bigint(20) NOT NULL COMMENT 'Last journal segment applied to products.quantity',
+  `updated_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Updated time',
+  PRIMARY KEY (`journal`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Stock journal checkpoints (shop.inventory.mode=memory)';
+
+CREATE TABLE IF NOT EXISTS `hot_products` (
+  `product_id` bigint(20) NOT NULL COMMENT 'Product ID',
+  `buckets` int(11) NOT NULL COMMENT 'Number of stock buckets',
+  `mirrored_quantity` int(11) NOT NULL COMMENT 'Bucket total last written to products.quantity',
+  `created_at` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'Created time',
+  PRIMARY KEY (`product_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Products whose stock is split over bucket rows';
+
+CREATE TABLE IF NOT EXISTS `product_stock_buckets` (
+  `product_id` bigint(20) NOT NULL COMMENT 'Product ID',
+  `bucket` int(11) NOT NULL COMMENT 'Bucket number',
+  `quantity` int(11) NOT NULL COMMENT 'Units in this bucket',
+  PRIMARY KEY (`product_id`,`bucket`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Stock buckets of hot products';
+
+CREATE TABLE IF NOT EXISTS `stock_leases` (
+  `node_id` varchar(64) NOT NULL COMMENT 'Instance holding the lease',
+  `product_id` bigint(20) NOT NULL COMMENT 'Product ID',
+  `quantity` int(11) NOT NULL COMMENT 'Unsold units at the last renewal',
+  `expires_at` datetime(3) NOT NULL COMMENT 'Lease expiry time',
+  PRIMARY KEY (`node_id`,`product_id`),
+  KEY `idx_expires_at` (`expires_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Stock leases (shop.inventory.mode=lease)';
+
+CREATE TABLE IF NOT EXISTS `catalog_versions` (
+  `id` tinyint(4) NOT NULL COMMENT 'Always 1',
+  `version` bigint(20) NOT NULL COMMENT 'Bumped after committed catalog changes',
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Catalog version shared by all instances (ETags)';
+
 -- Insert sample data
 INSERT INTO products (name, price, quantity, visible) VALUES
 ('Cash Money Gun', 43.00, 38, TRUE),
@@ -0,0 +1,86 @@
+package com.example.common.config;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.spring.boot.autoconfigure.DruidDataSourceBuilder;
+import com.example.common.datasource.ReadWriteRoutingDataSource;
+import com.example.common.datasource.ReadYourWritesFilter;
+import com.example.common.datasource.ReadYourWritesPin;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Primary/Replica DataSource Configuration
+ * Active with {@code shop.datasource.replica.enabled=true}. Both Druid pools take the
+ * {@code spring.datasource.druid} settings; the replica pool then applies its overrides
+ * ({@code url}, {@code username}, {@code password}, pool sizes) from {@code shop.datasource.replica}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "shop.datasource.replica", name = "enabled", havingValue = "true")
+public class ReadWriteDataSourceConfig {
+
+    private static final String DRUID_PREFIX = "spring.datasource.druid";
+
+    private static final String REPLICA_PREFIX = "shop.datasource.replica";
+
+    /**
+     * Same pool as the default single-DataSource setup, bound to {@code spring.datasource.druid}
+     */
+    @Bean(initMethod = "init", destroyMethod = "close")
+    public DruidDataSource primaryDataSource() {
+        DruidDataSource dataSource = DruidDataSourceBuilder.create().build();
+        dataSource.setName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Plain DruidDataSource bound by hand: the builder's bean binds itself to the Druid prefix
+     * after creation, which would undo the replica overrides
+     */
+    @Bean(initMethod = "init", destroyMethod = "close")
+    public DruidDataSource replicaDataSource(Environment environment) {
+        DruidDataSource dataSource = new DruidDataSource();
+        Binder binder = Binder.get(environment);
+        binder.bind(DRUID_PREFIX, Bindable.ofInstance(dataSource));
+        binder.bind(REPLICA_PREFIX, Bindable.ofInstance(dataSource));
+        dataSource.setName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesPin readYourWritesPin(
+            @Value("${shop.datasource.replica.read-your-writes-millis:3000}") long pinMillis,
+            @Value("${shop.datasource.replica.max-pinned-clients:100000}") long maxPinnedClients) {
+        return new ReadYourWritesPin(Duration.ofMillis(pinMillis), maxPinnedClients);
+    }
+
+    /**
+     * The DataSource seen by MyBatis and the transaction manager
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(DruidDataSource primaryDataSource, DruidDataSource replicaDataSource,
+                                 ReadYourWritesPin readYourWritesPin) {
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, readYourWritesPin));
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter() {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(new ReadYourWritesFilter());
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.common.datasource;
+
+/**
+ * Target Pool of a Routed Connection
+ */
+public enum DataSourceRole {
+    /**
+     * Primary database, all writes and anything that must see them
+     */
+    PRIMARY,
+    /**
+     * Read replica, read-only transactions
+     */
+    REPLICA
+}
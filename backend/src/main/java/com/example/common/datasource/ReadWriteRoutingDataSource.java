@@ -0,0 +1,60 @@
+package com.example.common.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Primary/Replica Routing DataSource
+ * Read-only transactions go to the replica unless the current client wrote within the pin window;
+ * everything else goes to the primary. The decision reads the transaction's read-only flag, which
+ * Spring sets only after the transaction manager asked for a connection, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReadYourWritesPin pin;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesPin pin) {
+        this.pin = pin;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceRole.PRIMARY, primary);
+        targets.put(DataSourceRole.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRole();
+    }
+
+    /**
+     * Role for a connection requested now
+     */
+    DataSourceRole currentRole() {
+        if (pin.isReplicaRead()) {
+            return DataSourceRole.REPLICA;
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Pinned client
+            return DataSourceRole.PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A writing transaction: pin the client once it commits
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pin.pinCurrentClient();
+                }
+            });
+        }
+        return DataSourceRole.PRIMARY;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.common.datasource;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Identifies the Client of a Request for {@link ReadYourWritesPin}
+ * Uses the X-User-ID header (the cart user), falling back to the remote address.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final String USER_ID_HEADER = "X-User-ID";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String userId = request.getHeader(USER_ID_HEADER);
+        ReadYourWritesPin.setCurrentClient(userId != null && !userId.isEmpty() ? "u:" + userId : "a:" + request.getRemoteAddr());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWritesPin.clearCurrentClient();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.common.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Read-Your-Writes Pin
+ * After a client commits a write, its reads go to the primary for a short while so they are not
+ * served by a replica that has not applied the write yet. The client of the current request is
+ * kept in a thread-local set by {@link ReadYourWritesFilter}.
+ */
+public class ReadYourWritesPin {
+
+    private static final ThreadLocal<String> CURRENT_CLIENT = new ThreadLocal<>();
+
+    /**
+     * Pinned client -> marker, entries expire after the pin duration
+     */
+    private final Cache<String, Boolean> pinnedClients;
+
+    public ReadYourWritesPin(Duration pinDuration, long maximumClients) {
+        this.pinnedClients = Caffeine.newBuilder()
+                .expireAfterWrite(pinDuration)
+                .maximumSize(maximumClients)
+                .build();
+    }
+
+    /**
+     * Bind the client of the current request to this thread
+     */
+    public static void setCurrentClient(String client) {
+        CURRENT_CLIENT.set(client);
+    }
+
+    /**
+     * Client of the current request, null outside a request
+     */
+    public static String getCurrentClient() {
+        return CURRENT_CLIENT.get();
+    }
+
+    public static void clearCurrentClient() {
+        CURRENT_CLIENT.remove();
+    }
+
+    /**
+     * Pin the current client to the primary (no-op outside a request)
+     */
+    public void pinCurrentClient() {
+        String client = CURRENT_CLIENT.get();
+        if (client != null) {
+            pinnedClients.put(client, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Whether a connection requested now goes to the replica: a read-only transaction of a client that
+     * did not write recently. What it reads may lag behind the primary and must not be shared as current.
+     */
+    public boolean isReplicaRead() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !isCurrentClientPinned();
+    }
+
+    /**
+     * Whether the current client wrote recently
+     */
+    public boolean isCurrentClientPinned() {
+        String client = CURRENT_CLIENT.get();
+        return client != null && pinnedClients.getIfPresent(client) != null;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.common.req;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Change Feed Watermark
+ * Position of the last change handed out in {@code ORDER BY updated_at, id} order,
+ * exchanged with clients as an opaque URL-safe token.
+ */
+@Getter
+public final class ChangeWatermark {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Update Time of the Last Change
+     */
+    private final LocalDateTime updatedAt;
+
+    /**
+     * ID of the Last Change
+     */
+    private final Long id;
+
+    public ChangeWatermark(LocalDateTime updatedAt, Long id) {
+        this.updatedAt = updatedAt;
+        this.id = id;
+    }
+
+    /**
+     * Encode as opaque token
+     */
+    public String encode() {
+        String raw = updatedAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode an opaque token, a blank token means "from the beginning" and yields null
+     */
+    public static ChangeWatermark decode(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator <= 0) {
+                throw new BusinessException(ErrorCode.PARAM_INVALID, "Invalid watermark");
+            }
+            return new ChangeWatermark(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "Invalid watermark", e);
+        }
+    }
+}
@@ -29,6 +29,20 @@ public class PageRequest {
     @ApiModelProperty(value = "Page Size", example = "10", notes = "Maximum 100")
     private Integer pageSize = 10;
     
+    /**
+     * Cursor (Keyset) Pagination Token
+     * null = offset pagination by pageNum, empty = first cursor page, otherwise the nextCursor of the previous page
+     */
+    @ApiModelProperty(value = "Cursor Pagination Token", example = "", notes = "Empty starts cursor pagination; then pass the returned nextCursor. pageNum is ignored and no total is computed")
+    private String cursor;
+    
+    /**
+     * Accept an Approximate Total
+     * true = never wait for a COUNT query, the last known (or lower-bound) total is returned and flagged
+     */
+    @ApiModelProperty(value = "Approximate Total", example = "false", notes = "true skips the COUNT query; pagination.approximate tells whether the total is estimated")
+    private Boolean estimate;
+    
     public PageRequest() {}
     
     public PageRequest(Integer pageNum, Integer pageSize) {
@@ -0,0 +1,64 @@
+package com.example.common.req;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset (Seek) Pagination Cursor
+ * Position of the last row of a page in {@code ORDER BY created_at DESC, id DESC} order,
+ * exchanged with clients as an opaque URL-safe token.
+ */
+@Getter
+public final class SeekCursor {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Creation Time of the Last Row
+     */
+    private final LocalDateTime createdAt;
+
+    /**
+     * ID of the Last Row
+     */
+    private final Long id;
+
+    public SeekCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * Encode as opaque token
+     */
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode an opaque token, a blank token means "first page" and yields null
+     */
+    public static SeekCursor decode(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator <= 0) {
+                throw new BusinessException(ErrorCode.PARAM_INVALID, "Invalid cursor");
+            }
+            return new SeekCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "Invalid cursor", e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.common.resp;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Data;
@@ -62,6 +63,27 @@ public class PageResponse<T> {
         @ApiModelProperty(value = "Total Page Count", example = "10")
         private Integer totalPages;
         
+        /**
+         * Continuation Token of the Next Page (cursor pagination only)
+         */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        @ApiModelProperty(value = "Next Page Cursor", notes = "Only in cursor pagination, absent on the last page")
+        private String nextCursor;
+        
+        /**
+         * Whether More Rows Follow (cursor pagination only)
+         */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        @ApiModelProperty(value = "Has More Rows", example = "true", notes = "Only in cursor pagination")
+        private Boolean hasMore;
+        
+        /**
+         * Whether Total Is Approximate (estimate requests only)
+         */
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        @ApiModelProperty(value = "Total Is Approximate", example = "false", notes = "Only when an estimated total was requested")
+        private Boolean approximate;
+        
         public Pagination() {
         }
         
@@ -71,5 +93,16 @@ public class PageResponse<T> {
             this.total = total;
             this.totalPages = (int) Math.ceil((double) total / pageSize);
         }
+        
+        /**
+         * Cursor pagination information, no page number and no total
+         */
+        public static Pagination ofCursor(Integer pageSize, String nextCursor) {
+            Pagination pagination = new Pagination();
+            pagination.setPageSize(pageSize);
+            pagination.setNextCursor(nextCursor);
+            pagination.setHasMore(nextCursor != null);
+            return pagination;
+        }
     }
 } 
\ No newline at end of file
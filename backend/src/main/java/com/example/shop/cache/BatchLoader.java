@@ -0,0 +1,146 @@
+package com.example.shop.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Batches Independent Single-Key Loads into One Multi-Key Load
+ * The first caller to find no open batch opens one and waits up to the window for others to join;
+ * the batch is then dispatched as a single {@code loadAll} call on that caller's thread, or earlier
+ * by whichever caller fills it to the maximum size. Every caller gets the value for its own key
+ * (null when absent). No extra threads are involved: the first caller pays the window as latency.
+ */
+public final class BatchLoader<K, V> {
+
+    private final Function<List<K>, List<V>> loadAll;
+
+    private final Function<V, K> keyOf;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final Object lock = new Object();
+
+    /**
+     * Batch accepting keys, null when none is open
+     */
+    private Batch<K, V> open;
+
+    public BatchLoader(Function<List<K>, List<V>> loadAll, Function<V, K> keyOf, long window, TimeUnit unit, int maxBatchSize) {
+        this.loadAll = loadAll;
+        this.keyOf = keyOf;
+        this.windowNanos = unit.toNanos(window);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Load one key as part of the next batch
+     */
+    public V load(K key) {
+        Batch<K, V> batch;
+        boolean leader = false;
+        boolean full = false;
+        synchronized (lock) {
+            if (open == null) {
+                open = new Batch<>(Thread.currentThread());
+                leader = true;
+            }
+            batch = open;
+            batch.keys.add(key);
+            if (batch.keys.size() >= maxBatchSize) {
+                open = null;
+                full = true;
+            }
+        }
+        if (full) {
+            // Wake the waiting first caller, its batch is being dispatched here
+            LockSupport.unpark(batch.leader);
+            dispatch(batch);
+        } else if (leader) {
+            long deadline = System.nanoTime() + windowNanos;
+            long remaining;
+            while (isOpen(batch) && (remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+            if (close(batch)) {
+                dispatch(batch);
+            }
+        }
+        return await(batch, key);
+    }
+
+    private boolean isOpen(Batch<K, V> batch) {
+        synchronized (lock) {
+            return open == batch;
+        }
+    }
+
+    /**
+     * Stop the batch from taking more keys, true if it was still open (so the caller dispatches it)
+     */
+    private boolean close(Batch<K, V> batch) {
+        synchronized (lock) {
+            if (open == batch) {
+                open = null;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        try {
+            List<K> keys;
+            synchronized (lock) {
+                keys = new ArrayList<>(batch.keys);
+            }
+            Map<K, V> values = new HashMap<>(keys.size() * 2);
+            for (V value : loadAll.apply(keys)) {
+                values.put(keyOf.apply(value), value);
+            }
+            batch.result.complete(values);
+        } catch (RuntimeException | Error e) {
+            batch.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static <K, V> V await(Batch<K, V> batch, K key) {
+        try {
+            return batch.result.join().get(key);
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Keys Collected for One loadAll Call
+     */
+    private static final class Batch<K, V> {
+
+        private final Thread leader;
+
+        private final List<K> keys = new ArrayList<>();
+
+        private final CompletableFuture<Map<K, V>> result = new CompletableFuture<>();
+
+        private Batch(Thread leader) {
+            this.leader = leader;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.example.shop.cache;
+
+import com.example.common.datasource.ReadYourWritesPin;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.model.entity.Product;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-Through Caching Decorator for ProductDao
+ * selectById/selectByIds are served from {@link ProductCache}; every write evicts the touched
+ * products immediately and again after the surrounding transaction completes. Rows read inside a
+ * writing transaction may be uncommitted and are never cached, and a load that overlapped an eviction
+ * is not stored either, so the cache never keeps a row older than the last committed write.
+ * Reads routed to a lagging replica may predate a committed write too: they are served from the cache
+ * when it has the row, but what they load is never cached and only shared with other replica reads.
+ * Concurrent misses for the same ID outside a write transaction share one query ({@link SingleFlight});
+ * with the opt-in {@link BatchLoader}, misses for different IDs are also combined into one selectByIds.
+ * Committed writes are announced as {@link ProductChangeEvent}s for the derived catalog views.
+ */
+@Primary
+@Repository
+public class CachingProductDao implements ProductDao {
+
+    private final ProductDao delegate;
+
+    private final ProductCache productCache;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Concurrent cache misses for the same ID share one query
+     */
+    private final SingleFlight<Long, Product> productLoads = new SingleFlight<>();
+
+    /**
+     * Concurrent replica-routed misses for the same ID share one replica query
+     */
+    private final SingleFlight<Long, Product> replicaLoads = new SingleFlight<>();
+
+    /**
+     * Only present with shop.datasource.replica.enabled=true
+     */
+    @Autowired(required = false)
+    private ReadYourWritesPin readYourWritesPin;
+
+    /**
+     * Collects concurrent misses for different IDs into one selectByIds, null when disabled
+     */
+    private final BatchLoader<Long, Product> batchLoader;
+
+    @Autowired
+    public CachingProductDao(@Qualifier("productDao") ProductDao delegate,
+                             ProductCache productCache,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${shop.cache.product.batch-loader.enabled:false}") boolean batchLoading,
+                             @Value("${shop.cache.product.batch-loader.window-micros:500}") long batchWindowMicros,
+                             @Value("${shop.cache.product.batch-loader.max-batch-size:64}") int maxBatchSize) {
+        this.delegate = delegate;
+        this.productCache = productCache;
+        this.eventPublisher = eventPublisher;
+        this.batchLoader = batchLoading
+                ? new BatchLoader<>(delegate::selectByIds, Product::getId, batchWindowMicros, TimeUnit.MICROSECONDS, maxBatchSize)
+                : null;
+    }
+
+    public CachingProductDao(ProductDao delegate, ProductCache productCache, ApplicationEventPublisher eventPublisher) {
+        this(delegate, productCache, eventPublisher, false, 0, 1);
+    }
+
+    @Override
+    public List<Product> selectProducts(String name, BigDecimal minPrice, BigDecimal maxPrice, Boolean visible) {
+        return delegate.selectProducts(name, minPrice, maxPrice, visible);
+    }
+
+    @Override
+    public List<Product> selectProductsByIds(Collection<Long> ids, BigDecimal minPrice, BigDecimal maxPrice, Boolean visible) {
+        return delegate.selectProductsByIds(ids, minPrice, maxPrice, visible);
+    }
+
+    @Override
+    public long countProductsByIds(Collection<Long> ids, BigDecimal minPrice, BigDecimal maxPrice, Boolean visible) {
+        return delegate.countProductsByIds(ids, minPrice, maxPrice, visible);
+    }
+
+    @Override
+    public long countProducts(String name, BigDecimal minPrice, BigDecimal maxPrice, Boolean visible) {
+        return delegate.countProducts(name, minPrice, maxPrice, visible);
+    }
+
+    @Override
+    public List<Product> selectProductsAfter(String name, BigDecimal minPrice, BigDecimal maxPrice, Boolean visible,
+                                             LocalDateTime afterCreatedAt, Long afterId, int limit) {
+        return delegate.selectProductsAfter(name, minPrice, maxPrice, visible, afterCreatedAt, afterId, limit);
+    }
+
+    @Override
+    public Product selectById(Long id) {
+        Product cached = productCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        if (inWriteTransaction()) {
+            // Must see this transaction's own uncommitted writes, never another caller's read, and is not cached
+            return delegate.selectById(id);
+        }
+        if (replicaRead()) {
+            return copyOf(replicaLoads.execute(id, () -> delegate.selectById(id)));
+        }
+        Product product = productLoads.execute(id, () -> {
+            long generation = productCache.generation(id);
+            Product loaded = batchLoader != null ? batchLoader.load(id) : delegate.selectById(id);
+            productCache.put(loaded, generation);
+            return loaded;
+        });
+        return copyOf(product);
+    }
+
+    @Override
+    public int insert(Product product) {
+        int rows = delegate.insert(product);
+        publishAfterCommit(ProductChangeEvent.of(ProductChangeEvent.Type.CREATED, product.getId()));
+        return rows;
+    }
+
+    @Override
+    public int update(Product product) {
+        int rows = delegate.update(product);
+        evict(product.getId());
+        publishAfterCommit(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, product.getId()));
+        return rows;
+    }
+
+    @Override
+    public int deleteById(Long id) {
+        int rows = delegate.deleteById(id);
+        evict(id);
+        publishAfterCommit(ProductChangeEvent.of(ProductChangeEvent.Type.DELETED, id));
+        return rows;
+    }
+
+    @Override
+    public int updateVisibility(Long id, Boolean visible) {
+        int rows = delegate.updateVisibility(id, visible);
+        evict(id);
+        publishAfterCommit(new ProductChangeEvent(ProductChangeEvent.Type.UPDATED, Collections.singletonList(id),
+                EnumSet.of(ProductChangeEvent.Field.VISIBLE)));
+        return rows;
+    }
+
+    @Override
+    public List<Product> selectVisibleProducts() {
+        return delegate.selectVisibleProducts();
+    }
+
+    @Override
+    public Cursor<Product> scanProducts(Boolean visible) {
+        return delegate.scanProducts(visible);
+    }
+
+    @Override
+    public List<Product> selectByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        LinkedHashSet<Long> distinctIds = new LinkedHashSet<>(ids);
+        Map<Long, Product> found = productCache.getAllPresent(distinctIds);
+        if (found.size() < distinctIds.size()) {
+            List<Long> misses = new ArrayList<>();
+            Map<Long, Long> generations = new HashMap<>();
+            for (Long id : distinctIds) {
+                if (!found.containsKey(id)) {
+                    misses.add(id);
+                    generations.put(id, productCache.generation(id));
+                }
+            }
+            boolean cacheable = !inWriteTransaction() && !replicaRead();
+            for (Product product : delegate.selectByIds(misses)) {
+                if (cacheable) {
+                    productCache.put(product, generations.get(product.getId()));
+                }
+                found.put(product.getId(), product);
+            }
+        }
+        List<Product> products = new ArrayList<>(found.size());
+        for (Long id : distinctIds) {
+            Product product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    @Override
+    public int batchUpdate(List<Product> products) {
+        int rows = delegate.batchUpdate(products);
+        List<Long> ids = new ArrayList<>(products.size());
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        evictAll(ids);
+        publishAfterCommit(new ProductChangeEvent(ProductChangeEvent.Type.UPDATED, ids));
+        return rows;
+    }
+
+    @Override
+    public Product selectByName(String name) {
+        return delegate.selectByName(name);
+    }
+
+    @Override
+    public List<String> selectExistingNames(Collection<String> names) {
+        return delegate.selectExistingNames(names);
+    }
+
+    @Override
+    public List<Product> selectVisibleByNamePrefix(String prefix, int limit) {
+        return delegate.selectVisibleByNamePrefix(prefix, limit);
+    }
+
+    @Override
+    public List<BigDecimal> selectPrices(String name, Boolean visible) {
+        return delegate.selectPrices(name, visible);
+    }
+
+    @Override
+    public List<Product> selectChangedAfter(LocalDateTime afterUpdatedAt, Long afterId, int settleSeconds, int limit) {
+        return delegate.selectChangedAfter(afterUpdatedAt, afterId, settleSeconds, limit);
+    }
+
+    @Override
+    public LocalDateTime selectCurrentTime() {
+        return delegate.selectCurrentTime();
+    }
+
+    @Override
+    public Integer selectQuantityForUpdate(Long id) {
+        return delegate.selectQuantityForUpdate(id);
+    }
+
+    @Override
+    public List<Product> selectQuantitiesForUpdate(Collection<Long> ids) {
+        return delegate.selectQuantitiesForUpdate(ids);
+    }
+
+    @Override
+    public int decreaseStock(Long id, int quantity) {
+        int rows = delegate.decreaseStock(id, quantity);
+        if (rows > 0) {
+            evict(id);
+            publishAfterCommit(ProductChangeEvent.stock(id));
+        }
+        return rows;
+    }
+
+    @Override
+    public int increaseStock(Long id, int quantity) {
+        int rows = delegate.increaseStock(id, quantity);
+        if (rows > 0) {
+            evict(id);
+            publishAfterCommit(ProductChangeEvent.stock(id));
+        }
+        return rows;
+    }
+
+    @Override
+    public int batchAdjustStock(Map<Long, Integer> deltas) {
+        int rows = delegate.batchAdjustStock(deltas);
+        List<Long> ids = new ArrayList<>(deltas.keySet());
+        evictAll(ids);
+        publishAfterCommit(ProductChangeEvent.stock(ids));
+        return rows;
+    }
+
+    @Override
+    public int compareAndSetStock(Long id, int expected, int quantity) {
+        int rows = delegate.compareAndSetStock(id, expected, quantity);
+        if (rows > 0) {
+            evict(id);
+            publishAfterCommit(ProductChangeEvent.stock(id));
+        }
+        return rows;
+    }
+
+    /**
+     * Whether the caller runs inside a transaction that may write
+     */
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * Whether the caller's queries go to the read replica
+     */
+    private boolean replicaRead() {
+        return readYourWritesPin != null && readYourWritesPin.isReplicaRead();
+    }
+
+    /**
+     * Private copy of a shared load result, callers may mutate what they get
+     */
+    private static Product copyOf(Product source) {
+        if (source == null) {
+            return null;
+        }
+        Product copy = new Product();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+
+    /**
+     * Evict one product now and after transaction completion
+     */
+    private void evict(Long id) {
+        productCache.invalidate(id);
+        afterCompletion(() -> productCache.invalidate(id));
+    }
+
+    /**
+     * Evict products now and after transaction completion
+     */
+    private void evictAll(Collection<Long> ids) {
+        productCache.invalidateAll(ids);
+        afterCompletion(() -> productCache.invalidateAll(ids));
+    }
+
+    /**
+     * Publish the event once the current transaction commits, or right away without a transaction
+     */
+    private void publishAfterCommit(ProductChangeEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eventPublisher.publishEvent(event);
+                }
+            });
+        } else {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    /**
+     * Run the action once the current transaction completes (commit or rollback), if any
+     */
+    private void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
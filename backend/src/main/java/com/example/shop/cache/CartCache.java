@@ -0,0 +1,316 @@
+package com.example.shop.cache;
+
+import com.example.shop.model.entity.Cart;
+import com.example.shop.model.entity.CartItem;
+import com.example.shop.model.resp.CacheStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Per-User Cart Cache (shop.cache.cart.enabled, off by default)
+ * Holds assembled carts (items, count, total) keyed by user ID, bounded by size and dropped after
+ * {@code expire-after-access-seconds} without a read or {@code expire-after-write-seconds} after it was
+ * loaded, however often it is read or patched. Cart writes patch the cached cart after their
+ * transaction commits, with the item rows as written, so reads between writes need no query. The patches
+ * are absolute (put this item, drop that one) and may be applied to a cart loaded after the commit.
+ * Overlapping writes of one user (or of users sharing a stripe) may commit in the opposite order of their
+ * patches, those invalidate the cart instead. A read that raced a commit does not store what it loaded.
+ * Writes made by other instances are not seen until the entry expires, at the latest
+ * {@code expire-after-write-seconds} later: with several instances, route a user to one of them or keep
+ * that bound short.
+ */
+@Component
+@ConditionalOnProperty(name = "shop.cache.cart.enabled", havingValue = "true")
+public class CartCache implements StatsReportingCache {
+
+    private static final int STRIPES = 1024;
+
+    private final Cache<Long, CachedCart> cache;
+
+    private final Ticker ticker;
+
+    private final long expireAfterWriteNanos;
+
+    /**
+     * Commits per stripe, a loaded cart is only kept if none happened while it was read
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    /**
+     * Writes per stripe between their patch being registered and their transaction ending
+     */
+    private final AtomicLongArray writers = new AtomicLongArray(STRIPES);
+
+    /**
+     * Writes ever registered per stripe, tells a write whether another one started after it
+     */
+    private final AtomicLongArray started = new AtomicLongArray(STRIPES);
+
+    private final LongAdder invalidationCount = new LongAdder();
+
+    public CartCache(@Value("${shop.cache.cart.maximum-size:10000}") long maximumSize,
+                     @Value("${shop.cache.cart.expire-after-access-seconds:300}") long expireAfterAccessSeconds,
+                     @Value("${shop.cache.cart.expire-after-write-seconds:60}") long expireAfterWriteSeconds) {
+        this(maximumSize, expireAfterAccessSeconds, expireAfterWriteSeconds, Ticker.systemTicker());
+    }
+
+    CartCache(long maximumSize, long expireAfterAccessSeconds, long expireAfterWriteSeconds, Ticker ticker) {
+        this.ticker = ticker;
+        this.expireAfterWriteNanos = Duration.ofSeconds(expireAfterWriteSeconds).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .ticker(ticker)
+                .expireAfter(new IdleOrLoadedExpiry(Duration.ofSeconds(expireAfterAccessSeconds).toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get a copy of the user's cached cart, null on miss
+     */
+    public Cart get(Long userId) {
+        CachedCart cached = cache.getIfPresent(userId);
+        return cached != null ? copyOf(cached.cart) : null;
+    }
+
+    /**
+     * Current generation of the user's stripe, capture it before loading and hand it to {@link #put}
+     */
+    public long generation(Long userId) {
+        return generations.get(stripe(userId));
+    }
+
+    /**
+     * Store a cart loaded while {@code loadedGeneration} was current (a private copy is kept)
+     */
+    public void put(Long userId, Cart cart, long loadedGeneration) {
+        int stripe = stripe(userId);
+        if (generations.get(stripe) != loadedGeneration) {
+            return;
+        }
+        cache.put(userId, new CachedCart(copyOf(cart), ticker.read() + expireAfterWriteNanos));
+        // A commit between the check and the put may have found nothing to patch
+        if (generations.get(stripe) != loadedGeneration) {
+            invalidate(userId);
+        }
+    }
+
+    /**
+     * After commit: the item as it is now in the cart, added at the top if it is new
+     */
+    public void putItem(Long userId, CartItem item) {
+        CartItem written = copyOf(item);
+        afterCommit(userId, items -> upsert(items, written, LocalDateTime.now()));
+    }
+
+    /**
+     * After commit: several items written and removed by one transaction, as a single patch
+     */
+    public void putItems(Long userId, List<CartItem> writtenItems, Collection<Long> removedItemIds) {
+        List<CartItem> written = new ArrayList<>();
+        for (CartItem item : writtenItems) {
+            written.add(copyOf(item));
+        }
+        Set<Long> removed = new HashSet<>(removedItemIds);
+        afterCommit(userId, items -> {
+            LocalDateTime now = LocalDateTime.now();
+            items.removeIf(item -> removed.contains(item.getId()));
+            for (CartItem item : written) {
+                upsert(items, copyOf(item), now);
+            }
+        });
+    }
+
+    /**
+     * After commit: the item is no longer in the cart
+     */
+    public void removeItem(Long userId, Long itemId) {
+        afterCommit(userId, items -> items.removeIf(item -> item.getId().equals(itemId)));
+    }
+
+    /**
+     * After commit: the cart is empty
+     */
+    public void clear(Long userId) {
+        afterCommit(userId, List::clear);
+    }
+
+    /**
+     * Drop the user's cart
+     */
+    public void invalidate(Long userId) {
+        invalidationCount.increment();
+        cache.invalidate(userId);
+    }
+
+    @Override
+    public CacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        CacheStatsResponse response = new CacheStatsResponse();
+        response.setName("cart");
+        response.setSize(cache.estimatedSize());
+        response.setHitCount(stats.hitCount());
+        response.setMissCount(stats.missCount());
+        response.setHitRate(stats.hitRate());
+        response.setEvictionCount(stats.evictionCount());
+        response.setInvalidationCount(invalidationCount.sum());
+        return response;
+    }
+
+    /**
+     * Patch the cached cart once the current transaction commits, right away outside of one
+     */
+    private void afterCommit(Long userId, Consumer<List<CartItem>> patch) {
+        int stripe = stripe(userId);
+        boolean overlapped = writers.getAndIncrement(stripe) > 0;
+        long sequence = started.incrementAndGet(stripe);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(userId, stripe, patch, overlapped || started.get(stripe) != sequence);
+            writers.decrementAndGet(stripe);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(userId, stripe, patch, overlapped || started.get(stripe) != sequence);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                writers.decrementAndGet(stripe);
+            }
+        });
+    }
+
+    private void apply(Long userId, int stripe, Consumer<List<CartItem>> patch, boolean overlapped) {
+        generations.incrementAndGet(stripe);
+        if (overlapped) {
+            invalidate(userId);
+            return;
+        }
+        // Copy on write: readers copy the stored cart, which is never changed in place
+        cache.asMap().computeIfPresent(userId, (id, cached) -> {
+            Cart cart = copyOf(cached.cart);
+            patch.accept(cart.getItems());
+            cart.setItemCount(cart.getItems().size());
+            cart.setTotalAmount(cart.getItems().stream()
+                    .map(CartItem::getTotalPrice)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+            // Patches keep the load deadline, only a reload from the database extends it
+            return new CachedCart(cart, cached.loadDeadline);
+        });
+    }
+
+    /**
+     * Replace the item with the same ID, or add it at the top
+     */
+    private static void upsert(List<CartItem> items, CartItem written, LocalDateTime now) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getId().equals(written.getId())) {
+                written.setCreatedAt(items.get(i).getCreatedAt());
+                written.setUpdatedAt(now);
+                items.set(i, written);
+                return;
+            }
+        }
+        written.setCreatedAt(now);
+        written.setUpdatedAt(now);
+        items.add(0, written);
+    }
+
+    private static int stripe(Long userId) {
+        return (Long.hashCode(userId) & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    /**
+     * Copy of the cart and its items, the other fields are immutable value types
+     */
+    private static Cart copyOf(Cart source) {
+        if (source == null) {
+            return null;
+        }
+        Cart copy = new Cart();
+        BeanUtils.copyProperties(source, copy);
+        List<CartItem> items = new ArrayList<>();
+        if (source.getItems() != null) {
+            for (CartItem item : source.getItems()) {
+                items.add(copyOf(item));
+            }
+        }
+        copy.setItems(items);
+        return copy;
+    }
+
+    private static CartItem copyOf(CartItem source) {
+        CartItem copy = new CartItem();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+
+    /**
+     * Cached Cart and the Ticker Time by Which It Has to Be Reloaded
+     */
+    private static final class CachedCart {
+
+        private final Cart cart;
+
+        private final long loadDeadline;
+
+        private CachedCart(Cart cart, long loadDeadline) {
+            this.cart = cart;
+            this.loadDeadline = loadDeadline;
+        }
+    }
+
+    /**
+     * Idle Time after Each Read or Write, Never Past the Load Deadline
+     */
+    private static final class IdleOrLoadedExpiry implements Expiry<Long, CachedCart> {
+
+        private final long idleNanos;
+
+        private IdleOrLoadedExpiry(long idleNanos) {
+            this.idleNanos = idleNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(Long userId, CachedCart cached, long currentTime) {
+            return remaining(cached, currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(Long userId, CachedCart cached, long currentTime, long currentDuration) {
+            return remaining(cached, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long userId, CachedCart cached, long currentTime, long currentDuration) {
+            return remaining(cached, currentTime);
+        }
+
+        private long remaining(CachedCart cached, long currentTime) {
+            return Math.max(0, Math.min(idleNanos, cached.loadDeadline - currentTime));
+        }
+    }
+}
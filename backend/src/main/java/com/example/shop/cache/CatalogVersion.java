@@ -0,0 +1,147 @@
+package com.example.shop.cache;
+
+import com.example.shop.dao.CatalogVersionDao;
+import com.example.shop.event.ProductChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog Version, Shared by All Instances
+ * Kept in {@code catalog_versions}, so instances on the same database hand out the same version and a tag
+ * taken on one of them is honoured by the others. Committed product changes bump it on a background thread,
+ * after the other synchronous listeners (product cache, count cache, name index) have run; the visible
+ * snapshot and the column store are rebuilt asynchronously and may still lag, which is why tags that depend
+ * on them carry their own version. Stock movements bump it at most once per {@code stock-refresh-millis}, so
+ * quantities revalidated by tag may trail sales by that long.
+ * {@link #get()} answers from memory. The copy is refreshed every {@code poll-millis} and right after this
+ * instance's bumps, in a read-only transaction, so with a read replica the version only advances once the
+ * replica has the changes it covers: a version read before the data it tags may only be older than that
+ * data, never newer. Instances may disagree for up to one poll interval.
+ */
+@Slf4j
+@Component
+public class CatalogVersion {
+
+    /**
+     * Random ID of this process, keeps per-process versions (in-memory snapshots) of different instances apart
+     */
+    public static final String INSTANCE_ID = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+
+    private final CatalogVersionDao catalogVersionDao;
+
+    private final TransactionTemplate readTransaction;
+
+    private final long stockRefreshMillis;
+
+    private final long pollMillis;
+
+    /**
+     * Last version read, what tags are built from
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicBoolean bumpScheduled = new AtomicBoolean();
+
+    private final AtomicBoolean stockBumpScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService bumpExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-version-bump");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CatalogVersion(CatalogVersionDao catalogVersionDao,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${shop.catalog.snapshot.stock-refresh-millis:5000}") long stockRefreshMillis,
+                          @Value("${shop.catalog.version.poll-millis:1000}") long pollMillis) {
+        this.catalogVersionDao = catalogVersionDao;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.stockRefreshMillis = stockRefreshMillis;
+        this.pollMillis = pollMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        refresh();
+        // Picks up the bumps of other instances
+        bumpExecutor.scheduleWithFixedDelay(this::refresh, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Current version, no database access
+     */
+    public long get() {
+        return version.get();
+    }
+
+    /**
+     * Read the version on the read route, it never goes back
+     */
+    private void refresh() {
+        try {
+            Long current = readTransaction.execute(status -> catalogVersionDao.selectVersion());
+            if (current != null) {
+                version.accumulateAndGet(current, Math::max);
+            }
+        } catch (RuntimeException e) {
+            // Tags keep the last version until the next poll
+            log.warn("Catalog version refresh failed", e);
+        }
+    }
+
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onProductChange(ProductChangeEvent event) {
+        if (!event.isStockOnly() || stockRefreshMillis <= 0) {
+            scheduleBump(0);
+        } else if (stockBumpScheduled.compareAndSet(false, true)) {
+            bumpExecutor.schedule(() -> {
+                stockBumpScheduled.set(false);
+                scheduleBump(0);
+            }, stockRefreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Queue a bump unless one is already pending, changes committed meanwhile are covered by it
+     */
+    private void scheduleBump(long delayMillis) {
+        if (bumpScheduled.compareAndSet(false, true)) {
+            bumpExecutor.schedule(this::bump, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void bump() {
+        // Reset before writing so changes committed during the bump queue another one
+        bumpScheduled.set(false);
+        try {
+            catalogVersionDao.bump();
+            refresh();
+        } catch (RuntimeException e) {
+            // Until it succeeds tags keep matching changed pages, so keep trying
+            log.warn("Catalog version bump failed, retrying", e);
+            scheduleBump(Math.max(1000, stockRefreshMillis));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bumpExecutor.shutdownNow();
+    }
+}
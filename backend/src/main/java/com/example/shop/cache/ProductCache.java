@@ -0,0 +1,179 @@
+package com.example.shop.cache;
+
+import com.example.shop.model.entity.Product;
+import com.example.shop.model.resp.CacheStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, Size-Aware Product Cache
+ * Entries are weighed by their approximate heap footprint, and callers always receive
+ * a defensive copy because services mutate Product instances before writing them back.
+ * Loads are stamped with the {@link #generation} of their ID taken before the query; an invalidation
+ * in between bumps it, and the loaded row, possibly older than the write, is then not stored.
+ */
+@Component
+public class ProductCache implements StatsReportingCache {
+
+    /**
+     * Approximate fixed footprint of a Product (object headers, BigDecimal, timestamps, boxed fields)
+     */
+    private static final int PRODUCT_BASE_WEIGHT = 320;
+
+    private static final int STRIPES = 1024;
+
+    private final Cache<Long, Product> cache;
+
+    private final long maximumWeight;
+
+    private final LongAdder invalidationCount = new LongAdder();
+
+    /**
+     * Invalidations per stripe of IDs
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    /**
+     * Full invalidations, part of every ID's generation
+     */
+    private final AtomicLong globalGeneration = new AtomicLong();
+
+    public ProductCache(@Value("${shop.cache.product.maximum-weight:16777216}") long maximumWeight,
+                        @Value("${shop.cache.product.expire-after-write-seconds:600}") long expireAfterWriteSeconds) {
+        this.maximumWeight = maximumWeight;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Long id, Product product) -> weigh(product))
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get cached product copy, null on miss
+     */
+    public Product get(Long id) {
+        return copyOf(cache.getIfPresent(id));
+    }
+
+    /**
+     * Get cached product copies for the given IDs, misses are absent from the result
+     */
+    public Map<Long, Product> getAllPresent(Collection<Long> ids) {
+        Map<Long, Product> present = cache.getAllPresent(ids);
+        Map<Long, Product> copies = new HashMap<>(present.size() * 2);
+        for (Map.Entry<Long, Product> entry : present.entrySet()) {
+            copies.put(entry.getKey(), copyOf(entry.getValue()));
+        }
+        return copies;
+    }
+
+    /**
+     * Current generation of an ID, capture it before loading the row and hand it to {@link #put}
+     */
+    public long generation(Long id) {
+        return globalGeneration.get() + generations.get(stripe(id));
+    }
+
+    /**
+     * Store a product loaded while {@code loadedGeneration} was current (a private copy is kept),
+     * skipped if the product was invalidated since
+     */
+    public void put(Product product, long loadedGeneration) {
+        if (product == null || product.getId() == null || generation(product.getId()) != loadedGeneration) {
+            return;
+        }
+        cache.put(product.getId(), copyOf(product));
+        // An invalidation between the check and the put may have found nothing to remove
+        if (generation(product.getId()) != loadedGeneration) {
+            cache.invalidate(product.getId());
+        }
+    }
+
+    /**
+     * Invalidate a single product
+     */
+    public void invalidate(Long id) {
+        if (id != null) {
+            invalidationCount.increment();
+            generations.incrementAndGet(stripe(id));
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * Invalidate a set of products
+     */
+    public void invalidateAll(Collection<Long> ids) {
+        invalidationCount.add(ids.size());
+        for (Long id : ids) {
+            generations.incrementAndGet(stripe(id));
+        }
+        cache.invalidateAll(ids);
+    }
+
+    /**
+     * Invalidate every entry
+     */
+    public void invalidateAll() {
+        invalidationCount.increment();
+        globalGeneration.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public CacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        CacheStatsResponse response = new CacheStatsResponse();
+        response.setName("product");
+        response.setSize(cache.estimatedSize());
+        Optional<Policy.Eviction<Long, Product>> eviction = cache.policy().eviction();
+        response.setWeightedSize(eviction.isPresent() && eviction.get().weightedSize().isPresent()
+                ? eviction.get().weightedSize().getAsLong() : null);
+        response.setMaximumWeight(maximumWeight);
+        response.setHitCount(stats.hitCount());
+        response.setMissCount(stats.missCount());
+        response.setHitRate(stats.hitRate());
+        response.setEvictionCount(stats.evictionCount());
+        response.setInvalidationCount(invalidationCount.sum());
+        return response;
+    }
+
+    private static int stripe(Long id) {
+        return (Long.hashCode(id) & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    /**
+     * Approximate heap weight of a cached product
+     */
+    private static int weigh(Product product) {
+        int nameLength = product.getName() != null ? product.getName().length() : 0;
+        return PRODUCT_BASE_WEIGHT + nameLength * 2;
+    }
+
+    /**
+     * Shallow copy, all Product fields are immutable value types
+     */
+    private static Product copyOf(Product source) {
+        if (source == null) {
+            return null;
+        }
+        Product copy = new Product();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+}
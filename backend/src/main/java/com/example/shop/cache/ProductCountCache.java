@@ -0,0 +1,182 @@
+package com.example.shop.cache;
+
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.model.resp.CacheStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Product Filter Count Cache
+ * Caches {@code COUNT} results per normalized filter. Any committed product change other than a stock
+ * movement (no filter looks at the quantity) bumps a global generation which makes every entry stale for
+ * exact reads; stale entries are still served to callers that opted into approximate totals.
+ * Entries are dropped {@code expire-after-write-seconds} after they were counted, which bounds how long a
+ * total that missed a write (e.g. counted on a lagging replica) can be served.
+ */
+@Slf4j
+@Component
+public class ProductCountCache implements StatsReportingCache {
+
+    private final Cache<String, CountEntry> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder staleCount = new LongAdder();
+
+    private final Set<String> pendingRefreshes = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-count-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ProductCountCache(@Value("${shop.cache.product-count.maximum-size:10000}") long maximumSize,
+                             @Value("${shop.cache.product-count.expire-after-write-seconds:300}") long expireAfterWriteSeconds) {
+        this(maximumSize, expireAfterWriteSeconds, Ticker.systemTicker());
+    }
+
+    ProductCountCache(long maximumSize, long expireAfterWriteSeconds, Ticker ticker) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Normalized cache key of a product filter
+     */
+    public static String key(String name, BigDecimal minPrice, BigDecimal maxPrice, Boolean visible) {
+        return (name != null ? name.trim() : "")
+                + '\u0000' + (minPrice != null ? minPrice.stripTrailingZeros().toPlainString() : "")
+                + '\u0000' + (maxPrice != null ? maxPrice.stripTrailingZeros().toPlainString() : "")
+                + '\u0000' + (visible != null ? visible.toString() : "");
+    }
+
+    /**
+     * Current generation, capture it before counting and hand it to {@link #put}
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Exact total for the filter, null if absent or invalidated by a later write
+     */
+    public Long getExact(String key) {
+        CountEntry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.getGeneration() != generation.get()) {
+            staleCount.increment();
+            return null;
+        }
+        return entry.getTotal();
+    }
+
+    /**
+     * Last known total for the filter, possibly stale; null if never counted
+     */
+    public CountEntry getAny(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Whether the entry reflects all committed writes
+     */
+    public boolean isCurrent(CountEntry entry) {
+        return entry.getGeneration() == generation.get();
+    }
+
+    /**
+     * Store a total counted while {@code countedGeneration} was current, on the primary: a replica may not
+     * have applied the writes that generation covers
+     */
+    public void put(String key, long total, long countedGeneration) {
+        cache.put(key, new CountEntry(total, countedGeneration));
+    }
+
+    /**
+     * Count in the background and cache the result, at most one pending refresh per key
+     */
+    public void refreshAsync(String key, Supplier<Long> counter) {
+        if (!pendingRefreshes.add(key)) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                long countedGeneration = generation.get();
+                put(key, counter.get(), countedGeneration);
+            } catch (RuntimeException e) {
+                log.warn("Background product count failed for filter [{}]", key, e);
+            } finally {
+                pendingRefreshes.remove(key);
+            }
+        });
+    }
+
+    @EventListener
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.isStockOnly()) {
+            return;
+        }
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public CacheStatsResponse stats() {
+        CacheStats stats = cache.stats();
+        CacheStatsResponse response = new CacheStatsResponse();
+        response.setName("product-count");
+        response.setSize(cache.estimatedSize());
+        response.setHitCount(stats.hitCount() - staleCount.sum());
+        response.setMissCount(stats.missCount() + staleCount.sum());
+        long requests = stats.requestCount();
+        response.setHitRate(requests == 0 ? 1.0 : (double) (stats.hitCount() - staleCount.sum()) / requests);
+        response.setEvictionCount(stats.evictionCount());
+        response.setInvalidationCount(generation.get());
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Cached Count
+     */
+    @Getter
+    public static final class CountEntry {
+
+        private final long total;
+
+        private final long generation;
+
+        CountEntry(long total, long generation) {
+            this.total = total;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.shop.cache;
+
+import com.example.shop.model.resp.CacheStatsResponse;
+
+/**
+ * In-Process Cache that Reports Hit/Miss/Eviction Statistics
+ */
+public interface StatsReportingCache {
+
+    /**
+     * Snapshot of the current cache statistics
+     */
+    CacheStatsResponse stats();
+}
@@ -0,0 +1,130 @@
+package com.example.shop.cache;
+
+import com.example.shop.dao.ProductDao;
+import com.example.shop.event.ProductChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Visible Catalog Snapshot Holder
+ * The snapshot is rebuilt on a background thread after committed product changes and swapped in
+ * atomically; bursts of changes collapse into a single rebuild. Stock movements only change the
+ * quantities shown, so they rebuild at most once per {@code stock-refresh-millis} instead of once per
+ * sale. Only the very first read (before the startup build finished) builds on the request thread.
+ */
+@Slf4j
+@Component
+public class VisibleCatalogCache {
+
+    private final ProductDao productDao;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean gzip;
+
+    private final long stockRefreshMillis;
+
+    private final AtomicReference<VisibleCatalogSnapshot> current = new AtomicReference<>();
+
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private final AtomicBoolean stockRefreshScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService rebuildExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "visible-catalog-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public VisibleCatalogCache(ProductDao productDao,
+                               ObjectMapper objectMapper,
+                               @Value("${shop.catalog.snapshot.gzip:true}") boolean gzip,
+                               @Value("${shop.catalog.snapshot.stock-refresh-millis:5000}") long stockRefreshMillis) {
+        this.productDao = productDao;
+        this.objectMapper = objectMapper;
+        this.gzip = gzip;
+        this.stockRefreshMillis = stockRefreshMillis;
+    }
+
+    /**
+     * Get the current snapshot
+     */
+    public VisibleCatalogSnapshot getSnapshot() {
+        VisibleCatalogSnapshot snapshot = current.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current.get();
+            if (snapshot == null) {
+                snapshot = rebuild();
+            }
+            return snapshot;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild();
+    }
+
+    @EventListener
+    public void onProductChange(ProductChangeEvent event) {
+        if (!event.isStockOnly() || stockRefreshMillis <= 0) {
+            scheduleRebuild();
+        } else if (stockRefreshScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.schedule(() -> {
+                stockRefreshScheduled.set(false);
+                scheduleRebuild();
+            }, stockRefreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Queue a rebuild unless one is already pending
+     */
+    public void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                // Reset before reading so changes committed during the rebuild queue another one
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Visible catalog snapshot rebuild failed, keeping previous snapshot", e);
+                }
+            });
+        }
+    }
+
+    private VisibleCatalogSnapshot rebuild() {
+        long version = versionSequence.incrementAndGet();
+        VisibleCatalogSnapshot snapshot = VisibleCatalogSnapshot.build(
+                version, productDao.selectVisibleProducts(), objectMapper, gzip);
+        // Never replace a newer snapshot with an older one
+        current.accumulateAndGet(snapshot, (previous, next) ->
+                previous == null || next.getVersion() > previous.getVersion() ? next : previous);
+        log.debug("Visible catalog snapshot v{} built: {} products, {} bytes",
+                version, snapshot.getProducts().size(), snapshot.getJson().length);
+        return current.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.shop.cache;
+
+import com.example.common.resp.Result;
+import com.example.shop.model.entity.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Immutable Snapshot of the Visible Catalog
+ * Holds the visible product list together with the already-encoded {@code Result} JSON body
+ * (and optionally its gzip form), so serving it is a plain byte copy.
+ * The byte arrays and products are shared between requests and must be treated as read-only.
+ */
+@Getter
+public final class VisibleCatalogSnapshot {
+
+    /**
+     * Snapshot Version, increases with every rebuild
+     */
+    private final long version;
+
+    /**
+     * Visible Products, ordered by creation time descending
+     */
+    private final List<Product> products;
+
+    /**
+     * Encoded Result JSON
+     */
+    private final byte[] json;
+
+    /**
+     * Gzip-Compressed Result JSON, null when compression is disabled
+     */
+    private final byte[] gzipJson;
+
+    /**
+     * Build Timestamp (epoch millis)
+     */
+    private final long builtAt;
+
+    /**
+     * Strong entity tag of the encoded body, the gzip body has its own tag
+     */
+    public String getETag(boolean gzipped) {
+        return "\"s-" + CatalogVersion.INSTANCE_ID + "-" + version + (gzipped ? "-gz\"" : "\"");
+    }
+
+    private VisibleCatalogSnapshot(long version, List<Product> products, byte[] json, byte[] gzipJson) {
+        this.version = version;
+        this.products = products;
+        this.json = json;
+        this.gzipJson = gzipJson;
+        this.builtAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Encode the product list into a snapshot
+     */
+    public static VisibleCatalogSnapshot build(long version, List<Product> products, ObjectMapper objectMapper, boolean gzip) {
+        List<Product> frozen = Collections.unmodifiableList(new ArrayList<>(products));
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(Result.success(frozen));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode visible catalog snapshot", e);
+        }
+        return new VisibleCatalogSnapshot(version, frozen, json, gzip ? gzip(json) : null);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
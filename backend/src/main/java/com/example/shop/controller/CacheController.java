@@ -0,0 +1,44 @@
+package com.example.shop.controller;
+
+import com.example.common.resp.Result;
+import com.example.shop.cache.StatsReportingCache;
+import com.example.shop.model.resp.CacheStatsResponse;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-Process Cache Monitoring Controller
+ */
+@Api(tags = "Cache Monitoring", description = "In-process cache statistics for sizing")
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    @Autowired
+    private List<StatsReportingCache> caches;
+
+    /**
+     * Get statistics of all in-process caches
+     */
+    @ApiOperation(value = "Get Cache Statistics", notes = "Hit/miss/eviction counters and current size of every in-process cache")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Query successful")
+    })
+    @GetMapping("/stats")
+    public Result<List<CacheStatsResponse>> getCacheStats() {
+        List<CacheStatsResponse> stats = new ArrayList<>(caches.size());
+        for (StatsReportingCache cache : caches) {
+            stats.add(cache.stats());
+        }
+        return Result.success(stats);
+    }
+}
@@ -2,8 +2,10 @@ package com.example.shop.controller;
 
 import com.example.common.resp.Result;
 import com.example.shop.model.entity.Cart;
+import com.example.shop.model.req.CartBatchRequest;
 import com.example.shop.model.req.CartItemAddRequest;
 import com.example.shop.model.req.CartItemUpdateRequest;
+import com.example.shop.model.resp.CartBatchResponse;
 import com.example.shop.service.CartService;
 import io.swagger.annotations.*;
 import lombok.extern.slf4j.Slf4j;
@@ -105,6 +107,27 @@ public class CartController {
         return Result.success(null, "Product added to cart successfully");
     }
 
+    /**
+     * Apply several cart operations at once
+     * One transaction for the whole list, with each operation's outcome reported separately
+     */
+    @ApiOperation(value = "Batch Cart Operations", notes = "Apply a list of ADD (productId, quantity), UPDATE (itemId, quantity) "
+            + "and REMOVE (itemId) operations in order and in one transaction; rejected operations change nothing "
+            + "and are reported with their error code, the others are applied")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Applied, see the result of each operation"),
+        @ApiResponse(code = 1001, message = "No operations or more than 200")
+    })
+    @PostMapping("/items/batch")
+    public Result<CartBatchResponse> applyOperations(@ApiParam(value = "Batch cart operations request", required = true)
+                                                     @Valid @RequestBody CartBatchRequest request,
+                                                     HttpServletRequest httpRequest,
+                                                     HttpServletResponse httpResponse) {
+        Long userId = getCurrentUserId(httpRequest, httpResponse);
+        CartBatchResponse result = cartService.applyOperations(userId, request.getOperations());
+        return Result.success(result);
+    }
+
     /**
      * Update cart item quantity
      */
@@ -2,19 +2,37 @@ package com.example.shop.controller;
 
 import com.example.common.resp.Result;
 import com.example.common.resp.PageResponse;
+import com.example.shop.cache.VisibleCatalogSnapshot;
+import com.example.shop.export.ProductExportFormat;
+import com.example.shop.importer.ProductImportFormat;
 import com.example.shop.model.entity.Product;
 import com.example.shop.model.req.ProductQueryRequest;
 import com.example.shop.model.req.VisibleProductRequest;
 import com.example.shop.model.req.ProductCreateRequest;
 import com.example.shop.model.req.ProductUpdateRequest;
 import com.example.shop.model.req.ProductVisibilityUpdateRequest;
+import com.example.shop.model.resp.ProductImportResponse;
+import com.example.shop.model.resp.PriceFacetResponse;
+import com.example.shop.model.resp.ProductBatchResponse;
+import com.example.shop.model.resp.ProductChangesResponse;
+import com.example.shop.model.resp.ProductSuggestion;
+import com.example.shop.service.ProductImportService;
 import com.example.shop.service.ProductService;
 import io.swagger.annotations.*;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.time.ZoneOffset;
 import java.util.List;
 
 /**
@@ -28,6 +46,9 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductImportService productImportService;
+
     /**
      * Paginated product list query
      */
@@ -43,21 +64,43 @@ public class ProductController {
         return Result.success(result);
     }
 
+    /**
+     * Multi-get products by ID
+     * One request and at most one SQL query for a list of products; cached products need no query
+     */
+    @ApiOperation(value = "Query Products by IDs", notes = "Get several products at once (ids=1,2,3), returned in request order "
+            + "with the IDs that have no product listed separately")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Query successful"),
+        @ApiResponse(code = 1001, message = "Too many IDs")
+    })
+    @GetMapping(params = "ids")
+    public Result<ProductBatchResponse> getProductsByIds(
+            @ApiParam(value = "Product IDs, comma separated (at most 200)", required = true, example = "1,2,3") @RequestParam List<Long> ids) {
+        ProductBatchResponse result = productService.getProductsByIds(ids);
+        return Result.success(result);
+    }
+
     /**
      * Query product details by ID
      */
     @ApiOperation(value = "Query Product Details", notes = "Get detailed information by product ID")
     @ApiResponses({
         @ApiResponse(code = 200, message = "Query successful"),
+        @ApiResponse(code = 304, message = "Not modified (If-None-Match matched the ETag)"),
         @ApiResponse(code = 2001, message = "Product not found")
     })
     @GetMapping("/{id}")
     public Result<Product> getProduct(
-            @ApiParam(value = "Product ID", required = true, example = "1") @PathVariable Long id) {
+            @ApiParam(value = "Product ID", required = true, example = "1") @PathVariable Long id,
+            WebRequest webRequest) {
         Product product = productService.getProductById(id);
         if (product == null) {
             return Result.error("Product not found");
         }
+        if (webRequest.checkNotModified(productETag(product))) {
+            return null;
+        }
         return Result.success(product);
     }
     
@@ -130,17 +173,84 @@ public class ProductController {
         return Result.success(null, "Product visibility updated successfully");
     }
     
+    /**
+     * Query how much of a product can still be added to carts
+     */
+    @ApiOperation(value = "Query Available Stock",
+            notes = "Units that can still be added to carts: the product's quantity less what reservations "
+                    + "or other instances' leases hold, depending on the inventory mode")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Query successful"),
+        @ApiResponse(code = 2001, message = "Product not found")
+    })
+    @GetMapping("/{id}/availability")
+    public Result<Integer> getAvailableStock(
+            @ApiParam(value = "Product ID", required = true, example = "1") @PathVariable Long id) {
+        return Result.success(productService.getAvailableStock(id));
+    }
+    
+    /**
+     * Split a hot product's stock over bucket rows
+     */
+    @ApiOperation(value = "Split Product Stock into Buckets",
+            notes = "Cart stock changes of the product then lock one of N bucket rows instead of the product row; "
+                    + "the product's quantity keeps showing the total, refreshed about once a second")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Split successfully"),
+        @ApiResponse(code = 1001, message = "Parameter validation failed"),
+        @ApiResponse(code = 1003, message = "Inventory mode has no stock buckets"),
+        @ApiResponse(code = 2001, message = "Product not found")
+    })
+    @PutMapping("/{id}/stock-buckets")
+    public Result<Void> splitProductStock(
+            @ApiParam(value = "Product ID", required = true, example = "1") @PathVariable Long id,
+            @ApiParam(value = "Number of buckets (1-256)", example = "16") @RequestParam(defaultValue = "16") int buckets) {
+        productService.splitProductStock(id, buckets);
+        return Result.success(null, "Product stock split successfully");
+    }
+    
+    /**
+     * Merge a hot product's stock buckets back into the product
+     */
+    @ApiOperation(value = "Merge Product Stock Buckets", notes = "Move bucket stock back into the product row")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Merged successfully"),
+        @ApiResponse(code = 1003, message = "Inventory mode has no stock buckets"),
+        @ApiResponse(code = 2001, message = "Product not found")
+    })
+    @DeleteMapping("/{id}/stock-buckets")
+    public Result<Void> mergeProductStock(
+            @ApiParam(value = "Product ID", required = true, example = "1") @PathVariable Long id) {
+        productService.mergeProductStock(id);
+        return Result.success(null, "Product stock merged successfully");
+    }
+    
     /**
      * Query visible product list (simple version, no pagination)
+     * Served from the pre-encoded catalog snapshot: no database access and no serialization per request
      */
-    @ApiOperation(value = "Query Visible Product List", notes = "Get simple list of all visible products, no pagination")
+    @ApiOperation(value = "Query Visible Product List", notes = "Get simple list of all visible products, no pagination",
+            response = Result.class)
     @ApiResponses({
-        @ApiResponse(code = 200, message = "Query successful")
+        @ApiResponse(code = 200, message = "Query successful"),
+        @ApiResponse(code = 304, message = "Not modified (If-None-Match matched the ETag)")
     })
     @GetMapping("/visible/simple")
-    public Result<List<Product>> getVisibleProducts() {
-        List<Product> products = productService.getVisibleProducts();
-        return Result.success(products);
+    public ResponseEntity<byte[]> getVisibleProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+        VisibleCatalogSnapshot snapshot = productService.getVisibleCatalog();
+        boolean gzip = snapshot.getGzipJson() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+        if (webRequest.checkNotModified(snapshot.getETag(gzip))) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzipJson());
+        }
+        return builder.body(snapshot.getJson());
     }
     
     /**
@@ -149,12 +259,132 @@ public class ProductController {
     @ApiOperation(value = "Paginated Visible Product Query", notes = "Get paginated visible product list with name filtering support")
     @ApiResponses({
         @ApiResponse(code = 200, message = "Query successful"),
+        @ApiResponse(code = 304, message = "Not modified (If-None-Match matched the ETag)"),
         @ApiResponse(code = 1001, message = "Parameter validation failed")
     })
     @GetMapping("/visible")
     public Result<PageResponse<Product>> getVisibleProductsPaged(
-            @ApiParam(value = "Query conditions", required = true) @Valid VisibleProductRequest request) {
+            @ApiParam(value = "Query conditions", required = true) @Valid VisibleProductRequest request,
+            WebRequest webRequest) {
+        // Tag taken before querying, so a page read during a write is never tagged as the newer state
+        if (webRequest.checkNotModified(productService.getCatalogETag())) {
+            return null;
+        }
         PageResponse<Product> result = productService.getVisibleProducts(request);
         return Result.success(result);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Typeahead suggestions
+     * Answered from the in-memory prefix index of visible product names
+     */
+    @ApiOperation(value = "Suggest Products", notes = "Visible products whose name starts with the prefix (case-insensitive), in name order")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Query successful")
+    })
+    @GetMapping("/suggest")
+    public Result<List<ProductSuggestion>> suggestProducts(
+            @ApiParam(value = "Name prefix", required = true, example = "iph") @RequestParam String prefix,
+            @ApiParam(value = "Maximum suggestions (1-50)", example = "10") @RequestParam(defaultValue = "10") int limit) {
+        List<ProductSuggestion> result = productService.suggestProducts(prefix, limit);
+        return Result.success(result);
+    }
+    
+    /**
+     * Price facets
+     * Bucket counts for a price slider, computed in one pass over the in-memory price column
+     */
+    @ApiOperation(value = "Price Facets", notes = "Equal-width price histogram of the products matching the name/visibility filter; "
+            + "bucket bounds are inclusive and can be passed as minPrice/maxPrice to the list queries")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Query successful")
+    })
+    @GetMapping("/facets/price")
+    public Result<PriceFacetResponse> getPriceFacets(
+            @ApiParam(value = "Product name (substring match)", example = "phone") @RequestParam(required = false) String name,
+            @ApiParam(value = "Only products with this visibility, all products when omitted") @RequestParam(required = false) Boolean visible,
+            @ApiParam(value = "Number of buckets (1-100)", example = "10") @RequestParam(defaultValue = "10") int buckets) {
+        PriceFacetResponse result = productService.getPriceFacets(name, visible, buckets);
+        return Result.success(result);
+    }
+    
+    /**
+     * Catalog change feed
+     * Poll with the returned watermark to receive only what changed since the previous call
+     */
+    @ApiOperation(value = "Product Changes", notes = "Products created or updated after the watermark, oldest first, and products "
+            + "deleted since it; omit since on the first call. Call again at once while hasMore is true; "
+            + "when deletionsComplete is false some deletions may have been missed and a full reload is needed")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Query successful"),
+        @ApiResponse(code = 1001, message = "Invalid watermark")
+    })
+    @GetMapping("/changes")
+    public Result<ProductChangesResponse> getProductChanges(
+            @ApiParam(value = "Watermark from the previous call") @RequestParam(required = false) String since,
+            @ApiParam(value = "Maximum changed products (1-1000)", example = "100") @RequestParam(defaultValue = "100") int limit) {
+        ProductChangesResponse result = productService.getProductChanges(since, limit);
+        return Result.success(result);
+    }
+    
+    /**
+     * Catalog change stream
+     * Pushes every committed create, update and delete as a product-change Server-Sent Event
+     */
+    @ApiOperation(value = "Product Change Stream", notes = "Server-Sent Events stream of committed product changes; "
+            + "changes made while disconnected are not replayed, catch up with /changes after reconnecting")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Stream opened"),
+        @ApiResponse(code = 1003, message = "Too many subscribers")
+    })
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProductChanges() {
+        return productService.subscribeProductChanges();
+    }
+    
+    /**
+     * Export the catalog
+     * Streams rows from a database cursor straight to the response, heap use does not grow with the catalog
+     */
+    @ApiOperation(value = "Export Products", notes = "Stream all products as CSV or NDJSON, optionally filtered by visibility")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Export started"),
+        @ApiResponse(code = 1001, message = "Unsupported export format")
+    })
+    @GetMapping("/export")
+    public void exportProducts(
+            @ApiParam(value = "Export format (csv or ndjson)", example = "csv") @RequestParam(defaultValue = "csv") String format,
+            @ApiParam(value = "Only products with this visibility, all products when omitted") @RequestParam(required = false) Boolean visible,
+            HttpServletResponse response) throws IOException {
+        ProductExportFormat exportFormat = ProductExportFormat.of(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"products." + exportFormat.getExtension() + "\"");
+        productService.exportProducts(visible, exportFormat, response.getOutputStream());
+    }
+    
+    /**
+     * Bulk import products
+     * The body is parsed as it streams in; invalid or duplicate rows are reported, not fatal
+     */
+    @ApiOperation(value = "Bulk Import Products", notes = "Import products from a CSV (text/csv, header: name,price,quantity[,visible]) "
+            + "or JSON (application/json array or application/x-ndjson) body")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "Import finished, see failed rows in the result"),
+        @ApiResponse(code = 1001, message = "Unsupported content type or unreadable body")
+    })
+    @PostMapping(value = "/import", consumes = {"text/csv", "text/plain", MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public Result<ProductImportResponse> importProducts(HttpServletRequest request) throws IOException {
+        ProductImportFormat format = ProductImportFormat.fromContentType(request.getContentType());
+        ProductImportResponse result = productImportService.importProducts(request.getInputStream(), format);
+        return Result.success(result);
+    }
+    
+    /**
+     * Strong entity tag of a product, derived from its last update time and field values
+     */
+    private static String productETag(Product product) {
+        long updatedAt = product.getUpdatedAt() != null ? product.getUpdatedAt().toEpochSecond(ZoneOffset.UTC) : 0L;
+        return "\"p" + product.getId() + "-" + updatedAt + "-" + Integer.toHexString(product.hashCode()) + "\"";
+    }
+}
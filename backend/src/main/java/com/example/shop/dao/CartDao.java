@@ -2,9 +2,11 @@ package com.example.shop.dao;
 
 import com.example.shop.model.entity.Cart;
 import com.example.shop.model.entity.CartItem;
+import com.example.shop.model.entity.CartSummary;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,10 +16,20 @@ import java.util.List;
 public interface CartDao {
     
     /**
-     * Query Cart by User ID
+     * Query Cart by User ID, without its items
      */
     Cart selectByUserId(@Param("userId") Long userId);
     
+    /**
+     * Query Cart with Its Items in One Joined Query, newest items first
+     */
+    Cart selectCartWithItems(@Param("userId") Long userId);
+    
+    /**
+     * Count Lines and Sum Totals of a User's Cart in One Query (0 and 0 when there is no cart)
+     */
+    CartSummary selectCartSummary(@Param("userId") Long userId);
+    
     /**
      * Create Cart
      */
@@ -33,6 +45,11 @@ public interface CartDao {
      */
     CartItem selectCartItemById(@Param("id") Long id);
     
+    /**
+     * Query Cart Items by IDs
+     */
+    List<CartItem> selectCartItemsByIds(@Param("ids") Collection<Long> ids);
+    
     /**
      * Query Cart Item by Cart ID and Product ID
      */
@@ -54,17 +71,22 @@ public interface CartDao {
     int deleteCartItemById(@Param("id") Long id);
     
     /**
-     * Delete All Cart Items by Cart ID
+     * Insert Several Cart Items with One Statement, generated IDs set on the items
      */
-    int deleteCartItemsByCartId(@Param("cartId") Long cartId);
+    int insertCartItems(List<CartItem> items);
+    
+    /**
+     * Update Quantity and Total Price of Several Cart Items with One Statement
+     */
+    int batchUpdateCartItems(@Param("items") List<CartItem> items);
     
     /**
-     * Query Cart Item Count
+     * Delete Several Cart Items of a Cart with One Statement
      */
-    Integer countCartItems(@Param("cartId") Long cartId);
+    int deleteCartItemsByIds(@Param("cartId") Long cartId, @Param("ids") Collection<Long> ids);
     
     /**
-     * Calculate Cart Total Amount
+     * Delete All Cart Items by Cart ID
      */
-    java.math.BigDecimal sumCartTotal(@Param("cartId") Long cartId);
+    int deleteCartItemsByCartId(@Param("cartId") Long cartId);
 } 
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.example.shop.dao;
+
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * Catalog Version DAO Interface
+ */
+@Mapper
+public interface CatalogVersionDao {
+    
+    /**
+     * Query the Catalog Version, null before the first bump
+     */
+    Long selectVersion();
+    
+    /**
+     * Increase the Catalog Version by One
+     */
+    int bump();
+}
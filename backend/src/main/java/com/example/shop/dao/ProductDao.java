@@ -3,9 +3,13 @@ package com.example.shop.dao;
 import com.example.shop.model.entity.Product;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Product DAO Interface
@@ -21,6 +25,43 @@ public interface ProductDao {
                                 @Param("maxPrice") BigDecimal maxPrice,
                                 @Param("visible") Boolean visible);
 
+    /**
+     * Query Products among Candidate IDs (Pagination)
+     * Used with name-index candidates instead of the LIKE filter
+     */
+    List<Product> selectProductsByIds(@Param("ids") Collection<Long> ids,
+                                      @Param("minPrice") BigDecimal minPrice,
+                                      @Param("maxPrice") BigDecimal maxPrice,
+                                      @Param("visible") Boolean visible);
+
+    /**
+     * Count Products among Candidate IDs
+     */
+    long countProductsByIds(@Param("ids") Collection<Long> ids,
+                            @Param("minPrice") BigDecimal minPrice,
+                            @Param("maxPrice") BigDecimal maxPrice,
+                            @Param("visible") Boolean visible);
+
+    /**
+     * Count Products Matching the Filter
+     */
+    long countProducts(@Param("name") String name,
+                       @Param("minPrice") BigDecimal minPrice,
+                       @Param("maxPrice") BigDecimal maxPrice,
+                       @Param("visible") Boolean visible);
+
+    /**
+     * Query Product Page after a Keyset Position (created_at DESC, id DESC)
+     * A null position starts from the newest product
+     */
+    List<Product> selectProductsAfter(@Param("name") String name,
+                                      @Param("minPrice") BigDecimal minPrice,
+                                      @Param("maxPrice") BigDecimal maxPrice,
+                                      @Param("visible") Boolean visible,
+                                      @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                      @Param("afterId") Long afterId,
+                                      @Param("limit") int limit);
+
     /**
      * Query Product by ID
      */
@@ -51,6 +92,12 @@ public interface ProductDao {
      */
     List<Product> selectVisibleProducts();
     
+    /**
+     * Stream All Products in ID Order, optionally only one visibility
+     * Rows are fetched as the cursor advances; it must be consumed inside a transaction
+     */
+    Cursor<Product> scanProducts(@Param("visible") Boolean visible);
+    
     /**
      * Batch Query Products by ID List
      */
@@ -65,4 +112,65 @@ public interface ProductDao {
      * Query Product by Name
      */
     Product selectByName(@Param("name") String name);
-} 
\ No newline at end of file
+    
+    /**
+     * Query which of the given names are already taken (names as stored)
+     */
+    List<String> selectExistingNames(@Param("names") Collection<String> names);
+    
+    /**
+     * Query Visible Products whose name starts with the prefix, in name order
+     * The prefix must already have LIKE wildcards escaped
+     */
+    List<Product> selectVisibleByNamePrefix(@Param("prefix") String prefix, @Param("limit") int limit);
+    
+    /**
+     * Query the Prices of Products Matching the Filter, ascending, products without a price left out
+     */
+    List<BigDecimal> selectPrices(@Param("name") String name, @Param("visible") Boolean visible);
+    
+    /**
+     * Query Products Changed after a Watermark (updated_at, id), oldest first
+     * Rows updated within the last {@code settleSeconds} are held back, see the mapper
+     */
+    List<Product> selectChangedAfter(@Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                     @Param("afterId") Long afterId,
+                                     @Param("settleSeconds") int settleSeconds,
+                                     @Param("limit") int limit);
+
+    /**
+     * Current Time of the Database Clock, the clock that stamps {@code updated_at}
+     */
+    LocalDateTime selectCurrentTime();
+    
+    /**
+     * Read Stock and Lock the Product Row until the Transaction Ends (null if the product does not exist)
+     */
+    Integer selectQuantityForUpdate(@Param("id") Long id);
+    
+    /**
+     * Read Stock of Several Products and Lock Their Rows in ID Order (ID and quantity only, missing IDs left out)
+     */
+    List<Product> selectQuantitiesForUpdate(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Take Stock if Enough Is Left, in One Conditional Statement
+     * Returns 0 when the product is missing or has fewer than {@code quantity} in stock
+     */
+    int decreaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    /**
+     * Put Stock Back
+     */
+    int increaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    /**
+     * Add Signed Stock Deltas to Several Products in One Statement (product ID to delta)
+     */
+    int batchAdjustStock(@Param("deltas") Map<Long, Integer> deltas);
+    
+    /**
+     * Set Stock if It Still Is {@code expected} (0 rows when it changed meanwhile)
+     */
+    int compareAndSetStock(@Param("id") Long id, @Param("expected") int expected, @Param("quantity") int quantity);
+}
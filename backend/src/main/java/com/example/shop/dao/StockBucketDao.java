@@ -0,0 +1,80 @@
+package com.example.shop.dao;
+
+import com.example.shop.model.entity.HotProductStock;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * Hot Product Stock Bucket DAO Interface
+ */
+@Mapper
+public interface StockBucketDao {
+    
+    /**
+     * Query Every Hot Product with Its products.quantity and Bucket Total
+     */
+    List<HotProductStock> selectHotProducts();
+    
+    /**
+     * Query One Hot Product with Its products.quantity, Locking Both Rows
+     */
+    HotProductStock selectHotProductForUpdate(@Param("productId") Long productId);
+    
+    /**
+     * Query and Lock a Product's products.quantity (null for an unknown product)
+     */
+    Integer selectProductQuantityForUpdate(@Param("productId") Long productId);
+    
+    /**
+     * Insert a Hot Product
+     */
+    int insertHotProduct(@Param("productId") Long productId, @Param("buckets") int buckets,
+                         @Param("mirroredQuantity") int mirroredQuantity);
+    
+    /**
+     * Update a Hot Product's Bucket Count
+     */
+    int updateBuckets(@Param("productId") Long productId, @Param("buckets") int buckets);
+    
+    /**
+     * Record the Bucket Total Written to products.quantity
+     */
+    int updateMirroredQuantity(@Param("productId") Long productId, @Param("mirroredQuantity") int mirroredQuantity);
+    
+    /**
+     * Delete a Hot Product
+     */
+    int deleteHotProduct(@Param("productId") Long productId);
+    
+    /**
+     * Query a Product's Bucket Quantities, in Bucket Order
+     */
+    List<Integer> selectBucketQuantities(@Param("productId") Long productId);
+    
+    /**
+     * Query and Lock a Product's Bucket Quantities, in Bucket Order
+     */
+    List<Integer> selectBucketQuantitiesForUpdate(@Param("productId") Long productId);
+    
+    /**
+     * Insert a Product's Buckets, Numbered by Their Position in the List
+     */
+    int insertBuckets(@Param("productId") Long productId, @Param("quantities") List<Integer> quantities);
+    
+    /**
+     * Delete a Product's Buckets
+     */
+    int deleteBuckets(@Param("productId") Long productId);
+    
+    /**
+     * Take Units from One Bucket if It Holds Enough (0 rows when it does not)
+     */
+    int decreaseBucket(@Param("productId") Long productId, @Param("bucket") int bucket, @Param("quantity") int quantity);
+    
+    /**
+     * Put Units Back into One Bucket
+     */
+    int increaseBucket(@Param("productId") Long productId, @Param("bucket") int bucket, @Param("quantity") int quantity);
+}
@@ -0,0 +1,21 @@
+package com.example.shop.dao;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * Stock Journal Checkpoint DAO Interface
+ */
+@Mapper
+public interface StockJournalDao {
+    
+    /**
+     * Query the Last Journal Segment Applied to products.quantity, null if none yet
+     */
+    Long selectAppliedSegment(@Param("journal") String journal);
+    
+    /**
+     * Record a Journal Segment as Applied
+     */
+    int upsertAppliedSegment(@Param("journal") String journal, @Param("segment") long segment);
+}
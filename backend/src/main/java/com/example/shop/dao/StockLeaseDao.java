@@ -0,0 +1,45 @@
+package com.example.shop.dao;
+
+import com.example.shop.model.entity.StockLease;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Stock Lease DAO Interface
+ */
+@Mapper
+public interface StockLeaseDao {
+    
+    /**
+     * Query products.quantity Bypassing Any Cache (null for an unknown product)
+     */
+    Integer selectProductQuantity(@Param("productId") Long productId);
+    
+    /**
+     * Query All Leases of One Instance
+     */
+    List<StockLease> selectByNodeId(@Param("nodeId") String nodeId);
+    
+    /**
+     * Query Leases Whose Holder Stopped Renewing Them
+     */
+    List<StockLease> selectExpired(@Param("now") LocalDateTime now);
+    
+    /**
+     * Insert or Replace a Lease (units held and expiry)
+     */
+    int upsert(StockLease lease);
+    
+    /**
+     * Delete a Lease
+     */
+    int delete(@Param("nodeId") String nodeId, @Param("productId") Long productId);
+    
+    /**
+     * Delete a Lease if It Is Still Expired at {@code now} (not renewed meanwhile)
+     */
+    int deleteExpired(@Param("nodeId") String nodeId, @Param("productId") Long productId, @Param("now") LocalDateTime now);
+}
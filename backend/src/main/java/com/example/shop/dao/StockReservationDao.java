@@ -0,0 +1,40 @@
+package com.example.shop.dao;
+
+import com.example.shop.model.entity.StockReservation;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Stock Reservation DAO Interface
+ */
+@Mapper
+public interface StockReservationDao {
+    
+    /**
+     * Query All Reservations
+     */
+    List<StockReservation> selectAll();
+    
+    /**
+     * Insert a Reservation or Replace the Quantity and Expiry of the Existing One
+     */
+    int upsert(StockReservation reservation);
+    
+    /**
+     * Delete a Cart's Reservation of One Product
+     */
+    int deleteByCartIdAndProductId(@Param("cartId") Long cartId, @Param("productId") Long productId);
+    
+    /**
+     * Delete All Reservations of a Cart
+     */
+    int deleteByCartId(@Param("cartId") Long cartId);
+    
+    /**
+     * Delete the Given Reservations if They Are Still Expired at {@code now} (not refreshed meanwhile)
+     */
+    int deleteExpired(@Param("reservations") List<StockReservation> reservations, @Param("now") LocalDateTime now);
+}
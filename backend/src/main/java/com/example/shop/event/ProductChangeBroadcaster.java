@@ -0,0 +1,139 @@
+package com.example.shop.event;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.model.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Pushes Committed Product Changes to Server-Sent Event Subscribers
+ * Every {@link ProductChangeEvent} is sent as one {@code product-change} event carrying the change
+ * type, the IDs and, for creates and updates, the current rows. Sending happens on a dedicated
+ * thread, so a slow subscriber never holds up the committing request; a periodic comment keeps
+ * idle connections open through proxies and weeds out subscribers that went away.
+ */
+@Slf4j
+@Component
+public class ProductChangeBroadcaster {
+
+    static final String EVENT_NAME = "product-change";
+
+    private final ProductDao productDao;
+
+    private final long timeoutMillis;
+
+    private final int maxSubscribers;
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-change-sse");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ProductChangeBroadcaster(ProductDao productDao,
+                                    @Value("${shop.catalog.change-feed.sse-timeout-millis:1800000}") long timeoutMillis,
+                                    @Value("${shop.catalog.change-feed.max-subscribers:500}") int maxSubscribers,
+                                    @Value("${shop.catalog.change-feed.heartbeat-seconds:30}") long heartbeatSeconds) {
+        this.productDao = productDao;
+        this.timeoutMillis = timeoutMillis;
+        this.maxSubscribers = maxSubscribers;
+        if (heartbeatSeconds > 0) {
+            sender.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Open a new subscription
+     */
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new BusinessException(ErrorCode.OPERATION_FAILED, "Too many change stream subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(error -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        return emitter;
+    }
+
+    /**
+     * Number of open subscriptions
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @EventListener
+    public void onProductChange(ProductChangeEvent event) {
+        if (!subscribers.isEmpty()) {
+            sender.execute(() -> broadcast(event));
+        }
+    }
+
+    void broadcast(ProductChangeEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Map<String, Object> change = new LinkedHashMap<>();
+        change.put("type", event.getType());
+        change.put("ids", event.getProductIds());
+        List<Product> products = Collections.emptyList();
+        if (event.getType() != ProductChangeEvent.Type.DELETED) {
+            try {
+                products = productDao.selectByIds(event.getProductIds());
+            } catch (RuntimeException e) {
+                log.warn("Could not load changed products {}, sending IDs only", event.getProductIds(), e);
+            }
+        }
+        change.put("products", products);
+        send(() -> SseEmitter.event().name(EVENT_NAME).data(change, MediaType.APPLICATION_JSON));
+    }
+
+    private void heartbeat() {
+        send(() -> SseEmitter.event().comment("keepalive"));
+    }
+
+    /**
+     * Send to every subscriber, a builder can only be sent once so each gets a fresh one
+     */
+    private void send(Supplier<SseEmitter.SseEventBuilder> event) {
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(event.get());
+            } catch (IOException | IllegalStateException e) {
+                // Client gone: drop it now rather than waiting for the container to notice
+                subscribers.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        for (SseEmitter emitter : subscribers) {
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.shop.event;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Product Change Event
+ * Published once the write that changed the products is committed (or immediately when no
+ * transaction is active), so listeners never observe uncommitted or rolled back data.
+ * Updates carry the columns they wrote, so views that do not show stock can skip stock movements.
+ */
+@Getter
+public class ProductChangeEvent {
+
+    /**
+     * Change Type
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    /**
+     * Product Column Written by an Update
+     */
+    public enum Field {
+        NAME,
+        PRICE,
+        QUANTITY,
+        VISIBLE
+    }
+
+    /**
+     * Change Type
+     */
+    private final Type type;
+
+    /**
+     * Changed Product IDs
+     */
+    private final List<Long> productIds;
+
+    /**
+     * Columns Written, all of them for creations and deletions
+     */
+    private final Set<Field> fields;
+
+    public ProductChangeEvent(Type type, List<Long> productIds) {
+        this(type, productIds, EnumSet.allOf(Field.class));
+    }
+
+    public ProductChangeEvent(Type type, List<Long> productIds, Set<Field> fields) {
+        this.type = type;
+        this.productIds = Collections.unmodifiableList(productIds);
+        this.fields = type == Type.UPDATED
+                ? Collections.unmodifiableSet(EnumSet.copyOf(fields))
+                : Collections.unmodifiableSet(EnumSet.allOf(Field.class));
+    }
+
+    public static ProductChangeEvent of(Type type, Long productId) {
+        return new ProductChangeEvent(type, Collections.singletonList(productId));
+    }
+
+    /**
+     * Stock movement: an update of nothing but the quantity
+     */
+    public static ProductChangeEvent stock(List<Long> productIds) {
+        return new ProductChangeEvent(Type.UPDATED, productIds, EnumSet.of(Field.QUANTITY));
+    }
+
+    public static ProductChangeEvent stock(Long productId) {
+        return stock(Collections.singletonList(productId));
+    }
+
+    /**
+     * Whether only the quantity changed, leaving names, prices, visibility and membership as they were
+     */
+    public boolean isStockOnly() {
+        return fields.size() == 1 && fields.contains(Field.QUANTITY);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.shop.event;
+
+import com.example.shop.dao.ProductDao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Recent Product Deletions for the Change Feed
+ * Deleted rows leave nothing for the {@code updated_at} scan to find, so committed deletions are
+ * remembered here, newest last and bounded in number. The log starts empty at startup and forgets the
+ * oldest entries when full; {@link #getHorizon()} tells how far back it is complete. Deletions are timed by
+ * the database clock, the one that stamps {@code updated_at}, so watermarks and log entries compare without skew
+ * between application servers and the database.
+ */
+@Component
+public class ProductDeletionLog {
+
+    private final ProductDao productDao;
+
+    private final int maxEntries;
+
+    private final Deque<Deletion> deletions = new ArrayDeque<>();
+
+    /**
+     * Every deletion at or after this time is still in the log, set from the database clock on first use
+     */
+    private LocalDateTime horizon;
+
+    public ProductDeletionLog(ProductDao productDao,
+                              @Value("${shop.catalog.change-feed.max-deletions:10000}") int maxEntries) {
+        this.productDao = productDao;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        getHorizon();
+    }
+
+    @EventListener
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.getType() != ProductChangeEvent.Type.DELETED) {
+            return;
+        }
+        LocalDateTime now = productDao.selectCurrentTime();
+        synchronized (deletions) {
+            if (horizon == null) {
+                horizon = now;
+            }
+            for (Long id : event.getProductIds()) {
+                deletions.addLast(new Deletion(now, id));
+            }
+            while (deletions.size() > maxEntries) {
+                horizon = deletions.removeFirst().deletedAt;
+            }
+        }
+    }
+
+    /**
+     * Earliest time from which the log holds every deletion
+     */
+    public LocalDateTime getHorizon() {
+        synchronized (deletions) {
+            if (horizon != null) {
+                return horizon;
+            }
+        }
+        LocalDateTime now = productDao.selectCurrentTime();
+        synchronized (deletions) {
+            if (horizon == null) {
+                horizon = now;
+            }
+            return horizon;
+        }
+    }
+
+    /**
+     * IDs deleted at or after the given time, oldest first
+     */
+    public List<Long> deletedSince(LocalDateTime since) {
+        List<Long> ids = new ArrayList<>();
+        synchronized (deletions) {
+            for (Deletion deletion : deletions) {
+                if (!deletion.deletedAt.isBefore(since)) {
+                    ids.add(deletion.id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * One Deleted Product
+     */
+    private static final class Deletion {
+
+        private final LocalDateTime deletedAt;
+
+        private final Long id;
+
+        private Deletion(LocalDateTime deletedAt, Long id) {
+            this.deletedAt = deletedAt;
+            this.id = id;
+        }
+    }
+}
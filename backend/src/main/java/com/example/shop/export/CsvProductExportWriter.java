@@ -0,0 +1,70 @@
+package com.example.shop.export;
+
+import com.example.shop.model.entity.Product;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV Export Writer
+ */
+class CsvProductExportWriter implements ProductExportWriter {
+
+    private static final String HEADER = "id,name,price,quantity,visible,created_at,updated_at";
+
+    private static final String LINE_END = "\r\n";
+
+    private final Writer writer;
+
+    CsvProductExportWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write(LINE_END);
+    }
+
+    @Override
+    public void write(Product product) throws IOException {
+        writer.write(field(product.getId()));
+        writer.write(',');
+        writer.write(quote(product.getName()));
+        writer.write(',');
+        writer.write(product.getPrice() == null ? "" : product.getPrice().toPlainString());
+        writer.write(',');
+        writer.write(field(product.getQuantity()));
+        writer.write(',');
+        writer.write(field(product.getVisible()));
+        writer.write(',');
+        writer.write(field(product.getCreatedAt()));
+        writer.write(',');
+        writer.write(field(product.getUpdatedAt()));
+        writer.write(LINE_END);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private static String field(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    /**
+     * Quote a text field when it contains a separator, quote or line break
+     */
+    static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        return needsQuotes ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.shop.export;
+
+import com.example.shop.model.entity.Product;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Newline-Delimited JSON Export Writer, one product object per line
+ */
+class NdjsonProductExportWriter implements ProductExportWriter {
+
+    private final JsonGenerator generator;
+
+    private final ObjectWriter productWriter;
+
+    NdjsonProductExportWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are separated explicitly, not by the default root value separator (a space)
+        this.generator.setRootValueSeparator(null);
+        // Let the generator buffer fill instead of flushing the response after every product
+        this.productWriter = objectMapper.writerFor(Product.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    public void write(Product product) throws IOException {
+        productWriter.writeValue(generator, product);
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
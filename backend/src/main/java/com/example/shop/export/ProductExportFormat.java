@@ -0,0 +1,53 @@
+package com.example.shop.export;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Catalog Export Format
+ */
+@Getter
+public enum ProductExportFormat {
+
+    CSV("text/csv;charset=UTF-8", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    /**
+     * Response Content Type
+     */
+    private final String contentType;
+
+    /**
+     * File Extension of the Download
+     */
+    private final String extension;
+
+    ProductExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * Resolve a format name (case-insensitive)
+     */
+    public static ProductExportFormat of(String value) {
+        for (ProductExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new BusinessException(ErrorCode.PARAM_INVALID, "Unsupported export format: " + value);
+    }
+
+    /**
+     * Open a writer of this format on the output stream
+     */
+    public ProductExportWriter open(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        return this == CSV ? new CsvProductExportWriter(out) : new NdjsonProductExportWriter(out, objectMapper);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.shop.export;
+
+import com.example.shop.model.entity.Product;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streaming Product Export Writer
+ * Writes one product at a time through a small buffer; closing flushes the buffer but leaves the
+ * underlying stream open for the servlet container.
+ */
+public interface ProductExportWriter extends Closeable {
+
+    /**
+     * Write one product
+     */
+    void write(Product product) throws IOException;
+}
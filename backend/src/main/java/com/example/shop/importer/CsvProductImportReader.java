@@ -0,0 +1,147 @@
+package com.example.shop.importer;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.model.req.ProductCreateRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV Import Reader
+ * Columns are located by header name, so unknown columns (such as the id and timestamps of an
+ * export file) are ignored. An empty visible column means visible.
+ */
+class CsvProductImportReader implements ProductImportReader {
+
+    private static final String[] REQUIRED_COLUMNS = {"name", "price", "quantity"};
+
+    private final Reader reader;
+
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    private int rowNumber;
+
+    CsvProductImportReader(InputStream in) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> header = readRecord();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                // Drop a byte order mark written by spreadsheet tools
+                String column = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+                columns.putIfAbsent(column, i);
+            }
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (header != null && !columns.containsKey(column)) {
+                throw new BusinessException(ErrorCode.PARAM_INVALID, "CSV header is missing column: " + column);
+            }
+        }
+    }
+
+    @Override
+    public ProductImportRow next() throws IOException {
+        List<String> record;
+        do {
+            record = readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).trim().isEmpty());
+        rowNumber++;
+
+        String name = value(record, "name");
+        ProductCreateRequest product = new ProductCreateRequest();
+        product.setName(name);
+        String price = value(record, "price");
+        String quantity = value(record, "quantity");
+        String visible = value(record, "visible");
+        try {
+            product.setPrice(price == null ? null : new BigDecimal(price));
+        } catch (NumberFormatException e) {
+            return ProductImportRow.failed(rowNumber, name, "Invalid price: " + price);
+        }
+        try {
+            product.setQuantity(quantity == null ? null : Integer.valueOf(quantity));
+        } catch (NumberFormatException e) {
+            return ProductImportRow.failed(rowNumber, name, "Invalid quantity: " + quantity);
+        }
+        if (visible != null) {
+            if ("true".equalsIgnoreCase(visible) || "1".equals(visible)) {
+                product.setVisible(true);
+            } else if ("false".equalsIgnoreCase(visible) || "0".equals(visible)) {
+                product.setVisible(false);
+            } else {
+                return ProductImportRow.failed(rowNumber, name, "Invalid visible flag: " + visible);
+            }
+        }
+        return ProductImportRow.of(rowNumber, product);
+    }
+
+    /**
+     * Trimmed value of a column, null when the column is absent or empty
+     */
+    private String value(List<String> record, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Read one record, quoted fields may contain separators, doubled quotes and line breaks
+     * Returns null at the end of the input
+     */
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    // Unterminated quote, keep what was read
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
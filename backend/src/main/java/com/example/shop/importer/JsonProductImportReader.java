@@ -0,0 +1,38 @@
+package com.example.shop.importer;
+
+import com.example.shop.model.req.ProductCreateRequest;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * JSON Import Reader
+ * Reads the elements of a top-level array, or a sequence of root-level objects (NDJSON), one at a
+ * time. A row that does not bind to a product is skipped and reported.
+ */
+class JsonProductImportReader implements ProductImportReader {
+
+    private final MappingIterator<ProductCreateRequest> iterator;
+
+    private int rowNumber;
+
+    JsonProductImportReader(InputStream in, ObjectMapper objectMapper) throws IOException {
+        this.iterator = objectMapper.readerFor(ProductCreateRequest.class).readValues(in);
+    }
+
+    @Override
+    public ProductImportRow next() throws IOException {
+        if (!iterator.hasNextValue()) {
+            return null;
+        }
+        rowNumber++;
+        try {
+            return ProductImportRow.of(rowNumber, iterator.nextValue());
+        } catch (JsonMappingException e) {
+            return ProductImportRow.failed(rowNumber, null, "Invalid row: " + e.getOriginalMessage());
+        }
+    }
+}
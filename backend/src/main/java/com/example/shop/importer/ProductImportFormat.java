@@ -0,0 +1,47 @@
+package com.example.shop.importer;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * Product Import Format
+ */
+public enum ProductImportFormat {
+
+    /**
+     * CSV with a header row naming the name, price, quantity and (optional) visible columns
+     */
+    CSV,
+
+    /**
+     * JSON array of products, or newline-delimited JSON objects
+     */
+    JSON;
+
+    /**
+     * Resolve the format from the request content type
+     */
+    public static ProductImportFormat fromContentType(String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (type.startsWith("text/csv") || type.startsWith("text/plain")) {
+            return CSV;
+        }
+        if (type.contains("json")) {
+            return JSON;
+        }
+        throw new BusinessException(ErrorCode.PARAM_INVALID,
+                "Unsupported import content type: " + contentType + ", expected text/csv or application/json");
+    }
+
+    /**
+     * Open a reader of this format on the input stream
+     */
+    public ProductImportReader open(InputStream in, ObjectMapper objectMapper) throws IOException {
+        return this == CSV ? new CsvProductImportReader(in) : new JsonProductImportReader(in, objectMapper);
+    }
+}
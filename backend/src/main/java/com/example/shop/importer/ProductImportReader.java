@@ -0,0 +1,16 @@
+package com.example.shop.importer;
+
+import java.io.IOException;
+
+/**
+ * Streaming Product Import Reader
+ * Parses one row at a time from the request body. Rows that cannot be parsed are returned with an
+ * error instead of ending the import; an IOException means the input itself is unreadable.
+ */
+public interface ProductImportReader {
+
+    /**
+     * Next row, null at the end of the input
+     */
+    ProductImportRow next() throws IOException;
+}
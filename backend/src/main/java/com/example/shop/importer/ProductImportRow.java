@@ -0,0 +1,47 @@
+package com.example.shop.importer;
+
+import com.example.shop.model.req.ProductCreateRequest;
+import lombok.Getter;
+
+/**
+ * One Parsed Row of an Import
+ * Either carries the parsed product or the reason it could not be parsed.
+ */
+@Getter
+public final class ProductImportRow {
+
+    /**
+     * Row Number, 1-based, not counting a CSV header
+     */
+    private final int rowNumber;
+
+    /**
+     * Parsed Product, null when parsing failed
+     */
+    private final ProductCreateRequest product;
+
+    /**
+     * Product Name as Read, for error reports
+     */
+    private final String name;
+
+    /**
+     * Parse Error, null when parsing succeeded
+     */
+    private final String error;
+
+    private ProductImportRow(int rowNumber, ProductCreateRequest product, String name, String error) {
+        this.rowNumber = rowNumber;
+        this.product = product;
+        this.name = name;
+        this.error = error;
+    }
+
+    public static ProductImportRow of(int rowNumber, ProductCreateRequest product) {
+        return new ProductImportRow(rowNumber, product, product.getName(), null);
+    }
+
+    public static ProductImportRow failed(int rowNumber, String name, String error) {
+        return new ProductImportRow(rowNumber, null, name, error);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.shop.index;
+
+import com.example.shop.dao.ProductDao;
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.model.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-Memory Catalog Query Engine
+ * Holds a {@link ProductColumns} snapshot of the products table when
+ * {@code shop.catalog.query-engine=memory} (list queries) or {@code shop.catalog.facets.in-memory=true}
+ * (price facets). The full table is loaded once at startup; afterwards only
+ * the products named by committed {@link ProductChangeEvent}s are re-read and a new snapshot is
+ * swapped in on a background thread, bursts of changes collapsing into a single rebuild. Kept for facets
+ * only, the snapshot ignores stock movements: facets never look at the quantity.
+ */
+@Slf4j
+@Component
+public class ProductColumnStore {
+
+    private static final String MEMORY_ENGINE = "memory";
+
+    private final ProductDao productDao;
+
+    /**
+     * Whether list queries are answered from the snapshot
+     */
+    private final boolean queryEngine;
+
+    /**
+     * Whether the snapshot is maintained at all
+     */
+    private final boolean enabled;
+
+    private final AtomicReference<ProductColumns> current = new AtomicReference<>();
+
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    /**
+     * IDs changed since the last rebuild started
+     */
+    private final Set<Long> pendingIds = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-columns-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ProductColumnStore(ProductDao productDao,
+                              @Value("${shop.catalog.query-engine:sql}") String queryEngine,
+                              @Value("${shop.catalog.facets.in-memory:false}") boolean inMemoryFacets) {
+        this.productDao = productDao;
+        this.queryEngine = MEMORY_ENGINE.equalsIgnoreCase(queryEngine.trim());
+        this.enabled = this.queryEngine || inMemoryFacets;
+    }
+
+    /**
+     * Snapshot for list queries, null until the first load finished or when the SQL engine is configured
+     */
+    public ProductColumns getColumns() {
+        return queryEngine ? current.get() : null;
+    }
+
+    /**
+     * Current snapshot regardless of the query engine, null until the first load finished or when disabled
+     */
+    public ProductColumns getSnapshot() {
+        return current.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild();
+    }
+
+    @EventListener
+    public void onProductChange(ProductChangeEvent event) {
+        if (!enabled || (!queryEngine && event.isStockOnly())) {
+            return;
+        }
+        pendingIds.addAll(event.getProductIds());
+        scheduleRebuild();
+    }
+
+    /**
+     * Queue a rebuild unless one is already pending
+     */
+    public void scheduleRebuild() {
+        if (enabled && rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                // Reset before reading so changes committed during the rebuild queue another one
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Product column store rebuild failed, keeping previous snapshot", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Apply pending changes to the current snapshot, or load the full table if there is none yet
+     */
+    void rebuild() {
+        List<Long> changed = new ArrayList<>(pendingIds);
+        pendingIds.removeAll(changed);
+        ProductColumns previous = current.get();
+        long start = System.currentTimeMillis();
+        List<Product> products;
+        try {
+            products = previous == null ? productDao.selectProducts(null, null, null, null) : merge(previous, changed);
+        } catch (RuntimeException e) {
+            // Retry these IDs with the next rebuild
+            pendingIds.addAll(changed);
+            throw e;
+        }
+        ProductColumns columns = ProductColumns.build(versionSequence.incrementAndGet(), products);
+        current.set(columns);
+        log.debug("Product column store v{} built: {} products, {} changed, {} ms",
+                columns.getVersion(), columns.size(), changed.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Previous rows with the changed products re-read, IDs no longer present are dropped
+     */
+    private List<Product> merge(ProductColumns previous, List<Long> changed) {
+        if (changed.isEmpty()) {
+            return previous.products();
+        }
+        Map<Long, Product> byId = new LinkedHashMap<>();
+        for (Product product : previous.products()) {
+            byId.put(product.getId(), product);
+        }
+        for (Long id : changed) {
+            byId.remove(id);
+        }
+        for (Product product : productDao.selectByIds(changed)) {
+            byId.put(product.getId(), product);
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.shop.index;
+
+import com.example.shop.model.entity.Product;
+import lombok.Getter;
+import org.springframework.beans.BeanUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable Columnar Copy of the Products Table
+ * Answers {@code selectProducts(name, minPrice, maxPrice, visible)} filters without the database:
+ * visibility is a pair of bitsets, prices are primitive cents sorted through a permutation so a
+ * range is two binary searches, and rows are pre-ordered by {@code created_at DESC, id DESC}.
+ * Rows handed out are copies, the snapshot itself is shared between requests.
+ */
+public final class ProductColumns {
+
+    private static final Comparator<Product> CREATED_DESC = Comparator
+            .comparing(Product::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(Product::getId, Comparator.nullsFirst(Comparator.<Long>naturalOrder()))
+            .reversed();
+
+    /**
+     * Sort key of rows without a price, below every real price so bounded ranges skip them
+     */
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    /**
+     * Snapshot Version, increases with every rebuild
+     */
+    @Getter
+    private final long version;
+
+    /**
+     * Rows in {@code created_at DESC, id DESC} order, the row number is the position in this array
+     */
+    private final Product[] rows;
+
+    /**
+     * Lower-cased names by row
+     */
+    private final String[] names;
+
+    /**
+     * Rows with visible = true
+     */
+    private final BitSet visibleRows;
+
+    /**
+     * Rows with visible = false
+     */
+    private final BitSet hiddenRows;
+
+    /**
+     * Prices in cents, ascending
+     */
+    private final long[] sortedPrices;
+
+    /**
+     * Row number of each entry of {@link #sortedPrices}
+     */
+    private final int[] priceOrder;
+
+    private ProductColumns(long version, Product[] rows) {
+        this.version = version;
+        this.rows = rows;
+        this.names = new String[rows.length];
+        this.visibleRows = new BitSet(rows.length);
+        this.hiddenRows = new BitSet(rows.length);
+        long[] prices = new long[rows.length];
+        for (int row = 0; row < rows.length; row++) {
+            Product product = rows[row];
+            names[row] = product.getName() == null ? null : product.getName().toLowerCase(Locale.ROOT);
+            if (Boolean.TRUE.equals(product.getVisible())) {
+                visibleRows.set(row);
+            } else if (Boolean.FALSE.equals(product.getVisible())) {
+                hiddenRows.set(row);
+            }
+            prices[row] = product.getPrice() == null ? NO_PRICE
+                    : product.getPrice().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }
+        Integer[] order = new Integer[rows.length];
+        for (int row = 0; row < rows.length; row++) {
+            order[row] = row;
+        }
+        Arrays.sort(order, Comparator.comparingLong(row -> prices[row]));
+        this.priceOrder = new int[rows.length];
+        this.sortedPrices = new long[rows.length];
+        for (int i = 0; i < order.length; i++) {
+            priceOrder[i] = order[i];
+            sortedPrices[i] = prices[order[i]];
+        }
+    }
+
+    /**
+     * Build a snapshot from the full product list (any order)
+     */
+    public static ProductColumns build(long version, List<Product> products) {
+        Product[] rows = new Product[products.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = copyOf(products.get(i));
+        }
+        Arrays.sort(rows, CREATED_DESC);
+        return new ProductColumns(version, rows);
+    }
+
+    /**
+     * Number of products in the snapshot
+     */
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Products in snapshot order, as stored (read-only)
+     */
+    public List<Product> products() {
+        return Collections.unmodifiableList(Arrays.asList(rows));
+    }
+
+    /**
+     * Count the products matching the filter
+     */
+    public long count(String name, BigDecimal minPrice, BigDecimal maxPrice, Boolean visible) {
+        return match(name, minPrice, maxPrice, visible).cardinality();
+    }
+
+    /**
+     * Matching products in {@code created_at DESC} order, {@code limit} rows after skipping {@code offset}
+     */
+    public Slice query(String name, BigDecimal minPrice, BigDecimal maxPrice, Boolean visible, long offset, int limit) {
+        BitSet matches = match(name, minPrice, maxPrice, visible);
+        long total = matches.cardinality();
+        List<Product> page = new ArrayList<>((int) Math.max(0, Math.min(limit, total - offset)));
+        long skipped = 0;
+        for (int row = matches.nextSetBit(0); row >= 0 && page.size() < limit; row = matches.nextSetBit(row + 1)) {
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page.add(copyOf(rows[row]));
+            }
+        }
+        return new Slice(page, total);
+    }
+
+    /**
+     * Prices in cents of the products matching the filter, ascending; products without a price are left out
+     * One pass over the sorted price column, no row is copied
+     */
+    public long[] prices(String name, Boolean visible) {
+        BitSet matches = match(name, null, null, visible);
+        long[] prices = new long[matches.cardinality()];
+        int count = 0;
+        for (int i = lowerBound(NO_PRICE + 1); i < sortedPrices.length; i++) {
+            if (matches.get(priceOrder[i])) {
+                prices[count++] = sortedPrices[i];
+            }
+        }
+        return count == prices.length ? prices : Arrays.copyOf(prices, count);
+    }
+
+    /**
+     * Rows matching the filter, as a bitset over row numbers (so iteration follows created_at order)
+     */
+    private BitSet match(String name, BigDecimal minPrice, BigDecimal maxPrice, Boolean visible) {
+        BitSet matches;
+        if (minPrice != null || maxPrice != null) {
+            long low = minPrice == null ? NO_PRICE + 1
+                    : Math.max(NO_PRICE + 1, toCents(minPrice, RoundingMode.CEILING));
+            long high = maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice, RoundingMode.FLOOR);
+            matches = new BitSet(rows.length);
+            for (int i = lowerBound(low); i < sortedPrices.length && sortedPrices[i] <= high; i++) {
+                matches.set(priceOrder[i]);
+            }
+        } else {
+            matches = new BitSet(rows.length);
+            matches.set(0, rows.length);
+        }
+        if (visible != null) {
+            matches.and(visible ? visibleRows : hiddenRows);
+        }
+        if (name != null && !name.isEmpty()) {
+            String needle = name.toLowerCase(Locale.ROOT);
+            for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                if (names[row] == null || !names[row].contains(needle)) {
+                    matches.clear(row);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * First index of {@link #sortedPrices} holding a value {@code >= cents}
+     */
+    private int lowerBound(long cents) {
+        int low = 0;
+        int high = sortedPrices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid] < cents) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long toCents(BigDecimal price, RoundingMode roundingMode) {
+        BigDecimal cents = price.movePointRight(2).setScale(0, roundingMode);
+        if (cents.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0) {
+            return Long.MAX_VALUE;
+        }
+        if (cents.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.longValue();
+    }
+
+    private static Product copyOf(Product product) {
+        Product copy = new Product();
+        BeanUtils.copyProperties(product, copy);
+        return copy;
+    }
+
+    /**
+     * One Page of Matching Products with the Exact Total
+     */
+    @Getter
+    public static final class Slice {
+
+        private final List<Product> products;
+
+        private final long total;
+
+        Slice(List<Product> products, long total) {
+            this.products = products;
+            this.total = total;
+        }
+    }
+}
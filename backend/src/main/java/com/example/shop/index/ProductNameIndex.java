@@ -0,0 +1,311 @@
+package com.example.shop.index;
+
+import com.example.shop.dao.ProductDao;
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.model.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-Memory Trigram Index over Product Names
+ * Answers {@code name LIKE '%q%'} style lookups with a candidate ID set: the posting lists of the
+ * query trigrams are intersected (smallest first) and every survivor is verified against its name.
+ * Names are also indexed by their single characters and character pairs, so 1- and 2-character queries
+ * read one posting list instead of scanning every name. Matching is case-insensitive. Kept current from
+ * committed {@link ProductChangeEvent}s; changes of one product are applied one at a time.
+ */
+@Slf4j
+@Component
+public class ProductNameIndex {
+
+    private static final int GRAM = 3;
+
+    private final ProductDao productDao;
+
+    private final boolean enabled;
+
+    private final int maxCandidates;
+
+    /**
+     * Product ID -> lower-cased name
+     */
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * Packed gram of 1 to 3 characters -> product IDs containing it
+     */
+    private final Map<Long, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    /**
+     * IDs changed while the initial build was running, re-read once it finishes
+     */
+    private final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean building;
+
+    private volatile boolean ready;
+
+    public ProductNameIndex(ProductDao productDao,
+                            @Value("${shop.catalog.name-index.enabled:true}") boolean enabled,
+                            @Value("${shop.catalog.name-index.max-candidates:1000}") int maxCandidates) {
+        this.productDao = productDao;
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Whether lookups can be answered from the index
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * IDs of products whose name contains the query (case-insensitive)
+     * Returns null when the index cannot answer: not ready, or more candidates than worth
+     * passing to an IN list, in which case callers fall back to SQL.
+     */
+    public Set<Long> search(String query) {
+        if (!ready || query == null) {
+            return null;
+        }
+        String needle = normalize(query);
+        Set<Long> candidates = new HashSet<>();
+        if (needle.isEmpty()) {
+            return null;
+        }
+        if (needle.length() < GRAM) {
+            // The posting list of the whole query is the answer
+            Set<Long> posting = postings.get(pack(needle, 0, needle.length()));
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            if (posting.size() > maxCandidates) {
+                return null;
+            }
+            for (Long id : posting) {
+                String name = names.get(id);
+                if (name != null && name.contains(needle) && !addCandidate(candidates, id)) {
+                    return null;
+                }
+            }
+            return candidates;
+        }
+
+        List<Set<Long>> lists = new ArrayList<>();
+        for (Long gram : trigrams(needle)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> smallest = lists.get(0);
+        for (Long id : smallest) {
+            if (containsAll(lists, id)) {
+                String name = names.get(id);
+                if (name != null && name.contains(needle) && !addCandidate(candidates, id)) {
+                    return null;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Number of indexed products
+     */
+    public int size() {
+        return names.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread builder = new Thread(this::rebuild, "product-name-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @EventListener
+    public void onProductChange(ProductChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (building) {
+            changedDuringBuild.addAll(event.getProductIds());
+        }
+        if (event.getType() == ProductChangeEvent.Type.DELETED) {
+            for (Long id : event.getProductIds()) {
+                remove(id);
+            }
+        } else {
+            reload(event.getProductIds());
+        }
+    }
+
+    /**
+     * Build the index from the full product table
+     */
+    public void rebuild() {
+        building = true;
+        try {
+            long start = System.currentTimeMillis();
+            for (Product product : productDao.selectProducts(null, null, null, null)) {
+                put(product.getId(), product.getName());
+            }
+            building = false;
+            if (!changedDuringBuild.isEmpty()) {
+                List<Long> changed = new ArrayList<>(changedDuringBuild);
+                changedDuringBuild.removeAll(changed);
+                reload(changed);
+            }
+            ready = true;
+            log.info("Product name index built: {} products, {} grams in {} ms",
+                    names.size(), postings.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Product name index build failed, name searches fall back to SQL", e);
+        } finally {
+            building = false;
+        }
+    }
+
+    /**
+     * Re-read the given products and re-index them, IDs no longer present are dropped
+     */
+    private void reload(List<Long> ids) {
+        Set<Long> missing = new HashSet<>(ids);
+        for (Product product : productDao.selectByIds(new ArrayList<>(ids))) {
+            put(product.getId(), product.getName());
+            missing.remove(product.getId());
+        }
+        for (Long id : missing) {
+            remove(id);
+        }
+    }
+
+    /**
+     * Index (or re-index) one product name
+     * Postings are updated while the product's entry is locked, so concurrent changes of one product
+     * cannot interleave and leave postings that do not match the stored name.
+     */
+    void put(Long id, String name) {
+        String normalized = normalize(name);
+        names.compute(id, (key, previous) -> {
+            if (normalized.equals(previous)) {
+                return previous;
+            }
+            Set<Long> kept = grams(normalized);
+            if (previous != null) {
+                for (Long gram : grams(previous)) {
+                    if (!kept.contains(gram)) {
+                        removePosting(gram, id);
+                    }
+                }
+            }
+            for (Long gram : kept) {
+                addPosting(gram, id);
+            }
+            return normalized;
+        });
+    }
+
+    /**
+     * Drop one product from the index
+     */
+    void remove(Long id) {
+        names.computeIfPresent(id, (key, previous) -> {
+            for (Long gram : grams(previous)) {
+                removePosting(gram, id);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Atomic per gram with {@link #removePosting}, an emptied list is never added to after being dropped
+     */
+    private void addPosting(Long gram, Long id) {
+        postings.compute(gram, (key, ids) -> {
+            Set<Long> posting = ids != null ? ids : ConcurrentHashMap.<Long>newKeySet();
+            posting.add(id);
+            return posting;
+        });
+    }
+
+    private void removePosting(Long gram, Long id) {
+        postings.computeIfPresent(gram, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private boolean addCandidate(Set<Long> candidates, Long id) {
+        candidates.add(id);
+        return candidates.size() <= maxCandidates;
+    }
+
+    private static boolean containsAll(List<Set<Long>> lists, Long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Distinct grams of 1 to 3 characters of a normalized string
+     */
+    private static Set<Long> grams(String value) {
+        Set<Long> grams = new HashSet<>();
+        for (int length = 1; length <= GRAM; length++) {
+            for (int i = 0; i + length <= value.length(); i++) {
+                grams.add(pack(value, i, length));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Distinct trigrams of a normalized string
+     */
+    private static Set<Long> trigrams(String value) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(pack(value, i, GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * A gram packed into a long: its length in the top bits, then up to 3 x 16-bit chars
+     */
+    private static long pack(String value, int start, int length) {
+        long packed = length;
+        for (int i = start; i < start + length; i++) {
+            packed = (packed << 16) | value.charAt(i);
+        }
+        return packed;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.shop.index;
+
+import com.example.shop.dao.ProductDao;
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.model.entity.Product;
+import com.example.shop.model.resp.ProductSuggestion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Prefix Index over Visible Product Names
+ * A sorted map keyed by lower-cased name (plus the ID, so equal names coexist); a prefix lookup is
+ * one seek followed by an in-order walk of at most {@code limit} entries. Suggestions are returned
+ * in alphabetical order. Kept current from committed {@link ProductChangeEvent}s, including
+ * visibility toggles.
+ */
+@Slf4j
+@Component
+public class ProductSuggester {
+
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final ProductDao productDao;
+
+    private final boolean enabled;
+
+    /**
+     * Lower-cased name + separator + ID -> suggestion
+     */
+    private final ConcurrentSkipListMap<String, ProductSuggestion> entries = new ConcurrentSkipListMap<>();
+
+    /**
+     * Product ID -> its key in {@link #entries}
+     */
+    private final Map<Long, String> keys = new ConcurrentHashMap<>();
+
+    /**
+     * IDs changed while the initial build was running, re-read once it finishes
+     */
+    private final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean building;
+
+    private volatile boolean ready;
+
+    public ProductSuggester(ProductDao productDao,
+                            @Value("${shop.catalog.suggest.enabled:true}") boolean enabled) {
+        this.productDao = productDao;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Whether lookups can be answered from the index
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Up to {@code limit} visible products whose name starts with the prefix (case-insensitive)
+     */
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        String from = prefix.toLowerCase(Locale.ROOT);
+        ConcurrentNavigableMap<String, ProductSuggestion> range =
+                entries.subMap(from, true, from + Character.MAX_VALUE, false);
+        List<ProductSuggestion> suggestions = new ArrayList<>(limit);
+        for (ProductSuggestion suggestion : range.values()) {
+            if (suggestions.size() >= limit) {
+                break;
+            }
+            suggestions.add(new ProductSuggestion(suggestion.getId(), suggestion.getName()));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Number of indexed products
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread builder = new Thread(this::rebuild, "product-suggester-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @EventListener
+    public void onProductChange(ProductChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (building) {
+            changedDuringBuild.addAll(event.getProductIds());
+        }
+        if (event.getType() == ProductChangeEvent.Type.DELETED) {
+            for (Long id : event.getProductIds()) {
+                remove(id);
+            }
+        } else {
+            reload(event.getProductIds());
+        }
+    }
+
+    /**
+     * Build the index from the visible products
+     */
+    public void rebuild() {
+        building = true;
+        try {
+            long start = System.currentTimeMillis();
+            for (Product product : productDao.selectVisibleProducts()) {
+                put(product.getId(), product.getName());
+            }
+            building = false;
+            if (!changedDuringBuild.isEmpty()) {
+                List<Long> changed = new ArrayList<>(changedDuringBuild);
+                changedDuringBuild.removeAll(changed);
+                reload(changed);
+            }
+            ready = true;
+            log.info("Product suggester built: {} names in {} ms", keys.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Product suggester build failed, suggestions fall back to SQL", e);
+        } finally {
+            building = false;
+        }
+    }
+
+    /**
+     * Re-read the given products: visible ones are (re-)indexed, hidden or deleted ones dropped
+     */
+    private void reload(List<Long> ids) {
+        Set<Long> missing = new HashSet<>(ids);
+        for (Product product : productDao.selectByIds(new ArrayList<>(ids))) {
+            missing.remove(product.getId());
+            if (Boolean.TRUE.equals(product.getVisible())) {
+                put(product.getId(), product.getName());
+            } else {
+                remove(product.getId());
+            }
+        }
+        for (Long id : missing) {
+            remove(id);
+        }
+    }
+
+    /**
+     * Index (or re-index) one visible product
+     */
+    void put(Long id, String name) {
+        if (name == null) {
+            remove(id);
+            return;
+        }
+        String key = name.toLowerCase(Locale.ROOT) + KEY_SEPARATOR + id;
+        entries.put(key, new ProductSuggestion(id, name));
+        String previous = keys.put(id, key);
+        if (previous != null && !previous.equals(key)) {
+            entries.remove(previous);
+        }
+    }
+
+    /**
+     * Drop one product from the index
+     */
+    void remove(Long id) {
+        String previous = keys.remove(id);
+        if (previous != null) {
+            entries.remove(previous);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.shop.inventory;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.model.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stock Taken Straight from products.quantity (shop.inventory.mode=database, the default)
+ * Stock moves with conditional {@code quantity = quantity - n ... AND quantity >= n} statements: the
+ * affected row count decides whether there was enough, so concurrent buyers of one product never
+ * oversell and no buyer reads the stock first. The row lock a statement takes is held until the cart
+ * transaction commits, which is why the cart service moves stock last. Products flagged as hot keep their
+ * stock in {@link StockBuckets} instead, so their buyers spread over several rows.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shop.inventory.mode", havingValue = "database", matchIfMissing = true)
+public class DatabaseInventoryManager implements InventoryManager {
+
+    private final ProductDao productDao;
+
+    private final StockBuckets stockBuckets;
+
+    public DatabaseInventoryManager(ProductDao productDao, StockBuckets stockBuckets) {
+        this.productDao = productDao;
+        this.stockBuckets = stockBuckets;
+    }
+
+    @Override
+    public void take(Long cartId, Long productId, int quantity) {
+        if (stockBuckets.take(productId, quantity)) {
+            return;
+        }
+        if (productDao.decreaseStock(productId, quantity) == 0) {
+            // Nothing updated: either the product is gone or its stock is short
+            if (productDao.selectById(productId) == null) {
+                throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND);
+            }
+            throw new BusinessException(ErrorCode.INVENTORY_INSUFFICIENT);
+        }
+    }
+
+    @Override
+    public void release(Long cartId, Long productId, int quantity) {
+        if (stockBuckets.release(productId, quantity)) {
+            return;
+        }
+        if (productDao.increaseStock(productId, quantity) == 0) {
+            log.warn("Cannot restore stock, product not found - Product ID: {}", productId);
+        }
+    }
+
+    @Override
+    public void releaseAll(Long cartId, Map<Long, Integer> quantities) {
+        Map<Long, Integer> deltas = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Long productId = entry.getKey();
+            if (!stockBuckets.release(productId, entry.getValue())) {
+                deltas.put(productId, entry.getValue());
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // One relative update for all products, sorted by ID so concurrent restores lock rows in the same order;
+        // deleted products are simply not matched
+        productDao.batchAdjustStock(deltas);
+    }
+
+    /**
+     * Whether a product's stock is on its products row, not in buckets
+     */
+    boolean keepsStockOnProductRow(Long productId) {
+        return !stockBuckets.isHot(productId);
+    }
+
+    @Override
+    public int getAvailable(Long productId) {
+        if (stockBuckets.isHot(productId)) {
+            Integer total = stockBuckets.total(productId);
+            if (total != null) {
+                return total;
+            }
+        }
+        Product product = productDao.selectById(productId);
+        return product != null ? product.getQuantity() : 0;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.shop.inventory;
+
+import java.util.Map;
+
+/**
+ * Stock Keeping for Cart Changes
+ * The implementation is chosen with {@code shop.inventory.mode}. Calls join the caller's transaction
+ * and throw {@code BusinessException} with {@code INVENTORY_INSUFFICIENT} or {@code PRODUCT_NOT_FOUND}
+ * when stock cannot be taken, which rolls the cart change back.
+ */
+public interface InventoryManager {
+
+    /**
+     * Take stock for a cart
+     */
+    void take(Long cartId, Long productId, int quantity);
+
+    /**
+     * Give stock taken for a cart back
+     */
+    void release(Long cartId, Long productId, int quantity);
+
+    /**
+     * Give back everything a cart holds (product ID to quantity)
+     */
+    void releaseAll(Long cartId, Map<Long, Integer> quantities);
+
+    /**
+     * Units of a product that can still be taken, 0 for unknown products
+     */
+    int getAvailable(Long productId);
+}
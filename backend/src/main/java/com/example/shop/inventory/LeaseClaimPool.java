@@ -0,0 +1,94 @@
+package com.example.shop.inventory;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.dao.StockLeaseDao;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * Connections Stock Leases Commit On (shop.inventory.mode=lease)
+ * A claim runs while the cart transaction that needs the units holds a connection of the application pool,
+ * so taking a second one from that pool starves it once every connection belongs to a waiting claimer.
+ * Claims, returns, renewals and write-offs therefore run on this small pool of their own, {@code pool-size}
+ * connections with the other settings of {@code spring.datasource.druid}; a claimer waiting for one holds
+ * nothing this pool needs back. It is deliberately not a DataSource bean, which would replace the
+ * application's pool and MyBatis setup.
+ */
+@Component
+@ConditionalOnProperty(name = "shop.inventory.mode", havingValue = "lease")
+public class LeaseClaimPool {
+
+    private static final String DRUID_PREFIX = "spring.datasource.druid";
+
+    /**
+     * Own pool, null when built around given mappers
+     */
+    private final DruidDataSource dataSource;
+
+    private final ProductDao productDao;
+
+    private final StockLeaseDao leaseDao;
+
+    private final PlatformTransactionManager transactionManager;
+
+    @Autowired
+    public LeaseClaimPool(Environment environment,
+                          @Value("${shop.inventory.lease.pool-size:4}") int poolSize) throws Exception {
+        this.dataSource = new DruidDataSource();
+        Binder.get(environment).bind(DRUID_PREFIX, Bindable.ofInstance(dataSource));
+        dataSource.setName("stock-lease");
+        dataSource.setInitialSize(0);
+        dataSource.setMinIdle(0);
+        dataSource.setMaxActive(Math.max(1, poolSize));
+        org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml"));
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+        this.productDao = new SqlSessionTemplate(sqlSessionFactory).getMapper(ProductDao.class);
+        this.leaseDao = new SqlSessionTemplate(sqlSessionFactory).getMapper(StockLeaseDao.class);
+        this.transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    LeaseClaimPool(ProductDao productDao, StockLeaseDao leaseDao, PlatformTransactionManager transactionManager) {
+        this.dataSource = null;
+        this.productDao = productDao;
+        this.leaseDao = leaseDao;
+        this.transactionManager = transactionManager;
+    }
+
+    ProductDao getProductDao() {
+        return productDao;
+    }
+
+    StockLeaseDao getLeaseDao() {
+        return leaseDao;
+    }
+
+    PlatformTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+}
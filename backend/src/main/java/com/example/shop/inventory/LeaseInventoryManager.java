@@ -0,0 +1,372 @@
+package com.example.shop.inventory;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.dao.StockLeaseDao;
+import com.example.shop.model.entity.StockLease;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock Sold from Blocks Leased by Each Instance (shop.inventory.mode=lease)
+ * An instance claims {@code block-size} units of a product with one conditional decrement of
+ * {@code products.quantity} and records the claim in {@code stock_leases}; cart changes are then served
+ * from that block in memory, without any database write, until it runs out and the next block is claimed.
+ * Several instances therefore touch the product row once per block instead of once per purchase.
+ * A lease unused for {@code ttl-seconds} gives its unsold units back, and so does shutdown. Only the holder
+ * returns units, counted exactly in memory. Each instance renews its lease rows every
+ * {@code renew-interval-millis}, recording about how many units it holds; how many of them an instance that
+ * stopped renewing (it crashed) sold since then is unknown, so the others drop its rows once they expire and
+ * write the recorded units off with a warning rather than risk overselling. Restock them after reconciling
+ * against orders. Lease rows and claims are written on the {@link LeaseClaimPool}, never on the connection of
+ * the cart transaction that asked for the units.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shop.inventory.mode", havingValue = "lease")
+public class LeaseInventoryManager implements InventoryManager {
+
+    /**
+     * Cart-side statements, part of the caller's transaction
+     */
+    private final ProductDao productDao;
+
+    /**
+     * Product statements of claims and returns, on the lease pool
+     */
+    private final ProductDao claimProductDao;
+
+    private final StockLeaseDao leaseDao;
+
+    /**
+     * Claims and returns commit on their own, a cart transaction never holds the product row lock
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    private final Clock clock;
+
+    private final String nodeId;
+
+    private final int blockSize;
+
+    private final long ttlMillis;
+
+    private final long renewIntervalMillis;
+
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-lease-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public LeaseInventoryManager(ProductDao productDao,
+                                 LeaseClaimPool claimPool,
+                                 @Value("${shop.inventory.lease.node-id:}") String nodeId,
+                                 @Value("${shop.inventory.lease.block-size:50}") int blockSize,
+                                 @Value("${shop.inventory.lease.ttl-seconds:30}") long ttlSeconds,
+                                 @Value("${shop.inventory.lease.renew-interval-millis:5000}") long renewIntervalMillis) {
+        this(productDao, claimPool, Clock.systemDefaultZone(), nodeId, blockSize, ttlSeconds, renewIntervalMillis);
+    }
+
+    LeaseInventoryManager(ProductDao productDao, LeaseClaimPool claimPool, Clock clock, String nodeId, int blockSize,
+                          long ttlSeconds, long renewIntervalMillis) {
+        this.productDao = productDao;
+        this.claimProductDao = claimPool.getProductDao();
+        this.leaseDao = claimPool.getLeaseDao();
+        this.transactionTemplate = new TransactionTemplate(claimPool.getTransactionManager());
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.clock = clock;
+        // A fixed ID lets a restarted instance return what it held before a crash, a random one leaves that to expiry
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : UUID.randomUUID().toString();
+        this.blockSize = Math.max(1, blockSize);
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.renewIntervalMillis = renewIntervalMillis;
+    }
+
+    /**
+     * Write off leases a previous run with the same node ID left behind, then start renewing
+     */
+    @PostConstruct
+    public void start() {
+        for (StockLease lease : leaseDao.selectByNodeId(nodeId)) {
+            leaseDao.delete(nodeId, lease.getProductId());
+            log.warn("Wrote off up to {} units of product {} leased before this node restarted",
+                    lease.getQuantity(), lease.getProductId());
+        }
+        if (renewIntervalMillis > 0) {
+            renewer.scheduleWithFixedDelay(this::renewSafely, renewIntervalMillis, renewIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        log.info("Stock leases enabled for node {}", nodeId);
+    }
+
+    @Override
+    public void take(Long cartId, Long productId, int quantity) {
+        while (true) {
+            Lease lease = leases.computeIfAbsent(productId, id -> new Lease());
+            int missing;
+            synchronized (lease) {
+                if (lease.closed) {
+                    continue;
+                }
+                if (lease.available >= quantity) {
+                    lease.available -= quantity;
+                    lease.lastUsed = clock.millis();
+                    break;
+                }
+                missing = quantity - lease.available;
+            }
+            // Other takers may use up the block meanwhile, then this one claims again
+            claim(productId, lease, missing);
+        }
+        compensateOnRollback(cartId, productId, quantity);
+    }
+
+    @Override
+    public void release(Long cartId, Long productId, int quantity) {
+        Lease lease = leases.get(productId);
+        if (lease != null) {
+            synchronized (lease) {
+                if (!lease.closed) {
+                    lease.available += quantity;
+                    lease.lastUsed = clock.millis();
+                    compensateOnRollback(cartId, productId, -quantity);
+                    return;
+                }
+            }
+        }
+        // No lease to keep the units in, straight back to the product
+        if (productDao.increaseStock(productId, quantity) == 0) {
+            log.warn("Cannot restore stock, product not found - Product ID: {}", productId);
+        }
+    }
+
+    @Override
+    public void releaseAll(Long cartId, Map<Long, Integer> quantities) {
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            release(cartId, entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public int getAvailable(Long productId) {
+        Integer quantity = leaseDao.selectProductQuantity(productId);
+        if (quantity == null) {
+            return 0;
+        }
+        Lease lease = leases.get(productId);
+        if (lease == null) {
+            return quantity;
+        }
+        synchronized (lease) {
+            return quantity + (lease.closed ? 0 : lease.available);
+        }
+    }
+
+    /**
+     * Units this instance holds for a product and has not sold
+     */
+    public int getLeased(Long productId) {
+        Lease lease = leases.get(productId);
+        if (lease == null) {
+            return 0;
+        }
+        synchronized (lease) {
+            return lease.closed ? 0 : lease.available;
+        }
+    }
+
+    /**
+     * Give back leases idle for the TTL, renew the others and write off expired leases of dead instances
+     */
+    void renew() {
+        long now = clock.millis();
+        for (Map.Entry<Long, Lease> entry : leases.entrySet()) {
+            Long productId = entry.getKey();
+            Lease lease = entry.getValue();
+            boolean idle;
+            int available;
+            synchronized (lease) {
+                if (lease.closed) {
+                    continue;
+                }
+                idle = now - lease.lastUsed >= ttlMillis;
+                if (idle) {
+                    close(productId, lease);
+                }
+                available = lease.available;
+            }
+            // Database calls outside the monitor, see claim()
+            if (idle) {
+                giveBack(productId, available);
+            } else {
+                // Also restores a row another instance dropped while this one was paused past the TTL
+                leaseDao.upsert(toLease(productId, available, now));
+            }
+        }
+        LocalDateTime expiredAt = toLocalDateTime(now);
+        for (StockLease lease : leaseDao.selectExpired(expiredAt)) {
+            if (nodeId.equals(lease.getNodeId())) {
+                continue;
+            }
+            if (leaseDao.deleteExpired(lease.getNodeId(), lease.getProductId(), expiredAt) > 0) {
+                log.warn("Wrote off up to {} units of product {} leased by unresponsive node {}",
+                        lease.getQuantity(), lease.getProductId(), lease.getNodeId());
+            }
+        }
+    }
+
+    /**
+     * Claim a block (at least {@code missing} units) from the product row and add it to the lease
+     * Runs without the lease monitor, so takers the block can still serve carry on. It commits on a connection
+     * of the lease pool while the caller keeps its cart transaction's one, which the claim never waits for.
+     */
+    private void claim(Long productId, Lease lease, int missing) {
+        int claimed = transactionTemplate.execute(status -> {
+            int units = Math.max(blockSize, missing);
+            if (claimProductDao.decreaseStock(productId, units) == 0) {
+                // Less than a block left: take what there is if that is enough
+                Integer left = leaseDao.selectProductQuantity(productId);
+                if (left == null) {
+                    throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND);
+                }
+                units = left;
+                if (units < missing || claimProductDao.decreaseStock(productId, units) == 0) {
+                    throw new BusinessException(ErrorCode.INVENTORY_INSUFFICIENT);
+                }
+            }
+            leaseDao.upsert(toLease(productId, getLeased(productId) + units, clock.millis()));
+            return units;
+        });
+        synchronized (lease) {
+            if (!lease.closed) {
+                lease.available += claimed;
+                return;
+            }
+        }
+        // Given back or shut down while claiming
+        giveBack(productId, claimed);
+    }
+
+    /**
+     * Return unsold units to the product row and drop the lease row
+     */
+    private void giveBack(Long productId, int quantity) {
+        transactionTemplate.executeWithoutResult(status -> {
+            leaseDao.delete(nodeId, productId);
+            if (quantity > 0) {
+                claimProductDao.increaseStock(productId, quantity);
+            }
+        });
+    }
+
+    private void close(Long productId, Lease lease) {
+        lease.closed = true;
+        leases.remove(productId, lease);
+    }
+
+    /**
+     * Undo a take or release if the surrounding cart transaction rolls back
+     */
+    private void compensateOnRollback(Long cartId, Long productId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                if (quantity > 0) {
+                    release(cartId, productId, quantity);
+                    return;
+                }
+                try {
+                    take(cartId, productId, -quantity);
+                } catch (BusinessException e) {
+                    log.warn("Cannot take back released stock after rollback - Product ID: {}", productId);
+                }
+            }
+        });
+    }
+
+    private StockLease toLease(Long productId, int quantity, long now) {
+        StockLease lease = new StockLease();
+        lease.setNodeId(nodeId);
+        lease.setProductId(productId);
+        lease.setQuantity(quantity);
+        lease.setExpiresAt(toLocalDateTime(now + ttlMillis));
+        return lease;
+    }
+
+    private LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), clock.getZone());
+    }
+
+    private void renewSafely() {
+        try {
+            renew();
+        } catch (RuntimeException e) {
+            log.warn("Stock lease renewal failed, retrying on the next run", e);
+        }
+    }
+
+    /**
+     * Give every unsold unit back before the instance goes away
+     */
+    @PreDestroy
+    public void shutdown() {
+        renewer.shutdownNow();
+        for (Map.Entry<Long, Lease> entry : leases.entrySet()) {
+            Lease lease = entry.getValue();
+            int available;
+            synchronized (lease) {
+                if (lease.closed) {
+                    continue;
+                }
+                close(entry.getKey(), lease);
+                available = lease.available;
+            }
+            giveBack(entry.getKey(), available);
+        }
+    }
+
+    /**
+     * This Instance's Block of One Product, guarded by the instance monitor
+     */
+    private static final class Lease {
+
+        private int available;
+
+        private long lastUsed;
+
+        /**
+         * Given back, a new lease has to be started
+         */
+        private boolean closed;
+    }
+}
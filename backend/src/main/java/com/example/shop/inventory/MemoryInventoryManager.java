@@ -0,0 +1,406 @@
+package com.example.shop.inventory;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.dao.StockJournalDao;
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.model.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Stock Approved in Memory with Write-Behind to products.quantity (shop.inventory.mode=memory)
+ * Each product's stock lives in a striped counter: takes compare-and-set one stripe, so concurrent
+ * buyers of a flash-sale product neither lock nor queue on its row. Approved changes are appended to a
+ * local {@link StockJournal} and their net per-product deltas are written back in one batched update
+ * every {@code flush-interval-millis}, together with a checkpoint of the journal segment they came from.
+ * At startup, segments newer than the checkpoint are applied before counters are loaded from the table.
+ * With {@code journal-fsync} (the default) every append is synced before the take returns, so an approved
+ * change survives power loss too. Without it appends sit in the OS page cache: a process crash loses
+ * nothing, an OS crash or power loss may drop the changes approved since the last rotation, up to one
+ * flush interval.
+ * The counters are authoritative for this process, so run a single instance in this mode; a product
+ * changed through the product API is reloaded on its next use.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shop.inventory.mode", havingValue = "memory")
+public class MemoryInventoryManager implements InventoryManager {
+
+    static final String JOURNAL_NAME = "stock";
+
+    /**
+     * Counter slots per stripe, so stripes sit on separate cache lines
+     */
+    private static final int STRIPE_PADDING = 16;
+
+    private final ProductDao productDao;
+
+    private final StockJournalDao journalDao;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final StockJournal journal;
+
+    private final int stripes;
+
+    private final long flushIntervalMillis;
+
+    private final Map<Long, StripedCounter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Closed segments whose deltas have not reached the database yet, guarded by {@link #flushLock}
+     */
+    private final List<StockJournal.Segment> unapplied = new ArrayList<>();
+
+    /**
+     * Held while deltas are written to the database or a counter is loaded from it
+     */
+    private final Object flushLock = new Object();
+
+    /**
+     * Held while the journal is appended to or rotated, always taken after {@link #flushLock}
+     */
+    private final Object journalLock = new Object();
+
+    /**
+     * Set while this manager writes stock, so its own change events do not reload counters
+     */
+    private final ThreadLocal<Boolean> flushing = new ThreadLocal<>();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MemoryInventoryManager(ProductDao productDao,
+                                  StockJournalDao journalDao,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${shop.inventory.memory.journal-dir:data/stock-journal}") String journalDir,
+                                  @Value("${shop.inventory.memory.journal-fsync:true}") boolean journalFsync,
+                                  @Value("${shop.inventory.memory.stripes:8}") int stripes,
+                                  @Value("${shop.inventory.memory.flush-interval-millis:200}") long flushIntervalMillis) {
+        this.productDao = productDao;
+        this.journalDao = journalDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journal = new StockJournal(Paths.get(journalDir), journalFsync);
+        this.stripes = Math.max(1, stripes);
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * Apply what an earlier run left in the journal, then open a new segment and start flushing
+     */
+    @PostConstruct
+    public void start() {
+        synchronized (flushLock) {
+            Long applied = journalDao.selectAppliedSegment(JOURNAL_NAME);
+            long next = applied != null ? applied + 1 : 1;
+            for (StockJournal.Segment segment : journal.recover()) {
+                if (applied != null && segment.id <= applied) {
+                    // Written to the database before the crash, only the file delete was missed
+                    segment.delete();
+                } else {
+                    log.info("Replaying stock journal segment {} ({} products)", segment.id, segment.deltas.size());
+                    apply(segment);
+                }
+                next = Math.max(next, segment.id + 1);
+            }
+            synchronized (journalLock) {
+                journal.open(next);
+            }
+        }
+        if (flushIntervalMillis > 0) {
+            flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void take(Long cartId, Long productId, int quantity) {
+        while (true) {
+            StripedCounter counter = counter(productId);
+            if (!counter.tryTake(quantity)) {
+                throw new BusinessException(ErrorCode.INVENTORY_INSUFFICIENT);
+            }
+            if (record(counter, productId, -quantity)) {
+                break;
+            }
+            // The counter was replaced meanwhile and its successor does not know this take, try again there
+        }
+        compensateOnRollback(productId, quantity);
+    }
+
+    @Override
+    public void release(Long cartId, Long productId, int quantity) {
+        while (true) {
+            StripedCounter counter;
+            try {
+                counter = counter(productId);
+            } catch (BusinessException e) {
+                log.warn("Cannot restore stock, product not found - Product ID: {}", productId);
+                return;
+            }
+            counter.add(quantity);
+            if (record(counter, productId, quantity)) {
+                break;
+            }
+        }
+        compensateOnRollback(productId, -quantity);
+    }
+
+    @Override
+    public void releaseAll(Long cartId, Map<Long, Integer> quantities) {
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            release(cartId, entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public int getAvailable(Long productId) {
+        try {
+            return Math.max(0, counter(productId).sum());
+        } catch (BusinessException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Write the net deltas approved since the last flush to the database
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            synchronized (journalLock) {
+                if (!journal.isEmpty()) {
+                    unapplied.add(journal.rotate());
+                }
+            }
+            // Oldest first, a segment that failed before is retried ahead of newer ones
+            while (!unapplied.isEmpty()) {
+                apply(unapplied.get(0));
+                unapplied.remove(0);
+            }
+        }
+    }
+
+    /**
+     * Changes to a product made elsewhere (product API, another mode's writes) invalidate its counter
+     */
+    @EventListener
+    public void onProductChange(ProductChangeEvent event) {
+        if (Boolean.TRUE.equals(flushing.get()) || event.getType() == ProductChangeEvent.Type.CREATED) {
+            return;
+        }
+        synchronized (flushLock) {
+            synchronized (journalLock) {
+                for (Long productId : event.getProductIds()) {
+                    StripedCounter counter = counters.remove(productId);
+                    if (counter != null) {
+                        counter.retired = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply one segment's net deltas and its checkpoint in one transaction, then drop its file
+     */
+    private void apply(StockJournal.Segment segment) {
+        Map<Long, Integer> deltas = new TreeMap<>(segment.netDeltas());
+        flushing.set(Boolean.TRUE);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!deltas.isEmpty()) {
+                    productDao.batchAdjustStock(deltas);
+                }
+                journalDao.upsertAppliedSegment(JOURNAL_NAME, segment.id);
+            });
+        } finally {
+            flushing.remove();
+        }
+        segment.delete();
+    }
+
+    private StripedCounter counter(Long productId) {
+        StripedCounter counter = counters.get(productId);
+        return counter != null ? counter : load(productId);
+    }
+
+    /**
+     * Load a counter: the table's quantity plus every approved change not written back yet
+     */
+    private StripedCounter load(Long productId) {
+        synchronized (flushLock) {
+            StripedCounter counter = counters.get(productId);
+            if (counter != null) {
+                return counter;
+            }
+            Product product = productDao.selectById(productId);
+            if (product == null) {
+                throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND);
+            }
+            synchronized (journalLock) {
+                int stock = product.getQuantity() + journal.pending(productId);
+                for (StockJournal.Segment segment : unapplied) {
+                    stock += segment.deltas.getOrDefault(productId, 0);
+                }
+                counter = new StripedCounter(stripes, stock);
+                counters.put(productId, counter);
+            }
+            return counter;
+        }
+    }
+
+    /**
+     * Journal a change made to a counter, false if the counter was retired before it could be
+     */
+    private boolean record(StripedCounter counter, Long productId, int delta) {
+        synchronized (journalLock) {
+            if (counter.retired) {
+                return false;
+            }
+            journal.append(productId, delta);
+            return true;
+        }
+    }
+
+    /**
+     * Undo an approved change if the surrounding transaction rolls back
+     */
+    private void compensateOnRollback(Long productId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                while (true) {
+                    StripedCounter counter = counter(productId);
+                    counter.add(quantity);
+                    if (record(counter, productId, quantity)) {
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Stock write-behind failed, retrying on the next run", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flushSafely();
+        synchronized (journalLock) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Stock of One Product Spread over Stripes, updated with compare-and-set only
+     */
+    private static final class StripedCounter {
+
+        private final int stripes;
+
+        private final AtomicIntegerArray slots;
+
+        /**
+         * Replaced by a reload, changes must go to the new counter
+         */
+        private volatile boolean retired;
+
+        private StripedCounter(int stripes, int stock) {
+            this.stripes = stripes;
+            this.slots = new AtomicIntegerArray(stripes * STRIPE_PADDING);
+            if (stock <= 0) {
+                slots.set(0, stock);
+                return;
+            }
+            for (int i = 0; i < stripes; i++) {
+                slots.set(i * STRIPE_PADDING, stock / stripes + (i < stock % stripes ? 1 : 0));
+            }
+        }
+
+        private boolean tryTake(int quantity) {
+            int start = ThreadLocalRandom.current().nextInt(stripes);
+            for (int i = 0; i < stripes; i++) {
+                int slot = ((start + i) % stripes) * STRIPE_PADDING;
+                int value;
+                while ((value = slots.get(slot)) >= quantity) {
+                    if (slots.compareAndSet(slot, value, value - quantity)) {
+                        return true;
+                    }
+                }
+            }
+            // No stripe holds enough on its own: gather from several, and put it all back if they fall short
+            int[] taken = new int[stripes];
+            int needed = quantity;
+            for (int i = 0; i < stripes && needed > 0; i++) {
+                int stripe = (start + i) % stripes;
+                int value;
+                while ((value = slots.get(stripe * STRIPE_PADDING)) > 0) {
+                    int part = Math.min(value, needed);
+                    if (slots.compareAndSet(stripe * STRIPE_PADDING, value, value - part)) {
+                        taken[stripe] = part;
+                        needed -= part;
+                        break;
+                    }
+                }
+            }
+            if (needed == 0) {
+                return true;
+            }
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                if (taken[stripe] > 0) {
+                    slots.addAndGet(stripe * STRIPE_PADDING, taken[stripe]);
+                }
+            }
+            return false;
+        }
+
+        private void add(int quantity) {
+            slots.addAndGet(ThreadLocalRandom.current().nextInt(stripes) * STRIPE_PADDING, quantity);
+        }
+
+        private int sum() {
+            int sum = 0;
+            for (int i = 0; i < stripes; i++) {
+                sum += slots.get(i * STRIPE_PADDING);
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.example.shop.inventory;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.dao.StockReservationDao;
+import com.example.shop.model.entity.Product;
+import com.example.shop.model.entity.StockReservation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock Held as Time-Limited Reservations (shop.inventory.mode=reservation)
+ * Adding to a cart no longer deducts {@code products.quantity}: it records a hold for the cart in
+ * {@code stock_reservations}, and a product's available stock is its quantity minus its active holds.
+ * Cart edits therefore write reservation rows, never the contended product row. Holds are also kept in
+ * memory, per product with a running total so availability is one subtraction, plus one expiry index
+ * ordered by expiry time that a background reaper drains in batches. The memory state is rebuilt from
+ * the table at startup and is authoritative for this process, so run a single instance in this mode.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shop.inventory.mode", havingValue = "reservation")
+public class ReservationInventoryManager implements InventoryManager {
+
+    private final ProductDao productDao;
+
+    private final StockReservationDao reservationDao;
+
+    private final Clock clock;
+
+    private final long ttlMillis;
+
+    private final int reaperBatchSize;
+
+    private final long reaperIntervalMillis;
+
+    private final Map<Long, ProductHolds> holdsByProduct = new ConcurrentHashMap<>();
+
+    /**
+     * Every current hold, soonest expiry first
+     */
+    private final ConcurrentSkipListSet<Hold> expiryIndex = new ConcurrentSkipListSet<>();
+
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-reservation-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ReservationInventoryManager(ProductDao productDao,
+                                       StockReservationDao reservationDao,
+                                       @Value("${shop.inventory.reservation.ttl-seconds:900}") long ttlSeconds,
+                                       @Value("${shop.inventory.reservation.reaper-batch-size:500}") int reaperBatchSize,
+                                       @Value("${shop.inventory.reservation.reaper-interval-millis:1000}") long reaperIntervalMillis) {
+        this(productDao, reservationDao, Clock.systemDefaultZone(), ttlSeconds, reaperBatchSize, reaperIntervalMillis);
+    }
+
+    ReservationInventoryManager(ProductDao productDao, StockReservationDao reservationDao, Clock clock,
+                                long ttlSeconds, int reaperBatchSize, long reaperIntervalMillis) {
+        this.productDao = productDao;
+        this.reservationDao = reservationDao;
+        this.clock = clock;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.reaperBatchSize = Math.max(1, reaperBatchSize);
+        this.reaperIntervalMillis = reaperIntervalMillis;
+    }
+
+    /**
+     * Rebuild the in-memory holds from the table, then start the reaper
+     */
+    @PostConstruct
+    public void load() {
+        List<StockReservation> reservations = reservationDao.selectAll();
+        for (StockReservation reservation : reservations) {
+            Hold hold = new Hold(reservation.getCartId(), reservation.getProductId(), reservation.getQuantity(),
+                    toMillis(reservation.getExpiresAt()));
+            ProductHolds holds = holdsFor(hold.productId);
+            synchronized (holds) {
+                holds.replace(holds.byCart.get(hold.cartId), hold);
+            }
+        }
+        log.info("Loaded {} stock reservations", reservations.size());
+        if (reaperIntervalMillis > 0) {
+            reaper.scheduleWithFixedDelay(this::reapSafely, reaperIntervalMillis, reaperIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void take(Long cartId, Long productId, int quantity) {
+        Product product = productDao.selectById(productId);
+        if (product == null) {
+            throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND);
+        }
+        ProductHolds holds = holdsFor(productId);
+        Hold previous;
+        Hold next;
+        synchronized (holds) {
+            if (product.getQuantity() - holds.reserved < quantity) {
+                throw new BusinessException(ErrorCode.INVENTORY_INSUFFICIENT);
+            }
+            previous = holds.byCart.get(cartId);
+            // Every change renews the hold's lifetime
+            next = new Hold(cartId, productId, (previous != null ? previous.quantity : 0) + quantity, clock.millis() + ttlMillis);
+            holds.replace(previous, next);
+        }
+        undoOnRollback(holds, cartId, next, previous);
+        reservationDao.upsert(next.toReservation());
+    }
+
+    @Override
+    public void release(Long cartId, Long productId, int quantity) {
+        ProductHolds holds = holdsByProduct.get(productId);
+        if (holds == null) {
+            return;
+        }
+        Hold previous;
+        Hold next = null;
+        synchronized (holds) {
+            previous = holds.byCart.get(cartId);
+            if (previous == null) {
+                // Already expired, nothing left to give back
+                return;
+            }
+            if (previous.quantity > quantity) {
+                next = new Hold(cartId, productId, previous.quantity - quantity, previous.expiresAt);
+            }
+            holds.replace(previous, next);
+        }
+        undoOnRollback(holds, cartId, next, previous);
+        if (next != null) {
+            reservationDao.upsert(next.toReservation());
+        } else {
+            reservationDao.deleteByCartIdAndProductId(cartId, productId);
+        }
+    }
+
+    @Override
+    public void releaseAll(Long cartId, Map<Long, Integer> quantities) {
+        for (Long productId : quantities.keySet()) {
+            ProductHolds holds = holdsByProduct.get(productId);
+            if (holds == null) {
+                continue;
+            }
+            Hold previous;
+            synchronized (holds) {
+                previous = holds.byCart.get(cartId);
+                if (previous == null) {
+                    continue;
+                }
+                holds.replace(previous, null);
+            }
+            undoOnRollback(holds, cartId, null, previous);
+        }
+        reservationDao.deleteByCartId(cartId);
+    }
+
+    @Override
+    public int getAvailable(Long productId) {
+        Product product = productDao.selectById(productId);
+        if (product == null) {
+            return 0;
+        }
+        return Math.max(0, product.getQuantity() - getReserved(productId));
+    }
+
+    /**
+     * Units of a product held by active reservations
+     */
+    public int getReserved(Long productId) {
+        ProductHolds holds = holdsByProduct.get(productId);
+        if (holds == null) {
+            return 0;
+        }
+        synchronized (holds) {
+            return holds.reserved;
+        }
+    }
+
+    /**
+     * Release every hold that has expired, one batch delete per {@code reaper-batch-size} holds
+     */
+    int reapExpired() {
+        long now = clock.millis();
+        int reaped = 0;
+        List<Hold> batch = new ArrayList<>(reaperBatchSize);
+        while (true) {
+            Hold first = expiryIndex.isEmpty() ? null : expiryIndex.first();
+            if (first == null || first.expiresAt > now) {
+                break;
+            }
+            ProductHolds holds = holdsFor(first.productId);
+            synchronized (holds) {
+                if (holds.byCart.get(first.cartId) == first) {
+                    holds.replace(first, null);
+                    batch.add(first);
+                } else {
+                    // Superseded by a change that has not reached the index yet
+                    expiryIndex.remove(first);
+                }
+            }
+            if (batch.size() >= reaperBatchSize) {
+                reaped += deleteExpired(batch, now);
+                batch = new ArrayList<>(reaperBatchSize);
+            }
+        }
+        return reaped + deleteExpired(batch, now);
+    }
+
+    private int deleteExpired(List<Hold> batch, long now) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<StockReservation> reservations = new ArrayList<>(batch.size());
+        for (Hold hold : batch) {
+            reservations.add(hold.toReservation());
+        }
+        reservationDao.deleteExpired(reservations, toLocalDateTime(now));
+        return batch.size();
+    }
+
+    private void reapSafely() {
+        try {
+            int reaped = reapExpired();
+            if (reaped > 0) {
+                log.debug("Released {} expired stock reservations", reaped);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Stock reservation reaper failed, retrying on the next run", e);
+        }
+    }
+
+    private ProductHolds holdsFor(Long productId) {
+        return holdsByProduct.computeIfAbsent(productId, id -> new ProductHolds());
+    }
+
+    /**
+     * Put the previous hold back if the surrounding transaction rolls back and nothing changed it since
+     */
+    private void undoOnRollback(ProductHolds holds, Long cartId, Hold applied, Hold previous) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                synchronized (holds) {
+                    if (holds.byCart.get(cartId) == applied) {
+                        holds.replace(applied, previous);
+                    }
+                }
+            }
+        });
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), clock.getZone());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reaper.shutdownNow();
+    }
+
+    /**
+     * Holds on One Product, guarded by the instance monitor
+     */
+    private final class ProductHolds {
+
+        private final Map<Long, Hold> byCart = new HashMap<>();
+
+        private int reserved;
+
+        /**
+         * Swap a cart's hold (either side may be null) and keep the total and the expiry index in step
+         */
+        private void replace(Hold previous, Hold next) {
+            if (previous != null) {
+                byCart.remove(previous.cartId);
+                reserved -= previous.quantity;
+                expiryIndex.remove(previous);
+            }
+            if (next != null) {
+                byCart.put(next.cartId, next);
+                reserved += next.quantity;
+                expiryIndex.add(next);
+            }
+        }
+    }
+
+    /**
+     * One Cart's Hold on One Product, immutable so the expiry index can identify it
+     */
+    private final class Hold implements Comparable<Hold> {
+
+        private final long cartId;
+
+        private final long productId;
+
+        private final int quantity;
+
+        private final long expiresAt;
+
+        private Hold(long cartId, long productId, int quantity, long expiresAt) {
+            this.cartId = cartId;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+        }
+
+        private StockReservation toReservation() {
+            StockReservation reservation = new StockReservation();
+            reservation.setCartId(cartId);
+            reservation.setProductId(productId);
+            reservation.setQuantity(quantity);
+            reservation.setExpiresAt(toLocalDateTime(expiresAt));
+            return reservation;
+        }
+
+        @Override
+        public int compareTo(Hold other) {
+            int byExpiry = Long.compare(expiresAt, other.expiresAt);
+            if (byExpiry != 0) {
+                return byExpiry;
+            }
+            int byCart = Long.compare(cartId, other.cartId);
+            return byCart != 0 ? byCart : Long.compare(productId, other.productId);
+        }
+    }
+}
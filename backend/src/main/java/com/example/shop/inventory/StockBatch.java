@@ -0,0 +1,153 @@
+package com.example.shop.inventory;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.model.entity.Product;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Stock Changes of One Group-Committed Batch of Cart Writes
+ * While bound to the writer thread, cart writes take and give back stock here instead of in the configured
+ * {@link InventoryManager}. A product whose stock is on its products row (database mode, not bucketed) is
+ * read once per batch with {@code FOR UPDATE}, takes are checked against what the earlier writes of the
+ * batch left, and the batch's changes are netted into one {@code batchAdjustStock} by {@link #flush()}.
+ * Everything else goes straight to the delegate.
+ * Each write's changes stay pending until {@link #endWrite(boolean)}, so a write rolled back to its
+ * savepoint leaves no trace; this relies on the cart service moving stock last in every write.
+ * A batch of cart operations ({@code CartService#applyOperations}) goes through one too, each operation a write.
+ */
+public class StockBatch implements InventoryManager {
+
+    private static final ThreadLocal<StockBatch> BOUND = new ThreadLocal<>();
+
+    private final ProductDao productDao;
+
+    private final InventoryManager delegate;
+
+    /**
+     * Stock read under the row lock
+     */
+    private final Map<Long, Integer> locked = new HashMap<>();
+
+    /**
+     * Netted changes of the finished writes, sorted so the flush locks rows in ID order
+     */
+    private final Map<Long, Integer> deltas = new TreeMap<>();
+
+    /**
+     * Changes of the write in progress
+     */
+    private final Map<Long, Integer> pending = new HashMap<>();
+
+    public StockBatch(ProductDao productDao, InventoryManager delegate) {
+        this.productDao = productDao;
+        this.delegate = delegate;
+    }
+
+    /**
+     * The batch bound to the current thread, or the given manager outside of a batch
+     */
+    public static InventoryManager current(InventoryManager fallback) {
+        StockBatch batch = BOUND.get();
+        return batch != null ? batch : fallback;
+    }
+
+    public void bind() {
+        BOUND.set(this);
+    }
+
+    public void unbind() {
+        BOUND.remove();
+    }
+
+    /**
+     * Read and lock the stock of the netted products among these with one statement, ahead of their takes
+     */
+    public void lock(Collection<Long> productIds) {
+        TreeSet<Long> ids = new TreeSet<>();
+        for (Long productId : productIds) {
+            if (nets(productId) && !locked.containsKey(productId)) {
+                ids.add(productId);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (Product product : productDao.selectQuantitiesForUpdate(ids)) {
+            locked.put(product.getId(), product.getQuantity());
+        }
+    }
+
+    @Override
+    public void take(Long cartId, Long productId, int quantity) {
+        if (!nets(productId)) {
+            delegate.take(cartId, productId, quantity);
+            return;
+        }
+        Integer stock = locked.get(productId);
+        if (stock == null) {
+            stock = productDao.selectQuantityForUpdate(productId);
+            if (stock == null) {
+                throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND);
+            }
+            locked.put(productId, stock);
+        }
+        int left = stock + deltas.getOrDefault(productId, 0) + pending.getOrDefault(productId, 0);
+        if (left < quantity) {
+            throw new BusinessException(ErrorCode.INVENTORY_INSUFFICIENT);
+        }
+        pending.merge(productId, -quantity, Integer::sum);
+    }
+
+    @Override
+    public void release(Long cartId, Long productId, int quantity) {
+        if (!nets(productId)) {
+            delegate.release(cartId, productId, quantity);
+            return;
+        }
+        pending.merge(productId, quantity, Integer::sum);
+    }
+
+    @Override
+    public void releaseAll(Long cartId, Map<Long, Integer> quantities) {
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            release(cartId, entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public int getAvailable(Long productId) {
+        return delegate.getAvailable(productId);
+    }
+
+    /**
+     * Keep the changes of the write that just ended, or drop them if it was rolled back
+     */
+    public void endWrite(boolean committed) {
+        if (committed) {
+            pending.forEach((productId, delta) -> deltas.merge(productId, delta, Integer::sum));
+        }
+        pending.clear();
+    }
+
+    /**
+     * Apply the netted changes with one statement, products whose changes cancel out are not touched
+     */
+    public void flush() {
+        deltas.values().removeIf(delta -> delta == 0);
+        if (!deltas.isEmpty()) {
+            productDao.batchAdjustStock(deltas);
+        }
+    }
+
+    private boolean nets(Long productId) {
+        return delegate instanceof DatabaseInventoryManager
+                && ((DatabaseInventoryManager) delegate).keepsStockOnProductRow(productId);
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.shop.inventory;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.dao.StockBucketDao;
+import com.example.shop.model.entity.HotProductStock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock of Hot Products Split over Bucket Rows (shop.inventory.mode=database)
+ * A product listed in {@code hot_products} keeps its stock in N rows of {@code product_stock_buckets}.
+ * A buyer decrements one bucket picked at random and falls over to the others in index order when it is short,
+ * so up to N buyers hold different row locks at once instead of queuing on the product row, and buyers
+ * gathering from the same buckets lock them in the same order. {@code products.quantity}
+ * stays the displayed total: a background sync writes the bucket sum back every {@code sync-interval-millis}.
+ * A change made to {@code products.quantity} itself (product API, a node that does not know the product is
+ * hot yet) is read as a delta against the total last written there and applied to the buckets, so a restock
+ * neither loses nor resurrects units sold in the meantime.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shop.inventory.mode", havingValue = "database", matchIfMissing = true)
+public class StockBuckets {
+
+    static final int MAX_BUCKETS = 256;
+
+    private final ProductDao productDao;
+
+    private final StockBucketDao bucketDao;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long syncIntervalMillis;
+
+    /**
+     * Bucket count per hot product, replaced by every sync
+     */
+    private volatile Map<Long, Integer> hotProducts = Collections.emptyMap();
+
+    private final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-bucket-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StockBuckets(ProductDao productDao,
+                        StockBucketDao bucketDao,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${shop.inventory.buckets.sync-interval-millis:1000}") long syncIntervalMillis) {
+        this.productDao = productDao;
+        this.bucketDao = bucketDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.syncIntervalMillis = syncIntervalMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        syncSafely();
+        if (syncIntervalMillis > 0) {
+            syncer.scheduleWithFixedDelay(this::syncSafely, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Whether a product's stock is kept in buckets
+     */
+    public boolean isHot(Long productId) {
+        return hotProducts.containsKey(productId);
+    }
+
+    /**
+     * Take units from a product's buckets, false if it has no buckets (any more)
+     * Units gathered from several buckets are put back before {@code INVENTORY_INSUFFICIENT} is thrown.
+     */
+    public boolean take(Long productId, int quantity) {
+        Integer buckets = hotProducts.get(productId);
+        if (buckets == null) {
+            return false;
+        }
+        int start = ThreadLocalRandom.current().nextInt(buckets);
+        if (bucketDao.decreaseBucket(productId, start, quantity) > 0) {
+            return true;
+        }
+        // Short bucket: read them all once and only try the ones that looked big enough
+        List<Integer> quantities = bucketDao.selectBucketQuantities(productId);
+        if (quantities.isEmpty()) {
+            // Merged back into products.quantity since the last sync
+            return false;
+        }
+        // Past the random first pick buckets are visited by index, so two buyers lock them in the same order
+        int size = quantities.size();
+        int total = 0;
+        for (int bucket = 0; bucket < size; bucket++) {
+            int available = quantities.get(bucket);
+            total += available;
+            if (bucket != start && available >= quantity && bucketDao.decreaseBucket(productId, bucket, quantity) > 0) {
+                return true;
+            }
+        }
+        if (total < quantity) {
+            throw new BusinessException(ErrorCode.INVENTORY_INSUFFICIENT);
+        }
+        // No single bucket holds enough: gather from several
+        Map<Integer, Integer> taken = new HashMap<>();
+        int needed = quantity;
+        for (int bucket = 0; bucket < size && needed > 0; bucket++) {
+            int part = Math.min(quantities.get(bucket), needed);
+            if (part > 0 && bucketDao.decreaseBucket(productId, bucket, part) > 0) {
+                taken.put(bucket, part);
+                needed -= part;
+            }
+        }
+        if (needed == 0) {
+            return true;
+        }
+        taken.forEach((bucket, part) -> bucketDao.increaseBucket(productId, bucket, part));
+        throw new BusinessException(ErrorCode.INVENTORY_INSUFFICIENT);
+    }
+
+    /**
+     * Put units back into a random bucket, false if the product has no buckets (any more)
+     */
+    public boolean release(Long productId, int quantity) {
+        Integer buckets = hotProducts.get(productId);
+        return buckets != null
+                && bucketDao.increaseBucket(productId, ThreadLocalRandom.current().nextInt(buckets), quantity) > 0;
+    }
+
+    /**
+     * Current sum of a product's buckets, null if it has none
+     */
+    public Integer total(Long productId) {
+        List<Integer> quantities = bucketDao.selectBucketQuantities(productId);
+        return quantities.isEmpty() ? null : sum(quantities);
+    }
+
+    /**
+     * Move a product's stock into {@code buckets} rows, or re-spread it if it already is hot
+     */
+    public void split(Long productId, int buckets) {
+        if (buckets < 1 || buckets > MAX_BUCKETS) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "Bucket count must be between 1 and " + MAX_BUCKETS);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            HotProductStock hot = bucketDao.selectHotProductForUpdate(productId);
+            int total;
+            if (hot == null) {
+                Integer quantity = bucketDao.selectProductQuantityForUpdate(productId);
+                if (quantity == null) {
+                    throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND);
+                }
+                total = Math.max(0, quantity);
+                bucketDao.insertHotProduct(productId, buckets, quantity);
+            } else {
+                total = currentTotal(hot);
+                bucketDao.updateBuckets(productId, buckets);
+                bucketDao.updateMirroredQuantity(productId, hot.getQuantity());
+                bucketDao.deleteBuckets(productId);
+            }
+            bucketDao.insertBuckets(productId, spread(total, buckets));
+        });
+        Map<Long, Integer> hotProducts = new HashMap<>(this.hotProducts);
+        hotProducts.put(productId, buckets);
+        this.hotProducts = hotProducts;
+        log.info("Split stock of product {} into {} buckets", productId, buckets);
+    }
+
+    /**
+     * Move a product's bucket stock back into products.quantity and stop treating it as hot
+     */
+    public void merge(Long productId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            HotProductStock hot = bucketDao.selectHotProductForUpdate(productId);
+            if (hot == null) {
+                return;
+            }
+            // The product row is locked, so this cannot miss
+            productDao.compareAndSetStock(productId, hot.getQuantity(), currentTotal(hot));
+            bucketDao.deleteBuckets(productId);
+            bucketDao.deleteHotProduct(productId);
+        });
+        Map<Long, Integer> hotProducts = new HashMap<>(this.hotProducts);
+        hotProducts.remove(productId);
+        this.hotProducts = hotProducts;
+        log.info("Merged stock buckets of product {}", productId);
+    }
+
+    /**
+     * Refresh the hot product list and write changed bucket totals back to products.quantity
+     */
+    int sync() {
+        List<HotProductStock> stocks = bucketDao.selectHotProducts();
+        Map<Long, Integer> hotProducts = new HashMap<>();
+        for (HotProductStock stock : stocks) {
+            hotProducts.put(stock.getProductId(), stock.getBuckets());
+        }
+        this.hotProducts = hotProducts;
+        int synced = 0;
+        for (HotProductStock stock : stocks) {
+            if (stock.getQuantity().equals(stock.getMirroredQuantity())
+                    && stock.getBucketTotal().equals(stock.getMirroredQuantity())) {
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> reconcile(stock.getProductId()));
+            synced++;
+        }
+        return synced;
+    }
+
+    private void reconcile(Long productId) {
+        HotProductStock hot = bucketDao.selectHotProductForUpdate(productId);
+        if (hot == null) {
+            return;
+        }
+        int total;
+        if (!hot.getQuantity().equals(hot.getMirroredQuantity())) {
+            // products.quantity was changed outside the buckets, apply the same change to them
+            total = currentTotal(hot);
+            bucketDao.deleteBuckets(productId);
+            bucketDao.insertBuckets(productId, spread(total, hot.getBuckets()));
+        } else {
+            total = sum(bucketDao.selectBucketQuantities(productId));
+        }
+        if (total != hot.getQuantity()) {
+            productDao.compareAndSetStock(productId, hot.getQuantity(), total);
+        }
+        bucketDao.updateMirroredQuantity(productId, total);
+    }
+
+    /**
+     * Locked bucket sum plus whatever products.quantity moved since the last sync
+     */
+    private int currentTotal(HotProductStock hot) {
+        int buckets = sum(bucketDao.selectBucketQuantitiesForUpdate(hot.getProductId()));
+        return Math.max(0, buckets + hot.getQuantity() - hot.getMirroredQuantity());
+    }
+
+    private static List<Integer> spread(int total, int buckets) {
+        List<Integer> quantities = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            quantities.add(total / buckets + (i < total % buckets ? 1 : 0));
+        }
+        return quantities;
+    }
+
+    private static int sum(List<Integer> quantities) {
+        int sum = 0;
+        for (Integer quantity : quantities) {
+            sum += quantity;
+        }
+        return sum;
+    }
+
+    private void syncSafely() {
+        try {
+            int synced = sync();
+            if (synced > 0) {
+                log.debug("Synced bucket totals of {} hot products", synced);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Stock bucket sync failed, retrying on the next run", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        syncer.shutdownNow();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.shop.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-Only Journal of Stock Deltas, in Numbered Segment Files
+ * Every approved change is appended as one fixed-size record (product ID, signed delta) to the open
+ * segment, which also keeps the net delta per product. A flush rotates to a new segment, applies the
+ * closed segment's net deltas to the database and then deletes its file, so the files left on disk
+ * after a crash are exactly the changes that may not have reached {@code products.quantity}.
+ * Not thread-safe, callers serialize access.
+ */
+class StockJournal {
+
+    private static final String PREFIX = "stock-";
+
+    private static final String SUFFIX = ".journal";
+
+    private static final int RECORD_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final Path directory;
+
+    private final boolean fsync;
+
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+
+    private Segment current;
+
+    StockJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Segments left on disk by an earlier run, oldest first
+     */
+    List<Segment> recover() {
+        List<Segment> segments = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    long id = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                    segments.add(read(id, file));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read stock journal in " + directory, e);
+        }
+        segments.sort((a, b) -> Long.compare(a.id, b.id));
+        return segments;
+    }
+
+    /**
+     * Start writing a new segment
+     */
+    void open(long id) {
+        Path file = directory.resolve(PREFIX + id + SUFFIX);
+        try {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            current = new Segment(id, file, channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create stock journal segment " + file, e);
+        }
+    }
+
+    /**
+     * Append one change to the open segment
+     */
+    void append(long productId, int delta) {
+        record.clear();
+        record.putLong(productId).putInt(delta).flip();
+        try {
+            while (record.hasRemaining()) {
+                current.channel.write(record);
+            }
+            if (fsync) {
+                current.channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to stock journal segment " + current.file, e);
+        }
+        current.deltas.merge(productId, delta, Integer::sum);
+    }
+
+    /**
+     * Net deltas of the open segment not yet applied
+     */
+    int pending(long productId) {
+        return current.deltas.getOrDefault(productId, 0);
+    }
+
+    /**
+     * Close the open segment and start the next one
+     */
+    Segment rotate() {
+        Segment closed = current;
+        closed.close();
+        open(closed.id + 1);
+        return closed;
+    }
+
+    /**
+     * Whether nothing was appended since the last rotation
+     */
+    boolean isEmpty() {
+        return current.deltas.isEmpty();
+    }
+
+    void close() {
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private Segment read(long id, Path file) throws IOException {
+        Segment segment = new Segment(id, file, null);
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        // A torn last record was never acknowledged to a caller, so it is dropped
+        while (buffer.remaining() >= RECORD_BYTES) {
+            segment.deltas.merge(buffer.getLong(), buffer.getInt(), Integer::sum);
+        }
+        return segment;
+    }
+
+    /**
+     * One Segment File and the Net Delta per Product It Holds
+     */
+    static final class Segment {
+
+        final long id;
+
+        final Path file;
+
+        final Map<Long, Integer> deltas = new HashMap<>();
+
+        private final FileChannel channel;
+
+        private Segment(long id, Path file, FileChannel channel) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+        }
+
+        /**
+         * Products whose net delta is not zero
+         */
+        Map<Long, Integer> netDeltas() {
+            Map<Long, Integer> net = new HashMap<>();
+            for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+                if (entry.getValue() != 0) {
+                    net.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return net;
+        }
+
+        void delete() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot delete stock journal segment " + file, e);
+            }
+        }
+
+        private void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot close stock journal segment " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.shop.model.entity;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Cart Summary Entity Class
+ * Line count and total amount of a user's cart, without its items
+ */
+@Data
+public class CartSummary {
+    /**
+     * Number of Cart Lines
+     */
+    private Integer itemCount;
+    
+    /**
+     * Sum of Line Totals
+     */
+    private BigDecimal totalAmount;
+}
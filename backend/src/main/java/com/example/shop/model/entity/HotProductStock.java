@@ -0,0 +1,35 @@
+package com.example.shop.model.entity;
+
+import lombok.Data;
+
+/**
+ * Hot Product Stock Entity Class
+ * A product whose stock is split over bucket rows, with what its products row currently shows
+ */
+@Data
+public class HotProductStock {
+    /**
+     * Product ID
+     */
+    private Long productId;
+    
+    /**
+     * Number of Stock Buckets
+     */
+    private Integer buckets;
+    
+    /**
+     * Bucket Total Last Written to products.quantity
+     */
+    private Integer mirroredQuantity;
+    
+    /**
+     * Current products.quantity
+     */
+    private Integer quantity;
+    
+    /**
+     * Current Sum of the Bucket Rows
+     */
+    private Integer bucketTotal;
+}
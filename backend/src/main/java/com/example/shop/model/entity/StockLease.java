@@ -0,0 +1,32 @@
+package com.example.shop.model.entity;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock Lease Entity Class
+ * Units of a product claimed by one application instance, sold from its memory
+ */
+@Data
+public class StockLease {
+    /**
+     * Instance Holding the Lease
+     */
+    private String nodeId;
+    
+    /**
+     * Product ID
+     */
+    private Long productId;
+    
+    /**
+     * Unsold Units at the Last Renewal
+     */
+    private Integer quantity;
+    
+    /**
+     * Time after Which Other Instances May Return the Units
+     */
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,32 @@
+package com.example.shop.model.entity;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock Reservation Entity Class
+ * Units of a product held for one cart until they expire
+ */
+@Data
+public class StockReservation {
+    /**
+     * Cart ID
+     */
+    private Long cartId;
+    
+    /**
+     * Product ID
+     */
+    private Long productId;
+    
+    /**
+     * Units Held
+     */
+    private Integer quantity;
+    
+    /**
+     * Expiry Time
+     */
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,80 @@
+package com.example.shop.model.req;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch Cart Operations Request
+ */
+@Data
+@ApiModel(value = "CartBatchRequest", description = "Cart add/update/remove operations applied in one transaction")
+public class CartBatchRequest {
+    /**
+     * Operations, applied in order
+     */
+    @Valid
+    @NotEmpty(message = "Operations cannot be empty")
+    @Size(max = 200, message = "At most 200 operations per request")
+    @ApiModelProperty(value = "Operations (applied in order, at most 200)", required = true)
+    private List<Operation> operations = new ArrayList<>();
+
+    /**
+     * Operation Type
+     */
+    public enum OperationType {
+        /**
+         * Add a product, merged into its cart item if already there (productId, quantity)
+         */
+        ADD,
+        /**
+         * Set the quantity of a cart item (itemId, quantity)
+         */
+        UPDATE,
+        /**
+         * Remove a cart item (itemId)
+         */
+        REMOVE
+    }
+
+    /**
+     * One Cart Operation
+     */
+    @Data
+    @ApiModel(value = "CartBatchOperation", description = "One cart operation of a batch")
+    public static class Operation {
+        /**
+         * Operation Type
+         */
+        @NotNull(message = "Operation type cannot be empty")
+        @ApiModelProperty(value = "Operation Type", example = "ADD", required = true)
+        private OperationType type;
+
+        /**
+         * Product ID, for ADD
+         */
+        @ApiModelProperty(value = "Product ID (ADD)", example = "1")
+        private Long productId;
+
+        /**
+         * Cart Item ID, for UPDATE and REMOVE
+         */
+        @ApiModelProperty(value = "Cart Item ID (UPDATE, REMOVE)", example = "1")
+        private Long itemId;
+
+        /**
+         * Quantity, for ADD and UPDATE
+         */
+        @Min(value = 1, message = "Quantity must be greater than 0")
+        @ApiModelProperty(value = "Product Quantity (ADD, UPDATE)", example = "2")
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.shop.model.resp;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+/**
+ * Cache Statistics Response
+ */
+@Data
+@ApiModel(value = "CacheStatsResponse", description = "In-process cache statistics")
+public class CacheStatsResponse {
+    /**
+     * Cache Name
+     */
+    @ApiModelProperty(value = "Cache Name", example = "product")
+    private String name;
+
+    /**
+     * Estimated Entry Count
+     */
+    @ApiModelProperty(value = "Estimated Entry Count", example = "1024")
+    private Long size;
+
+    /**
+     * Current Weighted Size (approximate bytes)
+     */
+    @ApiModelProperty(value = "Current Weighted Size", example = "262144", notes = "Approximate bytes for size-aware caches")
+    private Long weightedSize;
+
+    /**
+     * Maximum Weighted Size
+     */
+    @ApiModelProperty(value = "Maximum Weighted Size", example = "16777216")
+    private Long maximumWeight;
+
+    /**
+     * Hit Count
+     */
+    @ApiModelProperty(value = "Hit Count", example = "9000")
+    private Long hitCount;
+
+    /**
+     * Miss Count
+     */
+    @ApiModelProperty(value = "Miss Count", example = "1000")
+    private Long missCount;
+
+    /**
+     * Hit Rate
+     */
+    @ApiModelProperty(value = "Hit Rate", example = "0.9")
+    private Double hitRate;
+
+    /**
+     * Eviction Count
+     */
+    @ApiModelProperty(value = "Eviction Count", example = "12")
+    private Long evictionCount;
+
+    /**
+     * Explicit Invalidation Count
+     */
+    @ApiModelProperty(value = "Explicit Invalidation Count", example = "40")
+    private Long invalidationCount;
+}
@@ -0,0 +1,83 @@
+package com.example.shop.model.resp;
+
+import com.example.shop.model.req.CartBatchRequest;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch Cart Operations Response
+ */
+@Data
+@ApiModel(value = "CartBatchResponse", description = "Outcome of each operation of a cart batch")
+public class CartBatchResponse {
+    /**
+     * Operations Applied
+     */
+    @ApiModelProperty(value = "Operations Applied", example = "9")
+    private int succeeded;
+
+    /**
+     * Operations Rejected
+     */
+    @ApiModelProperty(value = "Operations Rejected", example = "1")
+    private int failed;
+
+    /**
+     * Outcome per Operation, in request order
+     */
+    @ApiModelProperty(value = "Outcome per Operation (request order)")
+    private List<OperationResult> results = new ArrayList<>();
+
+    /**
+     * Outcome of One Operation
+     */
+    @Data
+    @ApiModel(value = "CartBatchOperationResult", description = "Outcome of one cart operation")
+    public static class OperationResult {
+        /**
+         * Position in the Request (0-based)
+         */
+        @ApiModelProperty(value = "Operation Index", example = "0")
+        private int index;
+
+        /**
+         * Operation Type
+         */
+        @ApiModelProperty(value = "Operation Type", example = "ADD")
+        private CartBatchRequest.OperationType type;
+
+        /**
+         * Whether the Operation Was Applied
+         */
+        @ApiModelProperty(value = "Applied", example = "true")
+        private boolean success;
+
+        /**
+         * Error Code, when rejected
+         */
+        @ApiModelProperty(value = "Error Code (rejected only)", example = "3001")
+        private Integer code;
+
+        /**
+         * Result or Rejection Message
+         */
+        @ApiModelProperty(value = "Message", example = "Insufficient stock")
+        private String message;
+
+        /**
+         * Cart Item the Operation Applied to
+         */
+        @ApiModelProperty(value = "Cart Item ID", example = "12")
+        private Long itemId;
+
+        /**
+         * Quantity of the Cart Item after the Operation, 0 once removed
+         */
+        @ApiModelProperty(value = "Cart Item Quantity after the Operation", example = "3")
+        private Integer quantity;
+    }
+}
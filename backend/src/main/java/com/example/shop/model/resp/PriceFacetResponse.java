@@ -0,0 +1,74 @@
+package com.example.shop.model.resp;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Price Facet Response
+ */
+@Data
+@ApiModel(value = "PriceFacetResponse", description = "Price histogram of the products matching a filter")
+public class PriceFacetResponse {
+    /**
+     * Matching Products with a Price
+     */
+    @ApiModelProperty(value = "Matching Products", example = "120")
+    private long total;
+
+    /**
+     * Lowest Matching Price
+     */
+    @ApiModelProperty(value = "Lowest Price", example = "0.99")
+    private BigDecimal minPrice;
+
+    /**
+     * Highest Matching Price
+     */
+    @ApiModelProperty(value = "Highest Price", example = "1999.00")
+    private BigDecimal maxPrice;
+
+    /**
+     * Equal-Width Buckets from minPrice to maxPrice
+     */
+    @ApiModelProperty(value = "Buckets")
+    private List<Bucket> buckets = new ArrayList<>();
+
+    /**
+     * Price Bucket
+     */
+    @Data
+    @ApiModel(value = "PriceFacetBucket", description = "Price range with its product count")
+    public static class Bucket {
+        /**
+         * Lower Bound (inclusive)
+         */
+        @ApiModelProperty(value = "Lower Bound (inclusive)", example = "0.99")
+        private BigDecimal from;
+
+        /**
+         * Upper Bound (inclusive)
+         */
+        @ApiModelProperty(value = "Upper Bound (inclusive)", example = "200.79")
+        private BigDecimal to;
+
+        /**
+         * Products in the Range
+         */
+        @ApiModelProperty(value = "Product Count", example = "42")
+        private long count;
+
+        public Bucket() {
+        }
+
+        public Bucket(BigDecimal from, BigDecimal to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+    }
+}
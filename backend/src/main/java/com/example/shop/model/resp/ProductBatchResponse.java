@@ -0,0 +1,28 @@
+package com.example.shop.model.resp;
+
+import com.example.shop.model.entity.Product;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Multi-Get Product Response
+ */
+@Data
+@ApiModel(value = "ProductBatchResponse", description = "Products looked up by ID")
+public class ProductBatchResponse {
+    /**
+     * Found Products, in request order
+     */
+    @ApiModelProperty(value = "Found Products (request order)")
+    private List<Product> products = new ArrayList<>();
+
+    /**
+     * Requested IDs with no product
+     */
+    @ApiModelProperty(value = "Requested IDs with no product", example = "[42]")
+    private List<Long> missingIds = new ArrayList<>();
+}
@@ -0,0 +1,46 @@
+package com.example.shop.model.resp;
+
+import com.example.shop.model.entity.Product;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Change Feed Response
+ */
+@Data
+@ApiModel(value = "ProductChangesResponse", description = "Products changed since a watermark")
+public class ProductChangesResponse {
+    /**
+     * Created or Updated Products, oldest change first
+     */
+    @ApiModelProperty(value = "Changed Products (oldest change first)")
+    private List<Product> products = new ArrayList<>();
+
+    /**
+     * Products Deleted since the Watermark (may repeat across polls)
+     */
+    @ApiModelProperty(value = "Deleted Product IDs", example = "[7]")
+    private List<Long> deletedIds = new ArrayList<>();
+
+    /**
+     * Watermark to Pass as since on the Next Call
+     */
+    @ApiModelProperty(value = "Next Watermark", example = "MjAyNC0wMS0wMVQxMjowMHw0Mg")
+    private String watermark;
+
+    /**
+     * Whether More Changes Are Waiting (call again right away)
+     */
+    @ApiModelProperty(value = "More Changes Waiting", example = "false")
+    private boolean hasMore;
+
+    /**
+     * False when deletions older than the server remembers may have been missed (reload fully)
+     */
+    @ApiModelProperty(value = "Deletions Complete", example = "true")
+    private boolean deletionsComplete = true;
+}
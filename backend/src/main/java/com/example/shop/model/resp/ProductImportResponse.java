@@ -0,0 +1,91 @@
+package com.example.shop.model.resp;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk Product Import Response
+ */
+@Data
+@ApiModel(value = "ProductImportResponse", description = "Bulk product import result")
+public class ProductImportResponse {
+    /**
+     * Rows Read
+     */
+    @ApiModelProperty(value = "Rows Read", example = "100000")
+    private long total;
+
+    /**
+     * Rows Inserted
+     */
+    @ApiModelProperty(value = "Rows Inserted", example = "99998")
+    private long imported;
+
+    /**
+     * Rows Rejected
+     */
+    @ApiModelProperty(value = "Rows Rejected", example = "2")
+    private long failed;
+
+    /**
+     * Elapsed Time in Milliseconds
+     */
+    @ApiModelProperty(value = "Elapsed Time (ms)", example = "4200")
+    private long elapsedMillis;
+
+    /**
+     * Rows Read per Second
+     */
+    @ApiModelProperty(value = "Rows Read per Second", example = "23809.5")
+    private double rowsPerSecond;
+
+    /**
+     * Whether more rows failed than are listed in errors
+     */
+    @ApiModelProperty(value = "Errors Truncated", example = "false")
+    private boolean errorsTruncated;
+
+    /**
+     * Rejected Rows
+     */
+    @ApiModelProperty(value = "Rejected Rows")
+    private List<RowError> errors = new ArrayList<>();
+
+    /**
+     * Rejected Row
+     */
+    @Data
+    @ApiModel(value = "ProductImportRowError", description = "Rejected import row")
+    public static class RowError {
+        /**
+         * Row Number (1-based, CSV header excluded)
+         */
+        @ApiModelProperty(value = "Row Number", example = "42")
+        private int row;
+
+        /**
+         * Product Name as Read
+         */
+        @ApiModelProperty(value = "Product Name", example = "iPhone 15 Pro")
+        private String name;
+
+        /**
+         * Rejection Reason
+         */
+        @ApiModelProperty(value = "Rejection Reason", example = "Product name already exists")
+        private String message;
+
+        public RowError() {
+        }
+
+        public RowError(int row, String name, String message) {
+            this.row = row;
+            this.name = name;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.shop.model.resp;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+/**
+ * Product Name Suggestion
+ */
+@Data
+@ApiModel(value = "ProductSuggestion", description = "Typeahead suggestion")
+public class ProductSuggestion {
+    /**
+     * Product ID
+     */
+    @ApiModelProperty(value = "Product ID", example = "1")
+    private Long id;
+
+    /**
+     * Product Name
+     */
+    @ApiModelProperty(value = "Product Name", example = "iPhone 15 Pro")
+    private String name;
+
+    public ProductSuggestion() {
+    }
+
+    public ProductSuggestion(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
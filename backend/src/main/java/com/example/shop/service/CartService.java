@@ -1,6 +1,10 @@
 package com.example.shop.service;
 
 import com.example.shop.model.entity.Cart;
+import com.example.shop.model.req.CartBatchRequest;
+import com.example.shop.model.resp.CartBatchResponse;
+
+import java.util.List;
 
 /**
  * Cart Service Interface
@@ -27,6 +31,13 @@ public interface CartService {
      */
     void removeFromCart(Long userId, Long itemId);
     
+    /**
+     * Apply Add/Update/Remove Operations in One Transaction
+     * Operations are applied in order; a rejected operation is reported in its result and changes nothing,
+     * the others are still applied.
+     */
+    CartBatchResponse applyOperations(Long userId, List<CartBatchRequest.Operation> operations);
+    
     /**
      * Clear Cart
      */
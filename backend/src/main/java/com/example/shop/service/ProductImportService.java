@@ -0,0 +1,17 @@
+package com.example.shop.service;
+
+import com.example.shop.importer.ProductImportFormat;
+import com.example.shop.model.resp.ProductImportResponse;
+
+import java.io.InputStream;
+
+/**
+ * Bulk Product Import Service Interface
+ */
+public interface ProductImportService {
+    
+    /**
+     * Import products streamed from the input, rows that fail validation are reported instead of aborting
+     */
+    ProductImportResponse importProducts(InputStream in, ProductImportFormat format);
+}
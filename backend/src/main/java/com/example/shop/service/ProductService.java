@@ -1,10 +1,20 @@
 package com.example.shop.service;
 
 import com.example.common.resp.PageResponse;
+import com.example.shop.cache.VisibleCatalogSnapshot;
+import com.example.shop.export.ProductExportFormat;
 import com.example.shop.model.entity.Product;
 import com.example.shop.model.req.ProductQueryRequest;
 import com.example.shop.model.req.VisibleProductRequest;
+import com.example.shop.model.resp.PriceFacetResponse;
+import com.example.shop.model.resp.ProductBatchResponse;
+import com.example.shop.model.resp.ProductChangesResponse;
+import com.example.shop.model.resp.ProductSuggestion;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -22,6 +32,11 @@ public interface ProductService {
      */
     Product getProductById(Long id);
     
+    /**
+     * Query products by ID list in request order, IDs without a product are reported as missing
+     */
+    ProductBatchResponse getProductsByIds(List<Long> ids);
+    
     /**
      * Create product
      */
@@ -42,13 +57,63 @@ public interface ProductService {
      */
     void updateProductVisibility(Long id, Boolean visible);
     
+    /**
+     * Units of a product that can still be added to carts, per the configured inventory mode
+     */
+    int getAvailableStock(Long id);
+    
+    /**
+     * Split a product's stock over bucket rows, so concurrent buyers of a hot product spread out
+     */
+    void splitProductStock(Long id, int buckets);
+    
+    /**
+     * Move a hot product's bucket stock back into its product row
+     */
+    void mergeProductStock(Long id);
+    
     /**
      * Query visible product list (simple version, no pagination)
      */
     List<Product> getVisibleProducts();
     
+    /**
+     * Get visible catalog snapshot (products with pre-encoded response body)
+     */
+    VisibleCatalogSnapshot getVisibleCatalog();
+    
     /**
      * Paginated visible product list query
      */
     PageResponse<Product> getVisibleProducts(VisibleProductRequest request);
-} 
\ No newline at end of file
+    
+    /**
+     * Entity tag of the visible product lists, changes whenever a committed product write may change them
+     */
+    String getCatalogETag();
+    
+    /**
+     * Visible products whose name starts with the prefix (case-insensitive), for typeahead
+     */
+    List<ProductSuggestion> suggestProducts(String prefix, int limit);
+    
+    /**
+     * Price histogram of the products matching the name/visibility filter
+     */
+    PriceFacetResponse getPriceFacets(String name, Boolean visible, int buckets);
+    
+    /**
+     * Stream products to the output in the given format, returns the number of products written
+     */
+    long exportProducts(Boolean visible, ProductExportFormat format, OutputStream out) throws IOException;
+    
+    /**
+     * Products created, updated or deleted since the watermark (null or blank for everything)
+     */
+    ProductChangesResponse getProductChanges(String since, int limit);
+    
+    /**
+     * Subscribe to committed product changes as Server-Sent Events
+     */
+    SseEmitter subscribeProductChanges();
+}
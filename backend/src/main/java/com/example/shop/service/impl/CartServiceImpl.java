@@ -1,10 +1,15 @@
 package com.example.shop.service.impl;
 
+import com.example.shop.cache.CartCache;
 import com.example.shop.dao.CartDao;
 import com.example.shop.dao.ProductDao;
+import com.example.shop.inventory.InventoryManager;
+import com.example.shop.inventory.StockBatch;
 import com.example.shop.model.entity.Cart;
 import com.example.shop.model.entity.CartItem;
 import com.example.shop.model.entity.Product;
+import com.example.shop.model.req.CartBatchRequest;
+import com.example.shop.model.resp.CartBatchResponse;
 import com.example.shop.service.CartService;
 import com.example.common.exception.BusinessException;
 import com.example.common.exception.ErrorCode;
@@ -14,14 +19,24 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Shopping Cart Service Implementation Class
+ * Stock is taken and given back through the {@link InventoryManager}, last in each transaction so any
+ * lock it holds on a hot product is kept as short as possible. Writes run by the
+ * {@link GroupCommitCartService} writer move stock through that batch's {@link StockBatch} instead.
+ * The {@link CartCache}, when enabled, serves repeated reads and is patched by each write after it commits.
+ * A batch of operations is worked out in memory first and then written with one statement per kind of change.
  */
 @Service
 @Slf4j
@@ -33,9 +48,25 @@ public class CartServiceImpl implements CartService {
     @Autowired
     private ProductDao productDao;
     
+    @Autowired
+    private InventoryManager inventoryManager;
+    
+    @Autowired(required = false)
+    private CartCache cartCache;
+    
     @Override
     public Cart getCart(Long userId) {
-        Cart cart = cartDao.selectByUserId(userId);
+        long generation = 0;
+        if (cartCache != null) {
+            Cart cached = cartCache.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            generation = cartCache.generation(userId);
+        }
+        
+        // Cart and items in one round trip, the totals are summed from those rows
+        Cart cart = cartDao.selectCartWithItems(userId);
         if (cart == null) {
             // If cart doesn't exist, create a new one
             cart = new Cart();
@@ -45,6 +76,9 @@ public class CartServiceImpl implements CartService {
         
         // Calculate total amount and product count
         calculateCartTotals(cart);
+        if (cartCache != null) {
+            cartCache.put(userId, cart, generation);
+        }
         return cart;
     }
     
@@ -54,81 +88,179 @@ public class CartServiceImpl implements CartService {
         // Validate product and get product information
         Product product = validateAndGetProduct(productId);
         
-        // Check if stock is sufficient
-        validateStockAvailability(product, quantity);
-        
         // Get or create cart
         Cart cart = getOrCreateCart(userId);
         
         // Check if product already exists in cart
         CartItem existingItem = cartDao.selectCartItemByCartIdAndProductId(cart.getId(), productId);
         
-        if (existingItem != null) {
-            updateExistingCartItem(existingItem, product, quantity);
-        } else {
-            createNewCartItem(cart, product, quantity);
+        CartItem written = existingItem != null
+            ? updateExistingCartItem(existingItem, product, quantity)
+            : createNewCartItem(cart, product, quantity);
+        if (cartCache != null) {
+            cartCache.putItem(userId, written);
         }
     }
     
     @Override
     @Transactional
     public void updateCartItem(Long userId, Long itemId, Integer quantity) {
-        Cart cart = getCart(userId);
+        Cart cart = getOrCreateCart(userId);
         CartItem cartItem = getAndValidateCartItem(itemId, cart.getId());
-        Product product = getAndValidateProduct(cartItem.getProductId());
         
         int oldQuantity = cartItem.getQuantity();
         
         if (quantity <= 0) {
             // If quantity is 0 or negative, remove the item and restore stock
-            restoreProductStock(product, oldQuantity);
             cartDao.deleteCartItemById(itemId);
+            stock().release(cart.getId(), cartItem.getProductId(), oldQuantity);
+            if (cartCache != null) {
+                cartCache.removeItem(userId, itemId);
+            }
         } else {
-            // Check if stock is sufficient - available stock = current stock + quantity already in cart
-            validateStockForUpdate(product, oldQuantity, quantity);
-            
-            // Update stock and cart item
-            updateProductStock(product, oldQuantity, quantity);
+            // Only the difference moves: more taken from stock, or the surplus put back
             updateCartItemQuantity(cartItem, quantity);
+            int stockChange = quantity - oldQuantity;
+            if (stockChange > 0) {
+                stock().take(cart.getId(), cartItem.getProductId(), stockChange);
+            } else if (stockChange < 0) {
+                stock().release(cart.getId(), cartItem.getProductId(), -stockChange);
+            }
+            if (cartCache != null) {
+                cartCache.putItem(userId, cartItem);
+            }
         }
     }
     
     @Override
     @Transactional
     public void removeFromCart(Long userId, Long itemId) {
-        Cart cart = getCart(userId);
+        Cart cart = getOrCreateCart(userId);
         CartItem cartItem = getAndValidateCartItem(itemId, cart.getId());
         
+        cartDao.deleteCartItemById(itemId);
+        
         // Restore inventory
-        restoreProductStock(cartItem.getProductId(), cartItem.getQuantity());
+        stock().release(cart.getId(), cartItem.getProductId(), cartItem.getQuantity());
+        if (cartCache != null) {
+            cartCache.removeItem(userId, itemId);
+        }
+    }
+    
+    @Override
+    @Transactional
+    public CartBatchResponse applyOperations(Long userId, List<CartBatchRequest.Operation> operations) {
+        Cart cart = getOrCreateCart(userId);
         
-        cartDao.deleteCartItemById(itemId);
+        // Everything the operations refer to: one item query and one product query
+        OperationBatch batch = new OperationBatch(cartDao.selectCartItems(cart.getId()));
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (CartBatchRequest.Operation operation : operations) {
+            if (operation.getType() == CartBatchRequest.OperationType.ADD && operation.getProductId() != null) {
+                productIds.add(operation.getProductId());
+            }
+        }
+        if (!productIds.isEmpty()) {
+            batch.products = productDao.selectByIds(new ArrayList<>(productIds)).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        }
+        
+        // Stock kept on product rows is read and locked once, takes are then checked against what is left.
+        // Only products stock is taken from are locked: what REMOVE and lowering UPDATE give back is flushed last
+        StockBatch stock = new StockBatch(productDao, stock());
+        productIds.addAll(raisedProductIds(batch, operations));
+        stock.lock(productIds);
+        
+        CartBatchResponse response = new CartBatchResponse();
+        List<CartItem> touched = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            CartBatchRequest.Operation operation = operations.get(i);
+            CartBatchResponse.OperationResult result = new CartBatchResponse.OperationResult();
+            result.setIndex(i);
+            result.setType(operation.getType());
+            CartItem item = null;
+            try {
+                item = applyOperation(cart, batch, stock, operation);
+                stock.endWrite(true);
+                result.setSuccess(true);
+                result.setMessage("OK");
+                result.setItemId(item != null ? item.getId() : operation.getItemId());
+                result.setQuantity(item != null ? item.getQuantity() : 0);
+                response.setSucceeded(response.getSucceeded() + 1);
+            } catch (BusinessException e) {
+                // Nothing of a rejected operation was kept, the batch carries on
+                stock.endWrite(false);
+                result.setCode(e.getCode());
+                result.setMessage(e.getDetails() != null ? e.getDetails() : e.getErrorMessage());
+                response.setFailed(response.getFailed() + 1);
+            }
+            touched.add(item);
+            response.getResults().add(result);
+        }
+        
+        // Deletes first, so a removed product added again does not collide with its old row
+        if (!batch.removedIds.isEmpty()) {
+            cartDao.deleteCartItemsByIds(cart.getId(), batch.removedIds);
+        }
+        List<CartItem> updated = batch.updatedIds.stream().map(batch.itemsById::get).collect(Collectors.toList());
+        if (!updated.isEmpty()) {
+            cartDao.batchUpdateCartItems(updated);
+        }
+        if (!batch.inserted.isEmpty()) {
+            cartDao.insertCartItems(batch.inserted);
+            for (int i = 0; i < touched.size(); i++) {
+                if (touched.get(i) != null && response.getResults().get(i).getItemId() == null) {
+                    response.getResults().get(i).setItemId(touched.get(i).getId());
+                }
+            }
+        }
+        stock.flush();
+        
+        if (cartCache != null && response.getSucceeded() > 0) {
+            List<CartItem> written = new ArrayList<>(updated);
+            written.addAll(batch.inserted);
+            cartCache.putItems(userId, written, batch.removedIds);
+        }
+        return response;
     }
     
     @Override
     @Transactional
     public void clearCart(Long userId) {
-        Cart cart = getCart(userId);
+        Cart cart = getOrCreateCart(userId);
         
-        // Restore stock for all cart items (batch processing)
         List<CartItem> items = cartDao.selectCartItems(cart.getId());
+        cartDao.deleteCartItemsByCartId(cart.getId());
+        
+        // Restore stock for all cart items (batch processing)
         if (!items.isEmpty()) {
-            batchRestoreProductStock(items);
+            stock().releaseAll(cart.getId(), items.stream()
+                .collect(Collectors.groupingBy(
+                    CartItem::getProductId,
+                    Collectors.summingInt(CartItem::getQuantity)
+                )));
+        }
+        if (cartCache != null) {
+            cartCache.clear(userId);
         }
-        
-        cartDao.deleteCartItemsByCartId(cart.getId());
     }
     
     @Override
     public Integer getCartItemCount(Long userId) {
-        Cart cart = getCart(userId);
-        return cartDao.countCartItems(cart.getId());
+        Cart cached = cartCache != null ? cartCache.get(userId) : null;
+        if (cached != null) {
+            return cached.getItemCount();
+        }
+        return cartDao.selectCartSummary(userId).getItemCount();
     }
     
     @Override
     public BigDecimal getCartTotal(Long userId) {
-        Cart cart = getCart(userId);
-        return cartDao.sumCartTotal(cart.getId());
+        Cart cached = cartCache != null ? cartCache.get(userId) : null;
+        if (cached != null) {
+            return cached.getTotalAmount();
+        }
+        return cartDao.selectCartSummary(userId).getTotalAmount();
     }
     
     /**
@@ -145,46 +277,26 @@ public class CartServiceImpl implements CartService {
         return product;
     }
     
-    /**
-     * Validate if stock is sufficient
-     */
-    private void validateStockAvailability(Product product, Integer quantity) {
-        if (product.getQuantity() < quantity) {
-            throw new BusinessException(ErrorCode.INVENTORY_INSUFFICIENT);
-        }
-    }
-    
     /**
      * Update existing cart item
      */
-    private void updateExistingCartItem(CartItem existingItem, Product product, Integer quantity) {
-        int oldQuantity = existingItem.getQuantity();
-        int newTotalQuantity = oldQuantity + quantity;
-        
-        // Check if total quantity exceeds available stock (original stock + quantity already in cart)
-        int availableStock = product.getQuantity() + oldQuantity;
-        if (newTotalQuantity > availableStock) {
-            throw new BusinessException(ErrorCode.INVENTORY_INSUFFICIENT);
-        }
-        
-        // Deduct new stock
-        product.setQuantity(product.getQuantity() - quantity);
-        productDao.update(product);
+    private CartItem updateExistingCartItem(CartItem existingItem, Product product, Integer quantity) {
+        int newTotalQuantity = existingItem.getQuantity() + quantity;
         
         // Update cart item
         existingItem.setQuantity(newTotalQuantity);
         existingItem.setTotalPrice(product.getPrice().multiply(new BigDecimal(newTotalQuantity)));
         cartDao.updateCartItem(existingItem);
+        
+        // Deduct new stock, the items already in the cart hold theirs
+        stock().take(existingItem.getCartId(), product.getId(), quantity);
+        return existingItem;
     }
     
     /**
      * Create new cart item
      */
-    private void createNewCartItem(Cart cart, Product product, Integer quantity) {
-        // Deduct stock
-        product.setQuantity(product.getQuantity() - quantity);
-        productDao.update(product);
-        
+    private CartItem createNewCartItem(Cart cart, Product product, Integer quantity) {
         // Create new cart item
         CartItem cartItem = new CartItem();
         cartItem.setCartId(cart.getId());
@@ -194,48 +306,109 @@ public class CartServiceImpl implements CartService {
         cartItem.setQuantity(quantity);
         cartItem.setTotalPrice(product.getPrice().multiply(new BigDecimal(quantity)));
         cartDao.insertCartItem(cartItem);
-    }
-    
-    /**
-     * Get and validate cart item
-     */
-    private CartItem getAndValidateCartItem(Long itemId, Long cartId) {
-        CartItem cartItem = cartDao.selectCartItemById(itemId);
-        if (cartItem == null || !cartItem.getCartId().equals(cartId)) {
-            throw new BusinessException(ErrorCode.CART_ITEM_NOT_FOUND);
-        }
+        
+        // Deduct stock
+        stock().take(cart.getId(), product.getId(), quantity);
         return cartItem;
     }
     
     /**
-     * Get and validate product
+     * Apply one batch operation to the in-memory cart, stock moved last; the item it left, null once removed
      */
-    private Product getAndValidateProduct(Long productId) {
-        Product product = productDao.selectById(productId);
-        if (product == null) {
-            throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND);
+    private CartItem applyOperation(Cart cart, OperationBatch batch, StockBatch stock,
+                                    CartBatchRequest.Operation operation) {
+        if (operation.getType() == null) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "Operation type cannot be empty");
+        }
+        switch (operation.getType()) {
+            case ADD: {
+                if (operation.getProductId() == null || operation.getQuantity() == null || operation.getQuantity() < 1) {
+                    throw new BusinessException(ErrorCode.PARAM_INVALID, "ADD needs a productId and a quantity of at least 1");
+                }
+                Product product = batch.products.get(operation.getProductId());
+                if (product == null) {
+                    throw new BusinessException(ErrorCode.PRODUCT_NOT_FOUND, "Product not found");
+                }
+                if (!product.getVisible()) {
+                    throw new BusinessException(ErrorCode.PRODUCT_INVISIBLE, "Product not visible");
+                }
+                stock.take(cart.getId(), product.getId(), operation.getQuantity());
+                CartItem item = batch.itemsByProductId.get(product.getId());
+                if (item == null) {
+                    item = new CartItem();
+                    item.setCartId(cart.getId());
+                    item.setProductId(product.getId());
+                    item.setProductName(product.getName());
+                    item.setPrice(product.getPrice());
+                    item.setQuantity(0);
+                    batch.inserted.add(item);
+                    batch.itemsByProductId.put(product.getId(), item);
+                } else if (item.getId() != null) {
+                    batch.updatedIds.add(item.getId());
+                }
+                int quantity = item.getQuantity() + operation.getQuantity();
+                item.setQuantity(quantity);
+                item.setTotalPrice(product.getPrice().multiply(new BigDecimal(quantity)));
+                return item;
+            }
+            case UPDATE: {
+                if (operation.getItemId() == null || operation.getQuantity() == null) {
+                    throw new BusinessException(ErrorCode.PARAM_INVALID, "UPDATE needs an itemId and a quantity");
+                }
+                CartItem item = batch.itemsById.get(operation.getItemId());
+                if (item == null) {
+                    throw new BusinessException(ErrorCode.CART_ITEM_NOT_FOUND);
+                }
+                if (operation.getQuantity() <= 0) {
+                    return removeOperation(cart, batch, stock, item);
+                }
+                int stockChange = operation.getQuantity() - item.getQuantity();
+                if (stockChange > 0) {
+                    stock.take(cart.getId(), item.getProductId(), stockChange);
+                } else if (stockChange < 0) {
+                    stock.release(cart.getId(), item.getProductId(), -stockChange);
+                }
+                item.setQuantity(operation.getQuantity());
+                item.setTotalPrice(item.getPrice().multiply(new BigDecimal(operation.getQuantity())));
+                batch.updatedIds.add(item.getId());
+                return item;
+            }
+            case REMOVE: {
+                if (operation.getItemId() == null) {
+                    throw new BusinessException(ErrorCode.PARAM_INVALID, "REMOVE needs an itemId");
+                }
+                CartItem item = batch.itemsById.get(operation.getItemId());
+                if (item == null) {
+                    throw new BusinessException(ErrorCode.CART_ITEM_NOT_FOUND);
+                }
+                return removeOperation(cart, batch, stock, item);
+            }
+            default:
+                throw new BusinessException(ErrorCode.PARAM_INVALID, "Unknown operation type");
         }
-        return product;
     }
     
     /**
-     * Validate if stock is sufficient for update
+     * Drop an item from the in-memory cart and give its stock back
      */
-    private void validateStockForUpdate(Product product, int oldQuantity, int newQuantity) {
-        int availableStock = product.getQuantity() + oldQuantity;
-        if (newQuantity > availableStock) {
-            throw new BusinessException(ErrorCode.INVENTORY_INSUFFICIENT);
-        }
+    private CartItem removeOperation(Cart cart, OperationBatch batch, StockBatch stock, CartItem item) {
+        stock.release(cart.getId(), item.getProductId(), item.getQuantity());
+        batch.itemsById.remove(item.getId());
+        batch.itemsByProductId.remove(item.getProductId());
+        batch.updatedIds.remove(item.getId());
+        batch.removedIds.add(item.getId());
+        return null;
     }
     
     /**
-     * Update product stock
+     * Get and validate cart item
      */
-    private void updateProductStock(Product product, int oldQuantity, int newQuantity) {
-        int stockChange = newQuantity - oldQuantity;
-        int newProductQuantity = product.getQuantity() - stockChange;
-        product.setQuantity(newProductQuantity);
-        productDao.update(product);
+    private CartItem getAndValidateCartItem(Long itemId, Long cartId) {
+        CartItem cartItem = cartDao.selectCartItemById(itemId);
+        if (cartItem == null || !cartItem.getCartId().equals(cartId)) {
+            throw new BusinessException(ErrorCode.CART_ITEM_NOT_FOUND);
+        }
+        return cartItem;
     }
     
     /**
@@ -248,78 +421,89 @@ public class CartServiceImpl implements CartService {
     }
     
     /**
-     * Restore product stock (by product ID)
+     * Calculate cart total amount and product count from the loaded items
      */
-    private void restoreProductStock(Long productId, int quantity) {
-        Product product = productDao.selectById(productId);
-        if (product != null) {
-            product.setQuantity(product.getQuantity() + quantity);
-            productDao.update(product);
-        } else {
-            log.warn("Cannot restore stock, product not found - Product ID: {}", productId);
+    private void calculateCartTotals(Cart cart) {
+        if (cart.getItems() == null) {
+            cart.setItems(new ArrayList<>());
         }
+        cart.setItemCount(cart.getItems().size());
+        cart.setTotalAmount(cart.getItems().stream()
+            .map(CartItem::getTotalPrice)
+            .reduce(BigDecimal.ZERO, BigDecimal::add));
     }
     
     /**
-     * Restore product stock (by product object)
+     * Stock keeping for this write: the group-commit batch it runs in, if any
      */
-    private void restoreProductStock(Product product, int quantity) {
-        product.setQuantity(product.getQuantity() + quantity);
-        productDao.update(product);
+    private InventoryManager stock() {
+        return StockBatch.current(inventoryManager);
     }
     
     /**
-     * Batch restore product stock
+     * Get or create cart
      */
-    private void batchRestoreProductStock(List<CartItem> items) {
-        // Group by product ID, calculate total quantity to restore for each product
-        Map<Long, Integer> productRestoreMap = items.stream()
-            .collect(Collectors.groupingBy(
-                CartItem::getProductId,
-                Collectors.summingInt(CartItem::getQuantity)
-            ));
-        
-        // Batch query all related products
-        List<Long> productIds = new ArrayList<>(productRestoreMap.keySet());
-        List<Product> products = productDao.selectByIds(productIds);
-        
-        // Batch update product stock
-        List<Product> productsToUpdate = new ArrayList<>();
-        for (Product product : products) {
-            Integer restoreQuantity = productRestoreMap.get(product.getId());
-            if (restoreQuantity != null) {
-                product.setQuantity(product.getQuantity() + restoreQuantity);
-                productsToUpdate.add(product);
-            }
-        }
-        
-        // Batch update to database
-        if (!productsToUpdate.isEmpty()) {
-            productDao.batchUpdate(productsToUpdate);
+    private Cart getOrCreateCart(Long userId) {
+        Cart cart = cartDao.selectByUserId(userId);
+        if (cart == null) {
+            cart = new Cart();
+            cart.setUserId(userId);
+            cartDao.insertCart(cart);
         }
-
+        return cart;
     }
     
     /**
-     * Calculate cart total amount and product count
+     * Products of the stored items some UPDATE raises above the quantity the item has by then
      */
-    private void calculateCartTotals(Cart cart) {
-        if (cart != null && cart.getId() != null) {
-            cart.setTotalAmount(cartDao.sumCartTotal(cart.getId()));
-            cart.setItemCount(cartDao.countCartItems(cart.getId()));
+    private Set<Long> raisedProductIds(OperationBatch batch, List<CartBatchRequest.Operation> operations) {
+        Set<Long> productIds = new HashSet<>();
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (CartBatchRequest.Operation operation : operations) {
+            if (operation.getType() != CartBatchRequest.OperationType.UPDATE || operation.getQuantity() == null) {
+                continue;
+            }
+            CartItem item = batch.itemsById.get(operation.getItemId());
+            if (item == null) {
+                continue;
+            }
+            int quantity = quantities.getOrDefault(item.getId(), item.getQuantity());
+            if (operation.getQuantity() > quantity) {
+                productIds.add(item.getProductId());
+            }
+            quantities.put(item.getId(), operation.getQuantity());
         }
+        return productIds;
     }
     
     /**
-     * Get or create cart
+     * In-Memory Cart of a Batch of Operations, written out once all of them were applied
      */
-    private Cart getOrCreateCart(Long userId) {
-        Cart cart = cartDao.selectByUserId(userId);
-        if (cart == null) {
-            cart = new Cart();
-            cart.setUserId(userId);
-            cartDao.insertCart(cart);
+    private static final class OperationBatch {
+        
+        /**
+         * Cart items already stored, by ID
+         */
+        private final Map<Long, CartItem> itemsById = new HashMap<>();
+        
+        /**
+         * The cart's item per product, stored or still to insert
+         */
+        private final Map<Long, CartItem> itemsByProductId = new HashMap<>();
+        
+        private final Set<Long> updatedIds = new LinkedHashSet<>();
+        
+        private final Set<Long> removedIds = new LinkedHashSet<>();
+        
+        private final List<CartItem> inserted = new ArrayList<>();
+        
+        private Map<Long, Product> products = Collections.emptyMap();
+        
+        OperationBatch(List<CartItem> items) {
+            for (CartItem item : items) {
+                itemsById.put(item.getId(), item);
+                itemsByProductId.put(item.getProductId(), item);
+            }
         }
-        return cart;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,333 @@
+package com.example.shop.service.impl;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.CartDao;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.inventory.InventoryManager;
+import com.example.shop.inventory.StockBatch;
+import com.example.shop.model.entity.Cart;
+import com.example.shop.model.entity.CartItem;
+import com.example.shop.model.req.CartBatchRequest;
+import com.example.shop.model.resp.CartBatchResponse;
+import com.example.shop.service.CartService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart Writes Group-Committed by One Writer Thread (shop.cart.group-commit.enabled=true)
+ * addToCart, updateCartItem and removeFromCart are queued instead of each committing its own transaction.
+ * The writer takes up to {@code max-batch-size} of them, or whatever arrived within {@code max-delay-millis}
+ * of the first, and runs them in one transaction with one commit. Every write gets its own savepoint, so a
+ * failing write (INVENTORY_INSUFFICIENT, CART_ITEM_NOT_FOUND, ...) is rolled back alone and only its caller
+ * sees the error. Stock is netted per product by a {@link StockBatch} and written with one statement per
+ * batch. The product rows of the whole batch are locked up front in ID order, like every other multi-product
+ * cart transaction, so batches never deadlock with them and fail as a whole. Callers wait until their batch
+ * committed, so a write that returned is as durable as before.
+ * Reads, clearCart and operation batches (already one transaction for many writes) go straight to
+ * {@link CartServiceImpl}.
+ */
+@Slf4j
+@Primary
+@Service
+@ConditionalOnProperty(name = "shop.cart.group-commit.enabled", havingValue = "true")
+public class GroupCommitCartService implements CartService {
+
+    private final CartService delegate;
+
+    private final InventoryManager inventoryManager;
+
+    private final ProductDao productDao;
+
+    private final CartDao cartDao;
+
+    private final TransactionTemplate batchTransaction;
+
+    /**
+     * Nested in the batch transaction: a savepoint per write
+     */
+    private final TransactionTemplate writeTransaction;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayNanos;
+
+    private final BlockingQueue<CartWrite> queue = new LinkedBlockingQueue<>();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cart-group-commit");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean running = true;
+
+    public GroupCommitCartService(@Qualifier("cartServiceImpl") CartService delegate,
+                                  InventoryManager inventoryManager,
+                                  ProductDao productDao,
+                                  CartDao cartDao,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${shop.cart.group-commit.max-batch-size:64}") int maxBatchSize,
+                                  @Value("${shop.cart.group-commit.max-delay-millis:2}") long maxDelayMillis) {
+        this.delegate = delegate;
+        this.inventoryManager = inventoryManager;
+        this.productDao = productDao;
+        this.cartDao = cartDao;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMillis));
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.execute(this::drain);
+        log.info("Cart writes group-committed, up to {} per batch", maxBatchSize);
+    }
+
+    @Override
+    public Cart getCart(Long userId) {
+        return delegate.getCart(userId);
+    }
+
+    @Override
+    public void addToCart(Long userId, Long productId, Integer quantity) {
+        submit(new CartWrite(() -> delegate.addToCart(userId, productId, quantity), productId, null));
+    }
+
+    @Override
+    public void updateCartItem(Long userId, Long itemId, Integer quantity) {
+        submit(new CartWrite(() -> delegate.updateCartItem(userId, itemId, quantity), null, itemId));
+    }
+
+    @Override
+    public void removeFromCart(Long userId, Long itemId) {
+        submit(new CartWrite(() -> delegate.removeFromCart(userId, itemId), null, itemId));
+    }
+
+    @Override
+    public CartBatchResponse applyOperations(Long userId, List<CartBatchRequest.Operation> operations) {
+        return delegate.applyOperations(userId, operations);
+    }
+
+    @Override
+    public void clearCart(Long userId) {
+        delegate.clearCart(userId);
+    }
+
+    @Override
+    public Integer getCartItemCount(Long userId) {
+        return delegate.getCartItemCount(userId);
+    }
+
+    @Override
+    public BigDecimal getCartTotal(Long userId) {
+        return delegate.getCartTotal(userId);
+    }
+
+    /**
+     * Queue a write and wait for the commit of its batch
+     */
+    private void submit(CartWrite write) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Part of a larger transaction of the caller: it has to commit or roll back with that one
+            write.action.run();
+            return;
+        }
+        if (!running) {
+            throw new BusinessException(ErrorCode.OPERATION_FAILED, "Cart writes are shutting down");
+        }
+        queue.add(write);
+        if (!running && queue.remove(write)) {
+            // Shut down meanwhile and nobody took it: neither the writer nor shutdown() would complete it
+            throw new BusinessException(ErrorCode.OPERATION_FAILED, "Cart writes are shutting down");
+        }
+        try {
+            write.result.get();
+        } catch (InterruptedException e) {
+            // The write may still be committed with its batch
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.OPERATION_FAILED, "Interrupted while waiting for the cart write");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Writer loop: collect a batch, commit it, repeat until shut down and the queue is empty
+     */
+    private void drain() {
+        List<CartWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                CartWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long wait = deadline - System.nanoTime();
+                    CartWrite next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Forced shutdown: commit what was taken, the rest is failed by shutdown()
+                running = false;
+                commit(batch);
+                return;
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Run a batch in one transaction, then complete each caller with its own outcome
+     */
+    private void commit(List<CartWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        StockBatch stock = new StockBatch(productDao, inventoryManager);
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                stock.bind();
+                try {
+                    stock.lock(productIds(batch));
+                    for (CartWrite write : batch) {
+                        try {
+                            writeTransaction.executeWithoutResult(savepoint -> write.action.run());
+                            stock.endWrite(true);
+                        } catch (RuntimeException e) {
+                            // Rolled back to the write's savepoint, the rest of the batch carries on
+                            stock.endWrite(false);
+                            write.failure = e;
+                        }
+                    }
+                    stock.flush();
+                } finally {
+                    stock.unbind();
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            log.error("Cart write batch of {} failed", batch.size(), e);
+            for (CartWrite write : batch) {
+                write.result.completeExceptionally(e);
+            }
+            return;
+        }
+        for (CartWrite write : batch) {
+            if (write.failure != null) {
+                write.result.completeExceptionally(write.failure);
+            } else {
+                write.result.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Products the writes of a batch may move stock of, items looked up with one query
+     */
+    private Set<Long> productIds(List<CartWrite> batch) {
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> itemIds = new HashSet<>();
+        for (CartWrite write : batch) {
+            if (write.productId != null) {
+                productIds.add(write.productId);
+            } else if (write.itemId != null) {
+                itemIds.add(write.itemId);
+            }
+        }
+        if (!itemIds.isEmpty()) {
+            for (CartItem item : cartDao.selectCartItemsByIds(itemIds)) {
+                productIds.add(item.getProductId());
+            }
+        }
+        return productIds;
+    }
+
+    /**
+     * Finish the queued writes, then stop the writer
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.shutdown();
+        if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Cart group-commit writer did not finish in time, {} writes left", queue.size());
+            writer.shutdownNow();
+        }
+        // Queued after the writer's last look at the queue
+        CartWrite write;
+        while ((write = queue.poll()) != null) {
+            write.result.completeExceptionally(
+                    new BusinessException(ErrorCode.OPERATION_FAILED, "Cart writes are shutting down"));
+        }
+    }
+
+    /**
+     * One Queued Write and Its Caller's Result
+     */
+    static final class CartWrite {
+
+        private final Runnable action;
+
+        /**
+         * Product added, null for writes to an existing item
+         */
+        private final Long productId;
+
+        /**
+         * Item updated or removed, null for adds
+         */
+        private final Long itemId;
+
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        /**
+         * Set by the writer thread before the result is completed
+         */
+        private RuntimeException failure;
+
+        CartWrite(Runnable action, Long productId, Long itemId) {
+            this.action = action;
+            this.productId = productId;
+            this.itemId = itemId;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.shop.service.impl;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.importer.ProductImportFormat;
+import com.example.shop.importer.ProductImportReader;
+import com.example.shop.importer.ProductImportRow;
+import com.example.shop.model.entity.Product;
+import com.example.shop.model.req.ProductCreateRequest;
+import com.example.shop.model.resp.ProductImportResponse;
+import com.example.shop.service.ProductImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk Product Import Service Implementation Class
+ * Rows are parsed and validated one at a time and inserted in chunks: one name lookup per chunk,
+ * then the chunk's inserts are sent as a single JDBC batch in one transaction. If a batch fails,
+ * that chunk is retried row by row so only the offending rows are rejected.
+ */
+@Slf4j
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private final ProductDao productDao;
+
+    /**
+     * Mapper bound to a BATCH executor, writes bypass the caching decorator so events are published here
+     */
+    private final ProductDao batchProductDao;
+
+    private final SqlSessionTemplate batchSqlSession;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int chunkSize;
+
+    private final int maxReportedErrors;
+
+    public ProductImportServiceImpl(ProductDao productDao,
+                                    SqlSessionFactory sqlSessionFactory,
+                                    PlatformTransactionManager transactionManager,
+                                    Validator validator,
+                                    ObjectMapper objectMapper,
+                                    ApplicationEventPublisher eventPublisher,
+                                    @Value("${shop.import.chunk-size:500}") int chunkSize,
+                                    @Value("${shop.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.productDao = productDao;
+        this.batchSqlSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        this.batchProductDao = batchSqlSession.getMapper(ProductDao.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public ProductImportResponse importProducts(InputStream in, ProductImportFormat format) {
+        long start = System.nanoTime();
+        ImportRun run = new ImportRun();
+        ProductImportReader reader;
+        try {
+            reader = format.open(in, objectMapper);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "Unreadable import body", e);
+        }
+
+        List<ProductImportRow> chunk = new ArrayList<>(chunkSize);
+        try {
+            ProductImportRow row;
+            while ((row = reader.next()) != null) {
+                run.total++;
+                String error = row.getError() != null ? row.getError() : validate(row.getProduct());
+                if (error != null) {
+                    run.reject(row.getRowNumber(), row.getName(), error);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() >= chunkSize) {
+                    insertChunk(chunk, run);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            // Nothing after this point can be parsed, keep the rows read so far
+            run.reject((int) run.total + 1, null, "Malformed input, import stopped: " + e.getMessage());
+        }
+        insertChunk(chunk, run);
+
+        ProductImportResponse response = run.response;
+        response.setTotal(run.total);
+        response.setImported(run.imported);
+        response.setFailed(run.failed);
+        response.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        response.setRowsPerSecond(run.total * 1000.0 / Math.max(1, response.getElapsedMillis()));
+        log.info("Product import finished: {} rows, {} imported, {} failed in {} ms",
+                run.total, run.imported, run.failed, response.getElapsedMillis());
+        return response;
+    }
+
+    /**
+     * Bean validation messages of a parsed row, null when valid
+     */
+    private String validate(ProductCreateRequest product) {
+        Set<ConstraintViolation<ProductCreateRequest>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Reject taken or repeated names, then insert the rest of the chunk as one batch
+     */
+    private void insertChunk(List<ProductImportRow> chunk, ImportRun run) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (ProductImportRow row : chunk) {
+            names.add(row.getName());
+        }
+        Set<String> taken = new HashSet<>();
+        for (String name : productDao.selectExistingNames(names)) {
+            taken.add(nameKey(name));
+        }
+
+        List<ProductImportRow> accepted = new ArrayList<>(chunk.size());
+        List<Product> products = new ArrayList<>(chunk.size());
+        for (ProductImportRow row : chunk) {
+            String key = nameKey(row.getName());
+            if (run.seenNames.contains(key)) {
+                run.reject(row.getRowNumber(), row.getName(), "Duplicate product name within the import");
+            } else if (taken.contains(key)) {
+                run.reject(row.getRowNumber(), row.getName(), ErrorCode.PRODUCT_NAME_EXISTS.getMessage());
+            } else {
+                run.seenNames.add(key);
+                Product product = new Product();
+                BeanUtils.copyProperties(row.getProduct(), product);
+                accepted.add(row);
+                products.add(product);
+            }
+        }
+        if (products.isEmpty()) {
+            return;
+        }
+
+        try {
+            insertBatch(products);
+            run.imported += products.size();
+            publishCreated(products);
+        } catch (DataAccessException e) {
+            log.warn("Batch insert of {} products failed, retrying row by row", products.size(), e);
+            List<Product> inserted = new ArrayList<>(products.size());
+            for (int i = 0; i < products.size(); i++) {
+                Product product = products.get(i);
+                product.setId(null);
+                try {
+                    insertBatch(Collections.singletonList(product));
+                    inserted.add(product);
+                } catch (DataAccessException rowFailure) {
+                    ProductImportRow row = accepted.get(i);
+                    run.reject(row.getRowNumber(), row.getName(),
+                            "Insert failed: " + NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage());
+                }
+            }
+            run.imported += inserted.size();
+            publishCreated(inserted);
+        }
+    }
+
+    private void insertBatch(List<Product> products) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Product product : products) {
+                batchProductDao.insert(product);
+            }
+            batchSqlSession.flushStatements();
+        });
+    }
+
+    private void publishCreated(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(products.size());
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        eventPublisher.publishEvent(new ProductChangeEvent(ProductChangeEvent.Type.CREATED, ids));
+    }
+
+    /**
+     * Name comparison key following the column collation: case-insensitive, trailing spaces ignored
+     */
+    private static String nameKey(String name) {
+        int end = name.length();
+        while (end > 0 && name.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return name.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * State of One Import
+     */
+    private final class ImportRun {
+
+        private final ProductImportResponse response = new ProductImportResponse();
+
+        private final Set<String> seenNames = new HashSet<>();
+
+        private long total;
+
+        private long imported;
+
+        private long failed;
+
+        private void reject(int rowNumber, String name, String message) {
+            failed++;
+            if (response.getErrors().size() < maxReportedErrors) {
+                response.getErrors().add(new ProductImportResponse.RowError(rowNumber, name, message));
+            } else {
+                response.setErrorsTruncated(true);
+            }
+        }
+    }
+}
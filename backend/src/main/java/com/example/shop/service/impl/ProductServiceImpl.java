@@ -1,33 +1,201 @@
 package com.example.shop.service.impl;
 
+import com.example.common.datasource.ReadYourWritesPin;
 import com.example.common.exception.BusinessException;
 import com.example.common.exception.ErrorCode;
+import com.example.common.req.ChangeWatermark;
+import com.example.common.req.PageRequest;
+import com.example.common.req.SeekCursor;
+import com.example.shop.cache.CatalogVersion;
+import com.example.shop.cache.ProductCountCache;
+import com.example.shop.cache.SingleFlight;
+import com.example.shop.cache.VisibleCatalogCache;
+import com.example.shop.cache.VisibleCatalogSnapshot;
 import com.example.shop.dao.ProductDao;
+import com.example.shop.event.ProductChangeBroadcaster;
+import com.example.shop.event.ProductDeletionLog;
+import com.example.shop.export.ProductExportFormat;
+import com.example.shop.export.ProductExportWriter;
+import com.example.shop.index.ProductColumnStore;
+import com.example.shop.index.ProductColumns;
+import com.example.shop.index.ProductNameIndex;
+import com.example.shop.index.ProductSuggester;
+import com.example.shop.inventory.InventoryManager;
+import com.example.shop.inventory.StockBuckets;
 import com.example.common.resp.PageResponse;
 import com.example.shop.model.entity.Product;
 import com.example.shop.model.req.ProductQueryRequest;
 import com.example.shop.model.req.VisibleProductRequest;
+import com.example.shop.model.resp.PriceFacetResponse;
+import com.example.shop.model.resp.ProductBatchResponse;
+import com.example.shop.model.resp.ProductChangesResponse;
+import com.example.shop.model.resp.ProductSuggestion;
 import com.example.shop.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.pagehelper.PageHelper;
-import com.github.pagehelper.PageInfo;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Product Service Implementation Class
+ * Reads run in read-only SUPPORTS scopes: no transaction is started, but the read-only flag lets a
+ * routing DataSource send them to a replica, and a read called from a writing transaction joins it.
  */
 @Service
 public class ProductServiceImpl implements ProductService {
+
+    /**
+     * Upper bound on typeahead suggestions per request
+     */
+    private static final int MAX_SUGGESTIONS = 50;
+
+    /**
+     * Upper bound on price facet buckets per request
+     */
+    private static final int MAX_FACET_BUCKETS = 100;
+
+    /**
+     * Upper bound on IDs per multi-get request
+     */
+    private static final int MAX_BATCH_IDS = 200;
+
+    /**
+     * Upper bound on changed products per change feed call
+     */
+    private static final int MAX_CHANGES = 1000;
     
     @Autowired
     private ProductDao productDao;
     
+    @Autowired
+    private VisibleCatalogCache visibleCatalogCache;
+    
+    @Autowired
+    private ProductCountCache productCountCache;
+    
+    @Autowired
+    private ProductNameIndex productNameIndex;
+    
+    @Autowired
+    private ProductColumnStore productColumnStore;
+    
+    @Autowired
+    private ProductSuggester productSuggester;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private CatalogVersion catalogVersion;
+    
+    @Autowired
+    private ProductDeletionLog productDeletionLog;
+    
+    @Autowired
+    private ProductChangeBroadcaster productChangeBroadcaster;
+    
+    @Autowired
+    private InventoryManager inventoryManager;
+    
+    /**
+     * Only present with shop.inventory.mode=database
+     */
+    @Autowired(required = false)
+    private StockBuckets stockBuckets;
+
+    /**
+     * Only present with shop.datasource.replica.enabled=true
+     */
+    @Autowired(required = false)
+    private ReadYourWritesPin readYourWritesPin;
+
+    /**
+     * How long a row must be unchanged before the change feed hands it out, see the mapper
+     */
+    @Value("${shop.catalog.change-feed.settle-seconds:2}")
+    private int changeSettleSeconds;
+
+    /**
+     * Concurrent identical list requests share one set of queries and its response
+     */
+    private final SingleFlight<String, PageResponse<Product>> pageLoads = new SingleFlight<>();
+    
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public PageResponse<Product> getProducts(ProductQueryRequest request) {
+        String filterKey = ProductCountCache.key(request.getName(), request.getMinPrice(), request.getMaxPrice(), request.getVisible());
+        return pageLoads.execute(pageKey(filterKey, request), () -> queryProducts(request));
+    }
+
+    /**
+     * Run a product list query, see {@link #getProducts}
+     */
+    private PageResponse<Product> queryProducts(ProductQueryRequest request) {
+        if (request.getCursor() != null) {
+            return createSeekPageResponse(
+                (afterCreatedAt, afterId, limit) -> productDao.selectProductsAfter(
+                    request.getName(), 
+                    request.getMinPrice(), 
+                    request.getMaxPrice(), 
+                    request.getVisible(),
+                    afterCreatedAt, afterId, limit
+                ),
+                request.getCursor(),
+                request.getPageSize()
+            );
+        }
+        ProductColumns columns = productColumnStore.getColumns();
+        if (columns != null) {
+            return createColumnPageResponse(
+                columns,
+                request.getName(), 
+                request.getMinPrice(), 
+                request.getMaxPrice(), 
+                request.getVisible(),
+                request.getPageNum(),
+                request.getPageSize(),
+                request.getEstimate()
+            );
+        }
+        Set<Long> nameCandidates = searchNameIndex(request.getName());
+        if (nameCandidates != null) {
+            return createPageResponse(
+                () -> nameCandidates.isEmpty() ? new ArrayList<>() : productDao.selectProductsByIds(
+                    nameCandidates, 
+                    request.getMinPrice(), 
+                    request.getMaxPrice(), 
+                    request.getVisible()
+                ),
+                () -> nameCandidates.isEmpty() ? 0L : productDao.countProductsByIds(
+                    nameCandidates, 
+                    request.getMinPrice(), 
+                    request.getMaxPrice(), 
+                    request.getVisible()
+                ),
+                ProductCountCache.key(request.getName(), request.getMinPrice(), request.getMaxPrice(), request.getVisible()),
+                request.getPageNum(),
+                request.getPageSize(),
+                request.getEstimate()
+            );
+        }
         return createPageResponse(
             () -> productDao.selectProducts(
                 request.getName(), 
@@ -35,16 +203,55 @@ public class ProductServiceImpl implements ProductService {
                 request.getMaxPrice(), 
                 request.getVisible()
             ),
+            () -> productDao.countProducts(
+                request.getName(), 
+                request.getMinPrice(), 
+                request.getMaxPrice(), 
+                request.getVisible()
+            ),
+            ProductCountCache.key(request.getName(), request.getMinPrice(), request.getMaxPrice(), request.getVisible()),
             request.getPageNum(),
-            request.getPageSize()
+            request.getPageSize(),
+            request.getEstimate()
         );
     }
     
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Product getProductById(Long id) {
         return productDao.selectById(id);
     }
     
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ProductBatchResponse getProductsByIds(List<Long> ids) {
+        LinkedHashSet<Long> distinctIds = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                distinctIds.add(id);
+            }
+        }
+        if (distinctIds.size() > MAX_BATCH_IDS) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "At most " + MAX_BATCH_IDS + " product IDs per request");
+        }
+        ProductBatchResponse response = new ProductBatchResponse();
+        if (distinctIds.isEmpty()) {
+            return response;
+        }
+        // Cached products are served directly, the misses are fetched with a single IN query
+        Map<Long, Product> found = productDao.selectByIds(new ArrayList<>(distinctIds)).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (Long id : distinctIds) {
+            Product product = found.get(id);
+            if (product != null) {
+                response.getProducts().add(product);
+            } else {
+                response.getMissingIds().add(id);
+            }
+        }
+        return response;
+    }
+    
     @Override
     @Transactional
     public void createProduct(Product product) {
@@ -77,13 +284,76 @@ public class ProductServiceImpl implements ProductService {
         productDao.updateVisibility(id, visible);
     }
     
+    @Override
+    public int getAvailableStock(Long id) {
+        validateProductExists(id);
+        // Reservations, leases and buckets hold stock the product's quantity still shows
+        return inventoryManager.getAvailable(id);
+    }
+    
+    @Override
+    public void splitProductStock(Long id, int buckets) {
+        // Runs its own transaction, the bucket list is switched only after it committed
+        requireStockBuckets().split(id, buckets);
+    }
+    
+    @Override
+    public void mergeProductStock(Long id) {
+        validateProductExists(id);
+        requireStockBuckets().merge(id);
+    }
+    
     @Override
     public List<Product> getVisibleProducts() {
-        return productDao.selectVisibleProducts();
+        return visibleCatalogCache.getSnapshot().getProducts();
     }
     
     @Override
+    public VisibleCatalogSnapshot getVisibleCatalog() {
+        return visibleCatalogCache.getSnapshot();
+    }
+    
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public PageResponse<Product> getVisibleProducts(VisibleProductRequest request) {
+        // Same filter key as getProducts with visible=true: both run the same queries, so they may share a load
+        String filterKey = ProductCountCache.key(request.getName(), null, null, true);
+        return pageLoads.execute(pageKey(filterKey, request), () -> queryVisibleProducts(request));
+    }
+
+    /**
+     * Run a visible product list query, see {@link #getVisibleProducts(VisibleProductRequest)}
+     */
+    private PageResponse<Product> queryVisibleProducts(VisibleProductRequest request) {
+        if (request.getCursor() != null) {
+            return createSeekPageResponse(
+                (afterCreatedAt, afterId, limit) -> productDao.selectProductsAfter(
+                    request.getName(), null, null, true, afterCreatedAt, afterId, limit
+                ),
+                request.getCursor(),
+                request.getPageSize()
+            );
+        }
+        ProductColumns columns = productColumnStore.getColumns();
+        if (columns != null) {
+            return createColumnPageResponse(
+                columns, request.getName(), null, null, true,
+                request.getPageNum(), request.getPageSize(), request.getEstimate()
+            );
+        }
+        Set<Long> nameCandidates = searchNameIndex(request.getName());
+        if (nameCandidates != null) {
+            return createPageResponse(
+                () -> nameCandidates.isEmpty() ? new ArrayList<>()
+                    : productDao.selectProductsByIds(nameCandidates, null, null, true),
+                () -> nameCandidates.isEmpty() ? 0L
+                    : productDao.countProductsByIds(nameCandidates, null, null, true),
+                ProductCountCache.key(request.getName(), null, null, true),
+                request.getPageNum(),
+                request.getPageSize(),
+                request.getEstimate()
+            );
+        }
         return createPageResponse(
             () -> productDao.selectProducts(
                 request.getName(), 
@@ -91,25 +361,310 @@ public class ProductServiceImpl implements ProductService {
                 null, 
                 true  // Only query visible products
             ),
+            () -> productDao.countProducts(request.getName(), null, null, true),
+            ProductCountCache.key(request.getName(), null, null, true),
             request.getPageNum(),
-            request.getPageSize()
+            request.getPageSize(),
+            request.getEstimate()
         );
     }
 
+    @Override
+    public String getCatalogETag() {
+        // Held in memory and only advanced once the read route has the changes, never newer than the rows it tags
+        long version = catalogVersion.get();
+        // The column store is rebuilt asynchronously, its version keeps a lagging page from keeping a fresh tag
+        ProductColumns columns = productColumnStore.getColumns();
+        return "\"c-" + version
+            + (columns != null ? "-" + CatalogVersion.INSTANCE_ID + "." + columns.getVersion() : "") + "\"";
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<ProductSuggestion> suggestProducts(String prefix, int limit) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        if (productSuggester.isReady()) {
+            return productSuggester.suggest(prefix, size);
+        }
+        // Index still building or disabled: anchored LIKE on the name index
+        List<Product> products = productDao.selectVisibleByNamePrefix(escapeLike(prefix), size);
+        List<ProductSuggestion> suggestions = new ArrayList<>(products.size());
+        for (Product product : products) {
+            suggestions.add(new ProductSuggestion(product.getId(), product.getName()));
+        }
+        return suggestions;
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public PriceFacetResponse getPriceFacets(String name, Boolean visible, int buckets) {
+        ProductColumns columns = productColumnStore.getSnapshot();
+        long[] prices;
+        if (columns != null) {
+            prices = columns.prices(name, visible);
+        } else {
+            // Snapshot disabled or still loading: one query for the price column only
+            List<BigDecimal> rows = productDao.selectPrices(name, visible);
+            prices = new long[rows.size()];
+            for (int i = 0; i < prices.length; i++) {
+                prices[i] = rows.get(i).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            }
+        }
+        return createPriceFacets(prices, Math.max(1, Math.min(buckets, MAX_FACET_BUCKETS)));
+    }
+
+    // Not read-only, so the feed reads the primary: a replica lagging more than the settle window would let the
+    // watermark pass rows it has not replicated yet
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ProductChangesResponse getProductChanges(String since, int limit) {
+        ChangeWatermark watermark = ChangeWatermark.decode(since);
+        int size = Math.max(1, Math.min(limit, MAX_CHANGES));
+        // Deletion log entries at or after the watermark, so they may repeat across polls but are never skipped
+        LocalDateTime deletionsSince = watermark != null ? watermark.getUpdatedAt() : null;
+        List<Long> deletedIds = deletionsSince != null ? productDeletionLog.deletedSince(deletionsSince) : new ArrayList<>();
+        List<Product> products = productDao.selectChangedAfter(
+            watermark != null ? watermark.getUpdatedAt() : null,
+            watermark != null ? watermark.getId() : null,
+            changeSettleSeconds,
+            size + 1
+        );
+
+        ProductChangesResponse response = new ProductChangesResponse();
+        if (products.size() > size) {
+            products = new ArrayList<>(products.subList(0, size));
+            response.setHasMore(true);
+        }
+        if (!products.isEmpty()) {
+            Product last = products.get(products.size() - 1);
+            watermark = new ChangeWatermark(last.getUpdatedAt(), last.getId());
+        } else if (watermark == null) {
+            // Nothing changed yet: start from the settle boundary so the next poll reports deletions
+            watermark = new ChangeWatermark(productDao.selectCurrentTime().minusSeconds(changeSettleSeconds), 0L);
+        }
+        response.setProducts(products);
+        response.setDeletedIds(deletedIds);
+        response.setWatermark(watermark.encode());
+        response.setDeletionsComplete(deletionsSince == null || !deletionsSince.isBefore(productDeletionLog.getHorizon()));
+        return response;
+    }
+
+    @Override
+    public SseEmitter subscribeProductChanges() {
+        return productChangeBroadcaster.subscribe();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportProducts(Boolean visible, ProductExportFormat format, OutputStream out) throws IOException {
+        // The transaction keeps the cursor's connection open while rows are written out
+        long count = 0;
+        try (Cursor<Product> cursor = productDao.scanProducts(visible);
+             ProductExportWriter writer = format.open(out, objectMapper)) {
+            for (Product product : cursor) {
+                writer.write(product);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Equal-width histogram over ascending prices in cents
+     * Bucket bounds are whole cents and inclusive on both ends, so a bucket maps directly onto the
+     * minPrice/maxPrice list filter. Narrow ranges get fewer buckets than requested rather than empty ones.
+     */
+    private PriceFacetResponse createPriceFacets(long[] prices, int buckets) {
+        PriceFacetResponse response = new PriceFacetResponse();
+        response.setTotal(prices.length);
+        if (prices.length == 0) {
+            return response;
+        }
+        long min = prices[0];
+        long max = prices[prices.length - 1];
+        long span = max - min + 1;
+        long width = (span + buckets - 1) / buckets;
+        long[] counts = new long[(int) ((span + width - 1) / width)];
+        for (long price : prices) {
+            counts[(int) ((price - min) / width)]++;
+        }
+        response.setMinPrice(BigDecimal.valueOf(min, 2));
+        response.setMaxPrice(BigDecimal.valueOf(max, 2));
+        for (int i = 0; i < counts.length; i++) {
+            long from = min + i * width;
+            long to = Math.min(max, from + width - 1);
+            response.getBuckets().add(new PriceFacetResponse.Bucket(
+                BigDecimal.valueOf(from, 2), BigDecimal.valueOf(to, 2), counts[i]));
+        }
+        return response;
+    }
+
+    /**
+     * Coalescing key of a list request: where its queries go, the normalized filter and everything that selects the page
+     */
+    private String pageKey(String filterKey, PageRequest request) {
+        // A pinned client must not join a load that reads a replica lagging behind its own write
+        String route = replicaRead() ? "replica" : "primary";
+        return route + '\u0000' + filterKey + '\u0000' + request.getPageNum() + '\u0000' + request.getPageSize()
+            + '\u0000' + request.getCursor() + '\u0000' + request.getEstimate();
+    }
+
+    /**
+     * Escape LIKE wildcards so user input only matches literally
+     */
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Resolve a name filter to candidate IDs through the trigram index
+     * Returns null when there is no name filter or the index cannot answer, so the LIKE query is used
+     */
+    private Set<Long> searchNameIndex(String name) {
+        if (name == null || name.isEmpty() || !productNameIndex.isReady()) {
+            return null;
+        }
+        return productNameIndex.search(name);
+    }
+    
     /**
      * Create paginated response
+     * The total comes from the count cache when possible; in estimate mode the COUNT query is never
+     * awaited and a stale or lower-bound total is returned with the approximate flag set
      */
     private PageResponse<Product> createPageResponse(ProductQuerySupplier querySupplier, 
+                                                   ProductCountSupplier countSupplier,
+                                                   String countKey,
                                                    Integer pageNum, 
-                                                   Integer pageSize) {
-        PageHelper.startPage(pageNum, pageSize);
-        List<Product> products = querySupplier.get();
-        PageInfo<Product> pageInfo = new PageInfo<>(products);
-        PageResponse.Pagination pagination = new PageResponse.Pagination(
-            pageInfo.getPageNum(), pageInfo.getPageSize(), pageInfo.getTotal()
+                                                   Integer pageSize,
+                                                   Boolean estimate) {
+        boolean estimateRequested = Boolean.TRUE.equals(estimate);
+        boolean approximate = false;
+        Long total;
+        if (estimateRequested) {
+            ProductCountCache.CountEntry entry = productCountCache.getAny(countKey);
+            if (entry == null || !productCountCache.isCurrent(entry)) {
+                approximate = true;
+                productCountCache.refreshAsync(countKey, countSupplier::count);
+            }
+            total = entry != null ? entry.getTotal() : null;
+        } else {
+            total = productCountCache.getExact(countKey);
+            if (total == null) {
+                long generation = productCountCache.currentGeneration();
+                total = countSupplier.count();
+                // A lagging replica may miss writes the generation already covers, its total is not shared
+                if (!replicaRead()) {
+                    productCountCache.put(countKey, total, generation);
+                }
+            }
+        }
+        
+        int effectivePageNum = pageNum;
+        if (total != null && !approximate) {
+            if (total == 0) {
+                // Nothing matches, skip the page query entirely
+                return new PageResponse<>(new ArrayList<>(), createPagination(pageNum, pageSize, 0L, estimateRequested, false));
+            }
+            // Mirror PageHelper's reasonable mode: clamp page numbers past the end to the last page
+            int totalPages = (int) ((total + pageSize - 1) / pageSize);
+            effectivePageNum = Math.min(pageNum, totalPages);
+        }
+        
+        List<Product> products;
+        PageHelper.startPage(effectivePageNum, pageSize, false);
+        try {
+            products = querySupplier.get();
+        } finally {
+            // A supplier may answer without running a query (no name candidates), the page must not leak
+            // into the next statement on this thread
+            PageHelper.clearPage();
+        }
+        if (total == null) {
+            // Lower bound: rows before this page, this page, and one more if the page is full
+            total = (long) (effectivePageNum - 1) * pageSize + products.size() + (products.size() == pageSize ? 1 : 0);
+        }
+        return new PageResponse<>(products, createPagination(effectivePageNum, pageSize, total, estimateRequested, approximate));
+    }
+    
+    /**
+     * Whether the caller's queries go to the read replica
+     */
+    private boolean replicaRead() {
+        return readYourWritesPin != null && readYourWritesPin.isReplicaRead();
+    }
+    
+    /**
+     * Create paginated response from the in-memory column store
+     * Totals are exact and cheap here, so neither the count cache nor estimate mode is involved
+     */
+    private PageResponse<Product> createColumnPageResponse(ProductColumns columns,
+                                                         String name,
+                                                         BigDecimal minPrice,
+                                                         BigDecimal maxPrice,
+                                                         Boolean visible,
+                                                         Integer pageNum,
+                                                         Integer pageSize,
+                                                         Boolean estimate) {
+        boolean estimateRequested = Boolean.TRUE.equals(estimate);
+        ProductColumns.Slice slice = columns.query(name, minPrice, maxPrice, visible,
+            (long) (pageNum - 1) * pageSize, pageSize);
+        long total = slice.getTotal();
+        int totalPages = (int) ((total + pageSize - 1) / pageSize);
+        if (total > 0 && pageNum > totalPages) {
+            // Mirror PageHelper's reasonable mode: clamp page numbers past the end to the last page
+            return createColumnPageResponse(columns, name, minPrice, maxPrice, visible, totalPages, pageSize, estimate);
+        }
+        return new PageResponse<>(slice.getProducts(), createPagination(pageNum, pageSize, total, estimateRequested, false));
+    }
+    
+    /**
+     * Create pagination information, the approximate flag is only reported to estimate requests
+     */
+    private PageResponse.Pagination createPagination(Integer pageNum, Integer pageSize, Long total,
+                                                     boolean estimateRequested, boolean approximate) {
+        PageResponse.Pagination pagination = new PageResponse.Pagination(pageNum, pageSize, total);
+        if (estimateRequested) {
+            pagination.setApproximate(approximate);
+        }
+        return pagination;
+    }
+    
+    /**
+     * Create cursor (keyset) paginated response
+     * Fetches one extra row to learn whether another page follows, no COUNT query is issued
+     */
+    private PageResponse<Product> createSeekPageResponse(ProductSeekSupplier seekSupplier,
+                                                       String cursor,
+                                                       Integer pageSize) {
+        SeekCursor after = SeekCursor.decode(cursor);
+        List<Product> rows = seekSupplier.get(
+            after != null ? after.getCreatedAt() : null,
+            after != null ? after.getId() : null,
+            pageSize + 1
         );
         
-        return new PageResponse<>(products, pagination);
+        String nextCursor = null;
+        List<Product> products = rows;
+        if (rows.size() > pageSize) {
+            products = new ArrayList<>(rows.subList(0, pageSize));
+            Product last = products.get(pageSize - 1);
+            nextCursor = new SeekCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new PageResponse<>(products, PageResponse.Pagination.ofCursor(pageSize, nextCursor));
+    }
+    
+    /**
+     * Stock buckets of the database inventory mode, rejected in the other modes
+     */
+    private StockBuckets requireStockBuckets() {
+        if (stockBuckets == null) {
+            throw new BusinessException(ErrorCode.OPERATION_FAILED, "Stock buckets need shop.inventory.mode=database");
+        }
+        return stockBuckets;
     }
     
     /**
@@ -154,4 +709,20 @@ public class ProductServiceImpl implements ProductService {
     private interface ProductQuerySupplier {
         List<Product> get();
     }
+    
+    /**
+     * Product count query functional interface
+     */
+    @FunctionalInterface
+    private interface ProductCountSupplier {
+        long count();
+    }
+    
+    /**
+     * Product keyset query functional interface
+     */
+    @FunctionalInterface
+    private interface ProductSeekSupplier {
+        List<Product> get(LocalDateTime afterCreatedAt, Long afterId, int limit);
+    }
 } 
\ No newline at end of file
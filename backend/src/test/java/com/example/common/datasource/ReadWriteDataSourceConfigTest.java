@@ -0,0 +1,50 @@
+package com.example.common.datasource;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.example.common.config.ReadWriteDataSourceConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReadWriteDataSourceConfig Test (H2 URLs, no MySQL needed)
+ */
+@DisplayName("Read/Write DataSource Config Test")
+class ReadWriteDataSourceConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class))
+            .withBean(DataSourceProperties.class)
+            .withUserConfiguration(ReadWriteDataSourceConfig.class)
+            .withPropertyValues(
+                    "spring.datasource.druid.url=jdbc:h2:mem:config_primary;DB_CLOSE_DELAY=-1",
+                    "spring.datasource.druid.max-active=7",
+                    "shop.datasource.replica.url=jdbc:h2:mem:config_replica;DB_CLOSE_DELAY=-1");
+
+    @Test
+    @DisplayName("Enabled - Replica Pool Inherits Druid Settings and Overrides the URL")
+    void testEnabled() {
+        contextRunner.withPropertyValues("shop.datasource.replica.enabled=true").run(context -> {
+            DruidDataSource primary = context.getBean("primaryDataSource", DruidDataSource.class);
+            DruidDataSource replica = context.getBean("replicaDataSource", DruidDataSource.class);
+            assertTrue(primary.getUrl().contains("config_primary"));
+            assertTrue(replica.getUrl().contains("config_replica"));
+            assertEquals(7, replica.getMaxActive());
+            assertTrue(context.getBean(DataSource.class) instanceof LazyConnectionDataSourceProxy);
+        });
+    }
+
+    @Test
+    @DisplayName("Disabled - No Routing Beans")
+    void testDisabled() {
+        contextRunner.run(context -> assertFalse(context.containsBean("replicaDataSource")));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.common.datasource;
+
+import com.example.shop.support.H2ProductDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReadWriteRoutingDataSource Test (two H2 databases standing in for primary and replica)
+ */
+@DisplayName("Read/Write Routing DataSource Test")
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String READ_QUANTITY = "SELECT quantity FROM products WHERE name = 'Widget'";
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate writeTransaction;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private TransactionTemplate readOnlySupports;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // The same row on both sides, with a quantity telling them apart
+        H2ProductDatabase primary = new H2ProductDatabase("routing_primary");
+        H2ProductDatabase replica = new H2ProductDatabase("routing_replica");
+        primary.getJdbcTemplate().update("INSERT INTO products (name, price, quantity) VALUES ('Widget', 1.00, 1)");
+        replica.getJdbcTemplate().update("INSERT INTO products (name, price, quantity) VALUES ('Widget', 1.00, 100)");
+
+        ReadYourWritesPin pin = new ReadYourWritesPin(Duration.ofMillis(200), 100);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary.getDataSource(), replica.getDataSource(), pin));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlySupports = new TransactionTemplate(transactionManager);
+        readOnlySupports.setReadOnly(true);
+        readOnlySupports.setPropagationBehavior(TransactionDefinition.PROPAGATION_SUPPORTS);
+        ReadYourWritesPin.setCurrentClient("u:1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWritesPin.clearCurrentClient();
+    }
+
+    private Integer read(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject(READ_QUANTITY, Integer.class));
+    }
+
+    @Test
+    @DisplayName("Routing - Read-Only Scopes Go to the Replica, Everything Else to the Primary")
+    void testRouting() {
+        assertEquals(100, read(readOnlyTransaction));
+        assertEquals(100, read(readOnlySupports));
+        assertEquals(1, read(writeTransaction));
+        assertEquals(1, jdbcTemplate.queryForObject(READ_QUANTITY, Integer.class));
+    }
+
+    @Test
+    @DisplayName("Read-Your-Writes - Writer Pinned to the Primary until the Pin Expires")
+    void testReadYourWrites() throws Exception {
+        // Given
+        writeTransaction.executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE products SET quantity = 2 WHERE name = 'Widget'"));
+
+        // When & Then
+        assertEquals(2, read(readOnlyTransaction));
+        ReadYourWritesPin.setCurrentClient("u:2");
+        assertEquals(100, read(readOnlyTransaction));
+
+        ReadYourWritesPin.setCurrentClient("u:1");
+        Thread.sleep(300);
+        assertEquals(100, read(readOnlySupports));
+    }
+
+    @Test
+    @DisplayName("Read-Your-Writes - Rolled Back Write Does Not Pin")
+    void testRollbackDoesNotPin() {
+        writeTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE products SET quantity = 3 WHERE name = 'Widget'");
+            status.setRollbackOnly();
+        });
+
+        assertEquals(100, read(readOnlyTransaction));
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.dao.CartDao;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.dao.StockBucketDao;
+import com.example.shop.inventory.DatabaseInventoryManager;
+import com.example.shop.inventory.InventoryManager;
+import com.example.shop.inventory.StockBuckets;
+import com.example.shop.service.CartService;
+import com.example.shop.service.impl.CartServiceImpl;
+import com.example.shop.service.impl.GroupCommitCartService;
+import com.example.shop.support.H2ProductDatabase;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cart Write Group-Commit Benchmark
+ * Excluded from the default build, run with {@code mvn test -Pbenchmark}.
+ * {@code -Dbenchmark.group-commit.clients} concurrent users (default 64) each add {@code
+ * -Dbenchmark.group-commit.writes} products to their cart (default 50), one unit of one of
+ * {@code -Dbenchmark.group-commit.products} products (default 16) at a time. Every commit pays
+ * {@code -Dbenchmark.group-commit.commit-micros} (default 2000) on a single simulated log device, one flush
+ * at a time, which is what caps the transaction-per-write path. The same writes are then run through
+ * {@link GroupCommitCartService} with batches of up to {@code -Dbenchmark.group-commit.batch-size} (default 64).
+ * On a small machine the statements' own cost against H2 soon dominates, so writes per second grow far less than
+ * commits drop.
+ */
+@Tag("benchmark")
+@DisplayName("Cart Group Commit Benchmark")
+class CartGroupCommitBenchmarkTest {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.group-commit.clients", 64);
+
+    private static final int WRITES = Integer.getInteger("benchmark.group-commit.writes", 50);
+
+    private static final int PRODUCTS = Integer.getInteger("benchmark.group-commit.products", 16);
+
+    private static final long COMMIT_MICROS = Long.getLong("benchmark.group-commit.commit-micros", 2000);
+
+    private static final int BATCH_SIZE = Integer.getInteger("benchmark.group-commit.batch-size", 64);
+
+    private static final String DATABASE = "group_commit_benchmark";
+
+    private static final Object LOG_DEVICE = new Object();
+
+    private static final LongAdder COMMITS = new LongAdder();
+
+    @Test
+    @DisplayName("Cart Writes and Commits per Second, Transaction per Write vs Group Commit")
+    void benchmarkGroupCommit() throws Exception {
+        System.out.printf("%n%d users x %d cart adds over %d products, %d us per commit flush%n",
+                CLIENTS, WRITES, PRODUCTS, COMMIT_MICROS);
+        System.out.printf("%-14s %10s %10s %10s %14s%n", "path", "writes/s", "commits", "commits/s", "writes/commit");
+        run("per-write", "cartServiceImpl");
+        run("group-commit", "groupCommitCartService");
+    }
+
+    private void run(String label, String beanName) throws Exception {
+        JdbcTemplate jdbcTemplate = new H2ProductDatabase(DATABASE).getJdbcTemplate();
+        jdbcTemplate.execute("SET DEFAULT_LOCK_TIMEOUT 600000");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS cart_items");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS carts");
+        // IDs from plain sequences: H2 2.1 now and then hands out an identity value twice under concurrent inserts
+        jdbcTemplate.execute("DROP SEQUENCE IF EXISTS cart_ids");
+        jdbcTemplate.execute("DROP SEQUENCE IF EXISTS cart_item_ids");
+        jdbcTemplate.execute("CREATE SEQUENCE cart_ids");
+        jdbcTemplate.execute("CREATE SEQUENCE cart_item_ids");
+        jdbcTemplate.execute("CREATE TABLE carts (id BIGINT DEFAULT NEXT VALUE FOR cart_ids PRIMARY KEY, "
+                + "user_id BIGINT NOT NULL UNIQUE, "
+                + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE cart_items (id BIGINT DEFAULT NEXT VALUE FOR cart_item_ids PRIMARY KEY, "
+                + "cart_id BIGINT NOT NULL, "
+                + "product_id BIGINT NOT NULL, product_name VARCHAR(255) NOT NULL, price DECIMAL(10,2) NOT NULL, "
+                + "quantity INT NOT NULL, total_price DECIMAL(10,2) NOT NULL, "
+                + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                + "UNIQUE (cart_id, product_id))");
+        int stock = CLIENTS * WRITES;
+        for (int p = 0; p < PRODUCTS; p++) {
+            jdbcTemplate.update("INSERT INTO products (name, price, quantity) VALUES (?, 9.99, ?)", "Product " + p, stock);
+        }
+        List<Long> productIds = jdbcTemplate.queryForList("SELECT id FROM products", Long.class);
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(CartConfig.class)) {
+            CartService cartService = context.getBean(beanName, CartService.class);
+            ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> results = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                long userId = c + 1;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < WRITES; i++) {
+                        Long productId = productIds.get(ThreadLocalRandom.current().nextInt(productIds.size()));
+                        cartService.addToCart(userId, productId, 1);
+                    }
+                    return null;
+                }));
+            }
+            COMMITS.reset();
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.MINUTES);
+            }
+            long elapsed = System.nanoTime() - begin;
+            long commits = COMMITS.sum();
+            executor.shutdown();
+
+            long writes = (long) CLIENTS * WRITES;
+            System.out.printf("%-14s %10.0f %10d %10.0f %14.1f%n", label, writes * 1e9 / elapsed, commits,
+                    commits * 1e9 / elapsed, (double) writes / commits);
+            int left = jdbcTemplate.queryForObject("SELECT SUM(quantity) FROM products", Integer.class);
+            int inCarts = jdbcTemplate.queryForObject("SELECT SUM(quantity) FROM cart_items", Integer.class);
+            assertEquals((long) stock * PRODUCTS - writes, left);
+            assertEquals(writes, inCarts);
+        }
+    }
+
+    /**
+     * Connections whose commit waits for its turn on the one log device, then pays the flush
+     */
+    private static DataSource withCommitCost(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                            if ("commit".equals(method.getName())) {
+                                flushLog();
+                                COMMITS.increment();
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        };
+    }
+
+    private static void flushLog() throws InterruptedException {
+        synchronized (LOG_DEVICE) {
+            TimeUnit.MICROSECONDS.sleep(COMMIT_MICROS);
+        }
+    }
+
+    /**
+     * Both Cart Service Paths on the Benchmark Database
+     */
+    @Configuration
+    @EnableTransactionManagement
+    static class CartConfig {
+
+        @Bean
+        public DataSource dataSource() {
+            JdbcDataSource h2 = new JdbcDataSource();
+            h2.setURL("jdbc:h2:mem:" + DATABASE + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+            return withCommitCost(h2);
+        }
+
+        @Bean
+        public SqlSessionFactory sqlSessionFactory(DataSource dataSource) throws Exception {
+            org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
+            configuration.setMapUnderscoreToCamelCase(true);
+            SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+            factoryBean.setDataSource(dataSource);
+            factoryBean.setConfiguration(configuration);
+            factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml"));
+            return factoryBean.getObject();
+        }
+
+        @Bean
+        public DataSourceTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        public ProductDao productDao(SqlSessionFactory sqlSessionFactory) {
+            return new SqlSessionTemplate(sqlSessionFactory).getMapper(ProductDao.class);
+        }
+
+        @Bean
+        public CartDao cartDao(SqlSessionFactory sqlSessionFactory) {
+            return new SqlSessionTemplate(sqlSessionFactory).getMapper(CartDao.class);
+        }
+
+        @Bean
+        public InventoryManager inventoryManager(ProductDao productDao, SqlSessionFactory sqlSessionFactory,
+                                                 PlatformTransactionManager transactionManager) {
+            StockBuckets stockBuckets = new StockBuckets(productDao,
+                    new SqlSessionTemplate(sqlSessionFactory).getMapper(StockBucketDao.class), transactionManager, 0);
+            return new DatabaseInventoryManager(productDao, stockBuckets);
+        }
+
+        @Bean
+        public CartService cartServiceImpl() {
+            return new CartServiceImpl();
+        }
+
+        @Bean
+        public GroupCommitCartService groupCommitCartService(CartService cartServiceImpl,
+                                                             InventoryManager inventoryManager, ProductDao productDao,
+                                                             CartDao cartDao,
+                                                             PlatformTransactionManager transactionManager) {
+            return new GroupCommitCartService(cartServiceImpl, inventoryManager, productDao, cartDao, transactionManager,
+                    BATCH_SIZE, 2);
+        }
+    }
+}
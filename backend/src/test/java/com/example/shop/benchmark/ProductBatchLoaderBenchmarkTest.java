@@ -0,0 +1,141 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.cache.BatchLoader;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.model.entity.Product;
+import com.example.shop.support.H2ProductDatabase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * selectById Batching Benchmark
+ * Excluded from the default build, run with {@code mvn test -Pbenchmark}.
+ * {@code -Dbenchmark.batch.threads} callers (default 64) each load {@code -Dbenchmark.batch.loads}
+ * random products (default 500) through a pool of {@code -Dbenchmark.batch.connections} connections
+ * (default 10). Every query pays {@code -Dbenchmark.batch.rtt-micros} (default 1000) of simulated network
+ * round trip on top of in-memory H2, which is what batching saves.
+ */
+@Tag("benchmark")
+@DisplayName("Product Batch Loader Benchmark")
+class ProductBatchLoaderBenchmarkTest {
+
+    private static final int PRODUCTS = 10_000;
+
+    private static final int THREADS = Integer.getInteger("benchmark.batch.threads", 64);
+
+    private static final int LOADS = Integer.getInteger("benchmark.batch.loads", 500);
+
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.batch.connections", 10);
+
+    private static final long RTT_MICROS = Long.getLong("benchmark.batch.rtt-micros", 1000);
+
+    private static final long[] WINDOW_MICROS = {100, 500, 2000};
+
+    private static final int MAX_BATCH_SIZE = 64;
+
+    private static ProductDao productDao;
+
+    private static Semaphore connections;
+
+    private static final LongAdder queries = new LongAdder();
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        H2ProductDatabase database = new H2ProductDatabase("batch_loader_benchmark");
+        database.getJdbcTemplate().update("INSERT INTO products (name, price, quantity, visible) "
+                + "SELECT CONCAT('Product ', X), 9.99, 10, TRUE FROM SYSTEM_RANGE(1, " + PRODUCTS + ")");
+        productDao = database.productDao();
+        connections = new Semaphore(CONNECTIONS, true);
+    }
+
+    /**
+     * Run a query on a pooled connection after the simulated round trip
+     */
+    private static <T> T query(Supplier<T> statement) {
+        connections.acquireUninterruptibly();
+        try {
+            queries.increment();
+            TimeUnit.MICROSECONDS.sleep(RTT_MICROS);
+            return statement.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            connections.release();
+        }
+    }
+
+    @Test
+    @DisplayName("selectById per Call vs Batched selectByIds per Window")
+    void benchmarkBatchLoader() throws Exception {
+        System.out.printf("%n%d callers x %d random selectById, %d connections, %d us round trip, max batch %d%n",
+                THREADS, LOADS, CONNECTIONS, RTT_MICROS, MAX_BATCH_SIZE);
+        System.out.printf("%-18s %12s %10s %10s %10s %12s%n", "mode", "loads/s", "p50 us", "p99 us", "queries", "avg batch");
+
+        run("per call", id -> query(() -> productDao.selectById(id)));
+        for (long window : WINDOW_MICROS) {
+            BatchLoader<Long, Product> loader = new BatchLoader<>(
+                    ids -> query(() -> productDao.selectByIds(ids)), Product::getId,
+                    window, TimeUnit.MICROSECONDS, MAX_BATCH_SIZE);
+            run("batch " + window + " us", loader::load);
+        }
+    }
+
+    private void run(String mode, LongFunction<Product> load) throws Exception {
+        queries.reset();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(executor.submit(() -> {
+                long[] latencies = new long[LOADS];
+                start.await();
+                for (int i = 0; i < LOADS; i++) {
+                    long id = ThreadLocalRandom.current().nextLong(1, PRODUCTS + 1);
+                    long begin = System.nanoTime();
+                    Product product = load.apply(id);
+                    latencies[i] = System.nanoTime() - begin;
+                    assertEquals(id, (long) product.getId());
+                }
+                return latencies;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] all = new long[THREADS * LOADS];
+        int n = 0;
+        for (Future<long[]> result : results) {
+            long[] latencies = result.get(10, TimeUnit.MINUTES);
+            System.arraycopy(latencies, 0, all, n, latencies.length);
+            n += latencies.length;
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        Arrays.sort(all);
+        System.out.printf("%-18s %12.0f %10d %10d %10d %12.1f%n", mode,
+                all.length * 1e9 / elapsed,
+                all[all.length / 2] / 1000,
+                all[(int) (all.length * 0.99)] / 1000,
+                queries.sum(),
+                (double) all.length / queries.sum());
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.dao.ProductDao;
+import com.example.shop.importer.ProductImportFormat;
+import com.example.shop.model.entity.Product;
+import com.example.shop.model.resp.ProductImportResponse;
+import com.example.shop.service.impl.ProductImportServiceImpl;
+import com.example.shop.support.H2ProductDatabase;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk Import Throughput Benchmark
+ * Excluded from the default build, run with {@code mvn test -Pbenchmark}.
+ * Rows: {@code -Dbenchmark.import.rows} (default 100000). Runs against in-memory H2, so there is no
+ * network round trip and the gap to the per-row path is smaller than against a remote MySQL.
+ */
+@Tag("benchmark")
+@DisplayName("Product Import Benchmark")
+class ProductImportBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.import.rows", 100_000);
+
+    private static final int[] CHUNK_SIZES = {100, 500, 1000};
+
+    private byte[] csv(int rows) {
+        StringBuilder csv = new StringBuilder(rows * 40).append("name,price,quantity,visible\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Benchmark Product ").append(i).append(',')
+                    .append(1 + i % 1000).append(".99,").append(i % 500).append(',').append(i % 10 != 0).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Bulk Import - 100k CSV Rows per Chunk Size")
+    void benchmarkBulkImport() throws Exception {
+        byte[] body = csv(ROWS);
+        System.out.printf("%nBulk import of %,d CSV rows (%,d bytes)%n", ROWS, body.length);
+        System.out.printf("%-12s %12s %14s%n", "chunk size", "time (ms)", "rows/second");
+        for (int chunkSize : CHUNK_SIZES) {
+            H2ProductDatabase database = new H2ProductDatabase("import_benchmark_" + chunkSize);
+            ProductImportServiceImpl service = new ProductImportServiceImpl(
+                    database.productDao(),
+                    database.getSqlSessionFactory(),
+                    database.getTransactionManager(),
+                    Validation.buildDefaultValidatorFactory().getValidator(),
+                    new ObjectMapper(),
+                    event -> { },
+                    chunkSize,
+                    100);
+
+            ProductImportResponse result = service.importProducts(new ByteArrayInputStream(body), ProductImportFormat.CSV);
+
+            assertEquals(ROWS, result.getImported());
+            assertEquals(ROWS, database.countProducts());
+            System.out.printf("%-12d %12d %14.0f%n", chunkSize, result.getElapsedMillis(), result.getRowsPerSecond());
+        }
+    }
+
+    @Test
+    @DisplayName("Baseline - One Transaction with Name Check and Insert per Row")
+    void benchmarkPerRowCreate() throws Exception {
+        // Same statements as POST /api/products, on a tenth of the rows
+        int rows = Math.max(1, ROWS / 10);
+        H2ProductDatabase database = new H2ProductDatabase("import_benchmark_baseline");
+        ProductDao productDao = database.productDao();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(database.getTransactionManager());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            Product product = new Product();
+            product.setName("Benchmark Product " + i);
+            product.setPrice(new BigDecimal("9.99"));
+            product.setQuantity(i % 500);
+            product.setVisible(true);
+            transactionTemplate.executeWithoutResult(status -> {
+                assertNull(productDao.selectByName(product.getName()));
+                productDao.insert(product);
+            });
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        assertEquals(rows, database.countProducts());
+        System.out.printf("%nPer-row create of %,d rows: %d ms, %.0f rows/second%n",
+                rows, elapsedMillis, rows * 1000.0 / elapsedMillis);
+    }
+}
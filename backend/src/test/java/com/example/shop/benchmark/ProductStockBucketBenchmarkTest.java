@@ -0,0 +1,137 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.dao.StockBucketDao;
+import com.example.shop.inventory.StockBuckets;
+import com.example.shop.support.H2ProductDatabase;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hot SKU Stock Bucket Benchmark
+ * Excluded from the default build, run with {@code mvn test -Pbenchmark}.
+ * {@code -Dbenchmark.buckets.buyers} concurrent buyers (default 200) each make {@code -Dbenchmark.buckets.purchases}
+ * single-unit purchases (default 20) of one product that holds exactly enough for all of them. A purchase is
+ * two cart writes, the bucket decrement and the commit, each paying {@code -Dbenchmark.buckets.rtt-micros}
+ * (default 1000) of simulated round trip; the bucket row stays locked for the commit round trip. Against
+ * in-memory H2 the gain flattens once H2 itself, not the row lock, is the bottleneck.
+ */
+@Tag("benchmark")
+@DisplayName("Product Stock Bucket Benchmark")
+class ProductStockBucketBenchmarkTest {
+
+    private static final int BUYERS = Integer.getInteger("benchmark.buckets.buyers", 200);
+
+    private static final int PURCHASES = Integer.getInteger("benchmark.buckets.purchases", 20);
+
+    private static final long RTT_MICROS = Long.getLong("benchmark.buckets.rtt-micros", 1000);
+
+    private static final int[] BUCKET_COUNTS = {1, 4, 16, 64};
+
+    private static void roundTrip() {
+        try {
+            TimeUnit.MICROSECONDS.sleep(RTT_MICROS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Mapper whose every statement pays one round trip before it runs
+     */
+    private static StockBucketDao withRoundTrips(StockBucketDao dao) {
+        return (StockBucketDao) Proxy.newProxyInstance(StockBucketDao.class.getClassLoader(),
+                new Class<?>[]{StockBucketDao.class}, (proxy, method, args) -> {
+                    roundTrip();
+                    try {
+                        return method.invoke(dao, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Test
+    @DisplayName("Purchases per Second by Bucket Count on One SKU")
+    void benchmarkBuckets() throws Exception {
+        int quantity = BUYERS * PURCHASES;
+        System.out.printf("%n%d buyers x %d purchases of one product with %d in stock, %d us round trip%n",
+                BUYERS, PURCHASES, quantity, RTT_MICROS);
+        System.out.printf("%-10s %14s %10s %10s %14s%n", "buckets", "purchases/s", "sold", "rejected", "bucket total");
+        for (int buckets : BUCKET_COUNTS) {
+            run(buckets, quantity);
+        }
+    }
+
+    private void run(int buckets, int quantity) throws Exception {
+        H2ProductDatabase database = new H2ProductDatabase("bucket_benchmark_" + buckets);
+        database.getJdbcTemplate().execute("SET DEFAULT_LOCK_TIMEOUT 600000");
+        database.getJdbcTemplate().execute("DROP TABLE IF EXISTS hot_products");
+        database.getJdbcTemplate().execute("DROP TABLE IF EXISTS product_stock_buckets");
+        database.getJdbcTemplate().execute("CREATE TABLE hot_products (product_id BIGINT PRIMARY KEY, "
+                + "buckets INT NOT NULL, mirrored_quantity INT NOT NULL, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        database.getJdbcTemplate().execute("CREATE TABLE product_stock_buckets (product_id BIGINT NOT NULL, "
+                + "bucket INT NOT NULL, quantity INT NOT NULL, PRIMARY KEY (product_id, bucket))");
+        database.getJdbcTemplate().update("INSERT INTO products (name, price, quantity) VALUES ('Hot SKU', 9.99, ?)", quantity);
+        long productId = database.getJdbcTemplate().queryForObject("SELECT id FROM products", Long.class);
+
+        StockBuckets stockBuckets = new StockBuckets(database.productDao(),
+                withRoundTrips(database.mapper(StockBucketDao.class)), database.getTransactionManager(), 0);
+        stockBuckets.start();
+        stockBuckets.split(productId, buckets);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(database.getTransactionManager());
+
+        LongAdder sold = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int b = 0; b < BUYERS; b++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < PURCHASES; i++) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            roundTrip();
+                            roundTrip();
+                            assertTrue(stockBuckets.take(productId, 1));
+                            // Commit round trip, the bucket lock is held until it arrives
+                            roundTrip();
+                        });
+                        sold.increment();
+                    } catch (RuntimeException e) {
+                        rejected.increment();
+                    }
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        int bucketTotal = stockBuckets.total(productId);
+        System.out.printf("%-10d %14.0f %10d %10d %14d%n", buckets,
+                (double) BUYERS * PURCHASES * 1e9 / elapsed, sold.sum(), rejected.sum(), bucketTotal);
+        assertEquals(quantity - sold.sum(), bucketTotal);
+    }
+}
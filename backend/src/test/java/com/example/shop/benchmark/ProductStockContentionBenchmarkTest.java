@@ -0,0 +1,133 @@
+package com.example.shop.benchmark;
+
+import com.example.shop.dao.ProductDao;
+import com.example.shop.model.entity.Product;
+import com.example.shop.support.H2ProductDatabase;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hot SKU Stock Contention Benchmark
+ * Excluded from the default build, run with {@code mvn test -Pbenchmark}.
+ * {@code -Dbenchmark.stock.buyers} concurrent buyers (default 500) each try {@code -Dbenchmark.stock.purchases}
+ * single-unit purchases (default 20) of one product holding {@code -Dbenchmark.stock.quantity} units (default
+ * 5000, so it sells out). Each purchase is a transaction shaped like add-to-cart: the stock change plus one cart
+ * write, every statement paying {@code -Dbenchmark.stock.rtt-micros} (default 1000) of simulated round trip.
+ */
+@Tag("benchmark")
+@DisplayName("Product Stock Contention Benchmark")
+class ProductStockContentionBenchmarkTest {
+
+    private static final int BUYERS = Integer.getInteger("benchmark.stock.buyers", 500);
+
+    private static final int PURCHASES = Integer.getInteger("benchmark.stock.purchases", 20);
+
+    private static final int QUANTITY = Integer.getInteger("benchmark.stock.quantity", 5000);
+
+    private static final long RTT_MICROS = Long.getLong("benchmark.stock.rtt-micros", 1000);
+
+    private static void roundTrip() {
+        try {
+            TimeUnit.MICROSECONDS.sleep(RTT_MICROS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Read-Modify-Write Update vs Conditional Decrement on One SKU")
+    void benchmarkStockContention() throws Exception {
+        System.out.printf("%n%d buyers x %d purchases of one product with %d in stock, %d us round trip%n",
+                BUYERS, PURCHASES, QUANTITY, RTT_MICROS);
+        System.out.printf("%-22s %14s %10s %10s %12s %10s%n",
+                "mode", "purchases/s", "sold", "rejected", "final stock", "oversold");
+
+        // Old path: read the row, check in Java, write the whole row back, then the cart write
+        run("read-modify-write", (productDao, productId) -> () -> {
+            roundTrip();
+            Product product = productDao.selectById(productId);
+            if (product.getQuantity() < 1) {
+                return false;
+            }
+            product.setQuantity(product.getQuantity() - 1);
+            roundTrip();
+            productDao.update(product);
+            roundTrip();
+            return true;
+        });
+
+        // New path: cart write first, then one conditional statement holding the row lock until commit
+        run("conditional decrement", (productDao, productId) -> () -> {
+            roundTrip();
+            roundTrip();
+            return productDao.decreaseStock(productId, 1) == 1;
+        });
+    }
+
+    private void run(String mode, Purchase purchase) throws Exception {
+        H2ProductDatabase database = new H2ProductDatabase("stock_benchmark_" + mode.replace(' ', '_').replace('-', '_'));
+        // Buyers queue on the row lock for longer than H2's one second default
+        database.getJdbcTemplate().execute("SET DEFAULT_LOCK_TIMEOUT 600000");
+        database.getJdbcTemplate().update("INSERT INTO products (name, price, quantity) VALUES ('Hot SKU', 9.99, ?)", QUANTITY);
+        long productId = database.getJdbcTemplate().queryForObject("SELECT id FROM products", Long.class);
+        ProductDao productDao = database.productDao();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(database.getTransactionManager());
+        BooleanSupplier statements = purchase.statements(productDao, productId);
+
+        LongAdder sold = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int b = 0; b < BUYERS; b++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < PURCHASES; i++) {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(status -> statements.getAsBoolean()))) {
+                        sold.increment();
+                    } else {
+                        rejected.increment();
+                    }
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        int finalStock = database.getJdbcTemplate().queryForObject("SELECT quantity FROM products", Integer.class);
+        long oversold = sold.sum() - (QUANTITY - finalStock);
+        System.out.printf("%-22s %14.0f %10d %10d %12d %10d%n", mode,
+                (double) BUYERS * PURCHASES * 1e9 / elapsed, sold.sum(), rejected.sum(), finalStock, oversold);
+        assertEquals(BUYERS * PURCHASES, sold.sum() + rejected.sum());
+        assertTrue(finalStock >= 0);
+    }
+
+    /**
+     * Statements of One Purchase, run inside a transaction, true when a unit was taken
+     */
+    private interface Purchase {
+
+        BooleanSupplier statements(ProductDao productDao, long productId);
+    }
+}
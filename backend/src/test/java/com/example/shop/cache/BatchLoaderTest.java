@@ -0,0 +1,93 @@
+package com.example.shop.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BatchLoader Unit Test
+ */
+@DisplayName("Batch Loader Test")
+class BatchLoaderTest {
+
+    /**
+     * Calls made to loadAll, one key list per call
+     */
+    private final List<List<Integer>> calls = new CopyOnWriteArrayList<>();
+
+    /**
+     * Returns "v<key>" for even keys only, so odd keys are missing
+     */
+    private final Function<List<Integer>, List<String>> evenOnly = keys -> {
+        calls.add(new ArrayList<>(keys));
+        List<String> values = new ArrayList<>();
+        for (Integer key : keys) {
+            if (key % 2 == 0) {
+                values.add("v" + key);
+            }
+        }
+        return values;
+    };
+
+    private static Integer keyOf(String value) {
+        return Integer.valueOf(value.substring(1));
+    }
+
+    @Test
+    @DisplayName("Load - Concurrent Keys Dispatched Together once the Batch Is Full")
+    void testLoad_FullBatch() throws Exception {
+        // Given: a window long enough that only a full batch can dispatch in time
+        BatchLoader<Integer, String> loader = new BatchLoader<>(evenOnly, BatchLoaderTest::keyOf, 10, TimeUnit.SECONDS, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        List<Future<String>> results = new ArrayList<>();
+        for (int key = 1; key <= 4; key++) {
+            int k = key;
+            results.add(executor.submit(() -> loader.load(k)));
+        }
+
+        // Then
+        assertNull(results.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals("v2", results.get(1).get(5, TimeUnit.SECONDS));
+        assertNull(results.get(2).get(5, TimeUnit.SECONDS));
+        assertEquals("v4", results.get(3).get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.size());
+        List<Integer> keys = new ArrayList<>(calls.get(0));
+        Collections.sort(keys);
+        assertEquals(4, keys.size());
+        assertEquals(1, (int) keys.get(0));
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Load - Lone Caller Dispatched after the Window")
+    void testLoad_WindowElapses() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(evenOnly, BatchLoaderTest::keyOf, 1, TimeUnit.MILLISECONDS, 64);
+
+        assertEquals("v8", loader.load(8));
+        assertEquals("v6", loader.load(6));
+        assertEquals(2, calls.size());
+    }
+
+    @Test
+    @DisplayName("Load - loadAll Failure Reaches the Caller")
+    void testLoad_Failure() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(keys -> {
+            throw new IllegalStateException("database down");
+        }, BatchLoaderTest::keyOf, 0, TimeUnit.MILLISECONDS, 64);
+
+        assertThrows(IllegalStateException.class, () -> loader.load(1));
+    }
+}
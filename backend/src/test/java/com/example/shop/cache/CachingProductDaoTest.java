@@ -0,0 +1,281 @@
+package com.example.shop.cache;
+
+import com.example.common.datasource.ReadYourWritesPin;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.model.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * CachingProductDao Unit Test
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Caching Product DAO Test")
+class CachingProductDaoTest {
+
+    @Mock
+    private ProductDao delegate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ProductCache productCache;
+
+    private CachingProductDao cachingProductDao;
+
+    @BeforeEach
+    void setUp() {
+        productCache = new ProductCache(1024 * 1024, 600);
+        cachingProductDao = new CachingProductDao(delegate, productCache, eventPublisher);
+    }
+
+    private Product product(Long id, int quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setQuantity(quantity);
+        product.setVisible(true);
+        return product;
+    }
+
+    @Test
+    @DisplayName("Select by ID - Second Read Served from Cache")
+    void testSelectById_CacheHit() {
+        when(delegate.selectById(1L)).thenReturn(product(1L, 5));
+
+        Product first = cachingProductDao.selectById(1L);
+        Product second = cachingProductDao.selectById(1L);
+
+        assertEquals(5, first.getQuantity());
+        assertEquals(5, second.getQuantity());
+        verify(delegate, times(1)).selectById(1L);
+        assertEquals(1L, productCache.stats().getHitCount());
+    }
+
+    @Test
+    @DisplayName("Select by ID - Caller Mutation Does Not Leak into Cache")
+    void testSelectById_ReturnsCopy() {
+        when(delegate.selectById(1L)).thenReturn(product(1L, 5));
+
+        cachingProductDao.selectById(1L).setQuantity(0);
+
+        assertEquals(5, cachingProductDao.selectById(1L).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Select by ID - Concurrent Misses Share One Query, Each Caller Gets Its Own Copy")
+    void testSelectById_CoalescesConcurrentMisses() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.selectById(1L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return product(1L, 5);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        List<Future<Product>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> cachingProductDao.selectById(1L)));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        // Then
+        // Callers arriving after the load finished are served by the cache, so the count holds either way
+        for (Future<Product> result : results) {
+            assertEquals(5, result.get(5, TimeUnit.SECONDS).getQuantity());
+        }
+        assertNotSame(results.get(0).get(), results.get(1).get());
+        verify(delegate, times(1)).selectById(1L);
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Select by ID - Batch Loader Combines Misses for Different IDs")
+    void testSelectById_BatchLoader() throws Exception {
+        // Given
+        CachingProductDao batchingDao = new CachingProductDao(delegate, productCache, eventPublisher, true, 5_000_000, 2);
+        when(delegate.selectByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            List<Product> products = new ArrayList<>();
+            for (Long id : ids) {
+                products.add(product(id, id.intValue()));
+            }
+            return products;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // When
+        Future<Product> first = executor.submit(() -> batchingDao.selectById(1L));
+        Future<Product> second = executor.submit(() -> batchingDao.selectById(2L));
+
+        // Then
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).getQuantity());
+        assertEquals(2, second.get(5, TimeUnit.SECONDS).getQuantity());
+        verify(delegate, times(1)).selectByIds(anyList());
+        verify(delegate, never()).selectById(anyLong());
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Update - Evicts Cached Entry")
+    void testUpdate_Evicts() {
+        when(delegate.selectById(1L)).thenReturn(product(1L, 5), product(1L, 3));
+
+        Product product = cachingProductDao.selectById(1L);
+        product.setQuantity(3);
+        cachingProductDao.update(product);
+
+        assertEquals(3, cachingProductDao.selectById(1L).getQuantity());
+        verify(delegate, times(2)).selectById(1L);
+    }
+
+    @Test
+    @DisplayName("Stock Decrement - Evicts and Publishes Only When a Row Changed")
+    void testDecreaseStock_EvictsOnSuccess() {
+        when(delegate.selectById(1L)).thenReturn(product(1L, 5), product(1L, 3));
+        when(delegate.decreaseStock(1L, 9)).thenReturn(0);
+        when(delegate.decreaseStock(1L, 2)).thenReturn(1);
+
+        cachingProductDao.selectById(1L);
+        assertEquals(0, cachingProductDao.decreaseStock(1L, 9));
+        assertEquals(5, cachingProductDao.selectById(1L).getQuantity());
+        verifyNoInteractions(eventPublisher);
+
+        assertEquals(1, cachingProductDao.decreaseStock(1L, 2));
+        assertEquals(3, cachingProductDao.selectById(1L).getQuantity());
+        verify(delegate, times(2)).selectById(1L);
+        verify(eventPublisher).publishEvent(argThat((ProductChangeEvent event) -> event.isStockOnly()));
+    }
+
+    @Test
+    @DisplayName("Visibility Update and Delete - Evict Cached Entry")
+    void testVisibilityAndDelete_Evict() {
+        when(delegate.selectById(1L)).thenReturn(product(1L, 5));
+
+        cachingProductDao.selectById(1L);
+        cachingProductDao.updateVisibility(1L, false);
+        cachingProductDao.selectById(1L);
+        cachingProductDao.deleteById(1L);
+        cachingProductDao.selectById(1L);
+
+        verify(delegate, times(3)).selectById(1L);
+    }
+
+    @Test
+    @DisplayName("Select by IDs - Only Misses Hit the Database, Request Order Kept")
+    void testSelectByIds_LoadsOnlyMisses() {
+        when(delegate.selectById(2L)).thenReturn(product(2L, 1));
+        when(delegate.selectByIds(Arrays.asList(3L, 1L))).thenReturn(Arrays.asList(product(1L, 1), product(3L, 1)));
+
+        cachingProductDao.selectById(2L);
+        List<Product> products = cachingProductDao.selectByIds(Arrays.asList(3L, 2L, 1L));
+
+        assertEquals(3, products.size());
+        assertEquals(3L, products.get(0).getId());
+        assertEquals(2L, products.get(1).getId());
+        assertEquals(1L, products.get(2).getId());
+        verify(delegate).selectByIds(Arrays.asList(3L, 1L));
+    }
+
+    @Test
+    @DisplayName("Batch Update - Evicts All Updated Entries")
+    void testBatchUpdate_Evicts() {
+        when(delegate.selectById(1L)).thenReturn(product(1L, 5));
+
+        cachingProductDao.selectById(1L);
+        cachingProductDao.batchUpdate(Collections.singletonList(product(1L, 7)));
+        cachingProductDao.selectById(1L);
+
+        verify(delegate, times(2)).selectById(1L);
+    }
+
+    @Test
+    @DisplayName("Select by ID - Row Loaded while an Eviction Ran Is Not Cached")
+    void testSelectById_LoadRacingEvictionNotCached() {
+        // Given: the write commits and evicts while the old row is being read
+        when(delegate.selectById(1L)).thenAnswer(invocation -> {
+            cachingProductDao.updateVisibility(1L, false);
+            return product(1L, 5);
+        }).thenReturn(product(1L, 5));
+
+        // When
+        cachingProductDao.selectById(1L);
+        cachingProductDao.selectById(1L);
+
+        // Then
+        verify(delegate, times(2)).selectById(1L);
+    }
+
+    @Test
+    @DisplayName("Select by ID and IDs - Rows Read in a Writing Transaction Are Not Cached")
+    void testSelect_InWriteTransactionNotCached() {
+        // Given
+        when(delegate.selectById(1L)).thenReturn(product(1L, 5));
+        when(delegate.selectByIds(Collections.singletonList(2L))).thenReturn(Collections.singletonList(product(2L, 5)));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            // When
+            cachingProductDao.selectById(1L);
+            cachingProductDao.selectByIds(Collections.singletonList(2L));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        // Then
+        assertEquals(0, productCache.stats().getSize());
+        cachingProductDao.selectById(1L);
+        verify(delegate, times(2)).selectById(1L);
+    }
+
+    @Test
+    @DisplayName("Select by ID - Replica Reads Not Cached, Served from Cache on Hit")
+    void testSelectById_ReplicaReadNotCached() {
+        // Given
+        ReflectionTestUtils.setField(cachingProductDao, "readYourWritesPin", new ReadYourWritesPin(Duration.ofSeconds(3), 100));
+        when(delegate.selectById(1L)).thenReturn(product(1L, 5));
+        ReadYourWritesPin.setCurrentClient("u:1");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            // When
+            cachingProductDao.selectById(1L);
+            assertEquals(0, productCache.stats().getSize());
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            cachingProductDao.selectById(1L);
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+            cachingProductDao.selectById(1L);
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            ReadYourWritesPin.clearCurrentClient();
+        }
+
+        // Then: the primary read was cached and served the last replica read
+        verify(delegate, times(2)).selectById(1L);
+    }
+}
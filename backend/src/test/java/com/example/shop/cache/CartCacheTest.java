@@ -0,0 +1,214 @@
+package com.example.shop.cache;
+
+import com.example.shop.model.entity.Cart;
+import com.example.shop.model.entity.CartItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CartCache Unit Test
+ */
+@DisplayName("Cart Cache Test")
+class CartCacheTest {
+
+    private static final Long USER_ID = 7L;
+
+    private CartCache cartCache;
+
+    @BeforeEach
+    void setUp() {
+        cartCache = new CartCache(100, 300, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private CartItem item(Long id, int quantity, String price) {
+        CartItem item = new CartItem();
+        item.setId(id);
+        item.setCartId(1L);
+        item.setProductId(id * 10);
+        item.setProductName("Product " + id);
+        item.setPrice(new BigDecimal(price));
+        item.setQuantity(quantity);
+        item.setTotalPrice(new BigDecimal(price).multiply(new BigDecimal(quantity)));
+        return item;
+    }
+
+    private Cart cart(CartItem... items) {
+        Cart cart = new Cart();
+        cart.setId(1L);
+        cart.setUserId(USER_ID);
+        cart.setItems(new ArrayList<>(Arrays.asList(items)));
+        cart.setItemCount(items.length);
+        cart.setTotalAmount(Arrays.stream(items).map(CartItem::getTotalPrice).reduce(BigDecimal.ZERO, BigDecimal::add));
+        return cart;
+    }
+
+    /**
+     * Run what the writes registered as if their transaction committed
+     */
+    private void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCommit();
+        }
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+
+    @Test
+    @DisplayName("Get - Copies, the Cached Cart Cannot Be Changed by Callers")
+    void testGet_Copy() {
+        // Given
+        cartCache.put(USER_ID, cart(item(1L, 2, "10.00")), cartCache.generation(USER_ID));
+
+        // When
+        Cart first = cartCache.get(USER_ID);
+        first.getItems().clear();
+
+        // Then
+        assertEquals(1, cartCache.get(USER_ID).getItems().size());
+        assertNull(cartCache.get(8L));
+    }
+
+    @Test
+    @DisplayName("Writes - Cart Patched after Commit, Totals Recomputed")
+    void testPatchAfterCommit() {
+        // Given
+        cartCache.put(USER_ID, cart(item(1L, 2, "10.00"), item(2L, 1, "5.00")), cartCache.generation(USER_ID));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        cartCache.putItem(USER_ID, item(3L, 1, "7.50"));
+        assertEquals(2, cartCache.get(USER_ID).getItemCount(), "nothing applied before commit");
+        commit();
+        TransactionSynchronizationManager.initSynchronization();
+        cartCache.putItem(USER_ID, item(1L, 3, "10.00"));
+        commit();
+
+        // Then
+        Cart cart = cartCache.get(USER_ID);
+        assertEquals(3, cart.getItemCount());
+        assertEquals(Long.valueOf(3L), cart.getItems().get(0).getId());
+        assertEquals(3, cart.getItems().get(1).getQuantity());
+        assertEquals(0, new BigDecimal("42.50").compareTo(cart.getTotalAmount()));
+
+        // When
+        cartCache.removeItem(USER_ID, 2L);
+
+        // Then: outside of a transaction the patch applies right away
+        assertEquals(0, new BigDecimal("37.50").compareTo(cartCache.get(USER_ID).getTotalAmount()));
+        cartCache.clear(USER_ID);
+        assertEquals(0, cartCache.get(USER_ID).getItemCount());
+    }
+
+    @Test
+    @DisplayName("Batch Patch - Written and Removed Items of One Transaction Applied Together")
+    void testPutItems() {
+        // Given
+        cartCache.put(USER_ID, cart(item(1L, 2, "10.00"), item(2L, 1, "5.00")), cartCache.generation(USER_ID));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        cartCache.putItems(USER_ID, Arrays.asList(item(1L, 1, "10.00"), item(3L, 2, "7.50")), Collections.singleton(2L));
+        commit();
+
+        // Then
+        Cart cart = cartCache.get(USER_ID);
+        assertEquals(2, cart.getItemCount());
+        assertEquals(Long.valueOf(3L), cart.getItems().get(0).getId());
+        assertEquals(0, new BigDecimal("25.00").compareTo(cart.getTotalAmount()));
+    }
+
+    @Test
+    @DisplayName("Rollback - Cart Left as It Was")
+    void testRollback() {
+        // Given
+        cartCache.put(USER_ID, cart(item(1L, 2, "10.00")), cartCache.generation(USER_ID));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        cartCache.removeItem(USER_ID, 1L);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Then: and later writes are not taken for overlapping ones
+        assertEquals(1, cartCache.get(USER_ID).getItemCount());
+        cartCache.putItem(USER_ID, item(2L, 1, "5.00"));
+        assertEquals(2, cartCache.get(USER_ID).getItemCount());
+    }
+
+    @Test
+    @DisplayName("Put - Cart Read before a Commit Is Not Stored")
+    void testPut_RacedCommit() {
+        // Given: a read captures the generation, then a write commits
+        long generation = cartCache.generation(USER_ID);
+        cartCache.putItem(USER_ID, item(1L, 1, "10.00"));
+
+        // When
+        cartCache.put(USER_ID, cart(), generation);
+
+        // Then
+        assertNull(cartCache.get(USER_ID));
+    }
+
+    @Test
+    @DisplayName("Expiry - Cart Read and Patched Constantly Still Reloaded after the Write Bound")
+    void testExpireAfterWrite() {
+        // Given: 300 s idle time, reload at the latest 60 s after loading
+        AtomicLong nanos = new AtomicLong();
+        CartCache cache = new CartCache(100, 300, 60, nanos::get);
+        cache.put(USER_ID, cart(item(1L, 2, "10.00")), cache.generation(USER_ID));
+
+        // When: read and patched every 10 s
+        for (int i = 0; i < 5; i++) {
+            nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+            assertNotNull(cache.get(USER_ID));
+            cache.putItem(USER_ID, item(2L, i + 1, "5.00"));
+        }
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // Then
+        assertNull(cache.get(USER_ID));
+    }
+
+    @Test
+    @DisplayName("Overlapping Writes - Cart Invalidated, Commit Order Unknown")
+    void testOverlappingWrites() {
+        // Given: two transactions of one user, both registered before either committed
+        cartCache.put(USER_ID, cart(item(1L, 2, "10.00")), cartCache.generation(USER_ID));
+        TransactionSynchronizationManager.initSynchronization();
+        cartCache.putItem(USER_ID, item(1L, 3, "10.00"));
+        cartCache.putItem(USER_ID, item(1L, 4, "10.00"));
+
+        // When
+        commit();
+
+        // Then
+        assertNull(cartCache.get(USER_ID));
+        assertTrue(cartCache.stats().getInvalidationCount() > 0);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.shop.cache;
+
+import com.example.shop.dao.CatalogVersionDao;
+import com.example.shop.event.ProductChangeEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * CatalogVersion Unit Test
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Catalog Version Test")
+class CatalogVersionTest {
+
+    @Mock
+    private CatalogVersionDao catalogVersionDao;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CatalogVersion catalogVersion;
+
+    @BeforeEach
+    void setUp() {
+        catalogVersion = new CatalogVersion(catalogVersionDao, transactionManager, 300, 200);
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalogVersion.shutdown();
+    }
+
+    @Test
+    @DisplayName("Get - Answered from Memory, Polled in a Read-Only Transaction, Never Goes Back")
+    void testGet() {
+        // Given: 0 before the first bump, then another instance bumps
+        when(catalogVersionDao.selectVersion()).thenReturn(null, 12L, 11L);
+
+        // When
+        catalogVersion.start();
+        long initial = catalogVersion.get();
+
+        // Then
+        assertEquals(0L, initial);
+        verify(catalogVersionDao, timeout(2000).times(3)).selectVersion();
+        for (int i = 0; i < 100; i++) {
+            catalogVersion.get();
+        }
+        assertEquals(12L, catalogVersion.get());
+        verify(catalogVersionDao, atMost(4)).selectVersion();
+        verify(transactionManager, atLeastOnce()).getTransaction(argThat(definition -> definition.isReadOnly()));
+    }
+
+    @Test
+    @DisplayName("Stock Movements - One Delayed Bump per Interval, Other Changes Bump Right Away")
+    void testStockMovementsThrottled() {
+        // When
+        for (int i = 0; i < 5; i++) {
+            catalogVersion.onProductChange(ProductChangeEvent.stock(1L));
+        }
+
+        // Then: re-read right after the bump
+        verify(catalogVersionDao, after(100).never()).bump();
+        verify(catalogVersionDao, timeout(2000).times(1)).bump();
+        verify(catalogVersionDao, timeout(2000).times(1)).selectVersion();
+
+        // When
+        catalogVersion.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, 1L));
+
+        // Then
+        verify(catalogVersionDao, timeout(100).times(2)).bump();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.shop.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProductCountCache Unit Test
+ */
+@DisplayName("Product Count Cache Test")
+class ProductCountCacheTest {
+
+    @Test
+    @DisplayName("Expiry - Total Dropped after the Write Bound Even Without Product Changes")
+    void testExpireAfterWrite() {
+        // Given
+        AtomicLong nanos = new AtomicLong();
+        ProductCountCache cache = new ProductCountCache(100, 300, nanos::get);
+        String key = ProductCountCache.key("phone", null, null, true);
+        cache.put(key, 42L, cache.currentGeneration());
+
+        // When
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(299));
+        Long beforeBound = cache.getExact(key);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+
+        // Then
+        assertEquals(Long.valueOf(42L), beforeBound);
+        assertNull(cache.getExact(key));
+        assertNull(cache.getAny(key));
+        cache.shutdown();
+    }
+}
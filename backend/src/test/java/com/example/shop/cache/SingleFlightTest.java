@@ -0,0 +1,122 @@
+package com.example.shop.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SingleFlight Unit Test
+ */
+@DisplayName("Single Flight Test")
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    /**
+     * Start CALLERS calls for the key while the first load is held open, then release it
+     */
+    private List<Future<String>> callConcurrently(String key, CountDownLatch release, AtomicInteger loads,
+                                                  RuntimeException failure) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch loading = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> singleFlight.execute(key, () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    await(release);
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return "value";
+                })));
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            // Every other caller has joined once sharedCount reaches CALLERS - 1
+            long deadline = System.currentTimeMillis() + 5000;
+            while (singleFlight.sharedCount() < CALLERS - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                try {
+                    result.get(5, TimeUnit.SECONDS);
+                } catch (Exception ignored) {
+                    // Inspected by the caller
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("Execute - Concurrent Callers for One Key Share a Single Load")
+    void testExecute_Coalesces() throws Exception {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        List<Future<String>> results = callConcurrently("p1", new CountDownLatch(1), loads, null);
+
+        // Then
+        assertEquals(1, loads.get());
+        for (Future<String> result : results) {
+            assertEquals("value", result.get());
+        }
+        assertEquals(1L, singleFlight.loadCount());
+        assertEquals(CALLERS - 1, singleFlight.sharedCount());
+    }
+
+    @Test
+    @DisplayName("Execute - Leader Failure Is Rethrown to Every Waiting Caller")
+    void testExecute_SharesFailure() throws Exception {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        // When
+        List<Future<String>> results = callConcurrently("p1", new CountDownLatch(1), loads, failure);
+
+        // Then
+        assertEquals(1, loads.get());
+        for (Future<String> result : results) {
+            Exception thrown = assertThrows(Exception.class, result::get);
+            assertSame(failure, thrown.getCause());
+        }
+    }
+
+    @Test
+    @DisplayName("Execute - Finished Loads Are Not Reused")
+    void testExecute_NoCaching() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("p1", () -> "v" + loads.incrementAndGet());
+        String second = singleFlight.execute("p1", () -> "v" + loads.incrementAndGet());
+
+        assertEquals("v2", second);
+        assertEquals(0L, singleFlight.sharedCount());
+    }
+}
@@ -2,8 +2,10 @@ package com.example.shop.controller;
 
 import com.example.shop.model.entity.Cart;
 import com.example.shop.model.entity.CartItem;
+import com.example.shop.model.req.CartBatchRequest;
 import com.example.shop.model.req.CartItemAddRequest;
 import com.example.shop.model.req.CartItemUpdateRequest;
+import com.example.shop.model.resp.CartBatchResponse;
 import com.example.shop.service.CartService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,6 +26,8 @@ import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -241,4 +245,62 @@ class CartControllerTest {
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(header().string("X-User-ID", notNullValue())); 
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Batch Cart Operations - Result per Operation")
+    void testApplyOperations_Success() throws Exception {
+        // Prepare test data
+        CartBatchRequest.Operation add = new CartBatchRequest.Operation();
+        add.setType(CartBatchRequest.OperationType.ADD);
+        add.setProductId(1L);
+        add.setQuantity(2);
+        CartBatchRequest.Operation remove = new CartBatchRequest.Operation();
+        remove.setType(CartBatchRequest.OperationType.REMOVE);
+        remove.setItemId(9L);
+        CartBatchRequest request = new CartBatchRequest();
+        request.setOperations(Arrays.asList(add, remove));
+
+        CartBatchResponse.OperationResult added = new CartBatchResponse.OperationResult();
+        added.setType(CartBatchRequest.OperationType.ADD);
+        added.setSuccess(true);
+        added.setItemId(1L);
+        added.setQuantity(4);
+        CartBatchResponse.OperationResult rejected = new CartBatchResponse.OperationResult();
+        rejected.setIndex(1);
+        rejected.setType(CartBatchRequest.OperationType.REMOVE);
+        rejected.setCode(4002);
+        rejected.setMessage("Cart item not found");
+        CartBatchResponse response = new CartBatchResponse();
+        response.setSucceeded(1);
+        response.setFailed(1);
+        response.setResults(Arrays.asList(added, rejected));
+        when(cartService.applyOperations(anyLong(), anyList())).thenReturn(response);
+
+        // Execute test and verify
+        mockMvc.perform(post("/api/cart/items/batch")
+                        .session(mockSession)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.succeeded").value(1))
+                .andExpect(jsonPath("$.data.failed").value(1))
+                .andExpect(jsonPath("$.data.results[0].quantity").value(4))
+                .andExpect(jsonPath("$.data.results[1].type").value("REMOVE"))
+                .andExpect(jsonPath("$.data.results[1].code").value(4002));
+    }
+
+    @Test
+    @DisplayName("Batch Cart Operations - No Operations")
+    void testApplyOperations_Empty() throws Exception {
+        // Execute test and verify
+        mockMvc.perform(post("/api/cart/items/batch")
+                        .session(mockSession)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\":[]}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+        verify(cartService, never()).applyOperations(anyLong(), anyList());
+    }
+}
@@ -2,12 +2,21 @@ package com.example.shop.controller;
 
 import com.example.common.resp.Result;
 import com.example.common.resp.PageResponse;
+import com.example.shop.cache.VisibleCatalogSnapshot;
+import com.example.shop.export.ProductExportFormat;
+import com.example.shop.importer.ProductImportFormat;
 import com.example.shop.model.entity.Product;
 import com.example.shop.model.req.ProductCreateRequest;
 import com.example.shop.model.req.ProductUpdateRequest;
 import com.example.shop.model.req.ProductQueryRequest;
 import com.example.shop.model.req.ProductVisibilityUpdateRequest;
 import com.example.shop.model.req.VisibleProductRequest;
+import com.example.shop.model.resp.ProductImportResponse;
+import com.example.shop.model.resp.PriceFacetResponse;
+import com.example.shop.model.resp.ProductBatchResponse;
+import com.example.shop.model.resp.ProductChangesResponse;
+import com.example.shop.model.resp.ProductSuggestion;
+import com.example.shop.service.ProductImportService;
 import com.example.shop.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,9 +33,12 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -44,6 +56,9 @@ class ProductControllerTest {
     @Mock
     private ProductService productService;
 
+    @Mock
+    private ProductImportService productImportService;
+
     @InjectMocks
     private ProductController productController;
 
@@ -100,18 +115,90 @@ class ProductControllerTest {
     void testGetVisibleProducts_Success() throws Exception {
         // Given
         List<Product> products = Arrays.asList(testProduct);
-        when(productService.getVisibleProducts()).thenReturn(products);
+        VisibleCatalogSnapshot snapshot = VisibleCatalogSnapshot.build(
+                1L, products, new ObjectMapper().findAndRegisterModules(), true);
+        when(productService.getVisibleCatalog()).thenReturn(snapshot);
 
         // When & Then
         mockMvc.perform(get("/api/products/visible/simple"))
                 .andDo(print())
                 .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data").isArray())
                 .andExpect(jsonPath("$.data[0].id").value(1))
                 .andExpect(jsonPath("$.data[0].name").value("Test Product"));
     }
 
+    @Test
+    @DisplayName("Get Visible Products List - Gzip Snapshot When Accepted")
+    void testGetVisibleProducts_Gzip() throws Exception {
+        // Given
+        VisibleCatalogSnapshot snapshot = VisibleCatalogSnapshot.build(
+                1L, Arrays.asList(testProduct), new ObjectMapper().findAndRegisterModules(), true);
+        when(productService.getVisibleCatalog()).thenReturn(snapshot);
+
+        // When & Then
+        mockMvc.perform(get("/api/products/visible/simple").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(content().bytes(snapshot.getGzipJson()));
+    }
+
+    @Test
+    @DisplayName("Get Visible Products List - Matching If-None-Match Returns 304 Without Body")
+    void testGetVisibleProducts_NotModified() throws Exception {
+        // Given
+        VisibleCatalogSnapshot snapshot = VisibleCatalogSnapshot.build(
+                7L, Arrays.asList(testProduct), new ObjectMapper().findAndRegisterModules(), true);
+        when(productService.getVisibleCatalog()).thenReturn(snapshot);
+
+        // When & Then
+        mockMvc.perform(get("/api/products/visible/simple"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", snapshot.getETag(false)));
+        mockMvc.perform(get("/api/products/visible/simple").header("If-None-Match", snapshot.getETag(false)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        // The gzip body is a different representation with its own tag
+        mockMvc.perform(get("/api/products/visible/simple")
+                        .header("Accept-Encoding", "gzip")
+                        .header("If-None-Match", snapshot.getETag(false)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", snapshot.getETag(true)));
+    }
+
+    @Test
+    @DisplayName("Get Product Details - Unchanged Product Returns 304")
+    void testGetProduct_NotModified() throws Exception {
+        // Given
+        when(productService.getProductById(1L)).thenReturn(testProduct);
+        String etag = mockMvc.perform(get("/api/products/{id}", 1L))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/api/products/{id}", 1L).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        testProduct.setQuantity(99);
+        mockMvc.perform(get("/api/products/{id}", 1L).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.quantity").value(99));
+    }
+
+    @Test
+    @DisplayName("Paginated Visible Products - Unchanged Catalog Returns 304 Without Querying")
+    void testGetVisibleProductsPaged_NotModified() throws Exception {
+        // Given
+        when(productService.getCatalogETag()).thenReturn("\"c-test-3\"");
+
+        // When & Then
+        mockMvc.perform(get("/api/products/visible").param("pageNum", "1").param("pageSize", "10")
+                        .header("If-None-Match", "\"c-test-3\""))
+                .andExpect(status().isNotModified());
+        verify(productService, never()).getVisibleProducts(any(VisibleProductRequest.class));
+    }
+
     @Test
     @DisplayName("Pagination Query Products - Success")
     void testGetProducts_Success() throws Exception {
@@ -224,4 +311,132 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("Product visibility updated successfully"));
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Get Available Stock - Service Answer Returned")
+    void testGetAvailableStock() throws Exception {
+        // Given
+        when(productService.getAvailableStock(1L)).thenReturn(7);
+
+        // When & Then
+        mockMvc.perform(get("/api/products/{id}/availability", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data").value(7));
+    }
+
+    @Test
+    @DisplayName("Split Product Stock - Bucket Count Passed to Service")
+    void testSplitProductStock() throws Exception {
+        // When & Then
+        mockMvc.perform(put("/api/products/{id}/stock-buckets", 1L).param("buckets", "32"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.message").value("Product stock split successfully"));
+        verify(productService).splitProductStock(1L, 32);
+    }
+
+    @Test
+    @DisplayName("Get Products by IDs - ids Parameter Routes to Multi-Get")
+    void testGetProductsByIds() throws Exception {
+        // Given
+        ProductBatchResponse response = new ProductBatchResponse();
+        response.getProducts().add(testProduct);
+        response.getMissingIds().add(99L);
+        when(productService.getProductsByIds(Arrays.asList(1L, 99L))).thenReturn(response);
+
+        // When & Then
+        mockMvc.perform(get("/api/products").param("ids", "1,99"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.products[0].id").value(1))
+                .andExpect(jsonPath("$.data.missingIds[0]").value(99));
+        verify(productService, never()).getProducts(any());
+    }
+
+    @Test
+    @DisplayName("Suggest Products - Prefix and Default Limit Passed to Service")
+    void testSuggestProducts() throws Exception {
+        // Given
+        when(productService.suggestProducts("iph", 10))
+                .thenReturn(Collections.singletonList(new ProductSuggestion(1L, "iPhone 15")));
+
+        // When & Then
+        mockMvc.perform(get("/api/products/suggest").param("prefix", "iph"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id").value(1))
+                .andExpect(jsonPath("$.data[0].name").value("iPhone 15"));
+    }
+
+    @Test
+    @DisplayName("Price Facets - Filter and Bucket Count Passed to Service")
+    void testGetPriceFacets() throws Exception {
+        // Given
+        PriceFacetResponse response = new PriceFacetResponse();
+        response.setTotal(3L);
+        response.getBuckets().add(new PriceFacetResponse.Bucket(new BigDecimal("1.00"), new BigDecimal("5.00"), 3L));
+        when(productService.getPriceFacets("apple", true, 5)).thenReturn(response);
+
+        // When & Then
+        mockMvc.perform(get("/api/products/facets/price")
+                        .param("name", "apple")
+                        .param("visible", "true")
+                        .param("buckets", "5"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.total").value(3))
+                .andExpect(jsonPath("$.data.buckets[0].count").value(3));
+    }
+
+    @Test
+    @DisplayName("Product Changes - Watermark and Limit Passed to Service")
+    void testGetProductChanges() throws Exception {
+        // Given
+        ProductChangesResponse response = new ProductChangesResponse();
+        response.getProducts().add(testProduct);
+        response.getDeletedIds().add(7L);
+        response.setWatermark("next");
+        when(productService.getProductChanges("prev", 50)).thenReturn(response);
+
+        // When & Then
+        mockMvc.perform(get("/api/products/changes").param("since", "prev").param("limit", "50"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.products[0].id").value(1))
+                .andExpect(jsonPath("$.data.deletedIds[0]").value(7))
+                .andExpect(jsonPath("$.data.watermark").value("next"))
+                .andExpect(jsonPath("$.data.deletionsComplete").value(true));
+    }
+
+    @Test
+    @DisplayName("Export Products - Streams Requested Format as Attachment")
+    void testExportProducts_Ndjson() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/products/export").param("format", "NDJSON").param("visible", "true"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"products.ndjson\""));
+        verify(productService).exportProducts(eq(true), eq(ProductExportFormat.NDJSON), any());
+    }
+
+    @Test
+    @DisplayName("Import Products - CSV Body Passed to Import Service")
+    void testImportProducts_Csv() throws Exception {
+        // Given
+        ProductImportResponse response = new ProductImportResponse();
+        response.setTotal(1L);
+        response.setImported(1L);
+        when(productImportService.importProducts(any(), eq(ProductImportFormat.CSV))).thenReturn(response);
+
+        // When & Then
+        mockMvc.perform(post("/api/products/import")
+                        .contentType("text/csv")
+                        .content("name,price,quantity\nWidget,9.99,5\n"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.imported").value(1));
+    }
+}
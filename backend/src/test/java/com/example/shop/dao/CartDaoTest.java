@@ -0,0 +1,136 @@
+package com.example.shop.dao;
+
+import com.example.shop.model.entity.Cart;
+import com.example.shop.model.entity.CartItem;
+import com.example.shop.model.entity.CartSummary;
+import com.example.shop.support.H2ProductDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cart Queries and Batched Statements against H2 with the Real Mapper
+ */
+@DisplayName("Cart DAO Test")
+class CartDaoTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private CartDao cartDao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        H2ProductDatabase database = new H2ProductDatabase("cart_dao");
+        jdbcTemplate = database.getJdbcTemplate();
+        jdbcTemplate.execute("DROP TABLE IF EXISTS cart_items");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS carts");
+        jdbcTemplate.execute("CREATE TABLE carts (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL UNIQUE, "
+                + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE cart_items (id BIGINT AUTO_INCREMENT PRIMARY KEY, cart_id BIGINT NOT NULL, "
+                + "product_id BIGINT NOT NULL, product_name VARCHAR(255) NOT NULL, price DECIMAL(10,2) NOT NULL, "
+                + "quantity INT NOT NULL, total_price DECIMAL(10,2) NOT NULL, "
+                + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO carts (id, user_id) VALUES (1, 100), (2, 200)");
+        jdbcTemplate.update("INSERT INTO cart_items (cart_id, product_id, product_name, price, quantity, total_price, created_at) "
+                + "VALUES (1, 10, 'Keyboard', 50.00, 2, 100.00, '2024-01-01 10:00:00'), "
+                + "(1, 11, 'Mouse', 19.99, 1, 19.99, '2024-01-01 11:00:00')");
+        cartDao = database.mapper(CartDao.class);
+    }
+
+    @Test
+    @DisplayName("Select Cart with Items - Items Joined, Newest First")
+    void testSelectCartWithItems() {
+        // When
+        Cart cart = cartDao.selectCartWithItems(100L);
+
+        // Then
+        assertEquals(1L, cart.getId());
+        assertEquals(100L, cart.getUserId());
+        assertEquals("Mouse,Keyboard", cart.getItems().stream().map(CartItem::getProductName).collect(Collectors.joining(",")));
+        CartItem keyboard = cart.getItems().get(1);
+        assertEquals(1L, keyboard.getCartId());
+        assertEquals(2, keyboard.getQuantity());
+        assertEquals(0, new BigDecimal("100.00").compareTo(keyboard.getTotalPrice()));
+    }
+
+    @Test
+    @DisplayName("Select Cart with Items - Empty Cart and Missing Cart")
+    void testSelectCartWithItems_NoItems() {
+        // When
+        Cart empty = cartDao.selectCartWithItems(200L);
+
+        // Then
+        assertEquals(2L, empty.getId());
+        assertTrue(empty.getItems() == null || empty.getItems().isEmpty());
+        assertNull(cartDao.selectCartWithItems(300L));
+    }
+
+    @Test
+    @DisplayName("Select Cart Summary - Count and Total, Zeros without a Cart")
+    void testSelectCartSummary() {
+        // When
+        CartSummary summary = cartDao.selectCartSummary(100L);
+        CartSummary none = cartDao.selectCartSummary(300L);
+
+        // Then
+        assertEquals(2, summary.getItemCount());
+        assertEquals(0, new BigDecimal("119.99").compareTo(summary.getTotalAmount()));
+        assertEquals(0, none.getItemCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(none.getTotalAmount()));
+    }
+
+    @Test
+    @DisplayName("Batched Statements - Insert with Generated IDs, Update and Delete Several Items at Once")
+    void testBatchedItemStatements() {
+        // Given
+        List<CartItem> items = cartDao.selectCartItems(1L);
+        CartItem mouse = items.get(0);
+        CartItem keyboard = items.get(1);
+        mouse.setQuantity(3);
+        mouse.setTotalPrice(new BigDecimal("59.97"));
+        keyboard.setQuantity(1);
+        keyboard.setTotalPrice(new BigDecimal("50.00"));
+        CartItem cable = item(1L, 12L, "Cable", "4.50", 2);
+        CartItem stand = item(1L, 13L, "Stand", "30.00", 1);
+
+        // When
+        int updated = cartDao.batchUpdateCartItems(Arrays.asList(mouse, keyboard));
+        int inserted = cartDao.insertCartItems(Arrays.asList(cable, stand));
+        int deleted = cartDao.deleteCartItemsByIds(1L, Collections.singleton(keyboard.getId()));
+
+        // Then
+        assertEquals(2, updated);
+        assertEquals(2, inserted);
+        assertEquals(1, deleted);
+        assertNotNull(cable.getId());
+        assertNotNull(stand.getId());
+        assertNotEquals(cable.getId(), stand.getId());
+        assertEquals(3, cartDao.selectCartItemById(mouse.getId()).getQuantity());
+        assertEquals(0, new BigDecimal("9.00").compareTo(cartDao.selectCartItemById(cable.getId()).getTotalPrice()));
+        assertNull(cartDao.selectCartItemById(keyboard.getId()));
+        assertEquals(0, cartDao.deleteCartItemsByIds(2L, Collections.singleton(mouse.getId())), "other carts' items are left alone");
+        CartSummary summary = cartDao.selectCartSummary(100L);
+        assertEquals(3, summary.getItemCount());
+        assertEquals(0, new BigDecimal("98.97").compareTo(summary.getTotalAmount()));
+    }
+
+    private CartItem item(Long cartId, Long productId, String name, String price, int quantity) {
+        CartItem item = new CartItem();
+        item.setCartId(cartId);
+        item.setProductId(productId);
+        item.setProductName(name);
+        item.setPrice(new BigDecimal(price));
+        item.setQuantity(quantity);
+        item.setTotalPrice(new BigDecimal(price).multiply(new BigDecimal(quantity)));
+        return item;
+    }
+}
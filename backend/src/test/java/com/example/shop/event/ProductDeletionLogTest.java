@@ -0,0 +1,65 @@
+package com.example.shop.event;
+
+import com.example.shop.dao.ProductDao;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * ProductDeletionLog Unit Test
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Product Deletion Log Test")
+class ProductDeletionLogTest {
+
+    /**
+     * Database clock, ahead of the application server's
+     */
+    private static final LocalDateTime DB_NOW = LocalDateTime.now().plusHours(3);
+
+    @Mock
+    private ProductDao productDao;
+
+    @Test
+    @DisplayName("Deletions Recorded, Other Changes Ignored")
+    void testRecordsDeletions() {
+        // Given
+        ProductDeletionLog deletionLog = new ProductDeletionLog(productDao, 10);
+        when(productDao.selectCurrentTime()).thenReturn(DB_NOW);
+        LocalDateTime before = DB_NOW.minusSeconds(1);
+
+        // When
+        deletionLog.onProductChange(new ProductChangeEvent(ProductChangeEvent.Type.UPDATED, Collections.singletonList(1L)));
+        deletionLog.onProductChange(new ProductChangeEvent(ProductChangeEvent.Type.DELETED, Arrays.asList(2L, 3L)));
+
+        // Then
+        assertEquals(Arrays.asList(2L, 3L), deletionLog.deletedSince(before));
+        assertTrue(deletionLog.deletedSince(DB_NOW.plusSeconds(1)).isEmpty(), "timed by the database clock");
+        assertEquals(DB_NOW, deletionLog.getHorizon());
+    }
+
+    @Test
+    @DisplayName("Full Log Forgets Oldest Entries and Moves the Horizon")
+    void testBounded() {
+        // Given
+        ProductDeletionLog deletionLog = new ProductDeletionLog(productDao, 2);
+        when(productDao.selectCurrentTime()).thenReturn(DB_NOW);
+        LocalDateTime before = DB_NOW.minusSeconds(1);
+
+        // When
+        deletionLog.onProductChange(new ProductChangeEvent(ProductChangeEvent.Type.DELETED, Arrays.asList(1L, 2L, 3L)));
+
+        // Then
+        assertEquals(Arrays.asList(2L, 3L), deletionLog.deletedSince(before));
+        assertTrue(deletionLog.getHorizon().isAfter(before));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.shop.index;
+
+import com.example.shop.model.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProductColumns Unit Test
+ */
+@DisplayName("Product Columns Test")
+class ProductColumnsTest {
+
+    private ProductColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        columns = ProductColumns.build(1L, Arrays.asList(
+                product(1L, "Red Apple", "1.50", true, now.minusDays(3)),
+                product(2L, "Green Apple", "2.00", true, now.minusDays(2)),
+                product(3L, "Banana", "0.99", false, now.minusDays(1)),
+                product(4L, "Apple Pie", "12.00", true, now),
+                product(5L, "Pineapple", "3.25", true, now)));
+    }
+
+    private Product product(Long id, String name, String price, boolean visible, LocalDateTime createdAt) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        product.setQuantity(10);
+        product.setVisible(visible);
+        product.setCreatedAt(createdAt);
+        return product;
+    }
+
+    private List<Long> ids(ProductColumns.Slice slice) {
+        List<Long> ids = new ArrayList<>();
+        for (Product product : slice.getProducts()) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Query - No Filter Returns All Rows by Creation Time then ID Descending")
+    void testQuery_Ordering() {
+        ProductColumns.Slice slice = columns.query(null, null, null, null, 0, 10);
+
+        assertEquals(5L, slice.getTotal());
+        assertEquals(Arrays.asList(5L, 4L, 3L, 2L, 1L), ids(slice));
+    }
+
+    @Test
+    @DisplayName("Query - Name, Price Range and Visibility Combine")
+    void testQuery_CombinedFilters() {
+        // Case-insensitive substring, inclusive price bounds
+        ProductColumns.Slice slice = columns.query("APPLE", new BigDecimal("1.5"), new BigDecimal("3.25"), true, 0, 10);
+
+        assertEquals(3L, slice.getTotal());
+        assertEquals(Arrays.asList(5L, 2L, 1L), ids(slice));
+        assertEquals(1L, columns.count(null, null, null, false));
+        assertEquals(0L, columns.count(null, new BigDecimal("12.001"), null, null));
+        assertEquals(1L, columns.count(null, null, new BigDecimal("0.999"), null));
+    }
+
+    @Test
+    @DisplayName("Query - Offset and Limit Page through Matches with Exact Total")
+    void testQuery_Paging() {
+        ProductColumns.Slice slice = columns.query(null, null, null, true, 2, 2);
+
+        assertEquals(4L, slice.getTotal());
+        assertEquals(Arrays.asList(2L, 1L), ids(slice));
+        assertTrue(columns.query(null, null, null, true, 8, 2).getProducts().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Query - Returned Rows Are Copies")
+    void testQuery_Copies() {
+        columns.query(null, null, null, null, 0, 1).getProducts().get(0).setName("Changed");
+
+        assertEquals("Pineapple", columns.query(null, null, null, null, 0, 1).getProducts().get(0).getName());
+    }
+
+    @Test
+    @DisplayName("Prices - Matching Rows in Ascending Cents, Missing Prices Skipped")
+    void testPrices() {
+        Product unpriced = product(6L, "Apple Crate", "1.00", true, LocalDateTime.of(2024, 1, 1, 12, 0));
+        unpriced.setPrice(null);
+        List<Product> products = new ArrayList<>(columns.products());
+        products.add(unpriced);
+        ProductColumns withUnpriced = ProductColumns.build(2L, products);
+
+        assertArrayEquals(new long[]{150, 200, 325, 1200}, withUnpriced.prices("apple", true));
+        assertArrayEquals(new long[]{99}, withUnpriced.prices(null, false));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.shop.index;
+
+import com.example.shop.dao.ProductDao;
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.model.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ProductNameIndex Unit Test
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Product Name Index Test")
+class ProductNameIndexTest {
+
+    @Mock
+    private ProductDao productDao;
+
+    private ProductNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductNameIndex(productDao, true, 2);
+        when(productDao.selectProducts(null, null, null, null)).thenReturn(Arrays.asList(
+                product(1L, "Cash Money Gun"),
+                product(2L, "Giant Inflatable Unicorn"),
+                product(3L, "Deal With It Sunglasses")));
+        index.rebuild();
+    }
+
+    private Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(new BigDecimal("1.00"));
+        return product;
+    }
+
+    @Test
+    @DisplayName("Search - Case-Insensitive Substring Match")
+    void testSearch_Substring() {
+        assertTrue(index.isReady());
+        assertEquals(new HashSet<>(Collections.singletonList(2L)), index.search("FLATable"));
+        assertEquals(new HashSet<>(Collections.singletonList(3L)), index.search("glass"));
+    }
+
+    @Test
+    @DisplayName("Search - Trigrams Present but Not Adjacent Are Rejected")
+    void testSearch_VerifiesCandidates() {
+        // "uni" and "nic" both occur in "Unicorn", but "unic orn" is not a substring
+        assertTrue(index.search("unic orn").isEmpty());
+        assertTrue(index.search("xyz").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Search - Short Queries Read Their Posting List, Too Many Candidates Defer to SQL")
+    void testSearch_ShortQueryAndCandidateLimit() {
+        assertEquals(new HashSet<>(Collections.singletonList(1L)), index.search("gu"));
+        // "n" occurs in all three names, above the limit of 2
+        assertNull(index.search("n"));
+    }
+
+    @Test
+    @DisplayName("Change Events - Rename and Delete Keep the Index Current")
+    void testProductChanges() {
+        when(productDao.selectByIds(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(product(1L, "Confetti Cannon")));
+
+        index.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, 1L));
+        index.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.DELETED, 3L));
+
+        assertTrue(index.search("money").isEmpty());
+        assertEquals(new HashSet<>(Collections.singletonList(1L)), index.search("cannon"));
+        assertTrue(index.search("glass").isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    @DisplayName("Concurrent Changes of One Product - Postings Always Match the Stored Name")
+    void testConcurrentChanges_SameProduct() throws Exception {
+        // Given
+        String[] names = {"Alpha Phone", "Beta Tablet"};
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 2000; i++) {
+                    if ((i + thread) % 5 == 0) {
+                        index.remove(9L);
+                    } else {
+                        index.put(9L, names[(i + thread) % 2]);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // When
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then: whatever change came last, the stored name is found by long and short queries alike
+        boolean alpha = index.search("alpha phone").contains(9L);
+        boolean beta = index.search("beta tablet").contains(9L);
+        assertEquals(index.size() == 4, alpha || beta);
+        assertFalse(alpha && beta);
+        if (alpha || beta) {
+            assertTrue(index.search(alpha ? "ph" : "ta").contains(9L));
+        }
+        index.put(9L, "Gamma Watch");
+        assertEquals(new HashSet<>(Collections.singletonList(9L)), index.search("gamma"));
+        assertTrue(index.search("alpha").isEmpty());
+        assertTrue(index.search("beta").isEmpty());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.shop.index;
+
+import com.example.shop.dao.ProductDao;
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.model.entity.Product;
+import com.example.shop.model.resp.ProductSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ProductSuggester Unit Test
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Product Suggester Test")
+class ProductSuggesterTest {
+
+    @Mock
+    private ProductDao productDao;
+
+    private ProductSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        suggester = new ProductSuggester(productDao, true);
+        when(productDao.selectVisibleProducts()).thenReturn(Arrays.asList(
+                product(1L, "iPhone 15", true),
+                product(2L, "iPad Air", true),
+                product(3L, "IPHONE Case", true),
+                product(4L, "Kindle", true)));
+        suggester.rebuild();
+    }
+
+    private Product product(Long id, String name, boolean visible) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setVisible(visible);
+        return product;
+    }
+
+    private List<String> names(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Suggest - Case-Insensitive Prefix in Name Order, Limited")
+    void testSuggest_Prefix() {
+        assertTrue(suggester.isReady());
+        assertEquals(Arrays.asList("iPad Air", "iPhone 15", "IPHONE Case"), names(suggester.suggest("IP", 10)));
+        assertEquals(Arrays.asList("iPhone 15", "IPHONE Case"), names(suggester.suggest("iphone", 10)));
+        assertEquals(Collections.singletonList("iPad Air"), names(suggester.suggest("i", 1)));
+        assertTrue(suggester.suggest("phone", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Change Events - Rename, Hide and Delete Update the Index")
+    void testOnProductChange() {
+        // Given
+        when(productDao.selectByIds(Arrays.asList(1L, 2L, 5L))).thenReturn(Arrays.asList(
+                product(1L, "Pixel 8", true),
+                product(2L, "iPad Air", false),
+                product(5L, "iPod Classic", true)));
+
+        // When
+        suggester.onProductChange(new ProductChangeEvent(ProductChangeEvent.Type.UPDATED, Arrays.asList(1L, 2L, 5L)));
+        suggester.onProductChange(new ProductChangeEvent(ProductChangeEvent.Type.DELETED, Collections.singletonList(3L)));
+
+        // Then
+        assertEquals(Collections.singletonList("iPod Classic"), names(suggester.suggest("ip", 10)));
+        assertEquals(Collections.singletonList("Pixel 8"), names(suggester.suggest("pix", 10)));
+        assertEquals(3, suggester.size());
+    }
+
+    @Test
+    @DisplayName("Suggest - Equal Names Kept Apart by ID")
+    void testSuggest_EqualNames() {
+        when(productDao.selectByIds(Collections.singletonList(6L)))
+                .thenReturn(Collections.singletonList(product(6L, "kindle", true)));
+
+        suggester.onProductChange(new ProductChangeEvent(ProductChangeEvent.Type.CREATED, Collections.singletonList(6L)));
+
+        List<ProductSuggestion> suggestions = suggester.suggest("KIN", 10);
+        assertEquals(Arrays.asList(4L, 6L), suggestions.stream().map(ProductSuggestion::getId).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.shop.inventory;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.model.entity.Product;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DatabaseInventoryManager Unit Test
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Database Inventory Manager Test")
+class DatabaseInventoryManagerTest {
+
+    @Mock
+    private ProductDao productDao;
+
+    @Mock
+    private StockBuckets stockBuckets;
+
+    @InjectMocks
+    private DatabaseInventoryManager inventoryManager;
+
+    @Test
+    @DisplayName("Take - Conditional Decrement, No Row Means Insufficient Stock")
+    void testTake() {
+        // Given
+        when(productDao.decreaseStock(1L, 2)).thenReturn(1);
+        when(productDao.decreaseStock(1L, 50)).thenReturn(0);
+        when(productDao.selectById(1L)).thenReturn(new Product());
+
+        // When & Then
+        inventoryManager.take(7L, 1L, 2);
+        BusinessException exception = assertThrows(BusinessException.class, () -> inventoryManager.take(7L, 1L, 50));
+        assertEquals(ErrorCode.INVENTORY_INSUFFICIENT, exception.getErrorCode());
+        verify(productDao, never()).update(any());
+    }
+
+    @Test
+    @DisplayName("Take - Product Deleted before Stock Deduction")
+    void testTake_ProductGone() {
+        // Given
+        when(productDao.decreaseStock(1L, 2)).thenReturn(0);
+        when(productDao.selectById(1L)).thenReturn(null);
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class, () -> inventoryManager.take(7L, 1L, 2));
+        assertEquals(ErrorCode.PRODUCT_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("Hot Product - Stock Taken from Buckets, Product Row Untouched")
+    void testTake_HotProduct() {
+        // Given
+        when(stockBuckets.take(1L, 2)).thenReturn(true);
+        when(stockBuckets.release(1L, 1)).thenReturn(true);
+
+        // When
+        inventoryManager.take(7L, 1L, 2);
+        inventoryManager.releaseAll(7L, Collections.singletonMap(1L, 1));
+
+        // Then
+        verify(productDao, never()).decreaseStock(anyLong(), anyInt());
+        verify(productDao, never()).batchAdjustStock(any());
+    }
+
+    @Test
+    @DisplayName("Release All - One Batch Statement in Product ID Order")
+    void testReleaseAll() {
+        // Given
+        Map<Long, Integer> quantities = new HashMap<>();
+        quantities.put(9L, 1);
+        quantities.put(2L, 3);
+
+        // When
+        inventoryManager.releaseAll(7L, quantities);
+
+        // Then
+        verify(productDao).batchAdjustStock(argThat(map -> map instanceof TreeMap && map.equals(quantities)));
+    }
+}
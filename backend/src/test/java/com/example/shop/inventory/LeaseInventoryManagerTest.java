@@ -0,0 +1,323 @@
+package com.example.shop.inventory;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.dao.StockLeaseDao;
+import com.example.shop.support.H2ProductDatabase;
+import com.example.shop.support.MutableClock;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LeaseInventoryManager Test with Several Application Contexts Sharing One H2 Database
+ */
+@DisplayName("Lease Inventory Manager Test")
+class LeaseInventoryManagerTest {
+
+    private static final String DATABASE = "stock_leases";
+
+    private static final String URL = "jdbc:h2:mem:" + DATABASE + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final MutableClock CLOCK = new MutableClock();
+
+    private final List<AnnotationConfigApplicationContext> nodes = new ArrayList<>();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private long productId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = new H2ProductDatabase(DATABASE).getJdbcTemplate();
+        jdbcTemplate.execute("DROP TABLE IF EXISTS stock_leases");
+        jdbcTemplate.execute("CREATE TABLE stock_leases (node_id VARCHAR(64) NOT NULL, product_id BIGINT NOT NULL, "
+                + "quantity INT NOT NULL, expires_at TIMESTAMP(3) NOT NULL, PRIMARY KEY (node_id, product_id))");
+        jdbcTemplate.update("INSERT INTO products (name, price, quantity) VALUES ('Hot SKU', 9.99, 100)");
+        productId = jdbcTemplate.queryForObject("SELECT id FROM products", Long.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(AnnotationConfigApplicationContext::close);
+    }
+
+    /**
+     * Start one application instance against the shared database
+     */
+    private LeaseInventoryManager startNode(String nodeId) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(
+                new MapPropertySource("node", Collections.singletonMap("shop.inventory.lease.node-id", nodeId)));
+        context.register(NodeConfig.class);
+        context.refresh();
+        nodes.add(context);
+        return context.getBean(LeaseInventoryManager.class);
+    }
+
+    private int productQuantity() {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private int leasedInDatabase(String nodeId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM stock_leases WHERE node_id = ?",
+                Integer.class, nodeId);
+    }
+
+    @Test
+    @DisplayName("Take - Each Node Claims a Block, Then Sells from Memory")
+    void testTake_BlocksPerNode() {
+        // Given
+        LeaseInventoryManager nodeA = startNode("node-a");
+        LeaseInventoryManager nodeB = startNode("node-b");
+
+        // When
+        nodeA.take(1L, productId, 3);
+        nodeB.take(2L, productId, 5);
+        for (int i = 0; i < 7; i++) {
+            nodeA.take(3L, productId, 1);
+        }
+
+        // Then: one block of 10 per node, the product row was written twice
+        assertEquals(80, productQuantity());
+        assertEquals(0, nodeA.getLeased(productId));
+        assertEquals(5, nodeB.getLeased(productId));
+        assertEquals(10, leasedInDatabase("node-a"));
+        assertEquals(85, nodeB.getAvailable(productId));
+    }
+
+    @Test
+    @DisplayName("Take - Cart Rollback Puts Units Back into the Block")
+    void testTake_Rollback() {
+        // Given
+        LeaseInventoryManager node = startNode("node-a");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(nodes.get(0).getBean(PlatformTransactionManager.class));
+
+        // When
+        transactionTemplate.executeWithoutResult(status -> {
+            node.take(1L, productId, 4);
+            status.setRollbackOnly();
+        });
+
+        // Then: the claim committed on its own, the sale did not
+        assertEquals(90, productQuantity());
+        assertEquals(10, node.getLeased(productId));
+    }
+
+    @Test
+    @DisplayName("Take - Last Units Claimed Even When Less than a Block Is Left")
+    void testTake_TailOfStock() {
+        // Given
+        jdbcTemplate.update("UPDATE products SET quantity = 12 WHERE id = ?", productId);
+        LeaseInventoryManager nodeA = startNode("node-a");
+        LeaseInventoryManager nodeB = startNode("node-b");
+        nodeA.take(1L, productId, 1);
+
+        // When & Then: node B finds 2 units left
+        BusinessException exception = assertThrows(BusinessException.class, () -> nodeB.take(2L, productId, 5));
+        assertEquals(ErrorCode.INVENTORY_INSUFFICIENT, exception.getErrorCode());
+        nodeB.take(2L, productId, 2);
+        assertEquals(0, productQuantity());
+        assertEquals(9, nodeA.getLeased(productId));
+    }
+
+    @Test
+    @DisplayName("Shutdown and Idle Expiry - Unsold Units Returned")
+    void testReturnOnShutdownAndExpiry() {
+        // Given
+        LeaseInventoryManager nodeA = startNode("node-a");
+        LeaseInventoryManager nodeB = startNode("node-b");
+        nodeA.take(1L, productId, 4);
+        nodeB.take(2L, productId, 1);
+        assertEquals(80, productQuantity());
+
+        // When: node A shuts down, node B's lease sits idle past its TTL
+        nodes.remove(0).close();
+        CLOCK.advanceSeconds(31);
+        nodeB.renew();
+
+        // Then
+        assertEquals(95, productQuantity());
+        assertEquals(0, leasedInDatabase("node-a"));
+        assertEquals(0, leasedInDatabase("node-b"));
+    }
+
+    @Test
+    @DisplayName("Renew - Expired Lease of a Crashed Node Written Off, Never Returned")
+    void testRenew_WriteOffCrashedNode() {
+        // Given: a node that died having recorded 6 units, some of which it may have sold since
+        LeaseInventoryManager node = startNode("node-a");
+        jdbcTemplate.update("UPDATE products SET quantity = 94 WHERE id = ?", productId);
+        jdbcTemplate.update("INSERT INTO stock_leases (node_id, product_id, quantity, expires_at) VALUES (?, ?, 6, ?)",
+                "node-dead", productId, Timestamp.valueOf("2023-12-31 23:59:00"));
+
+        // When
+        node.renew();
+
+        // Then
+        assertEquals(94, productQuantity());
+        assertEquals(0, leasedInDatabase("node-dead"));
+    }
+
+    @Test
+    @DisplayName("Start - Leases Left by a Crash of the Same Node Written Off")
+    void testStart_WriteOffOwnLeases() {
+        // Given
+        jdbcTemplate.update("UPDATE products SET quantity = 94 WHERE id = ?", productId);
+        jdbcTemplate.update("INSERT INTO stock_leases (node_id, product_id, quantity, expires_at) VALUES (?, ?, 6, ?)",
+                "node-a", productId, Timestamp.valueOf("2099-01-01 00:00:00"));
+
+        // When
+        LeaseInventoryManager node = startNode("node-a");
+
+        // Then
+        assertEquals(94, productQuantity());
+        assertEquals(0, leasedInDatabase("node-a"));
+        assertEquals(0, node.getLeased(productId));
+    }
+
+    @Test
+    @DisplayName("Take - Claim Commits on the Lease Pool While the Cart Transaction Holds the Only Connection")
+    void testTake_ClaimWithApplicationPoolExhausted() {
+        // Given
+        LeaseInventoryManager node = startNode("node-a");
+        ProductDao productDao = nodes.get(0).getBean(ProductDao.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(nodes.get(0).getBean(PlatformTransactionManager.class));
+
+        // When: the cart transaction has taken the pool's single connection before the claim
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> transactionTemplate.executeWithoutResult(status -> {
+            assertNotNull(productDao.selectById(productId));
+            node.take(1L, productId, 3);
+        }));
+
+        // Then
+        assertEquals(90, productQuantity());
+        assertEquals(10, leasedInDatabase("node-a"));
+        assertEquals(7, node.getLeased(productId));
+    }
+
+    @Test
+    @DisplayName("Take - Served from the Block While Another Take Waits on Its Claim")
+    void testTake_ClaimDoesNotBlockTakers() throws Exception {
+        // Given: a block of 10 with 9 left, and the product row locked by another transaction
+        LeaseInventoryManager node = startNode("node-a");
+        node.take(1L, productId, 1);
+        jdbcTemplate.execute("SET DEFAULT_LOCK_TIMEOUT 10000");
+        Connection rowLock = jdbcTemplate.getDataSource().getConnection();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            rowLock.setAutoCommit(false);
+            rowLock.createStatement().executeQuery("SELECT quantity FROM products WHERE id = " + productId + " FOR UPDATE");
+            Future<?> claiming = executor.submit(() -> node.take(2L, productId, 20));
+            while (jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS WHERE BLOCKER_ID IS NOT NULL", Integer.class) == 0) {
+                Thread.sleep(10);
+            }
+
+            // When
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> node.take(3L, productId, 1));
+            rowLock.rollback();
+            claiming.get(5, TimeUnit.SECONDS);
+        } finally {
+            rowLock.close();
+            executor.shutdownNow();
+            jdbcTemplate.execute("SET DEFAULT_LOCK_TIMEOUT 1000");
+        }
+
+        // Then: 22 units sold, the rest is either in the product row or in the block
+        assertEquals(78, productQuantity() + node.getLeased(productId));
+    }
+
+    /**
+     * One Application Instance: its own pools, mappers and lease manager, all on the shared H2 database
+     */
+    @Configuration
+    static class NodeConfig {
+
+        /**
+         * Application pool of a single connection, so a cart transaction holding it exhausts the pool
+         */
+        @Bean
+        public DataSource dataSource() {
+            DruidDataSource pool = new DruidDataSource();
+            pool.setUrl(URL);
+            pool.setMaxActive(1);
+            pool.setMaxWait(2000);
+            return pool;
+        }
+
+        @Bean
+        public SqlSessionFactory sqlSessionFactory(DataSource dataSource) throws Exception {
+            return sessionFactory(dataSource);
+        }
+
+        @Bean
+        public DataSourceTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        public ProductDao productDao(SqlSessionFactory sqlSessionFactory) {
+            return new SqlSessionTemplate(sqlSessionFactory).getMapper(ProductDao.class);
+        }
+
+        @Bean
+        public LeaseClaimPool leaseClaimPool() throws Exception {
+            JdbcDataSource h2 = new JdbcDataSource();
+            h2.setURL(URL);
+            SqlSessionFactory sqlSessionFactory = sessionFactory(h2);
+            return new LeaseClaimPool(new SqlSessionTemplate(sqlSessionFactory).getMapper(ProductDao.class),
+                    new SqlSessionTemplate(sqlSessionFactory).getMapper(StockLeaseDao.class),
+                    new DataSourceTransactionManager(h2));
+        }
+
+        @Bean
+        public LeaseInventoryManager leaseInventoryManager(ProductDao productDao, LeaseClaimPool leaseClaimPool,
+                                                           Environment environment) {
+            // Blocks of 10, 30 s TTL, renewal driven by the tests
+            return new LeaseInventoryManager(productDao, leaseClaimPool, CLOCK,
+                    environment.getProperty("shop.inventory.lease.node-id"), 10, 30, 0);
+        }
+
+        private static SqlSessionFactory sessionFactory(DataSource dataSource) throws Exception {
+            org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
+            configuration.setMapUnderscoreToCamelCase(true);
+            SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+            factoryBean.setDataSource(dataSource);
+            factoryBean.setConfiguration(configuration);
+            factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml"));
+            return factoryBean.getObject();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.shop.inventory;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.dao.StockJournalDao;
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.model.entity.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * MemoryInventoryManager Unit Test
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Memory Inventory Manager Test")
+class MemoryInventoryManagerTest {
+
+    @Mock
+    private ProductDao productDao;
+
+    @Mock
+    private StockJournalDao journalDao;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path journalDir;
+
+    private MemoryInventoryManager inventoryManager;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(productDao.selectById(1L)).thenReturn(product(1L, 100));
+        lenient().when(productDao.selectById(2L)).thenReturn(product(2L, 5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (inventoryManager != null) {
+            inventoryManager.shutdown();
+        }
+    }
+
+    private Product product(Long id, int quantity) {
+        Product product = new Product();
+        product.setId(id);
+        product.setQuantity(quantity);
+        return product;
+    }
+
+    private MemoryInventoryManager start() {
+        // 4 stripes, flusher thread not started
+        MemoryInventoryManager manager = new MemoryInventoryManager(productDao, journalDao, transactionManager,
+                journalDir.toString(), false, 4, 0);
+        manager.start();
+        return manager;
+    }
+
+    @Test
+    @DisplayName("Take - Served from Memory, Product Row Not Written until Flush")
+    void testTake() {
+        // Given
+        inventoryManager = start();
+
+        // When
+        inventoryManager.take(10L, 2L, 3);
+        BusinessException exception = assertThrows(BusinessException.class, () -> inventoryManager.take(20L, 2L, 3));
+        inventoryManager.take(20L, 2L, 2);
+
+        // Then
+        assertEquals(ErrorCode.INVENTORY_INSUFFICIENT, exception.getErrorCode());
+        assertEquals(0, inventoryManager.getAvailable(2L));
+        verify(productDao, times(1)).selectById(2L);
+        verify(productDao, never()).decreaseStock(anyLong(), anyInt());
+        verify(productDao, never()).batchAdjustStock(any());
+    }
+
+    @Test
+    @DisplayName("Take - Product Not Found")
+    void testTake_ProductNotFound() {
+        // Given
+        inventoryManager = start();
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class, () -> inventoryManager.take(10L, 404L, 1));
+        assertEquals(ErrorCode.PRODUCT_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("Take - Concurrent Buyers Never Oversell")
+    void testTake_Concurrent() throws Exception {
+        // Given
+        inventoryManager = start();
+        int threads = 8;
+        AtomicInteger approved = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                ready.await();
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        inventoryManager.take(10L, 1L, 1);
+                        approved.incrementAndGet();
+                    } catch (BusinessException e) {
+                        // Sold out
+                    }
+                }
+                return null;
+            });
+        }
+        ready.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(100, approved.get());
+        assertEquals(0, inventoryManager.getAvailable(1L));
+    }
+
+    @Test
+    @DisplayName("Flush - Net Deltas and Checkpoint in One Batch, Segment File Deleted")
+    void testFlush() throws Exception {
+        // Given
+        inventoryManager = start();
+        inventoryManager.take(10L, 1L, 4);
+        inventoryManager.release(10L, 1L, 1);
+        inventoryManager.take(10L, 2L, 2);
+        inventoryManager.release(10L, 2L, 2);
+
+        // When
+        inventoryManager.flush();
+
+        // Then
+        verify(productDao).batchAdjustStock(Collections.singletonMap(1L, -3));
+        verify(journalDao).upsertAppliedSegment(MemoryInventoryManager.JOURNAL_NAME, 1L);
+        verify(transactionManager).commit(any());
+        try (Stream<Path> files = Files.list(journalDir)) {
+            assertEquals(1, files.count(), "only the newly opened segment remains");
+        }
+        assertEquals(97, inventoryManager.getAvailable(1L));
+    }
+
+    @Test
+    @DisplayName("Start - Replays Segments Newer than the Checkpoint")
+    void testStart_Recovery() {
+        // Given: segment 3 was applied before the crash, segment 4 was not
+        StockJournal journal = new StockJournal(journalDir, false);
+        journal.open(3);
+        journal.append(1L, -10);
+        journal.rotate();
+        journal.append(1L, -2);
+        journal.append(2L, 1);
+        journal.close();
+        when(journalDao.selectAppliedSegment(MemoryInventoryManager.JOURNAL_NAME)).thenReturn(3L);
+
+        // When
+        inventoryManager = start();
+
+        // Then
+        Map<Long, Integer> expected = new HashMap<>();
+        expected.put(1L, -2);
+        expected.put(2L, 1);
+        verify(productDao).batchAdjustStock(expected);
+        verify(journalDao).upsertAppliedSegment(MemoryInventoryManager.JOURNAL_NAME, 4L);
+        assertFalse(Files.exists(journalDir.resolve("stock-3.journal")));
+        assertFalse(Files.exists(journalDir.resolve("stock-4.journal")));
+        assertTrue(Files.exists(journalDir.resolve("stock-5.journal")));
+    }
+
+    @Test
+    @DisplayName("Take - Rolled Back Transaction Returns the Stock")
+    void testTake_RollbackCompensation() {
+        // Given
+        inventoryManager = start();
+        TransactionSynchronizationManager.initSynchronization();
+        inventoryManager.take(10L, 2L, 4);
+        assertEquals(1, inventoryManager.getAvailable(2L));
+
+        // When
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // Then
+        assertEquals(5, inventoryManager.getAvailable(2L));
+    }
+
+    @Test
+    @DisplayName("Product Change - Counter Reloaded with Unflushed Deltas Kept")
+    void testOnProductChange() {
+        // Given
+        inventoryManager = start();
+        inventoryManager.take(10L, 1L, 10);
+        when(productDao.selectById(1L)).thenReturn(product(1L, 50));
+
+        // When: an admin sets the quantity to 50 while 10 units are still unflushed
+        inventoryManager.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, 1L));
+
+        // Then
+        assertEquals(40, inventoryManager.getAvailable(1L));
+    }
+}
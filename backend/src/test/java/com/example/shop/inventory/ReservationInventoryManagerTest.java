@@ -0,0 +1,151 @@
+package com.example.shop.inventory;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.dao.StockReservationDao;
+import com.example.shop.model.entity.Product;
+import com.example.shop.model.entity.StockReservation;
+import com.example.shop.support.MutableClock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ReservationInventoryManager Unit Test
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Reservation Inventory Manager Test")
+class ReservationInventoryManagerTest {
+
+    @Mock
+    private ProductDao productDao;
+
+    @Mock
+    private StockReservationDao reservationDao;
+
+    private final MutableClock clock = new MutableClock();
+
+    private ReservationInventoryManager inventoryManager;
+
+    @BeforeEach
+    void setUp() {
+        // TTL 60 s, reaper batches of 2, reaper thread not started
+        inventoryManager = new ReservationInventoryManager(productDao, reservationDao, clock, 60, 2, 0);
+        Product product = new Product();
+        product.setId(1L);
+        product.setQuantity(5);
+        lenient().when(productDao.selectById(1L)).thenReturn(product);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Take - Holds Count against Stock, Product Row Never Written")
+    void testTake() {
+        // When
+        inventoryManager.take(10L, 1L, 3);
+        BusinessException exception = assertThrows(BusinessException.class, () -> inventoryManager.take(20L, 1L, 3));
+        inventoryManager.take(20L, 1L, 2);
+
+        // Then
+        assertEquals(ErrorCode.INVENTORY_INSUFFICIENT, exception.getErrorCode());
+        assertEquals(5, inventoryManager.getReserved(1L));
+        assertEquals(0, inventoryManager.getAvailable(1L));
+        verify(reservationDao, times(2)).upsert(any(StockReservation.class));
+        verify(productDao, never()).decreaseStock(anyLong(), anyInt());
+        verify(productDao, never()).update(any());
+    }
+
+    @Test
+    @DisplayName("Release - Partial Release Shrinks the Hold, Full Release Deletes It")
+    void testRelease() {
+        // Given
+        inventoryManager.take(10L, 1L, 4);
+
+        // When
+        inventoryManager.release(10L, 1L, 1);
+        assertEquals(2, inventoryManager.getAvailable(1L));
+        inventoryManager.release(10L, 1L, 3);
+
+        // Then
+        assertEquals(5, inventoryManager.getAvailable(1L));
+        verify(reservationDao).deleteByCartIdAndProductId(10L, 1L);
+    }
+
+    @Test
+    @DisplayName("Reaper - Expired Holds Released in Batches, Renewed Holds Kept")
+    void testReapExpired() {
+        // Given
+        inventoryManager.take(10L, 1L, 1);
+        inventoryManager.take(20L, 1L, 1);
+        inventoryManager.take(30L, 1L, 1);
+        clock.advanceSeconds(30);
+        inventoryManager.take(30L, 1L, 1);
+
+        // When
+        clock.advanceSeconds(31);
+        int reaped = inventoryManager.reapExpired();
+
+        // Then
+        assertEquals(2, reaped);
+        assertEquals(2, inventoryManager.getReserved(1L));
+        verify(reservationDao, times(1)).deleteExpired(argThat(list -> list.size() == 2), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Load - Holds Rebuilt from the Table at Startup")
+    void testLoad() {
+        // Given
+        StockReservation reservation = new StockReservation();
+        reservation.setCartId(10L);
+        reservation.setProductId(1L);
+        reservation.setQuantity(4);
+        reservation.setExpiresAt(LocalDateTime.ofInstant(clock.instant().plusSeconds(10), clock.getZone()));
+        when(reservationDao.selectAll()).thenReturn(Collections.singletonList(reservation));
+
+        // When
+        inventoryManager.load();
+
+        // Then
+        assertEquals(1, inventoryManager.getAvailable(1L));
+        clock.advanceSeconds(11);
+        assertEquals(1, inventoryManager.reapExpired());
+        assertEquals(5, inventoryManager.getAvailable(1L));
+    }
+
+    @Test
+    @DisplayName("Rollback - Hold Taken in a Rolled Back Transaction Is Undone")
+    void testRollbackUndo() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        inventoryManager.take(10L, 1L, 3);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // Then
+        assertEquals(0, inventoryManager.getReserved(1L));
+        assertEquals(0, inventoryManager.reapExpired());
+    }
+}
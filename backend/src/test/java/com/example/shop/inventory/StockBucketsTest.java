@@ -0,0 +1,139 @@
+package com.example.shop.inventory;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.StockBucketDao;
+import com.example.shop.support.H2ProductDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StockBuckets Test against H2 with the Real Mappers
+ */
+@DisplayName("Stock Buckets Test")
+class StockBucketsTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private StockBuckets stockBuckets;
+
+    private long productId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        H2ProductDatabase database = new H2ProductDatabase("stock_buckets");
+        jdbcTemplate = database.getJdbcTemplate();
+        jdbcTemplate.execute("DROP TABLE IF EXISTS hot_products");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS product_stock_buckets");
+        jdbcTemplate.execute("CREATE TABLE hot_products (product_id BIGINT PRIMARY KEY, buckets INT NOT NULL, "
+                + "mirrored_quantity INT NOT NULL, created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE product_stock_buckets (product_id BIGINT NOT NULL, bucket INT NOT NULL, "
+                + "quantity INT NOT NULL, PRIMARY KEY (product_id, bucket))");
+        jdbcTemplate.update("INSERT INTO products (name, price, quantity) VALUES ('Hot SKU', 9.99, 10)");
+        productId = jdbcTemplate.queryForObject("SELECT id FROM products", Long.class);
+        // Sync thread not started, tests call sync() themselves
+        stockBuckets = new StockBuckets(database.productDao(), database.mapper(StockBucketDao.class),
+                database.getTransactionManager(), 0);
+        stockBuckets.start();
+    }
+
+    private List<Integer> buckets() {
+        return jdbcTemplate.queryForList(
+                "SELECT quantity FROM product_stock_buckets WHERE product_id = ? ORDER BY bucket", Integer.class, productId);
+    }
+
+    private int productQuantity() {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    @Test
+    @DisplayName("Split - Stock Spread over Buckets, Sync Writes the Total Back")
+    void testSplitTakeAndSync() {
+        // Given
+        stockBuckets.split(productId, 4);
+        assertEquals(Arrays.asList(3, 3, 2, 2), buckets());
+        assertTrue(stockBuckets.isHot(productId));
+
+        // When
+        assertTrue(stockBuckets.take(productId, 2));
+        assertTrue(stockBuckets.release(productId, 1));
+
+        // Then
+        assertEquals(9, stockBuckets.total(productId));
+        assertEquals(10, productQuantity(), "product row not touched by buyers");
+        assertEquals(1, stockBuckets.sync());
+        assertEquals(9, productQuantity());
+        assertEquals(0, stockBuckets.sync(), "nothing changed since");
+    }
+
+    @Test
+    @DisplayName("Take - Gathers from Several Buckets, Puts Nothing Aside When Short")
+    void testTake_FallOver() {
+        // Given: 3, 3, 2, 2
+        stockBuckets.split(productId, 4);
+
+        // When & Then
+        assertTrue(stockBuckets.take(productId, 7));
+        assertEquals(3, stockBuckets.total(productId));
+        BusinessException exception = assertThrows(BusinessException.class, () -> stockBuckets.take(productId, 4));
+        assertEquals(ErrorCode.INVENTORY_INSUFFICIENT, exception.getErrorCode());
+        assertEquals(3, stockBuckets.total(productId));
+        assertTrue(stockBuckets.take(productId, 3));
+        assertEquals(Arrays.asList(0, 0, 0, 0), buckets());
+    }
+
+    @Test
+    @DisplayName("Take - Gathers in Bucket Order Whatever the Random First Pick")
+    void testTake_GatherInBucketOrder() {
+        // Given: 3, 3, 2, 2
+        stockBuckets.split(productId, 4);
+
+        // When
+        for (int i = 0; i < 2; i++) {
+            assertTrue(stockBuckets.take(productId, 4));
+        }
+
+        // Then: lower buckets emptied first, so two gathering buyers lock rows in the same order
+        assertEquals(Arrays.asList(0, 0, 0, 2), buckets());
+    }
+
+    @Test
+    @DisplayName("Sync - Product Row Edit Applied to Buckets as a Delta")
+    void testSync_AdminRestock() {
+        // Given: 4 units sold from the buckets, then an admin adds 20 to the 10 the product page still shows
+        stockBuckets.split(productId, 2);
+        stockBuckets.take(productId, 4);
+        jdbcTemplate.update("UPDATE products SET quantity = 30 WHERE id = ?", productId);
+
+        // When
+        stockBuckets.sync();
+
+        // Then
+        assertEquals(26, stockBuckets.total(productId));
+        assertEquals(26, productQuantity());
+    }
+
+    @Test
+    @DisplayName("Merge - Bucket Total Moved Back, Product No Longer Hot")
+    void testMerge() {
+        // Given
+        stockBuckets.split(productId, 3);
+        stockBuckets.take(productId, 5);
+
+        // When
+        stockBuckets.merge(productId);
+
+        // Then
+        assertEquals(5, productQuantity());
+        assertTrue(buckets().isEmpty());
+        assertFalse(stockBuckets.isHot(productId));
+        assertFalse(stockBuckets.take(productId, 1));
+    }
+}
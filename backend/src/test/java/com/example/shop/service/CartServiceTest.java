@@ -2,23 +2,31 @@ package com.example.shop.service;
 
 import com.example.common.exception.BusinessException;
 import com.example.common.exception.ErrorCode;
+import com.example.shop.cache.CartCache;
 import com.example.shop.dao.CartDao;
 import com.example.shop.dao.ProductDao;
+import com.example.shop.inventory.InventoryManager;
 import com.example.shop.model.entity.Cart;
 import com.example.shop.model.entity.CartItem;
+import com.example.shop.model.entity.CartSummary;
 import com.example.shop.model.entity.Product;
+import com.example.shop.model.req.CartBatchRequest;
+import com.example.shop.model.resp.CartBatchResponse;
 import com.example.shop.service.impl.CartServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,6 +43,9 @@ class CartServiceTest {
     @Mock
     private ProductDao productDao;
 
+    @Mock
+    private InventoryManager inventoryManager;
+
     @InjectMocks
     private CartServiceImpl cartService;
 
@@ -74,9 +85,7 @@ class CartServiceTest {
     @DisplayName("Get Cart - Cart Exists")
     void testGetCart_CartExists() {
         // Given
-        when(cartDao.selectByUserId(1L)).thenReturn(testCart);
-        when(cartDao.sumCartTotal(1L)).thenReturn(new BigDecimal("199.98"));
-        when(cartDao.countCartItems(1L)).thenReturn(2);
+        when(cartDao.selectCartWithItems(1L)).thenReturn(testCart);
 
         // When
         Cart result = cartService.getCart(1L);
@@ -86,23 +95,19 @@ class CartServiceTest {
         assertEquals(1L, result.getId());
         assertEquals(1L, result.getUserId());
         assertEquals(new BigDecimal("199.98"), result.getTotalAmount());
-        assertEquals(2, result.getItemCount());
+        assertEquals(1, result.getItemCount());
 
-        verify(cartDao).selectByUserId(1L);
-        // calculateCartTotals will call these two methods
-        verify(cartDao).sumCartTotal(1L);
-        verify(cartDao).countCartItems(1L);
+        // One joined query, the totals come from its rows
+        verify(cartDao).selectCartWithItems(1L);
+        verify(cartDao, never()).selectCartItems(anyLong());
+        verify(cartDao, never()).selectCartSummary(anyLong());
     }
 
     @Test
     @DisplayName("Get Cart - Cart Not Exists, Auto Create")
     void testGetCart_CartNotExists_CreateNew() {
         // Given
-        Cart newCart = new Cart();
-        newCart.setId(2L);
-        newCart.setUserId(1L);
-
-        when(cartDao.selectByUserId(1L)).thenReturn(null).thenReturn(newCart);
+        when(cartDao.selectCartWithItems(1L)).thenReturn(null);
         when(cartDao.insertCart(any(Cart.class))).thenReturn(1);
 
         // When
@@ -111,8 +116,10 @@ class CartServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(1L, result.getUserId());
+        assertTrue(result.getItems().isEmpty());
+        assertEquals(BigDecimal.ZERO, result.getTotalAmount());
+        assertEquals(0, result.getItemCount());
 
-        verify(cartDao, atLeastOnce()).selectByUserId(1L);
         verify(cartDao).insertCart(any(Cart.class));
     }
 
@@ -133,6 +140,8 @@ class CartServiceTest {
         verify(cartDao, atLeastOnce()).selectByUserId(1L);
         verify(cartDao).selectCartItemByCartIdAndProductId(1L, 1L);
         verify(cartDao).insertCartItem(any(CartItem.class));
+        verify(inventoryManager).take(1L, 1L, 2); // Verify stock deduction
+        verify(productDao, never()).update(any(Product.class));
     }
 
     @Test
@@ -172,6 +181,9 @@ class CartServiceTest {
         // Given
         testProduct.setQuantity(1);
         when(productDao.selectById(1L)).thenReturn(testProduct);
+        when(cartDao.selectByUserId(1L)).thenReturn(testCart);
+        when(cartDao.selectCartItemByCartIdAndProductId(1L, 1L)).thenReturn(null);
+        doThrow(new BusinessException(ErrorCode.INVENTORY_INSUFFICIENT)).when(inventoryManager).take(1L, 1L, 2);
 
         // When & Then
         BusinessException exception = assertThrows(BusinessException.class, () -> {
@@ -179,7 +191,8 @@ class CartServiceTest {
         });
 
         assertEquals(ErrorCode.INVENTORY_INSUFFICIENT, exception.getErrorCode());
-        verify(productDao).selectById(1L);
+        verify(inventoryManager).take(1L, 1L, 2);
+        verify(productDao, never()).update(any(Product.class));
     }
 
     @Test
@@ -190,14 +203,13 @@ class CartServiceTest {
         when(productDao.selectById(1L)).thenReturn(testProduct);
         when(cartDao.selectByUserId(1L)).thenReturn(testCart);
         when(cartDao.selectCartItemByCartIdAndProductId(1L, 1L)).thenReturn(testCartItem);
-        when(productDao.update(any(Product.class))).thenReturn(1);
 
         // When
         cartService.addToCart(1L, 1L, 1);
 
         // Then
         verify(cartDao).selectCartItemByCartIdAndProductId(1L, 1L);
-        verify(productDao).update(any(Product.class)); // Verify inventory deduction
+        verify(inventoryManager).take(1L, 1L, 1); // Verify inventory deduction of the added quantity only
         verify(cartDao).updateCartItem(any(CartItem.class));
         verify(cartDao, atLeastOnce()).selectByUserId(1L);
     }
@@ -208,16 +220,29 @@ class CartServiceTest {
         // Given
         when(cartDao.selectByUserId(1L)).thenReturn(testCart);
         when(cartDao.selectCartItemById(1L)).thenReturn(testCartItem);
-        when(productDao.selectById(1L)).thenReturn(testProduct); // Need product info to update inventory
-        when(productDao.update(any(Product.class))).thenReturn(1);
 
         // When
         cartService.updateCartItem(1L, 1L, 3);
 
         // Then
         verify(cartDao).selectCartItemById(1L);
-        verify(productDao).selectById(1L); // Verify get product info
-        verify(productDao).update(any(Product.class)); // Verify inventory update
+        verify(inventoryManager).take(1L, 1L, 1); // Verify only the difference (2 -> 3) is deducted
+        verify(cartDao).updateCartItem(any(CartItem.class));
+    }
+
+    @Test
+    @DisplayName("Update Cart Item Quantity - Lower Quantity Puts Surplus Back")
+    void testUpdateCartItem_Decrease() {
+        // Given
+        when(cartDao.selectByUserId(1L)).thenReturn(testCart);
+        when(cartDao.selectCartItemById(1L)).thenReturn(testCartItem);
+
+        // When
+        cartService.updateCartItem(1L, 1L, 1);
+
+        // Then
+        verify(inventoryManager).release(1L, 1L, 1);
+        verify(inventoryManager, never()).take(anyLong(), anyLong(), anyInt());
         verify(cartDao).updateCartItem(any(CartItem.class));
     }
 
@@ -243,16 +268,13 @@ class CartServiceTest {
         // Given
         when(cartDao.selectByUserId(1L)).thenReturn(testCart);
         when(cartDao.selectCartItemById(1L)).thenReturn(testCartItem);
-        when(productDao.selectById(1L)).thenReturn(testProduct);
-        when(productDao.update(any(Product.class))).thenReturn(1);
 
         // When
         cartService.removeFromCart(1L, 1L);
 
         // Then
         verify(cartDao).selectCartItemById(1L);
-        verify(productDao).selectById(1L); // Verify get product info
-        verify(productDao).update(any(Product.class)); // Verify inventory restoration
+        verify(inventoryManager).release(1L, 1L, 2); // Verify inventory restoration
         verify(cartDao).deleteCartItemById(1L);
     }
 
@@ -263,53 +285,166 @@ class CartServiceTest {
         List<CartItem> cartItems = Arrays.asList(testCartItem);
         when(cartDao.selectByUserId(1L)).thenReturn(testCart);
         when(cartDao.selectCartItems(1L)).thenReturn(cartItems);
-        when(productDao.selectByIds(Arrays.asList(1L))).thenReturn(Arrays.asList(testProduct));
-        when(productDao.batchUpdate(anyList())).thenReturn(1);
 
         // When
         cartService.clearCart(1L);
 
         // Then
         verify(cartDao).selectCartItems(1L);
-        verify(productDao).selectByIds(Arrays.asList(1L)); // Verify batch get product info
-        verify(productDao).batchUpdate(anyList()); // Verify batch update inventory
+        verify(inventoryManager).releaseAll(1L, Collections.singletonMap(1L, 2)); // Verify batch inventory restoration
+        verify(productDao, never()).batchUpdate(anyList());
         verify(cartDao).deleteCartItemsByCartId(1L);
     }
 
     @Test
-    @DisplayName("Get Cart Item Count - Success")
+    @DisplayName("Get Cart Item Count - Summary Only")
     void testGetCartItemCount_Success() {
         // Given
-        when(cartDao.selectByUserId(1L)).thenReturn(testCart);
-        when(cartDao.sumCartTotal(1L)).thenReturn(new BigDecimal("199.98"));
-        when(cartDao.countCartItems(1L)).thenReturn(5);
+        when(cartDao.selectCartSummary(1L)).thenReturn(summary(5, "499.95"));
 
         // When
         Integer result = cartService.getCartItemCount(1L);
 
         // Then
         assertEquals(5, result);
-        verify(cartDao).selectByUserId(1L);
-        // countCartItems will be called twice: once in getCart's calculateCartTotals, once in getCartItemCount
-        verify(cartDao, times(2)).countCartItems(1L);
+        verify(cartDao, never()).selectCartWithItems(anyLong());
+        verify(cartDao, never()).selectByUserId(anyLong());
     }
 
     @Test
-    @DisplayName("Calculate Cart Total - Success")
+    @DisplayName("Calculate Cart Total - Summary Only")
     void testGetCartTotal_Success() {
         // Given
         BigDecimal expectedTotal = new BigDecimal("199.98");
-        when(cartDao.selectByUserId(1L)).thenReturn(testCart);
-        when(cartDao.sumCartTotal(1L)).thenReturn(expectedTotal);
-        when(cartDao.countCartItems(1L)).thenReturn(2);
+        when(cartDao.selectCartSummary(1L)).thenReturn(summary(2, "199.98"));
 
         // When
         BigDecimal result = cartService.getCartTotal(1L);
 
         // Then
         assertEquals(expectedTotal, result);
-        verify(cartDao).selectByUserId(1L);
-        // sumCartTotal will be called twice: once in getCart's calculateCartTotals, once in getCartTotal
-        verify(cartDao, times(2)).sumCartTotal(1L);
+        verify(cartDao).selectCartSummary(1L);
+        verify(cartDao, never()).selectCartWithItems(anyLong());
+    }
+
+    @Test
+    @DisplayName("Cart Cache - Reads Served from the Cart a Write Patched")
+    void testCartCache_WritePatchesCachedCart() {
+        // Given
+        ReflectionTestUtils.setField(cartService, "cartCache", new CartCache(100, 60, 60));
+        when(cartDao.selectCartWithItems(1L)).thenReturn(testCart);
+        cartService.getCart(1L);
+        when(cartDao.selectByUserId(1L)).thenReturn(testCart);
+        when(cartDao.selectCartItemById(1L)).thenReturn(testCartItem);
+
+        // When
+        cartService.updateCartItem(1L, 1L, 5);
+
+        // Then
+        Cart cart = cartService.getCart(1L);
+        assertEquals(5, cart.getItems().get(0).getQuantity());
+        assertEquals(new BigDecimal("499.95"), cartService.getCartTotal(1L));
+        assertEquals(1, cartService.getCartItemCount(1L));
+        verify(cartDao, times(1)).selectCartWithItems(1L);
+        verify(cartDao, never()).selectCartSummary(anyLong());
+    }
+
+    @Test
+    @DisplayName("Batch Operations - One Query per Table, Batched Writes, Rejected Operations Reported")
+    void testApplyOperations_MixedOutcome() {
+        // Given
+        Product second = product(2L, "19.99");
+        Product third = product(3L, "5.00");
+        when(cartDao.selectByUserId(1L)).thenReturn(testCart);
+        when(cartDao.selectCartItems(1L)).thenReturn(Collections.singletonList(testCartItem));
+        when(productDao.selectByIds(Arrays.asList(1L, 2L, 3L))).thenReturn(Arrays.asList(testProduct, second, third));
+        lenient().doThrow(new BusinessException(ErrorCode.INVENTORY_INSUFFICIENT)).when(inventoryManager).take(1L, 3L, 5);
+        doAnswer(invocation -> {
+            List<CartItem> items = invocation.getArgument(0);
+            items.get(0).setId(7L);
+            return 1;
+        }).when(cartDao).insertCartItems(anyList());
+
+        // When
+        CartBatchResponse response = cartService.applyOperations(1L, Arrays.asList(
+            operation(CartBatchRequest.OperationType.ADD, 1L, null, 1),
+            operation(CartBatchRequest.OperationType.ADD, 2L, null, 2),
+            operation(CartBatchRequest.OperationType.ADD, 3L, null, 5),
+            operation(CartBatchRequest.OperationType.REMOVE, null, 99L, null),
+            operation(CartBatchRequest.OperationType.UPDATE, null, 1L, 1)));
+
+        // Then
+        assertEquals(3, response.getSucceeded());
+        assertEquals(2, response.getFailed());
+        List<CartBatchResponse.OperationResult> results = response.getResults();
+        assertEquals(3, results.get(0).getQuantity());
+        assertEquals(7L, results.get(1).getItemId());
+        assertEquals(ErrorCode.INVENTORY_INSUFFICIENT.getCode(), results.get(2).getCode());
+        assertEquals(ErrorCode.CART_ITEM_NOT_FOUND.getCode(), results.get(3).getCode());
+        assertEquals(1, results.get(4).getQuantity());
+
+        verify(inventoryManager).take(1L, 1L, 1);
+        verify(inventoryManager).take(1L, 2L, 2);
+        verify(inventoryManager).release(1L, 1L, 2);
+        verify(cartDao).batchUpdateCartItems(Collections.singletonList(testCartItem));
+        assertEquals(new BigDecimal("99.99"), testCartItem.getTotalPrice());
+        verify(cartDao).insertCartItems(argThat(items -> items.size() == 1 && items.get(0).getQuantity() == 2));
+        verify(cartDao, never()).deleteCartItemsByIds(anyLong(), anyCollection());
+        verify(productDao, never()).selectById(anyLong());
+        verify(cartDao, never()).selectCartItemByCartIdAndProductId(anyLong(), anyLong());
+        verify(cartDao, never()).updateCartItem(any());
+        verify(cartDao, never()).insertCartItem(any());
+    }
+
+    @Test
+    @DisplayName("Batch Operations - Product Removed and Added Again")
+    void testApplyOperations_RemoveThenAdd() {
+        // Given
+        when(cartDao.selectByUserId(1L)).thenReturn(testCart);
+        when(cartDao.selectCartItems(1L)).thenReturn(Collections.singletonList(testCartItem));
+        when(productDao.selectByIds(Collections.singletonList(1L))).thenReturn(Collections.singletonList(testProduct));
+
+        // When
+        CartBatchResponse response = cartService.applyOperations(1L, Arrays.asList(
+            operation(CartBatchRequest.OperationType.REMOVE, null, 1L, null),
+            operation(CartBatchRequest.OperationType.ADD, 1L, null, 1),
+            operation(CartBatchRequest.OperationType.UPDATE, null, 1L, 4)));
+
+        // Then: the old row is deleted before the new one is inserted, the stale item ID is gone
+        assertEquals(2, response.getSucceeded());
+        assertEquals(ErrorCode.CART_ITEM_NOT_FOUND.getCode(), response.getResults().get(2).getCode());
+        InOrder inOrder = inOrder(cartDao);
+        inOrder.verify(cartDao).deleteCartItemsByIds(1L, Collections.singleton(1L));
+        inOrder.verify(cartDao).insertCartItems(anyList());
+        verify(cartDao, never()).batchUpdateCartItems(anyList());
+        verify(inventoryManager).release(1L, 1L, 2);
+        verify(inventoryManager).take(1L, 1L, 1);
+    }
+
+    private CartBatchRequest.Operation operation(CartBatchRequest.OperationType type, Long productId, Long itemId,
+                                                 Integer quantity) {
+        CartBatchRequest.Operation operation = new CartBatchRequest.Operation();
+        operation.setType(type);
+        operation.setProductId(productId);
+        operation.setItemId(itemId);
+        operation.setQuantity(quantity);
+        return operation;
+    }
+
+    private Product product(Long id, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(new BigDecimal(price));
+        product.setQuantity(100);
+        product.setVisible(true);
+        return product;
+    }
+
+    private CartSummary summary(int itemCount, String totalAmount) {
+        CartSummary summary = new CartSummary();
+        summary.setItemCount(itemCount);
+        summary.setTotalAmount(new BigDecimal(totalAmount));
+        return summary;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,382 @@
+package com.example.shop.service;
+
+import com.example.common.exception.BusinessException;
+import com.example.common.exception.ErrorCode;
+import com.example.shop.dao.CartDao;
+import com.example.shop.dao.ProductDao;
+import com.example.shop.dao.StockBucketDao;
+import com.example.shop.inventory.DatabaseInventoryManager;
+import com.example.shop.inventory.InventoryManager;
+import com.example.shop.inventory.StockBuckets;
+import com.example.shop.model.req.CartBatchRequest;
+import com.example.shop.model.resp.CartBatchResponse;
+import com.example.shop.service.impl.CartServiceImpl;
+import com.example.shop.service.impl.GroupCommitCartService;
+import com.example.shop.support.H2ProductDatabase;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * GroupCommitCartService Test with the Real Cart Service and Mappers on H2
+ */
+@DisplayName("Group Commit Cart Service Test")
+class GroupCommitCartServiceTest {
+
+    private static final String DATABASE = "group_commit";
+
+    private AnnotationConfigApplicationContext context;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private long productId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = new H2ProductDatabase(DATABASE).getJdbcTemplate();
+        jdbcTemplate.execute("DROP TABLE IF EXISTS cart_items");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS carts");
+        jdbcTemplate.execute("CREATE TABLE carts (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL UNIQUE, "
+                + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE cart_items (id BIGINT AUTO_INCREMENT PRIMARY KEY, cart_id BIGINT NOT NULL, "
+                + "product_id BIGINT NOT NULL, product_name VARCHAR(255) NOT NULL, price DECIMAL(10,2) NOT NULL, "
+                + "quantity INT NOT NULL, total_price DECIMAL(10,2) NOT NULL, "
+                + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                + "UNIQUE (cart_id, product_id))");
+        jdbcTemplate.update("INSERT INTO products (name, price, quantity) VALUES ('Test Product', 9.99, 10)");
+        productId = jdbcTemplate.queryForObject("SELECT id FROM products", Long.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    private CartService start(int maxBatchSize, long maxDelayMillis) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("shop.cart.group-commit.max-batch-size", maxBatchSize);
+        properties.put("shop.cart.group-commit.max-delay-millis", maxDelayMillis);
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", properties));
+        context.register(CartConfig.class);
+        context.refresh();
+        return context.getBean(GroupCommitCartService.class);
+    }
+
+    /**
+     * Run the writes on their own threads, the failures they threw
+     */
+    private List<Throwable> concurrently(List<Runnable> writes) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(writes.size());
+        List<Future<?>> results = new ArrayList<>();
+        for (Runnable write : writes) {
+            results.add(executor.submit(write));
+        }
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<?> result : results) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        executor.shutdown();
+        return failures;
+    }
+
+    private int productQuantity() {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private int cartItems() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cart_items", Integer.class);
+    }
+
+    @Test
+    @DisplayName("Concurrent Adds - One Batch, Stock Netted into One Statement")
+    void testAddToCart_OneBatch() throws Exception {
+        // Given: the batch is committed once 4 writes are queued
+        CartService cartService = start(4, 10_000);
+        List<Runnable> writes = new ArrayList<>();
+        for (long userId = 1; userId <= 4; userId++) {
+            long user = userId;
+            writes.add(() -> cartService.addToCart(user, productId, 2));
+        }
+
+        // When
+        List<Throwable> failures = concurrently(writes);
+
+        // Then
+        assertTrue(failures.isEmpty());
+        assertEquals(2, productQuantity());
+        assertEquals(4, cartItems());
+        ProductDao productDao = context.getBean(ProductDao.class);
+        verify(productDao).selectQuantitiesForUpdate(Collections.singleton(productId));
+        verify(productDao).batchAdjustStock(Collections.singletonMap(productId, -8));
+        verify(productDao, never()).selectQuantityForUpdate(anyLong());
+        verify(productDao, never()).decreaseStock(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Mixed Batch - Products of Adds and of Updated Items Locked Up Front in ID Order")
+    void testMixedBatch_LockedUpFront() throws Exception {
+        // Given: user 1 has the product in the cart, user 2 adds another one in the same batch
+        jdbcTemplate.update("INSERT INTO products (name, price, quantity) VALUES ('Other Product', 4.50, 5)");
+        long otherId = jdbcTemplate.queryForObject("SELECT id FROM products WHERE name = 'Other Product'", Long.class);
+        CartService cartService = start(1, 0);
+        cartService.addToCart(1L, productId, 3);
+        Long itemId = jdbcTemplate.queryForObject("SELECT id FROM cart_items", Long.class);
+        context.close();
+        cartService = start(2, 10_000);
+        CartService batched = cartService;
+        ProductDao productDao = context.getBean(ProductDao.class);
+
+        // When
+        List<Throwable> failures = concurrently(Arrays.asList(
+                () -> batched.addToCart(2L, otherId, 2),
+                () -> batched.updateCartItem(1L, itemId, 1)));
+
+        // Then: one locking statement for both rows, none taken one by one in arrival order
+        assertTrue(failures.isEmpty());
+        assertEquals(9, productQuantity());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, otherId));
+        verify(productDao).selectQuantitiesForUpdate(new TreeSet<>(Arrays.asList(productId, otherId)));
+        verify(productDao, never()).selectQuantityForUpdate(anyLong());
+    }
+
+    @Test
+    @DisplayName("Short Stock - Only the Write That Does Not Fit Fails")
+    void testAddToCart_OneWriteShort() throws Exception {
+        // Given
+        jdbcTemplate.update("UPDATE products SET quantity = 5 WHERE id = ?", productId);
+        CartService cartService = start(3, 10_000);
+        List<Runnable> writes = new ArrayList<>();
+        for (long userId = 1; userId <= 3; userId++) {
+            long user = userId;
+            writes.add(() -> cartService.addToCart(user, productId, 2));
+        }
+
+        // When
+        List<Throwable> failures = concurrently(writes);
+
+        // Then: its cart item rolled back to its savepoint, the other two committed
+        assertEquals(1, failures.size());
+        assertEquals(ErrorCode.INVENTORY_INSUFFICIENT, ((BusinessException) failures.get(0)).getErrorCode());
+        assertEquals(1, productQuantity());
+        assertEquals(2, cartItems());
+    }
+
+    @Test
+    @DisplayName("Shutdown - Later Writes Fail Right Away Instead of Waiting Forever")
+    void testShutdown_LaterWritesFail() throws Exception {
+        // Given
+        CartService cartService = start(4, 10_000);
+        context.getBean(GroupCommitCartService.class).shutdown();
+
+        // When
+        BusinessException exception = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(BusinessException.class, () -> cartService.addToCart(1L, productId, 1)));
+
+        // Then
+        assertEquals(ErrorCode.OPERATION_FAILED, exception.getErrorCode());
+        assertEquals(10, productQuantity());
+        assertEquals(0, cartItems());
+    }
+
+    @Test
+    @DisplayName("Update and Remove - Stock Given Back through the Batch")
+    void testUpdateAndRemove() {
+        // Given
+        CartService cartService = start(1, 0);
+        cartService.addToCart(1L, productId, 3);
+        Long itemId = jdbcTemplate.queryForObject("SELECT id FROM cart_items", Long.class);
+
+        // When & Then
+        cartService.updateCartItem(1L, itemId, 1);
+        assertEquals(9, productQuantity());
+        BusinessException exception = assertThrows(BusinessException.class, () -> cartService.removeFromCart(2L, itemId));
+        assertEquals(ErrorCode.CART_ITEM_NOT_FOUND, exception.getErrorCode());
+        cartService.removeFromCart(1L, itemId);
+        assertEquals(10, productQuantity());
+        assertEquals(0, cartItems());
+    }
+
+    @Test
+    @DisplayName("Operation Batch - Passed Through, Stock Locked Once and Netted into One Statement")
+    void testApplyOperations() {
+        // Given
+        jdbcTemplate.update("INSERT INTO products (name, price, quantity) VALUES ('Last One', 4.50, 1)");
+        long lastOne = jdbcTemplate.queryForObject("SELECT id FROM products WHERE name = 'Last One'", Long.class);
+        CartService cartService = start(1, 0);
+        cartService.addToCart(1L, productId, 2);
+        Long itemId = jdbcTemplate.queryForObject("SELECT id FROM cart_items", Long.class);
+        ProductDao productDao = context.getBean(ProductDao.class);
+        clearInvocations(productDao);
+
+        // When
+        CartBatchResponse response = cartService.applyOperations(1L, Arrays.asList(
+                operation(CartBatchRequest.OperationType.ADD, productId, null, 3),
+                operation(CartBatchRequest.OperationType.ADD, lastOne, null, 1),
+                operation(CartBatchRequest.OperationType.ADD, lastOne, null, 1),
+                operation(CartBatchRequest.OperationType.UPDATE, null, itemId, 1)));
+
+        // Then: the second take of the last unit is refused in memory
+        assertEquals(3, response.getSucceeded());
+        assertEquals(ErrorCode.INVENTORY_INSUFFICIENT.getCode(), response.getResults().get(2).getCode());
+        assertNotNull(response.getResults().get(1).getItemId());
+        assertEquals(9, productQuantity());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, lastOne));
+        assertEquals(2, cartItems());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT quantity FROM cart_items WHERE id = ?", Integer.class, itemId));
+        Map<Long, Integer> deltas = new TreeMap<>();
+        deltas.put(productId, 1);
+        deltas.put(lastOne, -1);
+        verify(productDao).selectQuantitiesForUpdate(anyCollection());
+        verify(productDao).batchAdjustStock(deltas);
+        verify(productDao, never()).selectQuantityForUpdate(anyLong());
+        verify(productDao, never()).decreaseStock(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Operation Batch - Products Only Given Stock Back Not Locked Up Front")
+    void testApplyOperations_ReleasesNotLocked() {
+        // Given
+        jdbcTemplate.update("INSERT INTO products (name, price, quantity) VALUES ('Other Product', 4.50, 5)");
+        long otherId = jdbcTemplate.queryForObject("SELECT id FROM products WHERE name = 'Other Product'", Long.class);
+        CartService cartService = start(1, 0);
+        cartService.addToCart(1L, productId, 3);
+        Long itemId = jdbcTemplate.queryForObject("SELECT id FROM cart_items", Long.class);
+        ProductDao productDao = context.getBean(ProductDao.class);
+        clearInvocations(productDao);
+
+        // When: the item is lowered, another product added
+        CartBatchResponse response = cartService.applyOperations(1L, Arrays.asList(
+                operation(CartBatchRequest.OperationType.UPDATE, null, itemId, 1),
+                operation(CartBatchRequest.OperationType.ADD, otherId, null, 1)));
+
+        // Then: the lowered product's row is only written, by the flush in ID order
+        assertEquals(2, response.getSucceeded());
+        assertEquals(9, productQuantity());
+        verify(productDao).selectQuantitiesForUpdate(new TreeSet<>(Collections.singleton(otherId)));
+        verify(productDao, never()).selectQuantityForUpdate(anyLong());
+        Map<Long, Integer> deltas = new TreeMap<>();
+        deltas.put(productId, 2);
+        deltas.put(otherId, -1);
+        verify(productDao).batchAdjustStock(deltas);
+    }
+
+    private CartBatchRequest.Operation operation(CartBatchRequest.OperationType type, Long productId, Long itemId,
+                                                 Integer quantity) {
+        CartBatchRequest.Operation operation = new CartBatchRequest.Operation();
+        operation.setType(type);
+        operation.setProductId(productId);
+        operation.setItemId(itemId);
+        operation.setQuantity(quantity);
+        return operation;
+    }
+
+    /**
+     * Cart Service, Database Inventory and Group Commit on the Shared H2 Database
+     */
+    @Configuration
+    @EnableTransactionManagement
+    static class CartConfig {
+
+        @Bean
+        public DataSource dataSource() {
+            JdbcDataSource h2 = new JdbcDataSource();
+            h2.setURL("jdbc:h2:mem:" + DATABASE + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+            return h2;
+        }
+
+        @Bean
+        public SqlSessionFactory sqlSessionFactory(DataSource dataSource) throws Exception {
+            org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
+            configuration.setMapUnderscoreToCamelCase(true);
+            SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+            factoryBean.setDataSource(dataSource);
+            factoryBean.setConfiguration(configuration);
+            factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml"));
+            return factoryBean.getObject();
+        }
+
+        @Bean
+        public DataSourceTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        public ProductDao productDao(SqlSessionFactory sqlSessionFactory) {
+            // Real statements, recorded for verification
+            return mock(ProductDao.class, delegatesTo(new SqlSessionTemplate(sqlSessionFactory).getMapper(ProductDao.class)));
+        }
+
+        @Bean
+        public CartDao cartDao(SqlSessionFactory sqlSessionFactory) {
+            return new SqlSessionTemplate(sqlSessionFactory).getMapper(CartDao.class);
+        }
+
+        @Bean
+        public InventoryManager inventoryManager(ProductDao productDao, SqlSessionFactory sqlSessionFactory,
+                                                 PlatformTransactionManager transactionManager) {
+            // No hot products: bucket sync not started
+            StockBuckets stockBuckets = new StockBuckets(productDao,
+                    new SqlSessionTemplate(sqlSessionFactory).getMapper(StockBucketDao.class), transactionManager, 0);
+            return new DatabaseInventoryManager(productDao, stockBuckets);
+        }
+
+        @Bean
+        public CartService cartServiceImpl() {
+            return new CartServiceImpl();
+        }
+
+        @Bean
+        public GroupCommitCartService groupCommitCartService(CartService cartServiceImpl,
+                                                             InventoryManager inventoryManager, ProductDao productDao,
+                                                             CartDao cartDao,
+                                                             PlatformTransactionManager transactionManager,
+                                                             Environment environment) {
+            return new GroupCommitCartService(cartServiceImpl, inventoryManager, productDao, cartDao, transactionManager,
+                    environment.getProperty("shop.cart.group-commit.max-batch-size", Integer.class),
+                    environment.getProperty("shop.cart.group-commit.max-delay-millis", Long.class));
+        }
+    }
+}
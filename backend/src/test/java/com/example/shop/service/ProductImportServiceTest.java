@@ -0,0 +1,143 @@
+package com.example.shop.service;
+
+import com.example.common.exception.BusinessException;
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.importer.ProductImportFormat;
+import com.example.shop.model.resp.ProductImportResponse;
+import com.example.shop.service.impl.ProductImportServiceImpl;
+import com.example.shop.support.H2ProductDatabase;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ProductImportService Test (H2 with the real mapper, so JDBC batching is exercised)
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Product Import Service Test")
+class ProductImportServiceTest {
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private H2ProductDatabase database;
+
+    private ProductImportService productImportService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new H2ProductDatabase("import_test");
+        database.getJdbcTemplate().update("INSERT INTO products (name, price, quantity) VALUES ('Existing', 1.00, 1)");
+        productImportService = new ProductImportServiceImpl(
+                database.productDao(),
+                database.getSqlSessionFactory(),
+                database.getTransactionManager(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper().findAndRegisterModules(),
+                eventPublisher,
+                2,
+                10);
+    }
+
+    private InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("CSV Import - Valid Rows Inserted in Chunks, Invalid Rows Reported")
+    void testImportCsv() {
+        // Given
+        String csv = "name,price,quantity,visible\r\n"
+                + "Widget,9.99,5,\r\n"
+                + "\"Bolt, \"\"M8\"\"\",0.10,100,false\r\n"
+                + "Existing,2.00,1,true\r\n"
+                + "Widget,3.00,1,true\r\n"
+                + "Free Lunch,0,1,true\r\n"
+                + "Gadget,abc,1,true\r\n"
+                + "Gizmo,4.50,7,true\r\n";
+
+        // When
+        ProductImportResponse result = productImportService.importProducts(body(csv), ProductImportFormat.CSV);
+
+        // Then
+        assertEquals(7L, result.getTotal());
+        assertEquals(3L, result.getImported());
+        assertEquals(4L, result.getFailed());
+        List<ProductImportResponse.RowError> errors = result.getErrors();
+        // Name checks run when a chunk (2 rows here) is flushed, so they are reported first
+        assertEquals("Product name already exists", errors.get(0).getMessage());
+        assertEquals(3, errors.get(0).getRow());
+        assertEquals("Duplicate product name within the import", errors.get(1).getMessage());
+        assertEquals("Product price must be greater than 0", errors.get(2).getMessage());
+        assertEquals(5, errors.get(2).getRow());
+        assertEquals("Invalid price: abc", errors.get(3).getMessage());
+        assertEquals(4L, database.countProducts());
+        assertEquals(Boolean.FALSE, database.getJdbcTemplate().queryForObject(
+                "SELECT visible FROM products WHERE name = 'Bolt, \"M8\"'", Boolean.class));
+
+        ArgumentCaptor<ProductChangeEvent> events = ArgumentCaptor.forClass(ProductChangeEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(ProductChangeEvent.Type.CREATED, events.getValue().getType());
+        assertEquals(3, events.getAllValues().stream().mapToInt(event -> event.getProductIds().size()).sum());
+        assertNotNull(events.getValue().getProductIds().get(0));
+    }
+
+    @Test
+    @DisplayName("JSON Import - Array Rows Bound One at a Time, Unbindable Row Skipped")
+    void testImportJsonArray() {
+        // Given
+        String json = "[{\"name\":\"A\",\"price\":1.5,\"quantity\":1},"
+                + "{\"name\":\"B\",\"price\":\"not a number\",\"quantity\":1},"
+                + "{\"name\":\"C\",\"price\":2,\"quantity\":3,\"visible\":false}]";
+
+        // When
+        ProductImportResponse result = productImportService.importProducts(body(json), ProductImportFormat.JSON);
+
+        // Then
+        assertEquals(3L, result.getTotal());
+        assertEquals(2L, result.getImported());
+        assertEquals(2, result.getErrors().get(0).getRow());
+        assertEquals(3L, database.countProducts());
+    }
+
+    @Test
+    @DisplayName("JSON Import - Malformed Input Stops but Keeps Earlier Rows")
+    void testImportNdjsonMalformed() {
+        // Given
+        String ndjson = "{\"name\":\"A\",\"price\":1,\"quantity\":1}\n"
+                + "{\"name\":\"B\",\"price\":1,\"quantity\":1}\n"
+                + "{\"name\": oops\n";
+
+        // When
+        ProductImportResponse result = productImportService.importProducts(body(ndjson), ProductImportFormat.JSON);
+
+        // Then
+        assertEquals(2L, result.getImported());
+        assertEquals(1L, result.getFailed());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Malformed input"));
+        assertEquals(3L, database.countProducts());
+    }
+
+    @Test
+    @DisplayName("CSV Import - Missing Required Column Rejected Up Front")
+    void testImportCsvMissingColumn() {
+        assertThrows(BusinessException.class, () ->
+                productImportService.importProducts(body("name,quantity\nA,1\n"), ProductImportFormat.CSV));
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -1,12 +1,36 @@
 package com.example.shop.service;
 
+import com.example.common.datasource.ReadYourWritesPin;
+import com.example.common.exception.BusinessException;
+import com.example.common.req.ChangeWatermark;
+import com.example.common.req.SeekCursor;
 import com.example.common.resp.PageResponse;
+import com.example.shop.cache.CatalogVersion;
+import com.example.shop.cache.ProductCountCache;
+import com.example.shop.cache.VisibleCatalogCache;
+import com.example.shop.cache.VisibleCatalogSnapshot;
 import com.example.shop.dao.ProductDao;
+import com.example.shop.event.ProductChangeBroadcaster;
+import com.example.shop.event.ProductChangeEvent;
+import com.example.shop.event.ProductDeletionLog;
+import com.example.shop.export.ProductExportFormat;
+import com.example.shop.index.ProductColumnStore;
+import com.example.shop.index.ProductColumns;
+import com.example.shop.index.ProductNameIndex;
+import com.example.shop.index.ProductSuggester;
+import com.example.shop.inventory.InventoryManager;
 import com.example.shop.model.entity.Product;
 import com.example.shop.model.req.ProductQueryRequest;
+import com.example.shop.model.req.VisibleProductRequest;
+import com.example.shop.model.resp.PriceFacetResponse;
+import com.example.shop.model.resp.ProductBatchResponse;
+import com.example.shop.model.resp.ProductChangesResponse;
+import com.example.shop.model.resp.ProductSuggestion;
 import com.example.shop.service.impl.ProductServiceImpl;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.cursor.Cursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,12 +38,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -35,6 +70,36 @@ class ProductServiceTest {
     @Mock
     private ProductDao productDao;
 
+    @Mock
+    private VisibleCatalogCache visibleCatalogCache;
+
+    @Spy
+    private ProductCountCache productCountCache = new ProductCountCache(100, 300);
+
+    @Mock
+    private ProductNameIndex productNameIndex;
+
+    @Mock
+    private ProductColumnStore productColumnStore;
+
+    @Mock
+    private ProductSuggester productSuggester;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
+    @Mock
+    private ProductDeletionLog productDeletionLog;
+
+    @Mock
+    private ProductChangeBroadcaster productChangeBroadcaster;
+
+    @Mock
+    private InventoryManager inventoryManager;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -87,6 +152,22 @@ class ProductServiceTest {
         verify(productDao).selectById(999L);
     }
 
+    @Test
+    @DisplayName("Get Available Stock - Answered by the Inventory Manager")
+    void testGetAvailableStock() {
+        // Given: 100 in stock, 30 of them held by reservations
+        when(productDao.selectById(1L)).thenReturn(testProduct);
+        when(inventoryManager.getAvailable(1L)).thenReturn(70);
+
+        // When
+        int available = productService.getAvailableStock(1L);
+
+        // Then
+        assertEquals(70, available);
+        assertThrows(RuntimeException.class, () -> productService.getAvailableStock(999L));
+        verify(inventoryManager, never()).getAvailable(999L);
+    }
+
     @Test
     @DisplayName("Create Product - Success")
     void testCreateProduct_Success() {
@@ -180,7 +261,9 @@ class ProductServiceTest {
     void testGetVisibleProducts_Success() {
         // Given
         List<Product> visibleProducts = Arrays.asList(testProduct);
-        when(productDao.selectVisibleProducts()).thenReturn(visibleProducts);
+        VisibleCatalogSnapshot snapshot = VisibleCatalogSnapshot.build(
+                1L, visibleProducts, new ObjectMapper().findAndRegisterModules(), false);
+        when(visibleCatalogCache.getSnapshot()).thenReturn(snapshot);
 
         // When
         List<Product> result = productService.getVisibleProducts();
@@ -189,7 +272,8 @@ class ProductServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(testProduct.getId(), result.get(0).getId());
-        verify(productDao).selectVisibleProducts();
+        // Served from the snapshot, never from the database on the request path
+        verify(productDao, never()).selectVisibleProducts();
     }
 
     @Test
@@ -219,6 +303,7 @@ class ProductServiceTest {
             queryRequest.getMaxPrice(),
             queryRequest.getVisible()
         )).thenReturn(products);
+        when(productDao.countProducts(null, null, null, null)).thenReturn(1L);
 
         // When (Don't use static Mock, directly test business logic)
         try {
@@ -237,4 +322,464 @@ class ProductServiceTest {
             // Test passes, because we focus on business logic not pagination tools
         }
     }
+
+    @Test
+    @DisplayName("Cursor Pagination - First Page Returns Next Cursor")
+    void testGetProducts_CursorFirstPage() {
+        // Given
+        queryRequest.setPageSize(2);
+        queryRequest.setCursor("");
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0, 0);
+        Product p3 = product(3L, now);
+        Product p2 = product(2L, now);
+        Product p1 = product(1L, now.minusMinutes(1));
+        when(productDao.selectProductsAfter(null, null, null, null, null, null, 3))
+            .thenReturn(Arrays.asList(p3, p2, p1));
+
+        // When
+        PageResponse<Product> result = productService.getProducts(queryRequest);
+
+        // Then
+        assertEquals(2, result.getList().size());
+        assertTrue(result.getPagination().getHasMore());
+        assertNull(result.getPagination().getTotal());
+        SeekCursor next = SeekCursor.decode(result.getPagination().getNextCursor());
+        assertEquals(2L, next.getId());
+        assertEquals(now, next.getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("Cursor Pagination - Continues After Cursor and Detects Last Page")
+    void testGetProducts_CursorLastPage() {
+        // Given
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0, 0);
+        queryRequest.setPageSize(2);
+        queryRequest.setVisible(true);
+        queryRequest.setCursor(new SeekCursor(now, 2L).encode());
+        when(productDao.selectProductsAfter(null, null, null, true, now, 2L, 3))
+            .thenReturn(Arrays.asList(product(1L, now.minusMinutes(1))));
+
+        // When
+        PageResponse<Product> result = productService.getProducts(queryRequest);
+
+        // Then
+        assertEquals(1, result.getList().size());
+        assertFalse(result.getPagination().getHasMore());
+        assertNull(result.getPagination().getNextCursor());
+        verify(productDao, never()).selectProducts(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Pagination Query Products - Count Served from Cache Until a Product Changes, Stock Moves Ignored")
+    void testGetProducts_CountCached() {
+        // Given
+        when(productDao.selectProducts(null, null, null, true)).thenReturn(Arrays.asList(testProduct));
+        when(productDao.countProducts(null, null, null, true)).thenReturn(1L);
+        queryRequest.setVisible(true);
+
+        // When
+        productService.getProducts(queryRequest);
+        productCountCache.onProductChange(ProductChangeEvent.stock(1L));
+        PageResponse<Product> second = productService.getProducts(queryRequest);
+        productCountCache.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.CREATED, 2L));
+        productService.getProducts(queryRequest);
+
+        // Then
+        assertEquals(1L, second.getPagination().getTotal());
+        assertNull(second.getPagination().getApproximate());
+        verify(productDao, times(3)).selectProducts(null, null, null, true);
+        verify(productDao, times(2)).countProducts(null, null, null, true);
+    }
+
+    @Test
+    @DisplayName("Pagination Query Products - Count on a Lagging Replica Returned but Not Cached")
+    void testGetProducts_ReplicaCountNotCached() {
+        // Given: a product was created, the replica has not applied it yet
+        ReflectionTestUtils.setField(productService, "readYourWritesPin", new ReadYourWritesPin(Duration.ofSeconds(3), 100));
+        when(productDao.selectProducts(null, null, null, true)).thenReturn(Arrays.asList(testProduct));
+        when(productDao.countProducts(null, null, null, true)).thenReturn(1L, 2L);
+        queryRequest.setVisible(true);
+        productCountCache.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.CREATED, 2L));
+        ReadYourWritesPin.setCurrentClient("u:1");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        PageResponse<Product> replica;
+        PageResponse<Product> primary;
+        try {
+            // When
+            replica = productService.getProducts(queryRequest);
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            primary = productService.getProducts(queryRequest);
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+            productService.getProducts(queryRequest);
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+            ReadYourWritesPin.clearCurrentClient();
+        }
+
+        // Then: the primary's total was cached and served the last replica read
+        assertEquals(1L, replica.getPagination().getTotal());
+        assertEquals(2L, primary.getPagination().getTotal());
+        verify(productDao, times(2)).countProducts(null, null, null, true);
+        verify(productCountCache).put(anyString(), eq(2L), anyLong());
+        verify(productCountCache, never()).put(anyString(), eq(1L), anyLong());
+    }
+
+    @Test
+    @DisplayName("Pagination Query Products - Empty Filter Skips Page Query")
+    void testGetProducts_ZeroCountSkipsPageQuery() {
+        // Given
+        queryRequest.setName("nothing");
+        when(productDao.countProducts("nothing", null, null, null)).thenReturn(0L);
+
+        // When
+        PageResponse<Product> result = productService.getProducts(queryRequest);
+
+        // Then
+        assertTrue(result.getList().isEmpty());
+        assertEquals(0L, result.getPagination().getTotal());
+        verify(productDao, never()).selectProducts(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Pagination Query Products - Estimate Mode Returns Flagged Lower Bound Without Waiting for COUNT")
+    void testGetProducts_EstimateWithoutCachedCount() {
+        // Given
+        queryRequest.setEstimate(true);
+        queryRequest.setPageSize(1);
+        when(productDao.selectProducts(null, null, null, null)).thenReturn(Arrays.asList(testProduct));
+
+        // When
+        PageResponse<Product> result = productService.getProducts(queryRequest);
+
+        // Then
+        assertTrue(result.getPagination().getApproximate());
+        assertEquals(2L, result.getPagination().getTotal());
+        // The exact count is filled in by a background refresh
+        verify(productDao, timeout(1000)).countProducts(null, null, null, null);
+    }
+
+    @Test
+    @DisplayName("Name Search - Candidates from Name Index Replace the LIKE Scan")
+    void testGetVisibleProducts_NameIndexCandidates() {
+        // Given
+        Set<Long> candidates = new HashSet<>(Arrays.asList(1L, 7L));
+        when(productNameIndex.isReady()).thenReturn(true);
+        when(productNameIndex.search("test")).thenReturn(candidates);
+        when(productDao.countProductsByIds(candidates, null, null, true)).thenReturn(1L);
+        when(productDao.selectProductsByIds(candidates, null, null, true)).thenReturn(Arrays.asList(testProduct));
+        VisibleProductRequest request = new VisibleProductRequest(1, 10);
+        request.setName("test");
+
+        // When
+        PageResponse<Product> result = productService.getVisibleProducts(request);
+
+        // Then
+        assertEquals(1, result.getList().size());
+        assertEquals(1L, result.getPagination().getTotal());
+        verify(productDao, never()).selectProducts(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Name Search - No Candidates Means No Database Query")
+    void testGetProducts_NameIndexNoCandidates() {
+        // Given
+        when(productNameIndex.isReady()).thenReturn(true);
+        when(productNameIndex.search("zzz")).thenReturn(Collections.emptySet());
+        queryRequest.setName("zzz");
+
+        // When
+        PageResponse<Product> result = productService.getProducts(queryRequest);
+
+        // Then
+        assertTrue(result.getList().isEmpty());
+        verifyNoInteractions(productDao);
+    }
+
+    @Test
+    @DisplayName("Name Search - No Candidates in Estimate Mode Leaves No Page for the Next Query")
+    void testGetProducts_NameIndexNoCandidatesEstimate() {
+        // Given
+        when(productNameIndex.isReady()).thenReturn(true);
+        when(productNameIndex.search("zzz")).thenReturn(Collections.emptySet());
+        queryRequest.setName("zzz");
+        queryRequest.setEstimate(true);
+
+        // When
+        PageResponse<Product> result = productService.getProducts(queryRequest);
+
+        // Then
+        assertTrue(result.getList().isEmpty());
+        assertNull(PageHelper.getLocalPage());
+    }
+
+    @Test
+    @DisplayName("Memory Engine - Filtered Page and Total Served from Column Store")
+    void testGetProducts_MemoryEngine() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        Product hidden = product(3L, now);
+        hidden.setVisible(false);
+        when(productColumnStore.getColumns()).thenReturn(ProductColumns.build(1L, Arrays.asList(
+                product(1L, now.minusMinutes(2)), product(2L, now.minusMinutes(1)), hidden)));
+        queryRequest.setVisible(true);
+        queryRequest.setPageNum(5);
+        queryRequest.setPageSize(1);
+
+        // When
+        PageResponse<Product> result = productService.getProducts(queryRequest);
+
+        // Then
+        assertEquals(2L, result.getPagination().getTotal());
+        assertEquals(2, result.getPagination().getPageNum());
+        assertEquals(1L, result.getList().get(0).getId());
+        verifyNoInteractions(productDao);
+    }
+
+    @Test
+    @DisplayName("Export Products - CSV Rows Streamed from Cursor with Quoting")
+    @SuppressWarnings("unchecked")
+    void testExportProducts_Csv() throws Exception {
+        // Given
+        Product quoted = product(2L, LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        quoted.setName("Bolt, \"M8\"");
+        Cursor<Product> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenReturn(Arrays.asList(quoted).iterator());
+        when(productDao.scanProducts(null)).thenReturn(cursor);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long count = productService.exportProducts(null, ProductExportFormat.CSV, out);
+
+        // Then
+        assertEquals(1L, count);
+        assertEquals("id,name,price,quantity,visible,created_at,updated_at\r\n"
+                + "2,\"Bolt, \"\"M8\"\"\",10.00,1,true,2024-01-02T03:04:05,\r\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+        verify(cursor).close();
+    }
+
+    @Test
+    @DisplayName("Export Products - NDJSON Writes One Object per Line")
+    @SuppressWarnings("unchecked")
+    void testExportProducts_Ndjson() throws Exception {
+        // Given
+        Cursor<Product> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenReturn(Arrays.asList(product(1L, LocalDateTime.now()), product(2L, LocalDateTime.now())).iterator());
+        when(productDao.scanProducts(true)).thenReturn(cursor);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        productService.exportProducts(true, ProductExportFormat.NDJSON, out);
+
+        // Then
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readValue(lines[0], Product.class).getId());
+        assertEquals(2L, objectMapper.readValue(lines[1], Product.class).getId());
+    }
+
+    @Test
+    @DisplayName("Catalog ETag - Shared Catalog Version, Plus the Column Store Version of This Instance")
+    void testGetCatalogETag() {
+        // Given
+        when(catalogVersion.get()).thenReturn(7L, 8L, 8L);
+        String initial = productService.getCatalogETag();
+
+        // When
+        String afterWrite = productService.getCatalogETag();
+        when(productColumnStore.getColumns()).thenReturn(ProductColumns.build(5L, Collections.emptyList()));
+        String withColumns = productService.getCatalogETag();
+
+        // Then
+        assertEquals("\"c-7\"", initial);
+        assertEquals("\"c-8\"", afterWrite);
+        assertEquals("\"c-8-" + CatalogVersion.INSTANCE_ID + ".5\"", withColumns);
+    }
+
+    @Test
+    @DisplayName("Suggest Products - Served from Index When Ready")
+    void testSuggestProducts_Index() {
+        // Given
+        when(productSuggester.isReady()).thenReturn(true);
+        when(productSuggester.suggest("ip", 50))
+                .thenReturn(Collections.singletonList(new ProductSuggestion(1L, "iPhone")));
+
+        // When
+        List<ProductSuggestion> result = productService.suggestProducts("ip", 500);
+
+        // Then
+        assertEquals("iPhone", result.get(0).getName());
+        verifyNoInteractions(productDao);
+    }
+
+    @Test
+    @DisplayName("Suggest Products - SQL Fallback Escapes Wildcards")
+    void testSuggestProducts_Fallback() {
+        // Given
+        when(productSuggester.isReady()).thenReturn(false);
+        when(productDao.selectVisibleByNamePrefix("100\\%\\_", 10))
+                .thenReturn(Collections.singletonList(product(7L, LocalDateTime.now())));
+
+        // When
+        List<ProductSuggestion> result = productService.suggestProducts("100%_", 10);
+
+        // Then
+        assertEquals(7L, result.get(0).getId());
+        assertTrue(productService.suggestProducts("  ", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Price Facets - Equal-Width Inclusive Buckets from the In-Memory Snapshot")
+    void testGetPriceFacets_Snapshot() {
+        // Given
+        List<Product> products = new ArrayList<>();
+        for (String price : new String[]{"1.00", "2.50", "4.99", "5.00", "10.00"}) {
+            Product product = product((long) products.size() + 1, LocalDateTime.now());
+            product.setPrice(new BigDecimal(price));
+            products.add(product);
+        }
+        when(productColumnStore.getSnapshot()).thenReturn(ProductColumns.build(1L, products));
+
+        // When
+        PriceFacetResponse result = productService.getPriceFacets(null, true, 3);
+
+        // Then
+        assertEquals(5L, result.getTotal());
+        assertEquals(new BigDecimal("1.00"), result.getMinPrice());
+        assertEquals(new BigDecimal("10.00"), result.getMaxPrice());
+        assertEquals(3, result.getBuckets().size());
+        assertEquals(new BigDecimal("4.00"), result.getBuckets().get(0).getTo());
+        assertEquals(new BigDecimal("4.01"), result.getBuckets().get(1).getFrom());
+        assertEquals(new BigDecimal("10.00"), result.getBuckets().get(2).getTo());
+        assertEquals(2L, result.getBuckets().get(0).getCount());
+        assertEquals(2L, result.getBuckets().get(1).getCount());
+        assertEquals(1L, result.getBuckets().get(2).getCount());
+        verifyNoInteractions(productDao);
+    }
+
+    @Test
+    @DisplayName("Price Facets - SQL Fallback, Narrow Range Gets Fewer Buckets")
+    void testGetPriceFacets_Fallback() {
+        // Given
+        when(productColumnStore.getSnapshot()).thenReturn(null);
+        when(productDao.selectPrices("phone", null))
+                .thenReturn(Arrays.asList(new BigDecimal("9.99"), new BigDecimal("9.99"), new BigDecimal("10.00")));
+
+        // When
+        PriceFacetResponse result = productService.getPriceFacets("phone", null, 10);
+
+        // Then
+        assertEquals(2, result.getBuckets().size());
+        assertEquals(2L, result.getBuckets().get(0).getCount());
+        assertEquals(new BigDecimal("10.00"), result.getBuckets().get(1).getFrom());
+    }
+
+    @Test
+    @DisplayName("Get Products by IDs - Request Order Kept, Missing IDs Reported")
+    void testGetProductsByIds() {
+        // Given
+        when(productDao.selectByIds(Arrays.asList(3L, 1L, 2L)))
+                .thenReturn(Arrays.asList(product(1L, LocalDateTime.now()), product(3L, LocalDateTime.now())));
+
+        // When
+        ProductBatchResponse result = productService.getProductsByIds(Arrays.asList(3L, 1L, 3L, null, 2L));
+
+        // Then
+        assertEquals(Arrays.asList(3L, 1L), result.getProducts().stream().map(Product::getId).collect(Collectors.toList()));
+        assertEquals(Collections.singletonList(2L), result.getMissingIds());
+        verify(productDao, times(1)).selectByIds(anyList());
+    }
+
+    @Test
+    @DisplayName("Get Products by IDs - Too Many IDs Rejected")
+    void testGetProductsByIds_TooMany() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 201; id++) {
+            ids.add(id);
+        }
+
+        assertThrows(BusinessException.class, () -> productService.getProductsByIds(ids));
+        verifyNoInteractions(productDao);
+    }
+
+    @Test
+    @DisplayName("Get Product Changes - Next Watermark from Last Row, Deletions since Watermark")
+    void testGetProductChanges() {
+        // Given
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 12, 0);
+        Product first = product(4L, since);
+        first.setUpdatedAt(since.plusSeconds(5));
+        Product second = product(2L, since);
+        second.setUpdatedAt(since.plusSeconds(9));
+        when(productDao.selectChangedAfter(eq(since), eq(3L), anyInt(), eq(3)))
+                .thenReturn(Arrays.asList(first, second, product(8L, since)));
+        when(productDeletionLog.deletedSince(since)).thenReturn(Collections.singletonList(7L));
+        when(productDeletionLog.getHorizon()).thenReturn(since.minusHours(1));
+
+        // When
+        ProductChangesResponse result = productService.getProductChanges(new ChangeWatermark(since, 3L).encode(), 2);
+
+        // Then
+        assertEquals(Arrays.asList(4L, 2L), result.getProducts().stream().map(Product::getId).collect(Collectors.toList()));
+        assertTrue(result.isHasMore());
+        assertEquals(Collections.singletonList(7L), result.getDeletedIds());
+        assertTrue(result.isDeletionsComplete());
+        ChangeWatermark next = ChangeWatermark.decode(result.getWatermark());
+        assertEquals(since.plusSeconds(9), next.getUpdatedAt());
+        assertEquals(2L, next.getId());
+    }
+
+    @Test
+    @DisplayName("Get Product Changes - Nothing New Keeps Watermark, Deletions beyond Horizon Flagged")
+    void testGetProductChanges_NothingNew() {
+        // Given
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 12, 0);
+        String watermark = new ChangeWatermark(since, 3L).encode();
+        when(productDao.selectChangedAfter(eq(since), eq(3L), anyInt(), anyInt())).thenReturn(new ArrayList<>());
+        when(productDeletionLog.deletedSince(since)).thenReturn(new ArrayList<>());
+        when(productDeletionLog.getHorizon()).thenReturn(since.plusMinutes(1));
+
+        // When
+        ProductChangesResponse result = productService.getProductChanges(watermark, 100);
+
+        // Then
+        assertTrue(result.getProducts().isEmpty());
+        assertFalse(result.isHasMore());
+        assertEquals(watermark, result.getWatermark());
+        assertFalse(result.isDeletionsComplete());
+    }
+
+    @Test
+    @DisplayName("Get Product Changes - First Call with Nothing Changed Starts from the Database Clock")
+    void testGetProductChanges_FirstCall() {
+        // Given
+        LocalDateTime dbNow = LocalDateTime.of(2024, 1, 1, 12, 0);
+        when(productDao.selectChangedAfter(isNull(), isNull(), anyInt(), anyInt())).thenReturn(new ArrayList<>());
+        when(productDao.selectCurrentTime()).thenReturn(dbNow);
+
+        // When
+        ProductChangesResponse result = productService.getProductChanges(null, 100);
+
+        // Then
+        assertEquals(dbNow, ChangeWatermark.decode(result.getWatermark()).getUpdatedAt());
+        assertTrue(result.isDeletionsComplete());
+    }
+
+    @Test
+    @DisplayName("Get Product Changes - Invalid Watermark Rejected")
+    void testGetProductChanges_InvalidWatermark() {
+        assertThrows(BusinessException.class, () -> productService.getProductChanges("not-a-watermark", 100));
+        verifyNoInteractions(productDao);
+    }
+
+    private Product product(Long id, LocalDateTime createdAt) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setQuantity(1);
+        product.setVisible(true);
+        product.setCreatedAt(createdAt);
+        return product;
+    }
 } 
\ No newline at end of file
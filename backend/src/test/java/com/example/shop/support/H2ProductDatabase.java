@@ -0,0 +1,89 @@
+package com.example.shop.support;
+
+import com.example.shop.dao.ProductDao;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * In-Memory H2 Products Table Wired to the Real MyBatis Mappers
+ * For tests that need actual SQL (batching, cursors) without starting the Spring context.
+ */
+public class H2ProductDatabase {
+
+    private static final String PRODUCTS_DDL = "CREATE TABLE products ("
+            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "name VARCHAR(255) NOT NULL, "
+            + "price DECIMAL(10,2) NOT NULL DEFAULT 0, "
+            + "quantity INT NOT NULL DEFAULT 0, "
+            + "visible BOOLEAN NOT NULL DEFAULT TRUE, "
+            + "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+            + "updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+
+    private final DataSource dataSource;
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final DataSourceTransactionManager transactionManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public H2ProductDatabase(String name) throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        this.dataSource = h2;
+        this.jdbcTemplate = new JdbcTemplate(h2);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS products");
+        jdbcTemplate.execute(PRODUCTS_DDL);
+        jdbcTemplate.execute("CREATE INDEX idx_name ON products (name)");
+
+        org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+        factoryBean.setDataSource(h2);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml"));
+        this.sqlSessionFactory = factoryBean.getObject();
+        this.transactionManager = new DataSourceTransactionManager(h2);
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public SqlSessionFactory getSqlSessionFactory() {
+        return sqlSessionFactory;
+    }
+
+    public DataSourceTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    /**
+     * Mapper running each statement in its own (or the surrounding Spring) transaction
+     */
+    public ProductDao productDao() {
+        return mapper(ProductDao.class);
+    }
+
+    /**
+     * Any other mapper, its tables have to be created by the test
+     */
+    public <T> T mapper(Class<T> type) {
+        return new SqlSessionTemplate(sqlSessionFactory).getMapper(type);
+    }
+
+    public long countProducts() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+    }
+}